@@ -31,6 +31,8 @@ import static services.moleculer.util.CommonUtils.suggestDependency;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -503,11 +505,18 @@ public class ServiceBroker {
 
 		// Shutdown thread pools
 		if (config.isShutDownThreadPools()) {
-			ExecutorService executor = config.getExecutor();
-			if (executor != null && !executor.isShutdown() && !executor.isTerminated()) {
-				try {
-					executor.shutdownNow();
-				} catch (Exception ignored) {
+			Set<ExecutorService> executors = Collections.newSetFromMap(new IdentityHashMap<>());
+			executors.add(config.getExecutor());
+			executors.add(config.getTransporterExecutor());
+			executors.add(config.getRequestExecutor());
+			executors.add(config.getEventExecutor());
+			executors.add(config.getResponseExecutor());
+			for (ExecutorService executor : executors) {
+				if (executor != null && !executor.isShutdown() && !executor.isTerminated()) {
+					try {
+						executor.shutdownNow();
+					} catch (Exception ignored) {
+					}
 				}
 			}
 			logger.info("Task Executor Service stopped.");
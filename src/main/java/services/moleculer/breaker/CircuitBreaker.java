@@ -40,7 +40,9 @@ import services.moleculer.context.CallOptions.Options;
 import services.moleculer.context.Context;
 import services.moleculer.context.ContextFactory;
 import services.moleculer.service.ActionEndpoint;
+import services.moleculer.service.Hedger;
 import services.moleculer.service.Name;
+import services.moleculer.service.RemoteActionEndpoint;
 import services.moleculer.service.ServiceInvoker;
 import services.moleculer.service.ServiceRegistry;
 
@@ -87,6 +89,11 @@ public class CircuitBreaker extends ServiceInvoker {
 	 * Write exceptions into the log file
 	 */
 	protected boolean writeErrorsToLog = true;
+
+	/**
+	 * Hedged request handler (see {@link CallOptions.Options#hedgeDelay})
+	 */
+	protected Hedger hedger = new Hedger();
 	
 	// --- COMPONENTS ---
 
@@ -111,12 +118,16 @@ public class CircuitBreaker extends ServiceInvoker {
 		ServiceBrokerConfig cfg = broker.getConfig();
 		this.serviceRegistry = cfg.getServiceRegistry();
 		this.contextFactory = cfg.getContextFactory();
+
+		// Start hedger
+		hedger.started(broker);
 	}
 
 	// --- STOP BREAKER ---
 
 	@Override
 	public void stopped() {
+		hedger.stopped();
 		errorCounters.clear();
 		ignoredTypes.clear();
 	}
@@ -143,7 +154,7 @@ public class CircuitBreaker extends ServiceInvoker {
 		try {
 
 			// Get the first recommended Endpoint and Error Counter
-			ActionEndpoint action = (ActionEndpoint) serviceRegistry.getAction(name, targetID);
+			ActionEndpoint action = (ActionEndpoint) serviceRegistry.getAction(name, targetID, params);
 			String nodeID = action.getNodeID();
 			endpointKey = new EndpointKey(nodeID, name);
 			errorCounter = errorCounters.get(endpointKey);
@@ -186,28 +197,23 @@ public class CircuitBreaker extends ServiceInvoker {
 			// Create new Context
 			Context ctx = contextFactory.create(name, params, opts, parent);
 
-			// Invoke Endpoint
-			final ErrorCounter currentCounter = errorCounter;
-			final EndpointKey currentKey = endpointKey;
-			return Promise.resolve(action.handler(ctx)).then(rsp -> {
-
-				// Reset error counter
-				if (currentCounter != null) {
-					currentCounter.reset();
-				}
-
-				// Return response
-				return rsp;
-
-			}).catchError(cause -> {
+			// Invoke Endpoint (the hedged attempts are counted per endpoint)
+			Promise promise;
+			if (hedger.isHedged(opts, targetID, action)) {
+				promise = hedger.call(name, params, opts, parent, (RemoteActionEndpoint) action, ctx,
+						(endpoint, attemptCtx) -> {
+							EndpointKey key = new EndpointKey(endpoint.getNodeID(), name);
+							return invoke(endpoint, attemptCtx, errorCounters.get(key), key);
+						});
+			} else {
+				promise = invoke(action, ctx, errorCounter, endpointKey);
+			}
+			return promise.catchError(cause -> {
 
 				// Write error to log file
 				if (writeErrorsToLog) {
 					logger.error("Unexpected error occurred while invoking \"" + name + "\" action!", cause);
 				}
-				
-				// Increment error counter
-				increment(currentCounter, currentKey, cause, System.currentTimeMillis());
 
 				// Return with error
 				if (remaining < 1) {
@@ -238,6 +244,38 @@ public class CircuitBreaker extends ServiceInvoker {
 		}
 	}
 
+	// --- INVOKE ENDPOINT ---
+
+	/**
+	 * Invokes an Endpoint, and updates its Error Counter by the result.
+	 */
+	protected Promise invoke(ActionEndpoint action, Context ctx, ErrorCounter errorCounter, EndpointKey endpointKey) {
+		Promise promise;
+		try {
+			promise = Promise.resolve(action.handler(ctx));
+		} catch (Throwable cause) {
+			promise = Promise.reject(cause);
+		}
+		return promise.then(rsp -> {
+
+			// Reset error counter
+			if (errorCounter != null) {
+				errorCounter.reset();
+			}
+
+			// Return response
+			return rsp;
+
+		}).catchError(cause -> {
+
+			// Increment error counter
+			increment(errorCounter, endpointKey, cause, System.currentTimeMillis());
+
+			// Return with error
+			return cause;
+		});
+	}
+
 	// --- RETRY CALL ---
 
 	protected Promise retry(Throwable cause, String name, Tree params, CallOptions.Options opts, Context parent,
@@ -343,5 +381,13 @@ public class CircuitBreaker extends ServiceInvoker {
 	public void setWriteErrorsToLog(boolean writeErrorsToLog) {
 		this.writeErrorsToLog = writeErrorsToLog;
 	}
-	
+
+	public Hedger getHedger() {
+		return hedger;
+	}
+
+	public void setHedger(Hedger hedger) {
+		this.hedger = Objects.requireNonNull(hedger);
+	}
+
 }
\ No newline at end of file
@@ -134,7 +134,7 @@ public class RedisCacher extends DistributedCacher implements EventBus {
 
 		// Get components
 		ServiceBrokerConfig cfg = broker.getConfig();
-		executor = cfg.getExecutor();
+		executor = cfg.getTransporterExecutor();
 		scheduler = cfg.getScheduler();
 
 		// Default ttl
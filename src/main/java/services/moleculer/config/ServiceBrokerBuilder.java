@@ -85,6 +85,31 @@ public class ServiceBrokerBuilder {
 		return this;
 	}
 
+	public ServiceBrokerBuilder transporterExecutor(ExecutorService transporterExecutor) {
+		config.setTransporterExecutor(transporterExecutor);
+		return this;
+	}
+
+	public ServiceBrokerBuilder requestExecutor(ExecutorService requestExecutor) {
+		config.setRequestExecutor(requestExecutor);
+		return this;
+	}
+
+	public ServiceBrokerBuilder eventExecutor(ExecutorService eventExecutor) {
+		config.setEventExecutor(eventExecutor);
+		return this;
+	}
+
+	public ServiceBrokerBuilder responseExecutor(ExecutorService responseExecutor) {
+		config.setResponseExecutor(responseExecutor);
+		return this;
+	}
+
+	public ServiceBrokerBuilder virtualThreads(boolean virtualThreads) {
+		config.setVirtualThreads(virtualThreads);
+		return this;
+	}
+
 	public ServiceBrokerBuilder context(ContextFactory contextFactory) {
 		config.setContextFactory(contextFactory);
 		return this;
@@ -34,6 +34,9 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import services.moleculer.cacher.Cacher;
 import services.moleculer.cacher.MemoryCacher;
 import services.moleculer.context.ContextFactory;
@@ -52,16 +55,56 @@ import services.moleculer.transporter.NullTransporter;
 import services.moleculer.transporter.Transporter;
 import services.moleculer.uid.IncrementalUidGenerator;
 import services.moleculer.uid.UidGenerator;
+import services.moleculer.util.ExecutorUtils;
 
 public class ServiceBrokerConfig {
 
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(ServiceBrokerConfig.class);
+
 	// --- THREAD POOLS ---
 
 	protected ExecutorService executor;
 	protected ScheduledExecutorService scheduler;
 
+	/**
+	 * Executor of the Transporter's I/O callbacks and the deserialization of
+	 * the control packets (null = use the common executor)
+	 */
+	protected ExecutorService transporterExecutor;
+
+	/**
+	 * Executor of the incoming requests and local actions with timeout (null =
+	 * use the common executor). Rejected requests (eg. the queue is full) are
+	 * answered with a QueueIsFullError, so do not use a pool which silently
+	 * drops tasks (see ExecutorUtils.newBoundedThreadPool).
+	 */
+	protected ExecutorService requestExecutor;
+
+	/**
+	 * Executor of the incoming events and asynchronous local listeners (null =
+	 * use the common executor). When the queue of a PartitionedExecutor's lane
+	 * is full, the Transporter's reader thread is stalled (max. "maxWait"
+	 * milliseconds), and the other packets (eg. responses) are also delayed.
+	 */
+	protected ExecutorService eventExecutor;
+
+	/**
+	 * Executor of the incoming responses (null = use the Transporter's
+	 * executor). The responses are never dropped, the rejected ones are
+	 * processed by the Transporter's thread.
+	 */
+	protected ExecutorService responseExecutor;
+
 	protected boolean shutDownThreadPools = true;
 
+	/**
+	 * Invoke local actions and event listeners on virtual threads (requires
+	 * Java 21 or newer)
+	 */
+	protected boolean virtualThreads;
+
 	// --- PROPERTIES ---
 
 	protected String namespace = "";
@@ -170,6 +213,72 @@ public class ServiceBrokerConfig {
 		this.scheduler = Objects.requireNonNull(scheduler);
 	}
 
+	public ExecutorService getTransporterExecutor() {
+		return transporterExecutor == null ? executor : transporterExecutor;
+	}
+
+	public void setTransporterExecutor(ExecutorService transporterExecutor) {
+		this.transporterExecutor = transporterExecutor;
+	}
+
+	public ExecutorService getRequestExecutor() {
+		return requestExecutor == null ? executor : requestExecutor;
+	}
+
+	public void setRequestExecutor(ExecutorService requestExecutor) {
+		this.requestExecutor = requestExecutor;
+	}
+
+	public ExecutorService getEventExecutor() {
+		return eventExecutor == null ? executor : eventExecutor;
+	}
+
+	public void setEventExecutor(ExecutorService eventExecutor) {
+		this.eventExecutor = eventExecutor;
+	}
+
+	public ExecutorService getResponseExecutor() {
+		return responseExecutor == null ? getTransporterExecutor() : responseExecutor;
+	}
+
+	public void setResponseExecutor(ExecutorService responseExecutor) {
+		this.responseExecutor = responseExecutor;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Enables or disables the virtual thread mode. In this mode the local
+	 * actions and event listeners are invoked on virtual threads (so they can
+	 * make blocking calls, eg. JDBC queries), and the Transporter's I/O
+	 * callbacks are processed by a separate, bounded platform thread pool.
+	 * Requires Java 21 or newer (on older JVMs the common pool remains in use).
+	 * 
+	 * @param virtualThreads
+	 *            true = use virtual threads
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		if (this.virtualThreads == virtualThreads) {
+			return;
+		}
+		if (virtualThreads) {
+			ExecutorService virtualExecutor = ExecutorUtils.newVirtualThreadPerTaskExecutor();
+			if (virtualExecutor == null) {
+				logger.warn("Virtual threads are not supported by this JVM (Java 21 or newer required)!");
+				return;
+			}
+			executor = virtualExecutor;
+			int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+			transporterExecutor = ExecutorUtils.newBoundedThreadPool("moleculer-io", threads, threads * 1024, true);
+		} else {
+			executor = ForkJoinPool.commonPool();
+			transporterExecutor = null;
+		}
+		this.virtualThreads = virtualThreads;
+	}
+
 	public boolean isShutDownThreadPools() {
 		return shutDownThreadPools;
 	}
@@ -26,7 +26,8 @@
 package services.moleculer.context;
 
 /**
- * Calling options (timeout, target nodeID, number of retries). Usage:<br>
+ * Calling options (timeout, target nodeID, number of retries, hedging delay).
+ * Usage:<br>
  * 
  * <pre>
  * broker.call("math.add", "a", 3, "b", 5,
@@ -40,6 +41,13 @@ package services.moleculer.context;
  * <pre>
  * CallOptions.nodeID("node-2").timeout(500).retryCount(3);
  * </pre>
+ * 
+ * Hedged call of a read-only action (a duplicate request is sent to another
+ * node if there is no response within 50 milliseconds):<br>
+ * 
+ * <pre>
+ * broker.call("user.find", "id", 123, CallOptions.hedgeDelay(50));
+ * </pre>
  */
 public class CallOptions {
 
@@ -63,30 +71,57 @@ public class CallOptions {
 		 */
 		public final int retryCount;
 
-		// --- CONSTRUCTOR ---
+		/**
+		 * Hedging delay of remote calls (in milliseconds, 0 = disable hedging,
+		 * {@link CallOptions#HEDGE_P95} = use the 95th percentile of the
+		 * action's response time). If no response arrives within this delay,
+		 * the Service Invoker sends a duplicate request to another node, and
+		 * the first response wins. Use it only for read-only (idempotent)
+		 * actions.
+		 */
+		public final long hedgeDelay;
+
+		// --- CONSTRUCTORS ---
 
 		protected Options(String nodeID, long timeoutMillis, int retryCount) {
+			this(nodeID, timeoutMillis, retryCount, 0);
+		}
+
+		protected Options(String nodeID, long timeoutMillis, int retryCount, long hedgeDelayMillis) {
 			this.nodeID = nodeID;
 			this.timeout = timeoutMillis;
 			this.retryCount = retryCount;
+			this.hedgeDelay = hedgeDelayMillis;
 		}
 
 		// --- VARIABLE SETTERS ---
 
 		public Options nodeID(String nodeID) {
-			return new Options(nodeID, timeout, retryCount);
+			return new Options(nodeID, timeout, retryCount, hedgeDelay);
 		}
 
 		public Options timeout(long timeoutMillis) {
-			return new Options(nodeID, timeoutMillis, retryCount);
+			return new Options(nodeID, timeoutMillis, retryCount, hedgeDelay);
 		}
 
 		public Options retryCount(int retryCount) {
-			return new Options(nodeID, timeout, retryCount);
+			return new Options(nodeID, timeout, retryCount, hedgeDelay);
+		}
+
+		public Options hedgeDelay(long hedgeDelayMillis) {
+			return new Options(nodeID, timeout, retryCount, hedgeDelayMillis);
 		}
 
 	}
 
+	// --- CONSTANTS ---
+
+	/**
+	 * Hedging delay value: the delay is the 95th percentile of the measured
+	 * response times of the action.
+	 */
+	public static final long HEDGE_P95 = -1;
+
 	// --- HIDDEN CONSTRUTOR ---
 
 	protected CallOptions() {
@@ -106,4 +141,8 @@ public class CallOptions {
 		return new Options(null, 0, retryCount);
 	}
 
+	public static Options hedgeDelay(long hedgeDelayMillis) {
+		return new Options(null, 0, 0, hedgeDelayMillis);
+	}
+
 }
\ No newline at end of file
@@ -80,6 +80,12 @@ public class Context {
 	 */
 	public final long startTime;
 
+	/**
+	 * Numeric form of the context ID (set by the ContextFactory when the UID
+	 * generator supports numeric UIDs, -1 = not available)
+	 */
+	public long numericID = -1;
+
 	// --- COMPONENTS ---
 
 	protected final ServiceInvoker serviceInvoker;
@@ -32,6 +32,7 @@ import services.moleculer.error.MaxCallLevelError;
 import services.moleculer.eventbus.Eventbus;
 import services.moleculer.service.Name;
 import services.moleculer.service.ServiceInvoker;
+import services.moleculer.uid.CompactUidGenerator;
 import services.moleculer.uid.UidGenerator;
 
 /**
@@ -52,6 +53,7 @@ public class DefaultContextFactory extends ContextFactory {
 	protected ServiceInvoker serviceInvoker;
 	protected Eventbus eventbus;
 	protected UidGenerator uid;
+	protected CompactUidGenerator compactUid;
 
 	// --- START CONTEXT FACTORY ---
 
@@ -70,6 +72,7 @@ public class DefaultContextFactory extends ContextFactory {
 		serviceInvoker = cfg.getServiceInvoker();
 		eventbus = cfg.getEventbus();
 		uid = cfg.getUidGenerator();
+		compactUid = uid instanceof CompactUidGenerator ? (CompactUidGenerator) uid : null;
 	}
 
 	// --- CREATE CONTEXT ---
@@ -77,12 +80,23 @@ public class DefaultContextFactory extends ContextFactory {
 	@Override
 	public Context create(String name, Tree params, CallOptions.Options opts, Context parent) {
 
-		// Generate ID
-		String id = uid.nextUID();
+		// Generate ID (in numeric form, if the generator supports it)
+		String id;
+		long numericID;
+		if (compactUid == null) {
+			id = uid.nextUID();
+			numericID = -1;
+		} else {
+			numericID = compactUid.nextNumericUID();
+			id = compactUid.toUID(numericID);
+		}
 
 		// Create new Context
+		Context ctx;
 		if (parent == null) {
-			return new Context(serviceInvoker, eventbus, id, name, params, opts);
+			ctx = new Context(serviceInvoker, eventbus, id, name, params, opts);
+			ctx.numericID = numericID;
+			return ctx;
 		}
 
 		// Merge meta block
@@ -102,7 +116,9 @@ public class DefaultContextFactory extends ContextFactory {
 		}
 
 		// Create context (nested call)
-		return new Context(id, name, params, opts, parent);
+		ctx = new Context(id, name, params, opts, parent);
+		ctx.numericID = numericID;
+		return ctx;
 	}
 
 	@Override
@@ -45,9 +45,14 @@ public class QueueIsFullError extends MoleculerRetryableError {
 	// --- CONSTRUCTOR FOR LOCAL EXCEPTIONS ---
 
 	public QueueIsFullError(String nodeID, String action) {
-		super("Queue is full. Request '" + action + "' action on '" + nodeID + "' node is rejected.", null,
-				QUEUE_IS_FULL_ERROR, nodeID, 429, "QUEUE_FULL", "action", action);
-		this.action = action;
+		this(nodeID, action, false);
+	}
+
+	public QueueIsFullError(String nodeID, String name, boolean event) {
+		super(event ? "Queue is full. Event '" + name + "' to '" + nodeID + "' node is rejected."
+				: "Queue is full. Request '" + name + "' action on '" + nodeID + "' node is rejected.", null,
+				QUEUE_IS_FULL_ERROR, nodeID, 429, "QUEUE_FULL", event ? "event" : "action", name);
+		this.action = event ? null : name;
 	}
 
 	// --- CONSTRUCTOR FOR REMOTE EXCEPTIONS ---
@@ -137,7 +137,7 @@ public class DefaultEventbus extends Eventbus {
 		ServiceBrokerConfig cfg = broker.getConfig();
 		this.strategy = cfg.getStrategyFactory();
 		this.transporter = cfg.getTransporter();
-		this.executor = cfg.getExecutor();
+		this.executor = cfg.getEventExecutor();
 	}
 
 	// --- STOP EVENT BUS ---
@@ -301,15 +301,20 @@ public class DefaultEventbus extends Eventbus {
 
 	@Override
 	public void addListeners(Tree config) {
+		String nodeID;
+		if (config.getParent().isEnumeration()) {
+			nodeID = config.getRoot().get("sender", (String) null);
+		} else {
+			nodeID = config.getName();
+		}
+		addListeners(nodeID, config);
+	}
+
+	@Override
+	public void addListeners(String nodeID, Tree config) {
 		Tree events = config.get("events");
 		if (events != null && events.isMap()) {
 			String serviceName = Objects.requireNonNull(config.get("name", (String) null));
-			String nodeID;
-			if (config.getParent().isEnumeration()) {
-				nodeID = config.getRoot().get("sender", (String) null);
-			} else {
-				nodeID = config.getName();
-			}
 			writeLock.lock();
 			try {
 				for (Tree listenerConfig : events) {
@@ -385,6 +390,54 @@ public class DefaultEventbus extends Eventbus {
 		}
 	}
 
+	// --- REMOVE LISTENERS OF A REMOTE SERVICE ---
+
+	@Override
+	public void removeListeners(String nodeID, Tree config) {
+		Tree events = config.get("events");
+		if (events == null || !events.isMap()) {
+			return;
+		}
+		String serviceName = Objects.requireNonNull(config.get("name", (String) null));
+		boolean found = false;
+		writeLock.lock();
+		try {
+			for (Tree listenerConfig : events) {
+				String subscribe = listenerConfig.get("name", "");
+				String group = listenerConfig.get("group", serviceName);
+				HashMap<String, Strategy<ListenerEndpoint>> groups = listeners.get(subscribe);
+				if (groups == null) {
+					continue;
+				}
+				Strategy<ListenerEndpoint> listenerStrategy = groups.get(group);
+				if (listenerStrategy == null) {
+					continue;
+				}
+				RemoteListenerEndpoint endpoint = new RemoteListenerEndpoint(transporter, nodeID, serviceName, group,
+						subscribe);
+				if (listenerStrategy.removeEndpoint(endpoint)) {
+					found = true;
+					if (listenerStrategy.isEmpty()) {
+						groups.remove(group);
+						if (groups.isEmpty()) {
+							listeners.remove(subscribe);
+						}
+					}
+				}
+			}
+		} finally {
+
+			// Clear caches
+			if (found) {
+				emitterCache.clear();
+				broadcasterCache.clear();
+				localBroadcasterCache.clear();
+			}
+
+			writeLock.unlock();
+		}
+	}
+
 	// --- SEND EVENT TO ONE LISTENER IN THE SPECIFIED GROUP ---
 
 	@Override
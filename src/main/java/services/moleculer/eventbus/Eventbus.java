@@ -52,10 +52,16 @@ public abstract class Eventbus extends MoleculerComponent {
 
 	public abstract void addListeners(Tree config);
 
+	public abstract void addListeners(String nodeID, Tree config);
+
 	// --- REMOVE ALL LISTENERS OF A NODE ---
 
 	public abstract void removeListeners(String nodeID);
 
+	// --- REMOVE LISTENERS OF A REMOTE SERVICE ---
+
+	public abstract void removeListeners(String nodeID, Tree config);
+
 	// --- SEND EVENT TO ONE LISTENER IN THE SPECIFIED GROUP ---
 
 	public abstract void emit(String name, Tree payload, Groups groups, boolean local);
@@ -28,6 +28,7 @@ package services.moleculer.eventbus;
 import java.util.concurrent.ExecutorService;
 
 import io.datatree.Tree;
+import services.moleculer.util.PartitionedExecutor;
 
 public class LocalListenerEndpoint extends ListenerEndpoint {
 
@@ -64,13 +65,20 @@ public class LocalListenerEndpoint extends ListenerEndpoint {
 
 		// A.) Async invocation
 		if (asyncLocalInvocation) {
-			executor.execute(() -> {
+			Runnable task = () -> {
 				try {
 					listener.on(payload);
 				} catch (Exception cause) {
 					logger.warn("Unable to invoke local listener!", cause);
 				}
-			});
+			};
+			if (executor instanceof PartitionedExecutor) {
+
+				// Ordered invocation per partition
+				((PartitionedExecutor) executor).execute(nodeID, name, payload, task);
+			} else {
+				executor.execute(task);
+			}
 			return;
 		}
 
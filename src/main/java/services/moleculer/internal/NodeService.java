@@ -27,6 +27,7 @@ package services.moleculer.internal;
 
 import static services.moleculer.util.CommonUtils.getHostName;
 import static services.moleculer.util.CommonUtils.getNodeInfos;
+import static services.moleculer.util.ExecutorUtils.getStatistics;
 
 import java.text.SimpleDateFormat;
 import java.time.Instant;
@@ -39,8 +40,10 @@ import java.util.TimeZone;
 import io.datatree.Tree;
 import services.moleculer.ServiceBroker;
 import services.moleculer.config.ServiceBrokerConfig;
+import services.moleculer.error.MoleculerError;
 import services.moleculer.monitor.Monitor;
 import services.moleculer.service.Action;
+import services.moleculer.service.DefaultServiceRegistry;
 import services.moleculer.service.Name;
 import services.moleculer.service.Service;
 import services.moleculer.transporter.TcpTransporter;
@@ -64,6 +67,7 @@ public class NodeService extends Service {
 
 	protected Transporter transporter;
 	protected Monitor monitor;
+	protected DefaultServiceRegistry registry;
 
 	// --- ACTIONS ---
 
@@ -364,6 +368,13 @@ public class NodeService extends Service {
 				map.put("lastHeartbeatTime", transporter.getLastHeartbeatTime(nodeID));
 				map.put("cpu", transporter.getCpuUsage(nodeID));
 				map.put("port", info.get("port", 0));
+				if (transporter instanceof TcpTransporter) {
+
+					// Depth of the outgoing queue
+					TcpTransporter tt = (TcpTransporter) transporter;
+					map.put("queuedPackets", tt.getQueuedPackets(nodeID));
+					map.put("queuedBytes", tt.getQueuedBytes(nodeID));
+				}
 			}
 			map.copyFrom(info, (child) -> {
 				String name = child.getName();
@@ -442,6 +453,46 @@ public class NodeService extends Service {
 		return list;
 	};
 
+	/**
+	 * Implementation of the "$node.weight" action. Returns the routing weight
+	 * of this node, or changes it at runtime (eg. "weight: 5" for canary nodes,
+	 * "weight: 0" to drain the node).
+	 */
+	public Action weight = (ctx) -> {
+		if (registry == null) {
+			throw new MoleculerError("Weighted routing requires DefaultServiceRegistry!", localNodeID, false, 501,
+					"NOT_SUPPORTED", null);
+		}
+
+		// Change weight
+		Tree value = ctx.params.get("weight");
+		if (value != null && !value.isNull()) {
+			registry.setWeight(value.asInteger());
+		}
+
+		// Create response structure
+		Tree root = new Tree();
+		root.put("weight", registry.getWeight());
+		return root;
+	};
+
+	/**
+	 * Implementation of the "$node.executors" action. Returns the queue depths
+	 * and thread counts of the executors (per subsystem).
+	 */
+	public Action executors = (ctx) -> {
+		ServiceBrokerConfig cfg = broker.getConfig();
+
+		// Create response structure
+		Tree root = new Tree();
+		root.putObject("common", getStatistics(cfg.getExecutor()));
+		root.putObject("transporter", getStatistics(cfg.getTransporterExecutor()));
+		root.putObject("request", getStatistics(cfg.getRequestExecutor()));
+		root.putObject("event", getStatistics(cfg.getEventExecutor()));
+		root.putObject("response", getStatistics(cfg.getResponseExecutor()));
+		return root;
+	};
+
 	// --- START SERVICE ---
 
 	@Override
@@ -453,6 +504,9 @@ public class NodeService extends Service {
 		this.transporter = cfg.getTransporter();
 		this.monitor = cfg.getMonitor();
 		this.localNodeID = broker.getNodeID();
+		if (cfg.getServiceRegistry() instanceof DefaultServiceRegistry) {
+			this.registry = (DefaultServiceRegistry) cfg.getServiceRegistry();
+		}
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,482 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.datatree.Tree;
+import services.moleculer.service.Name;
+
+/**
+ * <b>Adaptive serializer</b><br>
+ * <br>
+ * Measures the speed of the available serializers (JSON, MessagePack, CBOR,
+ * SMILE, BSON, ION) on typical Moleculer packets at startup (in a background
+ * thread, started by the Transporter), and advertises the ranking in the node
+ * descriptor ("serializers" property). Until the measurement ends, the node
+ * advertises and uses JSON only. The format of the
+ * packets sent to a peer is negotiated by the rankings of both nodes (the
+ * format with the best summarized rank is used, supported by both nodes). The
+ * first byte of each packet marks the format, so this serializer is NOT
+ * COMPATIBLE with the JavaScript/Node version of Moleculer, and all nodes must
+ * use the AdaptiveSerializer. Packets of unknown nodes and discovery packets
+ * are serialized with JSON (until the descriptors of the peers are received),
+ * so the nodes may have different formats on their classpath. Usage:
+ *
+ * <pre>
+ * Transporter transporter = new TcpTransporter();
+ * transporter.setSerializer(new AdaptiveSerializer());
+ * </pre>
+ *
+ * @see JsonSerializer
+ * @see MsgPackSerializer
+ */
+@Name("Adaptive Serializer")
+public class AdaptiveSerializer extends Serializer {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(AdaptiveSerializer.class);
+
+	// --- FORMAT IDS (INDEX + 1) ---
+
+	protected static final String[] FORMATS = { "json", "msgpack", "cbor", "smile", "bson", "ion" };
+
+	/**
+	 * Ranking before the measurement
+	 */
+	protected static final String[] JSON_ONLY = { "json" };
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Candidate formats
+	 */
+	protected String[] formats = FORMATS;
+
+	/**
+	 * Max time of the startup measurement, in milliseconds
+	 */
+	protected long benchmarkTime = 500;
+
+	// --- SERIALIZERS BY FORMAT ID ---
+
+	protected final Serializer[] serializers = new Serializer[FORMATS.length];
+
+	// --- LOCAL RANKING (FASTEST FIRST) ---
+
+	protected volatile String[] ranking;
+
+	/**
+	 * Background measurement is started
+	 */
+	protected final AtomicBoolean benchmarkStarted = new AtomicBoolean();
+
+	// --- NEGOTIATED FORMATS ---
+
+	/**
+	 * Advertised rankings of the peers
+	 */
+	protected final ConcurrentHashMap<String, String[]> peerRankings = new ConcurrentHashMap<>();
+
+	/**
+	 * Negotiated formats by node IDs
+	 */
+	protected final ConcurrentHashMap<String, Integer> peerFormats = new ConcurrentHashMap<>();
+
+	/**
+	 * Format of the broadcasted packets (supported by all known peers, JSON
+	 * until the first ranking arrives)
+	 */
+	protected volatile int commonFormat = 1;
+
+	// --- CONSTRUCTOR ---
+
+	public AdaptiveSerializer() {
+		super("json");
+		serializers[0] = new JsonSerializer();
+	}
+
+	// --- SERIALIZE TREE TO BYTE ARRAY ---
+
+	@Override
+	public byte[] write(Tree value) throws Exception {
+		return write(value, commonFormat);
+	}
+
+	/**
+	 * Serializes a packet with the negotiated format of the target node. The
+	 * packets of unknown nodes (which have not advertised their rankings yet)
+	 * are serialized with JSON.
+	 * 
+	 * @param value
+	 *            packet
+	 * @param nodeID
+	 *            target node ID
+	 * 
+	 * @return serialized packet
+	 * 
+	 * @throws Exception
+	 *             any serialization error
+	 */
+	public byte[] write(Tree value, String nodeID) throws Exception {
+		Integer id = nodeID == null ? null : peerFormats.get(nodeID);
+		return write(value, id == null ? 1 : id);
+	}
+
+	protected byte[] write(Tree value, int id) throws Exception {
+		byte[] bytes = serializers[id - 1].write(value);
+		byte[] packet = new byte[bytes.length + 1];
+		packet[0] = (byte) id;
+		System.arraycopy(bytes, 0, packet, 1, bytes.length);
+		return packet;
+	}
+
+	// --- DESERIALIZE BYTE ARRAY TO TREE ---
+
+	@Override
+	public Tree read(byte[] source) throws Exception {
+		int id = source.length == 0 ? 0 : source[0];
+		if (id < 1 || id > FORMATS.length) {
+			throw new IllegalArgumentException("Invalid format ID (" + id + ")!");
+		}
+		Serializer serializer = serializers[id - 1];
+		if (serializer == null) {
+			throw new IllegalStateException("Unsupported format (" + FORMATS[id - 1] + ")!");
+		}
+		return serializer.read(Arrays.copyOfRange(source, 1, source.length));
+	}
+
+	// --- MEASURE SERIALIZERS ---
+
+	/**
+	 * Returns the supported formats, ordered by speed.
+	 * 
+	 * @return supported formats (fastest first), or JSON only, if the
+	 *         measurement has not finished yet
+	 */
+	public String[] getRanking() {
+		String[] r = ranking;
+		return r == null ? JSON_ONLY : r;
+	}
+
+	/**
+	 * Starts the measurement in a background (daemon) thread, so the first
+	 * packets are not delayed by the benchmark (they are sent with JSON).
+	 * 
+	 * @param finished
+	 *            called when the measurement ends (eg. to advertise the new
+	 *            ranking)
+	 */
+	public void startBenchmark(Runnable finished) {
+		if (ranking != null || !benchmarkStarted.compareAndSet(false, true)) {
+			return;
+		}
+		Thread thread = new Thread(() -> {
+			try {
+				benchmark();
+				finished.run();
+			} catch (Throwable cause) {
+				logger.warn("Unable to measure serializers!", cause);
+			}
+		}, "moleculer-serializer-benchmark");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Measures the serializers (if they have not been measured yet), and
+	 * renegotiates the formats of the known peers.
+	 * 
+	 * @return supported formats (fastest first)
+	 */
+	public String[] benchmark() {
+		String[] r = ranking;
+		if (r != null) {
+			return r;
+		}
+		synchronized (this) {
+			r = ranking;
+			if (r == null) {
+				r = measure();
+				ranking = r;
+				for (Map.Entry<String, String[]> entry : peerRankings.entrySet()) {
+					negotiate(entry.getKey(), entry.getValue(), r);
+				}
+				updateCommonFormat(r);
+			}
+		}
+		return r;
+	}
+
+	protected String[] measure() {
+		Tree[] samples = createSamples();
+		LinkedList<String> available = new LinkedList<>();
+		LinkedList<Double> scores = new LinkedList<>();
+		long timePerFormat = Math.max(1, benchmarkTime / Math.max(1, formats.length));
+		for (String format : formats) {
+			int id = indexOf(format) + 1;
+			if (id == 0) {
+				logger.warn("Unsupported format (" + format + ")!");
+				continue;
+			}
+			Serializer serializer;
+			double score;
+			try {
+				serializer = new Serializer(format) {
+				};
+
+				// Check compatibility
+				for (Tree sample : samples) {
+					Tree copy = serializer.read(serializer.write(sample));
+					if (!sample.toString(false).equals(copy.toString(false))) {
+						throw new IllegalStateException("Invalid deserialization!");
+					}
+				}
+
+				// Measure speed (packets per millisecond)
+				score = measure(serializer, samples, timePerFormat);
+
+			} catch (Throwable notAvailable) {
+				logger.debug("Serializer \"" + format + "\" is not available.", notAvailable);
+				continue;
+			}
+			serializers[id - 1] = serializer;
+
+			// Insert into the sorted list
+			int i = 0;
+			while (i < scores.size() && scores.get(i) >= score) {
+				i++;
+			}
+			scores.add(i, score);
+			available.add(i, format);
+		}
+		if (!available.contains("json")) {
+
+			// JSON is required (this is the default format)
+			serializers[0] = new JsonSerializer();
+			available.add("json");
+		}
+		logger.info("Measured serializers (fastest first): " + available + ".");
+		return available.toArray(new String[available.size()]);
+	}
+
+	protected double measure(Serializer serializer, Tree[] samples, long time) throws Exception {
+		long start = System.nanoTime();
+		long end = start + time * 1000000L;
+		long count = 0;
+		long now;
+		do {
+			for (Tree sample : samples) {
+				serializer.read(serializer.write(sample));
+			}
+			count += samples.length;
+			now = System.nanoTime();
+		} while (now < end);
+		return count * 1000000d / Math.max(1, now - start);
+	}
+
+	protected Tree[] createSamples() {
+		Tree req = new Tree();
+		req.put("ver", "4");
+		req.put("sender", "node-1");
+		req.put("id", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		req.put("action", "user.find");
+		req.putMap("params").put("id", 123).put("fields", "name,email");
+		req.put("timeout", 5000);
+		req.put("level", 1);
+
+		Tree rsp = new Tree();
+		rsp.put("ver", "4");
+		rsp.put("sender", "node-2");
+		rsp.put("id", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		rsp.put("success", true);
+		Tree data = rsp.putMap("data");
+		data.put("id", 123).put("name", "John Doe").put("email", "john.doe@example.com");
+		data.put("score", 12.5d).put("active", true);
+
+		Tree evt = new Tree();
+		evt.put("ver", "4");
+		evt.put("sender", "node-1");
+		evt.put("event", "user.created");
+		evt.putList("groups").add("mail").add("audit");
+		evt.putMap("data").put("id", 123).put("name", "John Doe");
+		return new Tree[] { req, rsp, evt };
+	}
+
+	protected static int indexOf(String format) {
+		for (int i = 0; i < FORMATS.length; i++) {
+			if (FORMATS[i].equals(format)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// --- NEGOTIATION ---
+
+	/**
+	 * Stores the advertised ranking of a peer, and negotiates the format of
+	 * the packets sent to this peer.
+	 * 
+	 * @param nodeID
+	 *            node ID of the peer
+	 * @param rankingOfPeer
+	 *            advertised ranking ("serializers" property of the descriptor)
+	 */
+	public synchronized void setPeerRanking(String nodeID, Tree rankingOfPeer) {
+		if (rankingOfPeer == null || rankingOfPeer.isEmpty()) {
+			return;
+		}
+		String[] local = getRanking();
+		String[] remote = new String[rankingOfPeer.size()];
+		int i = 0;
+		for (Tree format : rankingOfPeer) {
+			remote[i++] = format.asString();
+		}
+		String[] prev = peerRankings.put(nodeID, remote);
+		if (prev != null && Arrays.equals(prev, remote)) {
+			return;
+		}
+		negotiate(nodeID, remote, local);
+		updateCommonFormat(local);
+	}
+
+	protected void negotiate(String nodeID, String[] remote, String[] local) {
+
+		// Find the best summarized rank
+		int best = -1;
+		int bestRank = Integer.MAX_VALUE;
+		for (int i = 0; i < local.length; i++) {
+			int j = Arrays.asList(remote).indexOf(local[i]);
+			if (j > -1 && i + j < bestRank) {
+				best = i;
+				bestRank = i + j;
+			}
+		}
+		if (best == -1) {
+			peerFormats.remove(nodeID);
+		} else {
+			peerFormats.put(nodeID, indexOf(local[best]) + 1);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Negotiated format with \"" + nodeID + "\" node: " + local[best] + ".");
+			}
+		}
+	}
+
+	/**
+	 * Removes the ranking and the negotiated format of a disconnected peer.
+	 * 
+	 * @param nodeID
+	 *            node ID of the peer
+	 */
+	public void removePeer(String nodeID) {
+		peerFormats.remove(nodeID);
+		if (peerRankings.remove(nodeID) != null) {
+			updateCommonFormat(getRanking());
+		}
+	}
+
+	protected synchronized void updateCommonFormat(String[] local) {
+
+		// Best format supported by all known peers
+		int common = 1;
+		if (!peerRankings.isEmpty()) {
+			for (String format : local) {
+				boolean supported = true;
+				for (Map.Entry<String, String[]> entry : peerRankings.entrySet()) {
+					if (!Arrays.asList(entry.getValue()).contains(format)) {
+						supported = false;
+						break;
+					}
+				}
+				if (supported) {
+					common = indexOf(format) + 1;
+					break;
+				}
+			}
+		}
+		commonFormat = common;
+	}
+
+	/**
+	 * Returns the negotiated format of a peer.
+	 * 
+	 * @param nodeID
+	 *            node ID of the peer
+	 * 
+	 * @return format name (eg. "msgpack")
+	 */
+	public String getFormat(String nodeID) {
+		Integer id = peerFormats.get(nodeID);
+		return FORMATS[(id == null ? 1 : id) - 1];
+	}
+
+	/**
+	 * Returns the format of the broadcasted packets.
+	 * 
+	 * @return format name (eg. "json")
+	 */
+	@Override
+	public String getFormat() {
+		return FORMATS[commonFormat - 1];
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public String[] getFormats() {
+		return formats;
+	}
+
+	public void setFormats(String[] formats) {
+		ArrayList<String> list = new ArrayList<>(formats.length);
+		for (String format : formats) {
+			format = format.trim().toLowerCase();
+			if (indexOf(format) == -1) {
+				throw new IllegalArgumentException("Unsupported format (" + format + ")!");
+			}
+			list.add(format);
+		}
+		this.formats = list.toArray(new String[list.size()]);
+	}
+
+	public long getBenchmarkTime() {
+		return benchmarkTime;
+	}
+
+	public void setBenchmarkTime(long benchmarkTime) {
+		this.benchmarkTime = benchmarkTime;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,633 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Compiled schema of a request ("params") or response ("data") block. The
+ * schema-encoded message contains no field names: a structure is written as a
+ * "presence" bitmap followed by the values of the present fields (in the order
+ * of the schema). Integers are written as zig-zag varints, doubles as 8 bytes,
+ * strings and binaries with a varint length prefix. A value that doesn't fit
+ * the schema (unknown field, null value, different type) makes the whole block
+ * "not encodable" - in this case the serializer falls back to the schemaless
+ * format.
+ *
+ * @see SchemaRegistry
+ * @see SchemaSerializer
+ */
+public class MessageSchema {
+
+	// --- TYPE CODES ---
+
+	protected static final byte BOOLEAN = 1;
+	protected static final byte INT = 2;
+	protected static final byte LONG = 3;
+	protected static final byte DOUBLE = 4;
+	protected static final byte STRING = 5;
+	protected static final byte BINARY = 6;
+	protected static final byte STRUCT = 7;
+	protected static final byte ARRAY = 8;
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Schema ID (hash of the action name, the message field and the schema)
+	 */
+	protected final int id;
+
+	/**
+	 * Name of the action
+	 */
+	protected final String action;
+
+	/**
+	 * Schema-encoded field of the packet ("params" or "data")
+	 */
+	protected final String field;
+
+	/**
+	 * Normalized definition of the schema
+	 */
+	protected final String definition;
+
+	/**
+	 * Root type
+	 */
+	protected final Type root;
+
+	// --- CONSTRUCTOR ---
+
+	public MessageSchema(String action, String field, String definition) {
+		this.action = action;
+		this.field = field;
+		this.root = new Parser(definition).parse();
+		this.definition = root.toString();
+
+		// FNV-1a hash (it must be the same on all nodes)
+		int hash = 0x811c9dc5;
+		String text = action + '\n' + field + '\n' + this.definition;
+		for (int i = 0; i < text.length(); i++) {
+			hash ^= text.charAt(i);
+			hash *= 0x01000193;
+		}
+		this.id = hash;
+	}
+
+	// --- ENCODER ---
+
+	/**
+	 * Encodes the specified value (without field names).
+	 *
+	 * @param value
+	 *            value of the "params" or "data" field
+	 * @param out
+	 *            output buffer
+	 *
+	 * @return true = encoded, false = the value doesn't fit the schema
+	 */
+	public boolean encode(Object value, Output out) {
+		if (value == null) {
+			out.write(0);
+			return true;
+		}
+		out.write(1);
+		return encode(root, value, out);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected boolean encode(Type type, Object value, Output out) {
+		switch (type.code) {
+		case BOOLEAN:
+			if (value instanceof Boolean) {
+				out.write((Boolean) value ? 1 : 0);
+				return true;
+			}
+			return false;
+		case INT:
+			if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				out.writeVarLong(((Number) value).intValue());
+				return true;
+			}
+			return false;
+		case LONG:
+			if (value instanceof Long || value instanceof Integer || value instanceof Short
+					|| value instanceof Byte) {
+				out.writeVarLong(((Number) value).longValue());
+				return true;
+			}
+			return false;
+		case DOUBLE:
+			if (value instanceof Double || value instanceof Float) {
+				out.writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+				return true;
+			}
+			return false;
+		case STRING:
+			if (value instanceof String) {
+				out.writeBytes(((String) value).getBytes(UTF_8));
+				return true;
+			}
+			return false;
+		case BINARY:
+			if (value instanceof byte[]) {
+				out.writeBytes((byte[]) value);
+				return true;
+			}
+			return false;
+		case STRUCT:
+			if (value instanceof Map) {
+				return encodeStruct(type, (Map<String, Object>) value, out);
+			}
+			return false;
+		case ARRAY:
+			if (value instanceof Collection) {
+				Collection<Object> list = (Collection<Object>) value;
+				out.writeVarLong(list.size());
+				for (Object item : list) {
+					if (item == null || !encode(type.element, item, out)) {
+						return false;
+					}
+				}
+				return true;
+			}
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	protected boolean encodeStruct(Type type, Map<String, Object> map, Output out) {
+		String[] names = type.names;
+		Object[] values = new Object[names.length];
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			int index = type.indexOf(entry.getKey());
+			Object value = entry.getValue();
+			if (index < 0 || value == null) {
+				return false;
+			}
+			values[index] = value;
+		}
+
+		// Presence bitmap
+		for (int i = 0; i < names.length; i += 8) {
+			int bits = 0;
+			for (int j = 0; j < 8 && i + j < names.length; j++) {
+				if (values[i + j] != null) {
+					bits |= 1 << j;
+				}
+			}
+			out.write(bits);
+		}
+
+		// Values
+		for (int i = 0; i < names.length; i++) {
+			if (values[i] != null && !encode(type.fields[i], values[i], out)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// --- DECODER ---
+
+	/**
+	 * Decodes a schema-encoded block. Structures are decoded into
+	 * {@link SchemaMap}s, which share the field names with the schema.
+	 *
+	 * @param in
+	 *            input buffer
+	 *
+	 * @return decoded value
+	 */
+	public Object decode(Input in) {
+		if (in.read() == 0) {
+			return null;
+		}
+		return decode(root, in);
+	}
+
+	protected Object decode(Type type, Input in) {
+		switch (type.code) {
+		case BOOLEAN:
+			return in.read() != 0;
+		case INT:
+			return (int) in.readVarLong();
+		case LONG:
+			return in.readVarLong();
+		case DOUBLE:
+			return Double.longBitsToDouble(in.readLong());
+		case STRING:
+			int len = in.readLength();
+			String text = new String(in.buffer, in.pos, len, UTF_8);
+			in.pos += len;
+			return text;
+		case BINARY:
+			len = in.readLength();
+			byte[] bytes = new byte[len];
+			System.arraycopy(in.buffer, in.pos, bytes, 0, len);
+			in.pos += len;
+			return bytes;
+		case STRUCT:
+			String[] names = type.names;
+			Object[] values = new Object[names.length];
+			int size = 0;
+			int bits = 0;
+			for (int i = 0; i < names.length; i++) {
+				if (i % 8 == 0) {
+					bits = in.read();
+				}
+				if ((bits & (1 << (i % 8))) != 0) {
+					values[i] = Boolean.TRUE;
+				}
+			}
+			for (int i = 0; i < names.length; i++) {
+				if (values[i] != null) {
+					values[i] = decode(type.fields[i], in);
+					size++;
+				}
+			}
+			return new SchemaMap(names, values, size);
+		case ARRAY:
+			len = in.readLength();
+			ArrayList<Object> list = new ArrayList<>(len);
+			for (int i = 0; i < len; i++) {
+				list.add(decode(type.element, in));
+			}
+			return list;
+		default:
+			throw new IllegalArgumentException("Invalid type code (" + type.code + ")!");
+		}
+	}
+
+	// --- TYPE OF A VALUE ---
+
+	protected static final class Type {
+
+		protected final byte code;
+
+		protected final Type element;
+
+		protected final String[] names;
+		protected final Type[] fields;
+
+		protected Type(byte code, Type element, String[] names, Type[] fields) {
+			this.code = code;
+			this.element = element;
+			this.names = names;
+			this.fields = fields;
+		}
+
+		protected int indexOf(String name) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equals(name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public String toString() {
+			switch (code) {
+			case BOOLEAN:
+				return "boolean";
+			case INT:
+				return "int";
+			case LONG:
+				return "long";
+			case DOUBLE:
+				return "double";
+			case STRING:
+				return "string";
+			case BINARY:
+				return "binary";
+			case ARRAY:
+				return element + "[]";
+			default:
+				StringBuilder tmp = new StringBuilder(64);
+				tmp.append('{');
+				for (int i = 0; i < names.length; i++) {
+					if (i > 0) {
+						tmp.append(',');
+					}
+					tmp.append(names[i]).append(':').append(fields[i]);
+				}
+				return tmp.append('}').toString();
+			}
+		}
+
+	}
+
+	// --- SCHEMA PARSER ---
+
+	protected static final class Parser {
+
+		protected final String text;
+
+		protected int pos;
+
+		protected Parser(String text) {
+			this.text = text.trim();
+		}
+
+		protected Type parse() {
+			Type type;
+			if (text.startsWith("{") || text.indexOf(':') == -1) {
+				type = parseType();
+			} else {
+				type = parseStruct((char) 0);
+			}
+			skipWhitespaces();
+			if (pos < text.length()) {
+				throw invalid();
+			}
+			return type;
+		}
+
+		protected Type parseType() {
+			skipWhitespaces();
+			Type type;
+			if (pos < text.length() && text.charAt(pos) == '{') {
+				pos++;
+				type = parseStruct('}');
+			} else {
+				String name = parseName();
+				switch (name) {
+				case "boolean":
+					type = new Type(BOOLEAN, null, null, null);
+					break;
+				case "int":
+					type = new Type(INT, null, null, null);
+					break;
+				case "long":
+					type = new Type(LONG, null, null, null);
+					break;
+				case "double":
+					type = new Type(DOUBLE, null, null, null);
+					break;
+				case "string":
+					type = new Type(STRING, null, null, null);
+					break;
+				case "binary":
+					type = new Type(BINARY, null, null, null);
+					break;
+				default:
+					throw invalid();
+				}
+			}
+			skipWhitespaces();
+			while (text.startsWith("[]", pos)) {
+				pos += 2;
+				type = new Type(ARRAY, type, null, null);
+				skipWhitespaces();
+			}
+			return type;
+		}
+
+		protected Type parseStruct(char end) {
+			ArrayList<String> names = new ArrayList<>();
+			ArrayList<Type> fields = new ArrayList<>();
+			HashSet<String> set = new HashSet<>();
+			while (true) {
+				skipWhitespaces();
+				if (pos == text.length()) {
+					if (end == 0) {
+						break;
+					}
+					throw invalid();
+				}
+				if (text.charAt(pos) == end) {
+					break;
+				}
+				if (!names.isEmpty()) {
+					if (text.charAt(pos) != ',') {
+						throw invalid();
+					}
+					pos++;
+					skipWhitespaces();
+				}
+				String name = parseName();
+				skipWhitespaces();
+				if (pos == text.length() || text.charAt(pos) != ':' || !set.add(name)) {
+					throw invalid();
+				}
+				pos++;
+				names.add(name);
+				fields.add(parseType());
+			}
+			if (names.isEmpty()) {
+				throw invalid();
+			}
+			if (end != 0) {
+				pos++;
+			}
+			return new Type(STRUCT, null, names.toArray(new String[names.size()]),
+					fields.toArray(new Type[fields.size()]));
+		}
+
+		protected String parseName() {
+			int start = pos;
+			while (pos < text.length()) {
+				char c = text.charAt(pos);
+				if (!Character.isJavaIdentifierPart(c) && c != '-' && c != '$') {
+					break;
+				}
+				pos++;
+			}
+			if (start == pos) {
+				throw invalid();
+			}
+			return text.substring(start, pos);
+		}
+
+		protected void skipWhitespaces() {
+			while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+				pos++;
+			}
+		}
+
+		protected IllegalArgumentException invalid() {
+			return new IllegalArgumentException("Invalid schema definition at position " + pos + ": " + text);
+		}
+
+	}
+
+	// --- OUTPUT BUFFER ---
+
+	public static final class Output {
+
+		protected byte[] buffer;
+		protected int pos;
+
+		public Output(int initialSize) {
+			buffer = new byte[initialSize];
+		}
+
+		protected void ensure(int count) {
+			if (pos + count > buffer.length) {
+				byte[] copy = new byte[Math.max(buffer.length * 2, pos + count)];
+				System.arraycopy(buffer, 0, copy, 0, pos);
+				buffer = copy;
+			}
+		}
+
+		public void write(int b) {
+			ensure(1);
+			buffer[pos++] = (byte) b;
+		}
+
+		public void write(byte[] bytes) {
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+			pos += bytes.length;
+		}
+
+		public void writeInt(int value) {
+			ensure(4);
+			buffer[pos++] = (byte) (value >>> 24);
+			buffer[pos++] = (byte) (value >>> 16);
+			buffer[pos++] = (byte) (value >>> 8);
+			buffer[pos++] = (byte) value;
+		}
+
+		public void writeLong(long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		public void writeVarLong(long value) {
+			ensure(10);
+
+			// Zig-zag encoding
+			long v = (value << 1) ^ (value >> 63);
+			while ((v & ~0x7FL) != 0) {
+				buffer[pos++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buffer[pos++] = (byte) v;
+		}
+
+		public void writeBytes(byte[] bytes) {
+			writeVarLong(bytes.length);
+			write(bytes);
+		}
+
+		public int size() {
+			return pos;
+		}
+
+		public byte[] toByteArray() {
+			byte[] bytes = new byte[pos];
+			System.arraycopy(buffer, 0, bytes, 0, pos);
+			return bytes;
+		}
+
+	}
+
+	// --- INPUT BUFFER ---
+
+	public static final class Input {
+
+		protected final byte[] buffer;
+		protected int pos;
+
+		public Input(byte[] buffer, int pos) {
+			this.buffer = buffer;
+			this.pos = pos;
+		}
+
+		public int read() {
+			if (pos >= buffer.length) {
+				throw new ArrayIndexOutOfBoundsException(pos);
+			}
+			return buffer[pos++] & 0xFF;
+		}
+
+		public int readInt() {
+			return (read() << 24) | (read() << 16) | (read() << 8) | read();
+		}
+
+		public long readLong() {
+			return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+		}
+
+		public long readVarLong() {
+			long v = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = read();
+				v |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0 && shift < 64);
+			return (v >>> 1) ^ -(v & 1);
+		}
+
+		public int readLength() {
+			long len = readVarLong();
+			if (len < 0 || len > buffer.length - pos) {
+				throw new IllegalArgumentException("Invalid length (" + len + ")!");
+			}
+			return (int) len;
+		}
+
+		public int position() {
+			return pos;
+		}
+
+	}
+
+	// --- GETTERS ---
+
+	public int getId() {
+		return id;
+	}
+
+	public String getAction() {
+		return action;
+	}
+
+	public String getField() {
+		return field;
+	}
+
+	public String getDefinition() {
+		return definition;
+	}
+
+	@Override
+	public String toString() {
+		return action + '.' + field + ' ' + definition;
+	}
+
+}
\ No newline at end of file
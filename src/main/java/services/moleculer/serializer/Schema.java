@@ -0,0 +1,70 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the structure of the request parameters and the response of an
+ * Action. The schemas are published in the service descriptor, and the
+ * {@link SchemaSerializer} uses them to encode the "params" and "data" blocks
+ * without field names. Syntax of the schema definition:
+ *
+ * <pre>
+ * &#64;Schema(params = "a:int, b:int", response = "int")
+ * Action add = ctx -&gt; {
+ *   return ctx.params.get("a", 0) + ctx.params.get("b", 0);
+ * };
+ * </pre>
+ *
+ * Types: boolean, int, long, double, string, binary, nested structures (eg.
+ * "point:{x:double, y:double}"), and arrays (eg. "tags:string[]").
+ *
+ * @see SchemaSerializer
+ * @see SchemaRegistry
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD })
+public @interface Schema {
+
+	/**
+	 * Schema of the request parameters (eg. "a:int, b:int").
+	 *
+	 * @return params schema (empty = schemaless)
+	 */
+	String params() default "";
+
+	/**
+	 * Schema of the response (eg. "int" or "name:string, age:int").
+	 *
+	 * @return response schema (empty = schemaless)
+	 */
+	String response() default "";
+
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact Map of a schema-decoded structure. The field names (keys) are shared
+ * with the {@link MessageSchema}, so a decoded message allocates only the
+ * values. The Map can be modified; when a key that isn't part of the schema
+ * (or a null value) is added, the Map is converted to a LinkedHashMap
+ * internally.
+ */
+public class SchemaMap extends AbstractMap<String, Object> {
+
+	// --- PROPERTIES ---
+
+	protected final String[] keys;
+	protected final Object[] values;
+
+	protected int size;
+
+	/**
+	 * Converted (non-schema) content
+	 */
+	protected LinkedHashMap<String, Object> map;
+
+	// --- CONSTRUCTOR ---
+
+	protected SchemaMap(String[] keys, Object[] values, int size) {
+		this.keys = keys;
+		this.values = values;
+		this.size = size;
+	}
+
+	// --- MAP FUNCTIONS ---
+
+	protected int indexOf(Object key) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i].equals(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (map != null) {
+			return map.get(key);
+		}
+		int i = indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (map != null) {
+			return map.containsKey(key);
+		}
+		int i = indexOf(key);
+		return i > -1 && values[i] != null;
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		if (map == null) {
+			int i = indexOf(key);
+			if (i > -1 && value != null) {
+				Object prev = values[i];
+				if (prev == null) {
+					size++;
+				}
+				values[i] = value;
+				return prev;
+			}
+			map = new LinkedHashMap<>(Math.max(16, size * 2));
+			for (int j = 0; j < keys.length; j++) {
+				if (values[j] != null) {
+					map.put(keys[j], values[j]);
+				}
+			}
+		}
+		return map.put(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		if (map != null) {
+			return map.remove(key);
+		}
+		int i = indexOf(key);
+		if (i < 0) {
+			return null;
+		}
+		Object prev = values[i];
+		if (prev != null) {
+			values[i] = null;
+			size--;
+		}
+		return prev;
+	}
+
+	@Override
+	public void clear() {
+		if (map != null) {
+			map.clear();
+			return;
+		}
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return map == null ? size : map.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		if (map != null) {
+			return map.entrySet();
+		}
+		return new AbstractSet<Entry<String, Object>>() {
+
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new SchemaIterator();
+			}
+
+			@Override
+			public int size() {
+				return SchemaMap.this.size();
+			}
+
+		};
+	}
+
+	// --- ITERATOR OF THE PRESENT FIELDS ---
+
+	protected class SchemaIterator implements Iterator<Entry<String, Object>> {
+
+		protected int next = find(0);
+		protected int last = -1;
+
+		protected int find(int from) {
+			for (int i = from; i < keys.length; i++) {
+				if (values[i] != null) {
+					return i;
+				}
+			}
+			return keys.length;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < keys.length;
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (next >= keys.length) {
+				throw new NoSuchElementException();
+			}
+			last = next;
+			next = find(next + 1);
+			final int index = last;
+			return new SimpleEntry<String, Object>(keys[index], values[index]) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public Object setValue(Object value) {
+					if (value == null) {
+						throw new NullPointerException();
+					}
+					values[index] = value;
+					return super.setValue(value);
+				}
+
+			};
+		}
+
+		@Override
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			values[last] = null;
+			size--;
+			last = -1;
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.datatree.Tree;
+
+/**
+ * Registry of the request and response schemas of the Actions. The schemas are
+ * declared by the {@link Schema} annotation (or registered programmatically),
+ * and the Transporter collects them from the local and remote service
+ * descriptors. Usage:
+ *
+ * <pre>
+ * SchemaSerializer serializer = new SchemaSerializer();
+ * serializer.getRegistry().register("math.add", "a:int, b:int", "int");
+ * </pre>
+ *
+ * @see SchemaSerializer
+ */
+public class SchemaRegistry {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(SchemaRegistry.class);
+
+	// --- SCHEMAS ---
+
+	protected final ConcurrentHashMap<String, MessageSchema> params = new ConcurrentHashMap<>();
+	protected final ConcurrentHashMap<String, MessageSchema> responses = new ConcurrentHashMap<>();
+	protected final ConcurrentHashMap<Integer, MessageSchema> schemas = new ConcurrentHashMap<>();
+
+	// --- REGISTER SCHEMAS OF A SERVICE DESCRIPTOR ---
+
+	/**
+	 * Registers the schemas of the actions of a service descriptor
+	 * ("services" block of an INFO packet).
+	 *
+	 * @param services
+	 *            array of service descriptors
+	 */
+	public void register(Tree services) {
+		if (services == null) {
+			return;
+		}
+		for (Tree service : services) {
+			Tree actions = service.get("actions");
+			if (actions == null) {
+				continue;
+			}
+			for (Tree action : actions) {
+				Tree schema = action.get("schema");
+				if (schema != null) {
+					String name = action.get("name", action.getName());
+					register(name, schema.get("params", ""), schema.get("response", ""));
+				}
+			}
+		}
+	}
+
+	// --- REGISTER SCHEMAS OF AN ACTION ---
+
+	/**
+	 * Registers the schemas of an Action.
+	 *
+	 * @param action
+	 *            name of the action (eg. "math.add")
+	 * @param paramsSchema
+	 *            schema of the request parameters (empty = schemaless)
+	 * @param responseSchema
+	 *            schema of the response (empty = schemaless)
+	 */
+	public void register(String action, String paramsSchema, String responseSchema) {
+		register(params, action, "params", paramsSchema);
+		register(responses, action, "data", responseSchema);
+	}
+
+	protected void register(ConcurrentHashMap<String, MessageSchema> map, String action, String field,
+			String definition) {
+		if (definition == null || definition.trim().isEmpty()) {
+			map.remove(action);
+			return;
+		}
+		MessageSchema prev = map.get(action);
+		if (prev != null && prev.definition.equals(definition)) {
+			return;
+		}
+		MessageSchema schema;
+		try {
+			schema = new MessageSchema(action, field, definition);
+		} catch (Exception cause) {
+			logger.warn("Unable to register schema of the \"" + action + "\" action!", cause);
+			return;
+		}
+		if (prev != null && prev.definition.equals(schema.definition)) {
+			return;
+		}
+		MessageSchema registered = schemas.putIfAbsent(schema.id, schema);
+		if (registered != null && !registered.definition.equals(schema.definition)) {
+			logger.warn("Schema ID collision (\"" + registered + "\" and \"" + schema + "\")!");
+			return;
+		}
+
+		// The previous schema remains decodable (other nodes may still use it)
+		map.put(action, registered == null ? schema : registered);
+	}
+
+	// --- GET SCHEMAS ---
+
+	public MessageSchema getParams(String action) {
+		return params.get(action);
+	}
+
+	public MessageSchema getResponse(String action) {
+		return responses.get(action);
+	}
+
+	public MessageSchema get(int id) {
+		return schemas.get(id);
+	}
+
+}
\ No newline at end of file
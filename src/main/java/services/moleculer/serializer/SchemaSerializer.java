@@ -0,0 +1,216 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+import io.datatree.Tree;
+import io.datatree.dom.Cache;
+import services.moleculer.serializer.MessageSchema.Input;
+import services.moleculer.serializer.MessageSchema.Output;
+import services.moleculer.service.Name;
+import services.moleculer.util.CheckedTree;
+import services.moleculer.util.FastBuildTree;
+
+/**
+ * <b>Schema-aware binary serializer</b><br>
+ * <br>
+ * Encodes the "params" block of the requests and the "data" block of the
+ * responses by the schemas of the Actions (see the {@link Schema} annotation),
+ * without field names. Structures are decoded into compact
+ * {@link SchemaMap}s. The other parts of the packets, and the messages without
+ * (or not matching) schema are written by the wrapped "fallback" serializer
+ * (MessagePack by default). The first byte of each packet marks the encoding,
+ * so this serializer is NOT COMPATIBLE with the JavaScript/Node version of
+ * Moleculer, and all nodes must use the same serializer. Usage:
+ *
+ * <pre>
+ * Transporter transporter = new TcpTransporter();
+ * transporter.setSerializer(new SchemaSerializer());
+ * </pre>
+ *
+ * @see MsgPackSerializer
+ * @see SchemaRegistry
+ */
+@Name("Schema-aware Serializer")
+public class SchemaSerializer extends Serializer {
+
+	// --- PACKET MARKERS ---
+
+	protected static final byte SCHEMALESS = 0;
+	protected static final byte SCHEMA = 1;
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Serializer of the schemaless parts
+	 */
+	protected final Serializer fallback;
+
+	/**
+	 * Request and response schemas
+	 */
+	protected SchemaRegistry registry = new SchemaRegistry();
+
+	/**
+	 * Response schemas of the incoming (unanswered) requests by request ID
+	 */
+	protected final Cache<String, MessageSchema> pending = new Cache<>(2048, true);
+
+	// --- CONSTRUCTORS ---
+
+	public SchemaSerializer() {
+		this(new MsgPackSerializer());
+	}
+
+	public SchemaSerializer(Serializer fallback) {
+		super(fallback.getFormat());
+		this.fallback = fallback;
+	}
+
+	// --- SERIALIZE TREE TO BYTE ARRAY ---
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public byte[] write(Tree value) throws Exception {
+		Object object = value.asObject();
+		if (object instanceof Map) {
+			Map<String, Object> map = (Map<String, Object>) object;
+			MessageSchema schema = null;
+			Object action = map.get("action");
+			if (action instanceof String) {
+
+				// Request
+				schema = registry.getParams((String) action);
+
+			} else if (map.containsKey("success")) {
+
+				// Response
+				Object id = map.get("id");
+				if (id instanceof String) {
+					schema = pending.get((String) id);
+					if (schema != null) {
+						pending.remove((String) id);
+						if (!Boolean.TRUE.equals(map.get("success"))) {
+							schema = null;
+						}
+					}
+				}
+			}
+			if (schema != null) {
+				byte[] bytes = write(schema, map);
+				if (bytes != null) {
+					return bytes;
+				}
+			}
+		}
+
+		// Schemaless packet
+		byte[] bytes = fallback.write(value);
+		byte[] packet = new byte[bytes.length + 1];
+		packet[0] = SCHEMALESS;
+		System.arraycopy(bytes, 0, packet, 1, bytes.length);
+		return packet;
+	}
+
+	protected byte[] write(MessageSchema schema, Map<String, Object> map) throws Exception {
+		Output out = new Output(256);
+		out.write(SCHEMA);
+		out.writeInt(schema.id);
+		if (!schema.encode(map.get(schema.field), out)) {
+			return null;
+		}
+
+		// Other fields of the packet
+		FastBuildTree envelope = new FastBuildTree(map.size());
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			String key = entry.getKey();
+			if (!schema.field.equals(key)) {
+				envelope.putUnsafe(key, entry.getValue());
+			}
+		}
+		out.write(fallback.write(envelope));
+		return out.toByteArray();
+	}
+
+	// --- DESERIALIZE BYTE ARRAY TO TREE ---
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Tree read(byte[] source) throws Exception {
+		if (source.length == 0) {
+			throw new IllegalArgumentException("Empty packet!");
+		}
+		Tree packet;
+		if (source[0] == SCHEMA) {
+			Input in = new Input(source, 1);
+			int id = in.readInt();
+			MessageSchema schema = registry.get(id);
+			if (schema == null) {
+				throw new IllegalStateException("Unknown schema ID (" + id + ")!");
+			}
+			Object body = schema.decode(in);
+			packet = fallback.read(Arrays.copyOfRange(source, in.position(), source.length));
+			((Map<String, Object>) packet.asObject()).put(schema.field, body);
+		} else if (source[0] == SCHEMALESS) {
+			packet = fallback.read(Arrays.copyOfRange(source, 1, source.length));
+		} else {
+			throw new IllegalArgumentException("Invalid packet marker (" + source[0] + ")!");
+		}
+
+		// Store the response schema of the incoming request
+		Object object = packet.asObject();
+		if (object instanceof Map) {
+			Map<String, Object> map = (Map<String, Object>) object;
+			Object action = map.get("action");
+			if (action instanceof String) {
+				MessageSchema schema = registry.getResponse((String) action);
+				Object id = map.get("id");
+				if (schema != null && id instanceof String) {
+					pending.put((String) id, schema);
+				}
+			}
+		}
+		return packet;
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public Serializer getFallback() {
+		return fallback;
+	}
+
+	public SchemaRegistry getRegistry() {
+		return registry;
+	}
+
+	public void setRegistry(SchemaRegistry registry) {
+		this.registry = Objects.requireNonNull(registry);
+	}
+
+}
\ No newline at end of file
@@ -25,6 +25,8 @@
  */
 package services.moleculer.service;
 
+import java.util.Objects;
+
 import io.datatree.Promise;
 import io.datatree.Tree;
 import services.moleculer.ServiceBroker;
@@ -46,7 +48,12 @@ public class DefaultServiceInvoker extends ServiceInvoker {
 	 * Write exceptions into the log file
 	 */
 	protected boolean writeErrorsToLog = true;
-	
+
+	/**
+	 * Hedged request handler (see {@link CallOptions.Options#hedgeDelay})
+	 */
+	protected Hedger hedger = new Hedger();
+
 	// --- COMPONENTS ---
 
 	protected ServiceRegistry serviceRegistry;
@@ -62,6 +69,16 @@ public class DefaultServiceInvoker extends ServiceInvoker {
 		ServiceBrokerConfig cfg = broker.getConfig();
 		this.serviceRegistry = cfg.getServiceRegistry();
 		this.contextFactory = cfg.getContextFactory();
+
+		// Start hedger
+		hedger.started(broker);
+	}
+
+	// --- STOP INVOKER ---
+
+	@Override
+	public void stopped() {
+		hedger.stopped();
 	}
 
 	// --- CALL SERVICE ---
@@ -82,12 +99,19 @@ public class DefaultServiceInvoker extends ServiceInvoker {
 
 	protected Promise call(String name, Tree params, Options opts, Context parent, String targetID, int remaining) {
 		try {
-			Action action = serviceRegistry.getAction(name, targetID);
+			Action action = serviceRegistry.getAction(name, targetID, params);
 			Context ctx = contextFactory.create(name, params, opts, parent);
+			Promise promise;
+			if (hedger.isHedged(opts, targetID, action)) {
+				promise = hedger.call(name, params, opts, parent, (RemoteActionEndpoint) action, ctx,
+						(endpoint, attemptCtx) -> Promise.resolve(endpoint.handler(attemptCtx)));
+			} else {
+				promise = Promise.resolve(action.handler(ctx));
+			}
 			if (remaining < 1) {
-				return Promise.resolve(action.handler(ctx));
+				return promise;
 			}
-			return Promise.resolve(action.handler(ctx)).catchError(cause -> {
+			return promise.catchError(cause -> {
 				
 				// Write error to log file
 				if (writeErrorsToLog) {
@@ -128,5 +152,13 @@ public class DefaultServiceInvoker extends ServiceInvoker {
 	public void setWriteErrorsToLog(boolean writeErrorsToLog) {
 		this.writeErrorsToLog = writeErrorsToLog;
 	}
+
+	public Hedger getHedger() {
+		return hedger;
+	}
+
+	public void setHedger(Hedger hedger) {
+		this.hedger = Objects.requireNonNull(hedger);
+	}
 	
 }
\ No newline at end of file
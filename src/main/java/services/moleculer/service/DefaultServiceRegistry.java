@@ -50,6 +50,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -62,6 +63,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import io.datatree.Promise;
 import io.datatree.Tree;
+import io.datatree.dom.Cache;
 import services.moleculer.ServiceBroker;
 import services.moleculer.config.ServiceBrokerConfig;
 import services.moleculer.context.CallOptions;
@@ -76,7 +78,9 @@ import services.moleculer.error.ServiceNotFoundError;
 import services.moleculer.eventbus.Eventbus;
 import services.moleculer.strategy.Strategy;
 import services.moleculer.strategy.StrategyFactory;
+import services.moleculer.stream.PacketStream;
 import services.moleculer.transporter.Transporter;
+import services.moleculer.transporter.tcp.NodeDescriptor;
 import services.moleculer.uid.UidGenerator;
 import services.moleculer.util.FastBuildTree;
 
@@ -98,6 +102,19 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 
 	protected final HashMap<String, Strategy<ActionEndpoint>> strategies = new HashMap<>(256);
 
+	/**
+	 * Immutable copy of the "strategies" map (routing snapshot), replaced
+	 * after each topology change. Used by the request routing without locking.
+	 */
+	protected volatile HashMap<String, Strategy<ActionEndpoint>> routes = new HashMap<>();
+
+	/**
+	 * Names of the actions whose strategies were copied (and modified) since
+	 * the last snapshot. The published strategies are never modified, the
+	 * writer modifies copies of them (see "getWritableStrategy").
+	 */
+	protected final HashSet<String> copiedStrategies = new HashSet<>(64);
+
 	// --- REGISTERED LOCAL AND REMOTE SERVICE NAMES ---
 
 	protected final HashSet<String> names = new HashSet<>(64);
@@ -106,6 +123,20 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 
 	protected final ConcurrentHashMap<String, PendingPromise> promises = new ConcurrentHashMap<>(1024);
 
+	/**
+	 * Pending remote invocations, keyed by numeric request IDs (used when the
+	 * UID generator supports numeric UIDs, otherwise null)
+	 */
+	protected PendingPromiseTable numericPromises;
+
+	// --- ABANDONED (eg. HEDGED) REMOTE INVOCATIONS ---
+
+	protected final Cache<String, Boolean> abandoned = new Cache<>(1024, true);
+
+	// --- RESPONSE TIME LISTENERS ---
+
+	protected final CopyOnWriteArrayList<ResponseTimeListener> responseTimeListeners = new CopyOnWriteArrayList<>();
+
 	// --- PROPERTIES ---
 
 	/**
@@ -123,6 +154,45 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 	 */
 	protected boolean writeErrorsToLog = true;
 
+	/**
+	 * Availability zone of this node (eg. "eu-west-1a", advertised in the INFO
+	 * packet, optional)
+	 */
+	protected String zone;
+
+	/**
+	 * Region of this node (eg. "eu-west-1", advertised in the INFO packet,
+	 * optional)
+	 */
+	protected String region;
+
+	/**
+	 * Routing weight of this node (advertised in the INFO packet, used by the
+	 * weighted strategy, 0 = drain this node)
+	 */
+	protected int weight = NodeDescriptor.DEFAULT_WEIGHT;
+
+	/**
+	 * Number of slots of the pending request table (used with numeric UID
+	 * generators, eg. the CompactUidGenerator)
+	 */
+	protected int pendingSlots = 4096;
+
+	/**
+	 * Max size of the chunk frames of streamed responses (BYTES)
+	 */
+	protected int streamChunkSize = 64 * 1024;
+
+	/**
+	 * Max number of unacknowledged chunk frames per streamed response
+	 */
+	protected int streamWindow = 16;
+
+	/**
+	 * Max idle time of streamed responses (MILLISECONDS)
+	 */
+	protected long streamTimeout = 60000;
+
 	// --- LOCKS ---
 
 	/**
@@ -149,6 +219,20 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 	protected Eventbus eventbus;
 	protected UidGenerator uid;
 
+	// --- VIRTUAL THREAD MODE ---
+
+	/**
+	 * Invoke all local actions on the (virtual thread) executor
+	 */
+	protected boolean virtualThreads;
+
+	// --- STREAMED RESPONSES ---
+
+	/**
+	 * Sender and receiver of streamed responses (null = no transporter)
+	 */
+	protected StreamManager streams;
+
 	// --- VARIABLES OF THE TIMEOUT HANDLER ---
 
 	/**
@@ -219,13 +303,21 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 
 		// Set components
 		ServiceBrokerConfig cfg = broker.getConfig();
-		this.executor = cfg.getExecutor();
+		this.executor = cfg.getRequestExecutor();
+		this.virtualThreads = cfg.isVirtualThreads();
 		this.scheduler = cfg.getScheduler();
 		this.strategyFactory = cfg.getStrategyFactory();
 		this.contextFactory = cfg.getContextFactory();
 		this.transporter = cfg.getTransporter();
 		this.eventbus = cfg.getEventbus();
 		this.uid = cfg.getUidGenerator();
+		if (uid != null && uid.isNumeric()) {
+			numericPromises = new PendingPromiseTable(pendingSlots);
+		}
+		if (transporter != null) {
+			streams = new StreamManager(nodeID, this, transporter, scheduler, streamChunkSize, streamWindow,
+					streamTimeout);
+		}
 	}
 
 	// --- STOP SERVICE REGISTRY ---
@@ -244,6 +336,16 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 		for (PendingPromise pending : promises.values()) {
 			pending.promise.complete(error);
 		}
+		if (numericPromises != null) {
+			for (PendingPromise pending : numericPromises.removeAll()) {
+				pending.promise.complete(error);
+			}
+		}
+
+		// Stop streamed responses
+		if (streams != null) {
+			streams.stopped();
+		}
 
 		// Stop all services
 		writeLock.lock();
@@ -254,6 +356,7 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 
 			// Delete strategies (and registered actions)
 			strategies.clear();
+			publishRoutes();
 
 			// Delete all service names
 			names.clear();
@@ -288,6 +391,14 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 			if (pending.timeoutAt > 0 && now >= pending.timeoutAt) {
 				pending.promise.complete(new TimeoutException("Action invocation timeouted!"));
 				i.remove();
+				completed(pending, true, true);
+				removed = true;
+			}
+		}
+		if (numericPromises != null) {
+			for (PendingPromise timeouted : numericPromises.removeTimeouted(now)) {
+				timeouted.promise.complete(new TimeoutException("Action invocation timeouted!"));
+				completed(timeouted, true, true);
 				removed = true;
 			}
 		}
@@ -315,6 +426,9 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 					minTimeoutAt = pending.timeoutAt;
 				}
 			}
+			if (numericPromises != null) {
+				minTimeoutAt = Math.min(minTimeoutAt, numericPromises.getMinTimeoutAt());
+			}
 		}
 		long now = System.currentTimeMillis();
 		if (minTimeoutAt == Long.MAX_VALUE) {
@@ -352,10 +466,46 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 	// --- REGISTER PROMISE ---
 
 	protected void register(String id, Promise promise, long timeoutAt) {
-		promises.put(id, new PendingPromise(promise, timeoutAt));
+		register(id, promise, timeoutAt, null);
+	}
+
+	protected void register(String id, Promise promise, long timeoutAt, RemoteActionEndpoint endpoint) {
+		register(id, numericPromises == null ? -1 : uid.toNumericUID(id), promise, timeoutAt, endpoint);
+	}
+
+	/**
+	 * Registers a pending invocation. The numeric request ID (generated by
+	 * the UID generator, eg. by the CompactUidGenerator) is stored in the
+	 * numeric table, without parsing the String ID.
+	 * 
+	 * @param id
+	 *            request ID
+	 * @param numericID
+	 *            numeric form of the request ID (-1 = not available)
+	 * @param promise
+	 *            pending promise
+	 * @param timeoutAt
+	 *            timeout timestamp (0 = no timeout)
+	 * @param endpoint
+	 *            invoked remote endpoint (null = local call)
+	 */
+	protected void register(String id, long numericID, Promise promise, long timeoutAt,
+			RemoteActionEndpoint endpoint) {
+		if (endpoint != null) {
+			endpoint.requestSent();
+		}
+		PendingPromise pending = new PendingPromise(promise, timeoutAt, endpoint);
+		int size;
+		if (numericID < 0 || numericPromises == null) {
+			promises.put(id, pending);
+			size = promises.size();
+		} else {
+			numericPromises.put(numericID, pending);
+			size = numericPromises.size();
+		}
 
 		long nextTimeoutAt = prevTimeoutAt.get();
-		if (nextTimeoutAt == 0 || (timeoutAt / 100 * 100) + 100 < nextTimeoutAt || promises.size() < 3) {
+		if (nextTimeoutAt == 0 || (timeoutAt / 100 * 100) + 100 < nextTimeoutAt || size < 3) {
 			scheduler.execute(() -> {
 				reschedule(timeoutAt);
 			});
@@ -363,7 +513,82 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 	}
 
 	protected void deregister(String id) {
-		promises.remove(id);
+		completed(removePending(id), false, false);
+	}
+
+	protected void deregister(String id, long numericID) {
+		completed(removePending(id, numericID), false, false);
+	}
+
+	/**
+	 * Removes a pending invocation from the numeric table (when the UID
+	 * generator supports numeric UIDs) or from the String-keyed map.
+	 * 
+	 * @param id
+	 *            request ID
+	 * 
+	 * @return removed invocation (or null)
+	 */
+	protected PendingPromise removePending(String id) {
+		return removePending(id, numericPromises == null ? -1 : uid.toNumericUID(id));
+	}
+
+	protected PendingPromise removePending(String id, long numericID) {
+		if (numericID >= 0 && numericPromises != null) {
+			PendingPromise pending = numericPromises.remove(numericID);
+			if (pending != null) {
+				return pending;
+			}
+		}
+		return promises.remove(id);
+	}
+
+	/**
+	 * Updates the load statistics of the invoked remote endpoint.
+	 * 
+	 * @param pending
+	 *            removed (completed, timeouted or abandoned) invocation
+	 * @param measure
+	 *            store the response time of the request
+	 * @param error
+	 *            the request failed or timeouted
+	 */
+	protected void completed(PendingPromise pending, boolean measure, boolean error) {
+		if (pending != null && pending.endpoint != null) {
+			if (measure) {
+				long duration = System.nanoTime() - pending.startNanos;
+				pending.endpoint.responseReceived(duration, error);
+				if (!responseTimeListeners.isEmpty()) {
+					String remoteNodeID = pending.endpoint.getNodeID();
+					for (ResponseTimeListener listener : responseTimeListeners) {
+						listener.responseReceived(remoteNodeID, duration);
+					}
+				}
+			} else {
+				pending.endpoint.responseReceived(-1, false);
+			}
+		}
+	}
+
+	// --- ADD / REMOVE RESPONSE TIME LISTENER ---
+
+	public void addResponseTimeListener(ResponseTimeListener listener) {
+		responseTimeListeners.addIfAbsent(listener);
+	}
+
+	public void removeResponseTimeListener(ResponseTimeListener listener) {
+		responseTimeListeners.remove(listener);
+	}
+
+	// --- ABANDON A PENDING REMOTE INVOCATION ---
+
+	@Override
+	public void abandon(String id) {
+		PendingPromise pending = removePending(id);
+		if (pending != null) {
+			completed(pending, false, false);
+			abandoned.put(id, Boolean.TRUE);
+		}
 	}
 
 	// --- RECEIVE REQUEST FROM REMOTE SERVICE ---
@@ -396,6 +621,14 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 			}
 		}
 
+		// Acknowledge of a streamed response
+		if (message.get("stream", false)) {
+			if (streams != null) {
+				streams.receiveAck(id, message);
+			}
+			return;
+		}
+
 		// Get action property
 		String action = message.get("action", (String) null);
 		if (action == null || action.isEmpty()) {
@@ -405,13 +638,7 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 		}
 
 		// Get strategy (action endpoint array) by action name
-		Strategy<ActionEndpoint> strategy;
-		readLock.lock();
-		try {
-			strategy = strategies.get(action);
-		} finally {
-			readLock.unlock();
-		}
+		Strategy<ActionEndpoint> strategy = routes.get(action);
 		if (strategy == null) {
 			logger.warn("Invalid action name (" + action + ")!");
 			transporter.publish(PACKET_RESPONSE, sender, throwableToTree(id, new ServiceNotFoundError(nodeID, action)));
@@ -458,6 +685,13 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 		try {
 			new Promise(endpoint.handler(ctx)).then(data -> {
 
+				// Send streamed response
+				Object value = data.asObject();
+				if (value instanceof PacketStream) {
+					streams.send(id, sender, (PacketStream) value);
+					return;
+				}
+
 				// Send response
 				FastBuildTree msg = new FastBuildTree(6);
 				msg.putUnsafe("sender", nodeID);
@@ -499,12 +733,33 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 	// --- CONVERT THROWABLE TO RESPONSE MESSAGE ---
 
 	protected Tree throwableToTree(String id, Throwable error) {
-		FastBuildTree msg = new FastBuildTree(5);
+		return throwableToTree(id, error, -1);
+	}
+
+	/**
+	 * Converts a Throwable to a response message.
+	 * 
+	 * @param id
+	 *            request ID
+	 * @param error
+	 *            error
+	 * @param seq
+	 *            sequence number of the last chunk frame of a streamed
+	 *            response (-1 = not a streamed response)
+	 * 
+	 * @return response message
+	 */
+	protected Tree throwableToTree(String id, Throwable error, long seq) {
+		FastBuildTree msg = new FastBuildTree(seq < 0 ? 5 : 7);
 		try {
 			msg.putUnsafe("id", id);
 			msg.putUnsafe("ver", PROTOCOL_VERSION);
 			msg.putUnsafe("sender", nodeID);
 			msg.putUnsafe("success", false);
+			if (seq >= 0) {
+				msg.putUnsafe("stream", false);
+				msg.putUnsafe("seq", seq);
+			}
 			if (error != null) {
 
 				// Convert to Throwable to MoleculerError
@@ -551,7 +806,7 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 		}
 
 		// Get stored promise
-		PendingPromise pending = promises.remove(id);
+		PendingPromise pending = removePending(id);
 		if (pending == null) {
 			logger.warn("Unknown (maybe timeouted) response received!", message);
 			return;
@@ -582,19 +837,41 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 			return;
 		}
 
+		// Chunk frame of a streamed response
+		long seq = message.get("seq", -1L);
+		if (seq > 0) {
+			if (streams != null) {
+				streams.receive(id, seq, message);
+			}
+			return;
+		}
+
 		// Get stored promise
-		PendingPromise pending = promises.remove(id);
+		PendingPromise pending = removePending(id);
 		if (pending == null) {
+			if (abandoned.get(id) != null) {
+
+				// Late response of a hedged request
+				abandoned.remove(id);
+				return;
+			}
 			logger.warn("Unknown (maybe timeouted) response received!", message);
 			return;
 		}
-		try {
 
-			// Get response status (successed or not?)
-			boolean success = message.get("success", true);
+		// Get response status (successed or not?)
+		boolean success = message.get("success", true);
+		completed(pending, true, !success);
+		try {
 			if (success) {
 
 				// Ok -> resolve
+				if (seq == 0 && streams != null) {
+
+					// Streamed response
+					pending.promise.complete((Object) streams.receive(id, seq, message));
+					return;
+				}
 				pending.promise.complete(message.get("data"));
 
 			} else {
@@ -732,15 +1009,9 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 				convertAnnotations(actionConfig, annotations);
 
 				// Register action
-				LocalActionEndpoint endpoint = new LocalActionEndpoint(this, executor, nodeID, actionConfig, action);
-				Strategy<ActionEndpoint> actionStrategy = strategies.get(actionName);
-				if (actionStrategy == null) {
-
-					// Create strategy
-					actionStrategy = strategyFactory.create();
-					strategies.put(actionName, actionStrategy);
-				}
-				actionStrategy.addEndpoint(endpoint);
+				LocalActionEndpoint endpoint = new LocalActionEndpoint(this, executor, nodeID, actionConfig, action,
+						virtualThreads);
+				getWritableStrategy(actionName, true).addEndpoint(endpoint);
 
 				// Apply middlewares
 				for (Middleware middleware : middlewares) {
@@ -762,6 +1033,7 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 			logger.error("Unable to register local service!", cause);
 			return;
 		} finally {
+			publishRoutes();
 			writeLock.unlock();
 		}
 
@@ -802,32 +1074,21 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 
 	@Override
 	public void addActions(Tree config) {
-		Tree actions = config.get("actions");
-		String serviceName = config.get("name", "");
+		String nodeID;
+		if (config.getParent().isEnumeration()) {
+			nodeID = config.getRoot().get("sender", (String) null);
+		} else {
+			nodeID = config.getName();
+		}
+		addActions(nodeID, config);
+	}
+
+	@Override
+	public void addActions(String nodeID, Tree config) {
 		writeLock.lock();
 		try {
-			if (actions != null && actions.isMap()) {
-				String nodeID;
-				if (config.getParent().isEnumeration()) {
-					nodeID = config.getRoot().get("sender", (String) null);
-				} else {
-					nodeID = config.getName();
-				}
-				for (Tree actionConfig : actions) {
-					actionConfig.putObject("nodeID", nodeID, true);
-					String actionName = actionConfig.get("name", "");
-
-					// Register remote action
-					RemoteActionEndpoint endpoint = new RemoteActionEndpoint(this, transporter, nodeID, actionConfig);
-					Strategy<ActionEndpoint> actionStrategy = strategies.get(actionName);
-					if (actionStrategy == null) {
-						actionStrategy = strategyFactory.create();
-						strategies.put(actionName, actionStrategy);
-					}
-					actionStrategy.addEndpoint(endpoint);
-				}
-			}
-			names.add(serviceName);
+			registerRemoteActions(nodeID, config);
+			publishRoutes();
 		} finally {
 			writeLock.unlock();
 		}
@@ -836,20 +1097,30 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 		broadcastServicesChanged(false);
 	}
 
+	protected void registerRemoteActions(String nodeID, Tree config) {
+		Tree actions = config.get("actions");
+		if (actions != null && actions.isMap()) {
+			for (Tree actionConfig : actions) {
+				actionConfig.putObject("nodeID", nodeID, true);
+				String actionName = actionConfig.get("name", "");
+
+				// Register remote action
+				RemoteActionEndpoint endpoint = new RemoteActionEndpoint(this, transporter, nodeID, actionConfig);
+				getWritableStrategy(actionName, true).addEndpoint(endpoint);
+			}
+		}
+		names.add(config.get("name", ""));
+	}
+
 	// --- REMOVE ALL REMOTE SERVICES/ACTIONS OF A NODE ---
 
 	@Override
 	public void removeActions(String nodeID) {
 		writeLock.lock();
 		try {
-			Iterator<Strategy<ActionEndpoint>> endpoints = strategies.values().iterator();
-			while (endpoints.hasNext()) {
-				Strategy<ActionEndpoint> strategy = endpoints.next();
-				strategy.remove(nodeID);
-				if (strategy.isEmpty()) {
-					endpoints.remove();
-				}
-			}
+			deregisterAllActions(nodeID);
+			removeEmptyStrategies();
+			publishRoutes();
 			if (this.nodeID.equals(nodeID)) {
 
 				// Stop local services
@@ -877,6 +1148,154 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 		}
 	}
 
+	// --- REMOVE ACTIONS OF A REMOTE SERVICE ---
+
+	@Override
+	public void removeActions(String nodeID, Tree config) {
+		Tree actions = config.get("actions");
+		if (actions == null || !actions.isMap()) {
+			return;
+		}
+		writeLock.lock();
+		try {
+			deregisterRemoteActions(nodeID, config);
+			removeEmptyStrategies();
+			publishRoutes();
+		} finally {
+			writeLock.unlock();
+		}
+
+		// Notify local listeners (REMOTE services changed)
+		broadcastServicesChanged(false);
+	}
+
+	protected void deregisterRemoteActions(String nodeID, Tree config) {
+		Tree actions = config.get("actions");
+		if (actions != null && actions.isMap()) {
+			for (Tree actionConfig : actions) {
+				String actionName = actionConfig.get("name", actionConfig.getName());
+				Strategy<ActionEndpoint> strategy = getWritableStrategy(actionName, false);
+				if (strategy != null) {
+					strategy.remove(nodeID);
+				}
+			}
+		}
+	}
+
+	protected void deregisterAllActions(String nodeID) {
+		for (Map.Entry<String, Strategy<ActionEndpoint>> entry : strategies.entrySet()) {
+			for (ActionEndpoint endpoint : entry.getValue().getAllEndpoints()) {
+				if (nodeID.equals(endpoint.getNodeID())) {
+					getWritableStrategy(entry.getKey(), false).remove(nodeID);
+					break;
+				}
+			}
+		}
+	}
+
+	protected void removeEmptyStrategies() {
+		Iterator<Strategy<ActionEndpoint>> endpoints = strategies.values().iterator();
+		while (endpoints.hasNext()) {
+			if (endpoints.next().isEmpty()) {
+				endpoints.remove();
+			}
+		}
+	}
+
+	// --- REPLACE ALL ACTIONS OF A REMOTE NODE ---
+
+	@Override
+	public void replaceActions(String nodeID, Collection<Tree> services) {
+		writeLock.lock();
+		try {
+			deregisterAllActions(nodeID);
+			for (Tree config : services) {
+				registerRemoteActions(nodeID, config);
+			}
+			removeEmptyStrategies();
+
+			// Replace the routing snapshot (once per topology change)
+			publishRoutes();
+
+		} finally {
+			writeLock.unlock();
+		}
+
+		// Notify local listeners (REMOTE services changed)
+		broadcastServicesChanged(false);
+	}
+
+	// --- APPLY TOPOLOGY CHANGES OF A REMOTE NODE ---
+
+	@Override
+	public void updateActions(String nodeID, Collection<Tree> removed, Collection<Tree> added) {
+		if (removed.isEmpty() && added.isEmpty()) {
+			return;
+		}
+		writeLock.lock();
+		try {
+			for (Tree config : removed) {
+				deregisterRemoteActions(nodeID, config);
+			}
+			for (Tree config : added) {
+				registerRemoteActions(nodeID, config);
+			}
+			removeEmptyStrategies();
+
+			// Replace the routing snapshot (once per topology change)
+			publishRoutes();
+
+		} finally {
+			writeLock.unlock();
+		}
+
+		// Notify local listeners (REMOTE services changed)
+		broadcastServicesChanged(false);
+	}
+
+	// --- REPLACE ROUTING SNAPSHOT ---
+
+	/**
+	 * Returns the strategy of the specified action for modification. The
+	 * strategies of the current routing snapshot are read by the request
+	 * routing without locking, so they are not modified in place: the first
+	 * modification after a snapshot works on a copy, and the readers see the
+	 * changes only when the next snapshot is published. Must be called by the
+	 * writer thread (holding the "writeLock").
+	 * 
+	 * @param actionName
+	 *            name of the action (eg. "math.add")
+	 * @param create
+	 *            create a new strategy if the action is not registered
+	 * 
+	 * @return modifiable strategy (or null)
+	 */
+	protected Strategy<ActionEndpoint> getWritableStrategy(String actionName, boolean create) {
+		Strategy<ActionEndpoint> strategy = strategies.get(actionName);
+		if (copiedStrategies.contains(actionName) || (strategy == null && !create)) {
+			return strategy;
+		}
+		Strategy<ActionEndpoint> copy = strategyFactory.create();
+		if (strategy != null) {
+			for (ActionEndpoint endpoint : strategy.getAllEndpoints()) {
+				copy.addEndpoint(endpoint);
+			}
+		}
+		strategies.put(actionName, copy);
+		copiedStrategies.add(actionName);
+		return copy;
+	}
+
+	/**
+	 * Publishes the current content of the "strategies" map to the request
+	 * routing (with one volatile write). Must be called by the writer thread
+	 * (holding the "writeLock").
+	 */
+	protected void publishRoutes() {
+		routes = new HashMap<>(strategies);
+		copiedStrategies.clear();
+	}
+
 	protected void stopAllLocalServices() {
 		for (Map.Entry<String, Service> serviceEntry : services.entrySet()) {
 			String name = serviceEntry.getKey();
@@ -911,17 +1330,16 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 
 	@Override
 	public Action getAction(String name, String nodeID) {
-		Strategy<ActionEndpoint> strategy;
-		readLock.lock();
-		try {
-			strategy = strategies.get(name);
-		} finally {
-			readLock.unlock();
-		}
+		return getAction(name, nodeID, null);
+	}
+
+	@Override
+	public Action getAction(String name, String nodeID, Tree params) {
+		Strategy<ActionEndpoint> strategy = routes.get(name);
 		if (strategy == null) {
 			throw new ServiceNotFoundError(nodeID, name);
 		}
-		ActionEndpoint endpoint = strategy.getEndpoint(nodeID);
+		ActionEndpoint endpoint = strategy.getEndpoint(nodeID, params);
 		if (endpoint == null) {
 			throw new ServiceNotAvailableError(nodeID, name);
 		}
@@ -1152,6 +1570,17 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 				// Host name
 				descriptor.put("hostname", getHostName());
 
+				// Zone and region labels
+				if (zone != null) {
+					descriptor.put("zone", zone);
+				}
+				if (region != null) {
+					descriptor.put("region", region);
+				}
+
+				// Routing weight
+				descriptor.put("weight", weight);
+
 				// IP array
 				Tree ipList = descriptor.putList("ipList");
 				HashSet<String> ips = new HashSet<>();
@@ -1227,4 +1656,79 @@ public class DefaultServiceRegistry extends ServiceRegistry {
 		this.writeErrorsToLog = writeErrorsToLog;
 	}
 
+	public String getZone() {
+		return zone;
+	}
+
+	public void setZone(String zone) {
+		this.zone = zone;
+		clearDescriptorCache();
+	}
+
+	public String getRegion() {
+		return region;
+	}
+
+	public void setRegion(String region) {
+		this.region = region;
+		clearDescriptorCache();
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Sets the routing weight of this node (at runtime, too). The new weight is
+	 * sent to the other nodes in an INFO packet.
+	 *
+	 * @param weight
+	 *            new weight (0 = drain this node)
+	 */
+	public void setWeight(int weight) {
+		if (weight < 0) {
+			throw new IllegalArgumentException("Invalid weight (" + weight + ")!");
+		}
+		this.weight = weight;
+		clearDescriptorCache();
+
+		// Notify local strategies and other nodes
+		if (transporter != null) {
+			transporter.weightChanged();
+			transporter.broadcastInfoPacket();
+		}
+	}
+
+	public int getPendingSlots() {
+		return pendingSlots;
+	}
+
+	public void setPendingSlots(int pendingSlots) {
+		this.pendingSlots = pendingSlots;
+	}
+
+	public int getStreamChunkSize() {
+		return streamChunkSize;
+	}
+
+	public void setStreamChunkSize(int streamChunkSize) {
+		this.streamChunkSize = streamChunkSize;
+	}
+
+	public int getStreamWindow() {
+		return streamWindow;
+	}
+
+	public void setStreamWindow(int streamWindow) {
+		this.streamWindow = streamWindow;
+	}
+
+	public long getStreamTimeout() {
+		return streamTimeout;
+	}
+
+	public void setStreamTimeout(long streamTimeout) {
+		this.streamTimeout = streamTimeout;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,361 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.datatree.Promise;
+import io.datatree.Tree;
+import services.moleculer.ServiceBroker;
+import services.moleculer.config.ServiceBrokerConfig;
+import services.moleculer.context.CallOptions;
+import services.moleculer.context.CallOptions.Options;
+import services.moleculer.context.Context;
+import services.moleculer.context.ContextFactory;
+
+/**
+ * Sends "hedged" requests for latency-critical (read-only) actions. If no
+ * response arrives within the hedging delay, a duplicate request is sent to a
+ * different endpoint (selected by the Invocation Strategy), and the first
+ * response wins. The number of duplicated requests is limited by a per-action
+ * budget (eg. "maxRatio = 0.1" means max. 10% extra load). Usage:<br>
+ *
+ * <pre>
+ * broker.call("user.find", "id", 123, CallOptions.hedgeDelay(50));
+ * </pre>
+ *
+ * @see DefaultServiceInvoker
+ * @see services.moleculer.breaker.CircuitBreaker
+ */
+public class Hedger {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(Hedger.class);
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Max ratio of the hedged (duplicated) requests (0.1 = 10% extra load)
+	 */
+	protected double maxRatio = 0.1d;
+
+	/**
+	 * Max number of hedged requests in a burst
+	 */
+	protected int maxBurst = 10;
+
+	/**
+	 * Number of response time samples per action (used for the 95th percentile
+	 * calculation)
+	 */
+	protected int samples = 100;
+
+	/**
+	 * Minimum number of response time samples to calculate the 95th percentile
+	 */
+	protected int minSamples = 20;
+
+	// --- COMPONENTS ---
+
+	protected ServiceRegistry serviceRegistry;
+	protected ContextFactory contextFactory;
+	protected ScheduledExecutorService scheduler;
+
+	// --- BUDGETS AND RESPONSE TIMES PER ACTIONS ---
+
+	protected final ConcurrentHashMap<String, HedgeStats> stats = new ConcurrentHashMap<>(256);
+
+	// --- START HEDGER ---
+
+	/**
+	 * Initializes hedger instance.
+	 *
+	 * @param broker
+	 *            parent ServiceBroker
+	 */
+	public void started(ServiceBroker broker) {
+		ServiceBrokerConfig cfg = broker.getConfig();
+		serviceRegistry = cfg.getServiceRegistry();
+		contextFactory = cfg.getContextFactory();
+		scheduler = cfg.getScheduler();
+	}
+
+	// --- STOP HEDGER ---
+
+	public void stopped() {
+		stats.clear();
+	}
+
+	// --- INVOCATION OF A SINGLE ATTEMPT ---
+
+	/**
+	 * Invokes one attempt of a hedged call. The ServiceInvoker passes its own
+	 * invocation path (eg. the error and success accounting of the
+	 * CircuitBreaker), so the hedged attempts are handled the same way as the
+	 * regular calls.
+	 */
+	@FunctionalInterface
+	public static interface Attempt {
+
+		Promise invoke(RemoteActionEndpoint endpoint, Context ctx) throws Exception;
+
+	}
+
+	// --- IS HEDGING ENABLED? ---
+
+	public boolean isHedged(Options opts, String targetID, Action action) {
+		return opts != null && opts.hedgeDelay != 0 && targetID == null && action instanceof RemoteActionEndpoint;
+	}
+
+	// --- INVOKE ACTION WITH HEDGING ---
+
+	public Promise call(String name, Tree params, Options opts, Context parent, RemoteActionEndpoint action,
+			Context ctx, Attempt attempt) {
+		HedgeStats actionStats = stats.get(name);
+		if (actionStats == null) {
+			actionStats = new HedgeStats(samples, maxBurst);
+			HedgeStats prev = stats.putIfAbsent(name, actionStats);
+			if (prev != null) {
+				actionStats = prev;
+			}
+		}
+		actionStats.addRequest(maxRatio, maxBurst);
+
+		// Get hedging delay
+		long delay;
+		if (opts.hedgeDelay == CallOptions.HEDGE_P95) {
+			delay = actionStats.getPercentile95(minSamples);
+		} else {
+			delay = opts.hedgeDelay;
+		}
+
+		// Send the first request
+		HedgedCall call = new HedgedCall(actionStats, attempt);
+		call.send(action, ctx, 0);
+
+		// Schedule the hedged request
+		if (delay > 0 && !call.result.isDone()) {
+			String firstNodeID = action.getNodeID();
+			call.timer = scheduler.schedule(() -> {
+				if (call.result.isDone()) {
+					return;
+				}
+
+				// Recalculate distributed timeout
+				Options hedgeOpts = opts;
+				if (opts.timeout > 0) {
+					long remaining = opts.timeout - (System.currentTimeMillis() - call.startTime);
+					if (remaining <= 0) {
+						return;
+					}
+					hedgeOpts = opts.timeout(remaining);
+				}
+
+				// Choose another (remote) endpoint
+				RemoteActionEndpoint endpoint = nextEndpoint(name, firstNodeID);
+				if (endpoint == null || !call.stats.tryAcquire()) {
+					return;
+				}
+				try {
+					call.send(endpoint, contextFactory.create(name, params, hedgeOpts, parent), 1);
+				} catch (Throwable cause) {
+					logger.warn("Unable to send hedged request!", cause);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+		return call.result;
+	}
+
+	protected RemoteActionEndpoint nextEndpoint(String name, String excludedNodeID) {
+		for (int i = 0; i < 3; i++) {
+			try {
+				Action action = serviceRegistry.getAction(name, null);
+				if (action instanceof RemoteActionEndpoint) {
+					RemoteActionEndpoint endpoint = (RemoteActionEndpoint) action;
+					if (!excludedNodeID.equals(endpoint.getNodeID())) {
+						return endpoint;
+					}
+				}
+			} catch (Exception notAvailable) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	// --- HEDGED CALL ---
+
+	protected class HedgedCall {
+
+		protected final Promise result = new Promise();
+		protected final HedgeStats stats;
+		protected final Attempt attempt;
+		protected final long startTime = System.currentTimeMillis();
+		protected final AtomicInteger outstanding = new AtomicInteger();
+		protected final AtomicReference<String> firstID = new AtomicReference<>();
+		protected final AtomicReference<String> hedgeID = new AtomicReference<>();
+
+		protected volatile ScheduledFuture<?> timer;
+
+		protected HedgedCall(HedgeStats stats, Attempt attempt) {
+			this.stats = stats;
+			this.attempt = attempt;
+		}
+
+		protected void send(RemoteActionEndpoint endpoint, Context ctx, int index) {
+			outstanding.incrementAndGet();
+			(index == 0 ? firstID : hedgeID).set(ctx.id);
+			Promise promise;
+			try {
+				promise = Promise.resolve(attempt.invoke(endpoint, ctx));
+			} catch (Throwable cause) {
+				promise = Promise.reject(cause);
+			}
+			promise.then(rsp -> {
+				if (result.complete(rsp)) {
+					stats.addSample(System.currentTimeMillis() - startTime);
+					finish(index);
+				}
+			}).catchError(cause -> {
+				if (outstanding.decrementAndGet() == 0 && result.complete(cause)) {
+					finish(index);
+				}
+			});
+		}
+
+		protected void finish(int winner) {
+			ScheduledFuture<?> t = timer;
+			if (t != null) {
+				t.cancel(false);
+			}
+
+			// Drop the loser's (late) response
+			String loserID = (winner == 0 ? hedgeID : firstID).get();
+			if (loserID != null) {
+				serviceRegistry.abandon(loserID);
+			}
+		}
+
+	}
+
+	// --- BUDGET AND RESPONSE TIMES OF AN ACTION ---
+
+	protected static class HedgeStats {
+
+		protected final long[] data;
+
+		protected int pointer;
+		protected int count;
+		protected long percentile95;
+
+		protected double tokens;
+
+		protected HedgeStats(int samples, int maxBurst) {
+			data = new long[Math.max(1, samples)];
+			tokens = maxBurst;
+		}
+
+		protected synchronized void addRequest(double ratio, int maxBurst) {
+			tokens = Math.min(maxBurst, tokens + ratio);
+		}
+
+		protected synchronized boolean tryAcquire() {
+			if (tokens >= 1) {
+				tokens--;
+				return true;
+			}
+			return false;
+		}
+
+		protected synchronized void addSample(long duration) {
+			data[pointer] = duration;
+			pointer = (pointer + 1) % data.length;
+			if (count < data.length) {
+				count++;
+			}
+
+			// Recalculate percentile (at every 8th sample)
+			if (pointer % 8 == 0 || percentile95 == 0) {
+				long[] copy = Arrays.copyOf(data, count);
+				Arrays.sort(copy);
+				percentile95 = copy[(int) Math.min(count - 1, Math.ceil(count * 0.95d) - 1)];
+			}
+		}
+
+		protected synchronized long getPercentile95(int minSamples) {
+			if (count < minSamples) {
+				return 0;
+			}
+			return Math.max(1, percentile95);
+		}
+
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public double getMaxRatio() {
+		return maxRatio;
+	}
+
+	public void setMaxRatio(double maxRatio) {
+		this.maxRatio = maxRatio;
+	}
+
+	public int getMaxBurst() {
+		return maxBurst;
+	}
+
+	public void setMaxBurst(int maxBurst) {
+		this.maxBurst = maxBurst;
+	}
+
+	public int getSamples() {
+		return samples;
+	}
+
+	public void setSamples(int samples) {
+		this.samples = samples;
+	}
+
+	public int getMinSamples() {
+		return minSamples;
+	}
+
+	public void setMinSamples(int minSamples) {
+		this.minSamples = minSamples;
+	}
+
+}
\ No newline at end of file
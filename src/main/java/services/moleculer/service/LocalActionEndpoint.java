@@ -26,9 +26,13 @@
 package services.moleculer.service;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.datatree.Promise;
 import io.datatree.Tree;
+import services.moleculer.context.Context;
+import services.moleculer.error.QueueIsFullError;
+import services.moleculer.util.ExecutorUtils;
 
 public class LocalActionEndpoint extends ActionEndpoint {
 
@@ -36,6 +40,29 @@ public class LocalActionEndpoint extends ActionEndpoint {
 
 	public LocalActionEndpoint(DefaultServiceRegistry registry, ExecutorService executor, String nodeID, Tree config,
 			Action action) {
+		this(registry, executor, nodeID, config, action, false);
+	}
+
+	/**
+	 * Creates a local action endpoint.
+	 * 
+	 * @param registry
+	 *            parent registry
+	 * @param executor
+	 *            executor of the action calls
+	 * @param nodeID
+	 *            local node ID
+	 * @param config
+	 *            action config
+	 * @param action
+	 *            action handler
+	 * @param virtualThreads
+	 *            true = invoke each call (with or without timeout) on the
+	 *            (virtual thread) executor, unless the caller is already a
+	 *            virtual thread
+	 */
+	public LocalActionEndpoint(DefaultServiceRegistry registry, ExecutorService executor, String nodeID, Tree config,
+			Action action, boolean virtualThreads) {
 		super(nodeID, config);
 
 		// Handle local timeout with a handler
@@ -46,27 +73,27 @@ public class LocalActionEndpoint extends ActionEndpoint {
 				Promise promise = new Promise();
 
 				// Execute local task
-				executor.execute(() -> {
+				execute(executor, nodeID, ctx, promise, () -> {
 
 					// Set timeout
 					long timeoutAt = System.currentTimeMillis() + ctx.opts.timeout;
 
 					// Register promise
-					registry.register(ctx.id, promise, timeoutAt);
+					registry.register(ctx.id, ctx.numericID, promise, timeoutAt, null);
 
 					// Invoke async method
 					try {
 						Promise.resolve(action.handler(ctx)).then(in -> {
 							if (promise.complete(in)) {
-								registry.deregister(ctx.id);
+								registry.deregister(ctx.id, ctx.numericID);
 							}
 						}).catchError(err -> {
 							if (promise.complete(err)) {
-								registry.deregister(ctx.id);
+								registry.deregister(ctx.id, ctx.numericID);
 							}
 						});
 					} catch (Exception cause) {
-						registry.deregister(ctx.id);
+						registry.deregister(ctx.id, ctx.numericID);
 						promise.complete(cause);
 					}
 
@@ -75,6 +102,23 @@ public class LocalActionEndpoint extends ActionEndpoint {
 				// Return promise
 				return promise;
 
+			} else if (virtualThreads && !ExecutorUtils.isVirtualThread()) {
+
+				// Invoke handler on a virtual thread (without timeout handling)
+				Promise promise = new Promise();
+				execute(executor, nodeID, ctx, promise, () -> {
+					try {
+						Promise.resolve(action.handler(ctx)).then(in -> {
+							promise.complete(in);
+						}).catchError(err -> {
+							promise.complete(err);
+						});
+					} catch (Exception cause) {
+						promise.complete(cause);
+					}
+				});
+				return promise;
+
 			} else {
 
 				// Invoke handler without timeout handling
@@ -84,4 +128,18 @@ public class LocalActionEndpoint extends ActionEndpoint {
 		};
 	}
 
+	/**
+	 * Submits the invocation to the request executor. When the executor
+	 * rejects it (its queue is full), the promise is rejected with a
+	 * QueueIsFullError.
+	 */
+	protected static void execute(ExecutorService executor, String nodeID, Context ctx, Promise promise,
+			Runnable task) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException cause) {
+			promise.complete(new QueueIsFullError(nodeID, ctx.name));
+		}
+	}
+
 }
\ No newline at end of file
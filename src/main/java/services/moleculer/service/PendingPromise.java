@@ -37,11 +37,32 @@ public class PendingPromise {
 	protected final Promise promise;
 	protected final long timeoutAt;
 
-	// --- CONSTRUCTOR ---
+	/**
+	 * Invoked remote endpoint (null = ping or local call)
+	 */
+	protected final RemoteActionEndpoint endpoint;
+
+	/**
+	 * Time of the request (in nanoseconds, 0 = not measured)
+	 */
+	protected final long startNanos;
+
+	/**
+	 * Numeric request ID (set by the {@link PendingPromiseTable})
+	 */
+	protected long numericID;
+
+	// --- CONSTRUCTORS ---
 
 	PendingPromise(Promise promise, long timeoutAt) {
+		this(promise, timeoutAt, null);
+	}
+
+	PendingPromise(Promise promise, long timeoutAt, RemoteActionEndpoint endpoint) {
 		this.promise = promise;
 		this.timeoutAt = timeoutAt;
+		this.endpoint = endpoint;
+		this.startNanos = endpoint == null ? 0 : System.nanoTime();
 	}
 
 }
\ No newline at end of file
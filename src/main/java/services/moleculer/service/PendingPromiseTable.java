@@ -0,0 +1,201 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Store of pending action calls, keyed by numeric (sequence-based) request
+ * IDs. The promises are stored in a slot array indexed by the sequence number
+ * (without String hashing and map entry allocation). When a slot is occupied
+ * (eg. by a long-running request), the promise is stored in an overflow map.
+ * The promises with timeout are also stored in a timeout-ordered set, so the
+ * timeout checker does not scan the slots.
+ *
+ * @see services.moleculer.uid.CompactUidGenerator
+ */
+public class PendingPromiseTable {
+
+	// --- SLOTS ---
+
+	protected final AtomicReferenceArray<PendingPromise> slots;
+	protected final int mask;
+
+	// --- OVERFLOW MAP ---
+
+	protected final ConcurrentHashMap<Long, PendingPromise> overflow = new ConcurrentHashMap<>();
+
+	// --- PROMISES WITH TIMEOUT (ORDERED BY TIMEOUT) ---
+
+	protected final ConcurrentSkipListSet<PendingPromise> timeouts = new ConcurrentSkipListSet<>((p1, p2) -> {
+		int c = Long.compare(p1.timeoutAt, p2.timeoutAt);
+		return c == 0 ? Long.compare(p1.numericID, p2.numericID) : c;
+	});
+
+	// --- NUMBER OF PENDING PROMISES ---
+
+	protected final LongAdder counter = new LongAdder();
+
+	// --- CONSTRUCTOR ---
+
+	/**
+	 * Creates a new table.
+	 *
+	 * @param capacity
+	 *            number of slots (rounded up to power of two)
+	 */
+	public PendingPromiseTable(int capacity) {
+		int size = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+		slots = new AtomicReferenceArray<>(size);
+		mask = size - 1;
+	}
+
+	// --- ADD / REMOVE ---
+
+	public void put(long id, PendingPromise pending) {
+		pending.numericID = id;
+		if (!slots.compareAndSet((int) (id & mask), null, pending)) {
+			overflow.put(id, pending);
+		}
+		counter.increment();
+		if (pending.timeoutAt > 0) {
+			timeouts.add(pending);
+		}
+	}
+
+	public PendingPromise remove(long id) {
+		int index = (int) (id & mask);
+		PendingPromise pending = slots.get(index);
+		if (pending != null && pending.numericID == id && slots.compareAndSet(index, pending, null)) {
+			removed(pending);
+			return pending;
+		}
+		if (overflow.isEmpty()) {
+			return null;
+		}
+		pending = overflow.remove(id);
+		if (pending != null) {
+			removed(pending);
+		}
+		return pending;
+	}
+
+	protected void removed(PendingPromise pending) {
+		counter.decrement();
+		if (pending.timeoutAt > 0) {
+			timeouts.remove(pending);
+		}
+	}
+
+	// --- TIMEOUT HANDLING ---
+
+	/**
+	 * Removes the timeouted promises.
+	 *
+	 * @param now
+	 *            current time
+	 * 
+	 * @return removed promises (or empty list)
+	 */
+	public List<PendingPromise> removeTimeouted(long now) {
+		LinkedList<PendingPromise> list = null;
+		PendingPromise pending;
+		Iterator<PendingPromise> i = timeouts.iterator();
+		while (i.hasNext()) {
+			pending = i.next();
+			if (now < pending.timeoutAt) {
+				break;
+			}
+			if (!timeouts.remove(pending)) {
+
+				// Removed by another thread
+				continue;
+			}
+			if (slots.compareAndSet((int) (pending.numericID & mask), pending, null)
+					|| overflow.remove(pending.numericID, pending)) {
+				counter.decrement();
+				if (list == null) {
+					list = new LinkedList<>();
+				}
+				list.addLast(pending);
+			}
+		}
+		if (list == null) {
+			return Collections.emptyList();
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the closest timeout timestamp.
+	 *
+	 * @return timestamp (or Long.MAX_VALUE)
+	 */
+	public long getMinTimeoutAt() {
+		Iterator<PendingPromise> i = timeouts.iterator();
+		return i.hasNext() ? i.next().timeoutAt : Long.MAX_VALUE;
+	}
+
+	// --- REMOVE ALL ---
+
+	public List<PendingPromise> removeAll() {
+		LinkedList<PendingPromise> list = new LinkedList<>();
+		list.addAll(overflow.values());
+		overflow.clear();
+
+		// Scan the slots until all of the occupied slots are found
+		int remaining = size() - list.size();
+		PendingPromise pending;
+		for (int i = 0; i <= mask && remaining > 0; i++) {
+			pending = slots.getAndSet(i, null);
+			if (pending != null) {
+				list.addLast(pending);
+				remaining--;
+			}
+		}
+		timeouts.clear();
+		counter.reset();
+		return list;
+	}
+
+	// --- SIZE ---
+
+	public int size() {
+		return (int) counter.sum();
+	}
+
+	public boolean isEmpty() {
+		return counter.sum() == 0;
+	}
+
+}
\ No newline at end of file
@@ -25,12 +25,41 @@
  */
 package services.moleculer.service;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import io.datatree.Promise;
 import io.datatree.Tree;
 import services.moleculer.transporter.Transporter;
 
 public class RemoteActionEndpoint extends ActionEndpoint {
 
+	// --- CONSTANTS ---
+
+	/**
+	 * Weight of the latest sample in the moving average of the response time
+	 */
+	protected static final double EWMA_WEIGHT = 0.2d;
+
+	// --- LOAD STATISTICS ---
+
+	/**
+	 * Number of outstanding (in-flight) requests
+	 */
+	protected final AtomicInteger inFlight = new AtomicInteger();
+
+	/**
+	 * Exponentially weighted moving average of the response time (bits of a
+	 * double value, in nanoseconds)
+	 */
+	protected final AtomicLong averageResponseTime = new AtomicLong(Double.doubleToRawLongBits(0d));
+
+	/**
+	 * Exponentially weighted moving average of the error rate (bits of a double
+	 * value, 0 = no errors, 1 = all requests failed)
+	 */
+	protected final AtomicLong errorRate = new AtomicLong(Double.doubleToRawLongBits(0d));
+
 	// --- CONSTRUCTOR ---
 
 	public RemoteActionEndpoint(DefaultServiceRegistry registry, Transporter transporter, String nodeID, Tree config) {
@@ -51,15 +80,66 @@ public class RemoteActionEndpoint extends ActionEndpoint {
 			}
 
 			// Register promise (timeout and response handling)
-			registry.register(ctx.id, promise, timeoutAt);
+			registry.register(ctx.id, ctx.numericID, promise, timeoutAt, this);
 
 			// Send request via transporter
-			Tree message = transporter.createRequestPacket(ctx);
-			transporter.publish(Transporter.PACKET_REQUEST, nodeID, message);
+			try {
+				Tree message = transporter.createRequestPacket(ctx);
+				transporter.publish(Transporter.PACKET_REQUEST, nodeID, message);
+			} catch (Throwable cause) {
+
+				// Rejected (eg. outgoing queue is full)
+				registry.deregister(ctx.id, ctx.numericID);
+				promise.complete(cause);
+			}
 
 			// Return promise
 			return promise;
 		};
 	}
-	
+
+	// --- REQUEST / RESPONSE HOOKS ---
+
+	protected void requestSent() {
+		inFlight.incrementAndGet();
+	}
+
+	protected void responseReceived(long durationNanos, boolean error) {
+		inFlight.decrementAndGet();
+		if (durationNanos < 0) {
+			return;
+		}
+		update(averageResponseTime, durationNanos, true);
+		update(errorRate, error ? 1 : 0, false);
+	}
+
+	protected static void update(AtomicLong bits, double value, boolean initWithFirst) {
+		long prev, next;
+		double average;
+		do {
+			prev = bits.get();
+			average = Double.longBitsToDouble(prev);
+			if (average == 0 && initWithFirst) {
+				average = value;
+			} else {
+				average += EWMA_WEIGHT * (value - average);
+			}
+			next = Double.doubleToRawLongBits(average);
+		} while (!bits.compareAndSet(prev, next));
+	}
+
+	// --- PROPERTY GETTERS ---
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public double getAverageResponseTime() {
+		return Double.longBitsToDouble(averageResponseTime.get());
+	}
+
+	public double getErrorRate() {
+		return Double.longBitsToDouble(errorRate.get());
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+/**
+ * Interface of response time listeners (eg. latency-based Invocation
+ * Strategies). The Service Registry notifies the listeners about the
+ * round-trip time of every remote action call.
+ *
+ * @see DefaultServiceRegistry#addResponseTimeListener(ResponseTimeListener)
+ * @see services.moleculer.strategy.ResponseTimeStrategyFactory
+ */
+@FunctionalInterface
+public interface ResponseTimeListener {
+
+	// --- RESPONSE RECEIVED (OR TIMEOUTED) ---
+
+	/**
+	 * Invoked when a response received from a remote node (or the request
+	 * timeouted).
+	 *
+	 * @param nodeID
+	 *            node identifier of the remote node
+	 * @param durationNanos
+	 *            round-trip time of the request, in NANOSECONDS
+	 */
+	public void responseReceived(String nodeID, long durationNanos);
+
+}
\ No newline at end of file
@@ -50,6 +50,10 @@ public abstract class ServiceRegistry extends MoleculerComponent {
 
 	public abstract void receiveResponse(Tree message);
 
+	// --- ABANDON A PENDING REMOTE INVOCATION ---
+
+	public abstract void abandon(String id);
+
 	// --- ADD MIDDLEWARES ---
 
 	public abstract void use(Collection<Middleware> middlewares);
@@ -62,10 +66,24 @@ public abstract class ServiceRegistry extends MoleculerComponent {
 
 	public abstract void addActions(Tree config);
 
+	public abstract void addActions(String nodeID, Tree config);
+
 	// --- REMOVE ALL ACTIONS OF A NODE ---
 
 	public abstract void removeActions(String nodeID);
 
+	// --- REMOVE ACTIONS OF A REMOTE SERVICE ---
+
+	public abstract void removeActions(String nodeID, Tree config);
+
+	// --- REPLACE ALL ACTIONS OF A REMOTE NODE ---
+
+	public abstract void replaceActions(String nodeID, Collection<Tree> services);
+
+	// --- APPLY TOPOLOGY CHANGES OF A REMOTE NODE ---
+
+	public abstract void updateActions(String nodeID, Collection<Tree> removed, Collection<Tree> added);
+
 	// --- GET LOCAL SERVICE ---
 
 	public abstract Service getService(String name);
@@ -74,6 +92,12 @@ public abstract class ServiceRegistry extends MoleculerComponent {
 
 	public abstract Action getAction(String name, String nodeID);
 
+	// --- GET LOCAL OR REMOTE ACTION CONTAINER BY REQUEST PARAMETERS ---
+
+	public Action getAction(String name, String nodeID, Tree params) {
+		return getAction(name, nodeID);
+	}
+
 	// --- WAIT FOR SERVICE(S) ---
 
 	public abstract Promise waitForServices(long timeoutMillis, Collection<String> services);
@@ -0,0 +1,449 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import static services.moleculer.ServiceBroker.PROTOCOL_VERSION;
+import static services.moleculer.transporter.Transporter.PACKET_REQUEST;
+import static services.moleculer.transporter.Transporter.PACKET_RESPONSE;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.datatree.Tree;
+import services.moleculer.error.MoleculerError;
+import services.moleculer.error.MoleculerErrorFactory;
+import services.moleculer.stream.PacketListener;
+import services.moleculer.stream.PacketStream;
+import services.moleculer.transporter.Transporter;
+import services.moleculer.util.FastBuildTree;
+
+/**
+ * Transfers {@link PacketStream}s between nodes, as a sequence of RES packets
+ * ("chunk frames"). Frame #0 opens the stream (and resolves the caller's
+ * Promise), frames #1..#n contain the chunks (max. "chunkSize" bytes per
+ * frame), and the last frame ("stream" = false) closes the stream, or
+ * contains the error. Frames are reordered by the "seq" property, so they can
+ * be processed by multiple threads (or delivered via multiple connections).
+ * <br>
+ * <br>
+ * Flow control: the sender sends max. "window" unacknowledged chunks. The
+ * receiver acknowledges the consumed chunks with REQ packets ("ack" = number
+ * of consumed chunks). The sender does not wait for the acknowledgements: the
+ * chunks beyond the window are queued, and they are sent by the thread which
+ * processes the acknowledgements.
+ */
+public class StreamManager {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(StreamManager.class);
+
+	// --- PROPERTIES ---
+
+	protected final String nodeID;
+	protected final DefaultServiceRegistry registry;
+	protected final Transporter transporter;
+
+	/**
+	 * Max size of chunk frames (BYTES)
+	 */
+	protected final int chunkSize;
+
+	/**
+	 * Max number of unacknowledged chunks per stream
+	 */
+	protected final int window;
+
+	/**
+	 * Max idle time of streams (MILLISECONDS)
+	 */
+	protected final long timeout;
+
+	// --- STREAMS ---
+
+	protected final ConcurrentHashMap<String, OutgoingStream> outgoing = new ConcurrentHashMap<>();
+	protected final ConcurrentHashMap<String, IncomingStream> incoming = new ConcurrentHashMap<>();
+
+	// --- TIMER OF IDLE STREAMS ---
+
+	protected final ScheduledFuture<?> timer;
+
+	// --- CONSTRUCTOR ---
+
+	public StreamManager(String nodeID, DefaultServiceRegistry registry, Transporter transporter,
+			ScheduledExecutorService scheduler, int chunkSize, int window, long timeout) {
+		this.nodeID = nodeID;
+		this.registry = registry;
+		this.transporter = transporter;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.window = Math.max(1, window);
+		this.timeout = Math.max(1000, timeout);
+		long period = Math.max(1000, this.timeout / 4);
+		timer = scheduler.scheduleWithFixedDelay(this::checkTimeouts, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	// --- SEND STREAM ---
+
+	/**
+	 * Sends a stream to the caller node.
+	 * 
+	 * @param id
+	 *            request ID
+	 * @param target
+	 *            caller's nodeID
+	 * @param stream
+	 *            the stream (response of an action)
+	 */
+	public void send(String id, String target, PacketStream stream) {
+		OutgoingStream out = new OutgoingStream(id, target);
+		outgoing.put(id, out);
+
+		// Send the opening frame
+		FastBuildTree msg = new FastBuildTree(6);
+		msg.putUnsafe("sender", nodeID);
+		msg.putUnsafe("id", id);
+		msg.putUnsafe("ver", PROTOCOL_VERSION);
+		msg.putUnsafe("success", true);
+		msg.putUnsafe("stream", true);
+		msg.putUnsafe("seq", 0L);
+		transporter.publish(PACKET_RESPONSE, target, msg);
+
+		// Send the chunks
+		stream.onPacket(out);
+	}
+
+	/**
+	 * Processes an acknowledge ("ack") packet of the receiver.
+	 * 
+	 * @param id
+	 *            request ID
+	 * @param message
+	 *            incoming REQ packet
+	 */
+	public void receiveAck(String id, Tree message) {
+		OutgoingStream out = outgoing.get(id);
+		if (out != null) {
+			try {
+				out.acknowledged(Math.max(1, message.get("ack", 1)));
+			} catch (Throwable cause) {
+				logger.warn("Unable to send stream frames!", cause);
+				out.cancel(cause);
+			}
+		}
+	}
+
+	protected class OutgoingStream implements PacketListener {
+
+		protected final String id;
+		protected final String target;
+
+		/**
+		 * Chunk frames waiting for credits
+		 */
+		protected final LinkedList<Tree> frames = new LinkedList<>();
+
+		/**
+		 * Closing (or error) frame, sent after the last chunk frame
+		 */
+		protected Tree closingFrame;
+
+		/**
+		 * Number of chunk frames the receiver can accept
+		 */
+		protected int credits = window;
+
+		protected final AtomicLong seq = new AtomicLong();
+		protected volatile long lastActivity = System.currentTimeMillis();
+		protected volatile boolean cancelled;
+
+		protected OutgoingStream(String id, String target) {
+			this.id = id;
+			this.target = target;
+		}
+
+		@Override
+		public void onPacket(byte[] bytes, Throwable cause, boolean close) throws Exception {
+			if (cancelled) {
+				throw new MoleculerError("Stream is cancelled!", nodeID, false, 500, "STREAM_CANCELLED", null);
+			}
+			synchronized (this) {
+				if (bytes != null) {
+					for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+						byte[] chunk = offset == 0 && bytes.length <= chunkSize ? bytes
+								: Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + chunkSize));
+						FastBuildTree msg = new FastBuildTree(7);
+						msg.putUnsafe("sender", nodeID);
+						msg.putUnsafe("id", id);
+						msg.putUnsafe("ver", PROTOCOL_VERSION);
+						msg.putUnsafe("success", true);
+						msg.putUnsafe("stream", true);
+						msg.putUnsafe("seq", seq.incrementAndGet());
+						msg.putUnsafe("data", chunk);
+						frames.addLast(msg);
+					}
+				}
+				if (close) {
+					if (cause == null) {
+						FastBuildTree msg = new FastBuildTree(6);
+						msg.putUnsafe("sender", nodeID);
+						msg.putUnsafe("id", id);
+						msg.putUnsafe("ver", PROTOCOL_VERSION);
+						msg.putUnsafe("success", true);
+						msg.putUnsafe("stream", false);
+						msg.putUnsafe("seq", seq.incrementAndGet());
+						closingFrame = msg;
+					} else {
+						closingFrame = registry.throwableToTree(id, cause, seq.incrementAndGet());
+					}
+				}
+			}
+
+			// Send the frames (without waiting for the receiver)
+			flush();
+		}
+
+		protected void acknowledged(int count) {
+			synchronized (this) {
+				credits += count;
+			}
+			lastActivity = System.currentTimeMillis();
+			flush();
+		}
+
+		/**
+		 * Sends the queued frames while the receiver has credits. Called by
+		 * the producer and by the acknowledgements, so the sender never waits
+		 * for credits (on a request thread, which would block the processing
+		 * of the acknowledgements).
+		 */
+		protected synchronized void flush() {
+			if (cancelled) {
+				return;
+			}
+			Tree frame;
+			while (credits > 0 && (frame = frames.pollFirst()) != null) {
+				credits--;
+				lastActivity = System.currentTimeMillis();
+				transporter.publish(PACKET_RESPONSE, target, frame);
+			}
+			if (frames.isEmpty() && closingFrame != null) {
+				frame = closingFrame;
+				closingFrame = null;
+				outgoing.remove(id);
+				transporter.publish(PACKET_RESPONSE, target, frame);
+			}
+		}
+
+		protected synchronized void cancel(Throwable cause) {
+			if (outgoing.remove(id) == null) {
+				return;
+			}
+			cancelled = true;
+			frames.clear();
+			closingFrame = null;
+			try {
+				transporter.publish(PACKET_RESPONSE, target, registry.throwableToTree(id, cause, seq.incrementAndGet()));
+			} catch (Throwable ignored) {
+
+				// Receiver is offline
+			}
+		}
+
+	}
+
+	// --- RECEIVE STREAM ---
+
+	/**
+	 * Processes an incoming chunk frame.
+	 * 
+	 * @param id
+	 *            request ID
+	 * @param seq
+	 *            sequence number of the frame
+	 * @param message
+	 *            incoming RES packet
+	 * 
+	 * @return the stream
+	 */
+	public PacketStream receive(String id, long seq, Tree message) {
+		IncomingStream in = incoming.get(id);
+		if (in == null) {
+			in = new IncomingStream(id, message.get("sender", ""));
+			IncomingStream prev = incoming.putIfAbsent(id, in);
+			if (prev != null) {
+				in = prev;
+			}
+		}
+		in.receive(seq, message);
+		return in.stream;
+	}
+
+	protected class IncomingStream {
+
+		protected final String id;
+		protected final String sender;
+		protected final PacketStream stream = new PacketStream(0, timeout);
+		protected final AtomicInteger consumed = new AtomicInteger();
+
+		/**
+		 * Frames which arrived before their predecessors
+		 */
+		protected final TreeMap<Long, Tree> pending = new TreeMap<>();
+
+		protected long nextSeq = 1;
+		protected volatile long lastActivity = System.currentTimeMillis();
+
+		protected IncomingStream(String id, String sender) {
+			this.id = id;
+			this.sender = sender;
+			stream.onConsumed(this::consumed);
+		}
+
+		protected synchronized void receive(long seq, Tree message) {
+			lastActivity = System.currentTimeMillis();
+			if (seq < nextSeq) {
+
+				// Opening frame (or duplicated frame)
+				return;
+			}
+			if (seq > nextSeq) {
+				pending.put(seq, message);
+				return;
+			}
+			process(message);
+			nextSeq++;
+			Tree next;
+			while ((next = pending.remove(nextSeq)) != null) {
+				process(next);
+				nextSeq++;
+			}
+		}
+
+		protected void process(Tree message) {
+			if (!message.get("success", true)) {
+				incoming.remove(id);
+				Tree error = message.get("error");
+				stream.sendError(error == null ? null : MoleculerErrorFactory.create(error));
+				return;
+			}
+			Tree data = message.get("data");
+			if (data != null) {
+				stream.sendData(data.asBytes());
+			}
+			if (!message.get("stream", true)) {
+				incoming.remove(id);
+				stream.sendClose();
+			}
+		}
+
+		protected void consumed() {
+			lastActivity = System.currentTimeMillis();
+			int count = consumed.incrementAndGet();
+			if (count >= (window + 1) / 2 && consumed.compareAndSet(count, 0)) {
+
+				// Acknowledge the consumed chunks
+				FastBuildTree msg = new FastBuildTree(5);
+				msg.putUnsafe("sender", nodeID);
+				msg.putUnsafe("id", id);
+				msg.putUnsafe("ver", PROTOCOL_VERSION);
+				msg.putUnsafe("stream", true);
+				msg.putUnsafe("ack", count);
+				transporter.publish(PACKET_REQUEST, sender, msg);
+			}
+		}
+
+	}
+
+	// --- TIMEOUT HANDLER ---
+
+	protected void checkTimeouts() {
+		long limit = System.currentTimeMillis() - timeout;
+		Iterator<IncomingStream> in = incoming.values().iterator();
+		while (in.hasNext()) {
+			IncomingStream stream = in.next();
+			if (stream.lastActivity < limit) {
+				in.remove();
+				try {
+					stream.stream.sendError(timeoutError());
+				} catch (Throwable ignored) {
+
+					// Already closed
+				}
+			}
+		}
+		for (OutgoingStream stream : outgoing.values()) {
+			if (stream.lastActivity < limit) {
+				stream.cancel(timeoutError());
+			}
+		}
+	}
+
+	protected MoleculerError timeoutError() {
+		return new MoleculerError("Stream is timed out!", nodeID, true, 504, "STREAM_TIMEOUT", null);
+	}
+
+	// --- STOP ---
+
+	public void stopped() {
+		timer.cancel(false);
+		InterruptedException error = new InterruptedException("Registry is shutting down.");
+		for (IncomingStream stream : incoming.values()) {
+			try {
+				stream.stream.sendError(error);
+			} catch (Throwable ignored) {
+
+				// Already closed
+			}
+		}
+		incoming.clear();
+		for (OutgoingStream stream : outgoing.values()) {
+			stream.cancelled = true;
+		}
+		outgoing.clear();
+	}
+
+	// --- GETTERS ---
+
+	public int getOutgoingStreams() {
+		return outgoing.size();
+	}
+
+	public int getIncomingStreams() {
+		return incoming.size();
+	}
+
+}
\ No newline at end of file
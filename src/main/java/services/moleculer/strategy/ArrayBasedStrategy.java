@@ -26,15 +26,19 @@
 package services.moleculer.strategy;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import io.datatree.dom.Cache;
 import services.moleculer.ServiceBroker;
 import services.moleculer.service.Endpoint;
+import services.moleculer.transporter.Transporter;
 
 /**
- * Abstract class for Round-Robin and Random invocation strategies.
+ * Abstract class for Round-Robin and Random invocation strategies. The
+ * endpoints are stored in an immutable {@link Snapshot} (with precomputed
+ * per-node arrays). The snapshot is rebuilt only when the topology changes, so
+ * the endpoint selection does not allocate memory and does not lock.
  *
  * @see RoundRobinStrategy
  * @see NanoSecRandomStrategy
@@ -45,87 +49,98 @@ import services.moleculer.service.Endpoint;
  */
 public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T> {
 
-	// --- ARRAY OF ENDPOINTS ---
+	// --- CONSTANTS ---
 
-	protected Endpoint[] endpoints = new Endpoint[0];
+	protected static final Endpoint[] EMPTY = new Endpoint[0];
 
-	// --- CACHE ---
+	// --- IMMUTABLE SNAPSHOT OF ENDPOINTS ---
 
-	protected final Cache<String, Endpoint[]> endpointCache = new Cache<>(1024, true);
+	protected volatile Snapshot snapshot;
 
 	// --- PROPERTIES ---
 
 	protected final String nodeID;
 	protected final boolean preferLocal;
 
+	// --- COMPONENTS ---
+
+	/**
+	 * Transporter (used to skip the nodes suspected by the failure detector)
+	 */
+	protected Transporter transporter;
+
 	// --- CONSTRUCTOR ---
 
 	public ArrayBasedStrategy(ServiceBroker broker, boolean preferLocal) {
 		this.nodeID = broker.getNodeID();
 		this.preferLocal = preferLocal;
+		this.transporter = broker.getConfig().getTransporter();
+		this.snapshot = new Snapshot(EMPTY, this.nodeID);
 	}
 
 	// --- ADD A LOCAL OR REMOTE ENDPOINT ---
 
 	@Override
-	public void addEndpoint(T endpoint) {
-		if (endpoints.length == 0) {
-			endpoints = new Endpoint[1];
-			endpoints[0] = endpoint;
-		} else {
-			for (int i = 0; i < endpoints.length; i++) {
-				if (endpoints[i].equals(endpoints)) {
+	public synchronized void addEndpoint(T endpoint) {
+		Endpoint[] endpoints = snapshot.endpoints;
+		for (int i = 0; i < endpoints.length; i++) {
+			if (endpoints[i].equals(endpoint)) {
 
-					// Already registered
-					return;
-				}
+				// Already registered
+				return;
 			}
-
-			// Add to array
-			Endpoint[] copy = new Endpoint[endpoints.length + 1];
-			System.arraycopy(endpoints, 0, copy, 0, endpoints.length);
-			copy[endpoints.length] = endpoint;
-			endpoints = copy;
 		}
 
-		// Remove from cache
-		endpointCache.remove(endpoint.getNodeID());
+		// Add to array
+		Endpoint[] copy = new Endpoint[endpoints.length + 1];
+		System.arraycopy(endpoints, 0, copy, 0, endpoints.length);
+		copy[endpoints.length] = endpoint;
+		snapshot = new Snapshot(copy, nodeID);
 	}
 
 	// --- REMOVE ALL ENDPOINTS OF THE SPECIFIED NODE ---
 
 	@Override
-	public boolean remove(String nodeID) {
-		Endpoint endpoint;
-		boolean found = false;
+	public synchronized boolean remove(String nodeID) {
+		Snapshot current = snapshot;
+		Endpoint[] removed = current.getEndpointsByNodeID(nodeID);
+		if (removed.length == 0) {
+			return false;
+		}
+		Endpoint[] endpoints = current.endpoints;
+		Endpoint[] copy = new Endpoint[endpoints.length - removed.length];
+		int j = 0;
 		for (int i = 0; i < endpoints.length; i++) {
-			endpoint = endpoints[i];
-			if (nodeID.equals(endpoint.getNodeID())) {
-				found = true;
-				if (endpoints.length == 1) {
-					endpoints = new Endpoint[0];
-				} else {
-					Endpoint[] copy = new Endpoint[endpoints.length - 1];
-					System.arraycopy(endpoints, 0, copy, 0, i);
-					System.arraycopy(endpoints, i + 1, copy, i, endpoints.length - i - 1);
-					endpoints = copy;
-					i--;
-				}
+			if (!nodeID.equals(endpoints[i].getNodeID())) {
+				copy[j++] = endpoints[i];
 			}
 		}
+		snapshot = new Snapshot(copy, this.nodeID);
+		return true;
+	}
+
+	// --- REMOVE AN ENDPOINT ---
 
-		// Remove from cache
-		if (found) {
-			endpointCache.remove(nodeID);
+	@Override
+	public synchronized boolean removeEndpoint(T endpoint) {
+		Endpoint[] endpoints = snapshot.endpoints;
+		for (int i = 0; i < endpoints.length; i++) {
+			if (endpoints[i].equals(endpoint)) {
+				Endpoint[] copy = new Endpoint[endpoints.length - 1];
+				System.arraycopy(endpoints, 0, copy, 0, i);
+				System.arraycopy(endpoints, i + 1, copy, i, endpoints.length - i - 1);
+				snapshot = new Snapshot(copy, nodeID);
+				return true;
+			}
 		}
-		return found;
+		return false;
 	}
 
 	// --- HAS ENDPOINTS ---
 
 	@Override
 	public boolean isEmpty() {
-		return endpoints.length == 0;
+		return snapshot.endpoints.length == 0;
 	}
 
 	// --- GET LOCAL OR REMOTE ENDPOINT ---
@@ -133,14 +148,16 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 	@SuppressWarnings("unchecked")
 	@Override
 	public T getEndpoint(String nodeID) {
+		Snapshot current = snapshot;
 		Endpoint[] array;
-		if (nodeID == null && preferLocal) {
-			array = getEndpointsByNodeID(this.nodeID);
-			if (array.length == 0) {
-				array = endpoints;
+		if (nodeID == null) {
+			if (preferLocal && current.localEndpoints.length > 0) {
+				array = current.localEndpoints;
+			} else {
+				array = current.endpoints;
 			}
 		} else {
-			array = getEndpointsByNodeID(nodeID);
+			array = current.getEndpointsByNodeID(nodeID);
 		}
 		if (array.length == 0) {
 			return null;
@@ -148,30 +165,25 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 		if (array.length == 1) {
 			return (T) array[0];
 		}
-		return (T) next(array);
+		Endpoint endpoint = next(array);
+		if (nodeID == null && transporter != null && transporter.isSuspect(endpoint.getNodeID())) {
+
+			// Prefer the non-suspected nodes
+			for (int i = 0; i < 2; i++) {
+				Endpoint next = next(array);
+				if (!transporter.isSuspect(next.getNodeID())) {
+					return (T) next;
+				}
+			}
+		}
+		return (T) endpoint;
 	}
 
 	protected Endpoint[] getEndpointsByNodeID(String nodeID) {
 		if (nodeID == null) {
-			return endpoints;
-		}
-		Endpoint[] array = endpointCache.get(nodeID);
-		if (array == null) {
-			LinkedList<Endpoint> list = new LinkedList<>();
-			for (Endpoint endpoint : endpoints) {
-				if (endpoint.getNodeID().equals(nodeID)) {
-					list.addLast(endpoint);
-				}
-			}
-			int size = list.size();
-			if (size == 0) {
-				return new Endpoint[0];
-			}
-			array = new Endpoint[size];
-			list.toArray(array);
-			endpointCache.put(nodeID, array);
+			return snapshot.endpoints;
 		}
-		return array;
+		return snapshot.getEndpointsByNodeID(nodeID);
 	}
 
 	// --- GET NEXT ENDPOINT ---
@@ -183,6 +195,7 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<T> getAllEndpoints() {
+		Endpoint[] endpoints = snapshot.endpoints;
 		ArrayList<T> list = new ArrayList<>(endpoints.length);
 		for (int i = 0; i < endpoints.length; i++) {
 			list.add((T) endpoints[i]);
@@ -190,4 +203,51 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 		return list;
 	}
 
-}
\ No newline at end of file
+	// --- IMMUTABLE SNAPSHOT ---
+
+	protected static class Snapshot {
+
+		/**
+		 * All endpoints
+		 */
+		protected final Endpoint[] endpoints;
+
+		/**
+		 * Endpoints of the local node
+		 */
+		protected final Endpoint[] localEndpoints;
+
+		/**
+		 * Endpoints grouped by nodeIDs (read-only map)
+		 */
+		protected final HashMap<String, Endpoint[]> endpointsByNodeID;
+
+		protected Snapshot(Endpoint[] endpoints, String localNodeID) {
+			this.endpoints = endpoints;
+
+			// Group endpoints by nodeIDs
+			HashMap<String, ArrayList<Endpoint>> groups = new HashMap<>();
+			for (Endpoint endpoint : endpoints) {
+				ArrayList<Endpoint> group = groups.get(endpoint.getNodeID());
+				if (group == null) {
+					group = new ArrayList<>();
+					groups.put(endpoint.getNodeID(), group);
+				}
+				group.add(endpoint);
+			}
+			endpointsByNodeID = new HashMap<>(Math.max(16, groups.size() * 2));
+			for (Map.Entry<String, ArrayList<Endpoint>> entry : groups.entrySet()) {
+				ArrayList<Endpoint> group = entry.getValue();
+				endpointsByNodeID.put(entry.getKey(), group.toArray(new Endpoint[group.size()]));
+			}
+			localEndpoints = getEndpointsByNodeID(localNodeID);
+		}
+
+		protected Endpoint[] getEndpointsByNodeID(String nodeID) {
+			Endpoint[] array = endpointsByNodeID.get(nodeID);
+			return array == null ? EMPTY : array;
+		}
+
+	}
+
+}
@@ -0,0 +1,118 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import io.datatree.Tree;
+import services.moleculer.ServiceBroker;
+import services.moleculer.service.Endpoint;
+import services.moleculer.service.Name;
+
+/**
+ * Consistent-hashing (sharding) invocation strategy. Requests with the same key
+ * (eg. "userId" parameter) are routed to the same node, so the node-local
+ * caches stay hot. This strategy uses Rendezvous (Highest Random Weight)
+ * hashing: the selected endpoint has the highest "hash(key, nodeID)" value.
+ * When a node joins or leaves, only the keys of the affected node are moved.
+ * Requests without key are routed randomly.
+ *
+ * @see RoundRobinStrategy
+ * @see NanoSecRandomStrategy
+ * @see XorShiftRandomStrategy
+ * @see SecureRandomStrategy
+ * @see CpuUsageStrategy
+ * @see NetworkLatencyStrategy
+ */
+@Name("Consistent Hash Strategy")
+public class ConsistentHashStrategy<T extends Endpoint> extends XorShiftRandomStrategy<T> {
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Path of the sharding key in the request parameters (eg. "userId" or
+	 * "user.id")
+	 */
+	protected final String keyPath;
+
+	// --- CONSTRUCTOR ---
+
+	public ConsistentHashStrategy(ServiceBroker broker, boolean preferLocal, String keyPath) {
+		super(broker, preferLocal);
+		this.keyPath = keyPath;
+	}
+
+	// --- GET ENDPOINT BY SHARDING KEY ---
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T getEndpoint(String nodeID, Tree params) {
+		if (nodeID != null || params == null) {
+			return getEndpoint(nodeID);
+		}
+		Tree key = params.get(keyPath);
+		if (key == null || key.isNull()) {
+			return getEndpoint(nodeID);
+		}
+		Endpoint[] array = snapshot.endpoints;
+		if (array.length == 0) {
+			return null;
+		}
+		return (T) getEndpointByKey(array, key.asString());
+	}
+
+	protected Endpoint getEndpointByKey(Endpoint[] array, String key) {
+		long keyHash = hash(key.hashCode());
+		Endpoint selected = null;
+		long maxWeight = 0;
+		long weight;
+		for (Endpoint endpoint : array) {
+			weight = hash(keyHash ^ endpoint.getNodeID().hashCode());
+			if (selected == null || weight > maxWeight
+					|| (weight == maxWeight && endpoint.getNodeID().compareTo(selected.getNodeID()) > 0)) {
+				selected = endpoint;
+				maxWeight = weight;
+			}
+		}
+		return selected;
+	}
+
+	// --- 64-BIT FINALIZER OF MURMUR3 ---
+
+	protected static final long hash(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+	// --- PROPERTY GETTERS ---
+
+	public String getKeyPath() {
+		return keyPath;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import java.util.Objects;
+
+import services.moleculer.service.Endpoint;
+import services.moleculer.service.Name;
+
+/**
+ * Factory of consistent-hashing (sharding) invocation strategy. Requests with
+ * the same key (eg. "userId" parameter) are routed to the same node. Sample:
+ *
+ * <pre>
+ * ServiceBroker broker = ServiceBroker.builder()
+ *     .strategy(new ConsistentHashStrategyFactory("userId"))
+ *     .transporter(transporter).build();
+ * </pre>
+ *
+ * @see RoundRobinStrategyFactory
+ * @see NanoSecRandomStrategyFactory
+ * @see SecureRandomStrategyFactory
+ * @see XorShiftRandomStrategyFactory
+ * @see CpuUsageStrategyFactory
+ * @see NetworkLatencyStrategyFactory
+ */
+@Name("Consistent Hash Strategy Factory")
+public class ConsistentHashStrategyFactory extends ArrayBasedStrategyFactory {
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Path of the sharding key in the request parameters (eg. "userId" or
+	 * "user.id")
+	 */
+	protected String keyPath = "key";
+
+	// --- CONSTRUCTORS ---
+
+	public ConsistentHashStrategyFactory() {
+		super(false);
+	}
+
+	public ConsistentHashStrategyFactory(String keyPath) {
+		super(false);
+		setKeyPath(keyPath);
+	}
+
+	public ConsistentHashStrategyFactory(boolean preferLocal, String keyPath) {
+		super(preferLocal);
+		setKeyPath(keyPath);
+	}
+
+	// --- FACTORY METHOD ---
+
+	@Override
+	public <T extends Endpoint> Strategy<T> create() {
+		return new ConsistentHashStrategy<T>(broker, preferLocal, keyPath);
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public String getKeyPath() {
+		return keyPath;
+	}
+
+	public void setKeyPath(String keyPath) {
+		this.keyPath = Objects.requireNonNull(keyPath);
+	}
+
+}
\ No newline at end of file
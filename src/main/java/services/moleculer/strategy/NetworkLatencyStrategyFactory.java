@@ -189,11 +189,6 @@ public class NetworkLatencyStrategyFactory extends ArrayBasedStrategyFactory {
 				}
 				ips.add(value);
 			}
-			try {
-				Thread.sleep(5);
-			} catch (InterruptedException interrupt) {
-				return;
-			}
 		}
 		
 		// Has peers?
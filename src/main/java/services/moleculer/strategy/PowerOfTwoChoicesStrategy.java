@@ -0,0 +1,82 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import services.moleculer.ServiceBroker;
+import services.moleculer.service.Endpoint;
+import services.moleculer.service.Name;
+import services.moleculer.service.RemoteActionEndpoint;
+
+/**
+ * "Power of two choices" (P2C) invocation strategy. This strategy picks two
+ * random endpoints, and routes the request to the less loaded one. The load of
+ * an endpoint is computed from the number of the in-flight requests and the
+ * moving average of the response times (both are measured locally, so they
+ * are always up-to-date). Endpoints without load statistics (eg. local
+ * actions or event listeners) are selected randomly.
+ * 
+ * @see RoundRobinStrategy
+ * @see NanoSecRandomStrategy
+ * @see XorShiftRandomStrategy
+ * @see SecureRandomStrategy
+ * @see CpuUsageStrategy
+ * @see NetworkLatencyStrategy
+ */
+@Name("Power of Two Choices Strategy")
+public class PowerOfTwoChoicesStrategy<T extends Endpoint> extends XorShiftRandomStrategy<T> {
+
+	// --- CONSTRUCTOR ---
+
+	public PowerOfTwoChoicesStrategy(ServiceBroker broker, boolean preferLocal) {
+		super(broker, preferLocal);
+	}
+
+	// --- GET NEXT ENDPOINT ---
+
+	@Override
+	public Endpoint next(Endpoint[] array) {
+
+		// Get two random endpoints
+		Endpoint first = super.next(array);
+		Endpoint second = super.next(array);
+		if (first == second && array.length > 1) {
+			second = super.next(array);
+		}
+
+		// Compare the loads
+		if (first instanceof RemoteActionEndpoint && second instanceof RemoteActionEndpoint) {
+			if (getLoad((RemoteActionEndpoint) second) < getLoad((RemoteActionEndpoint) first)) {
+				return second;
+			}
+		}
+		return first;
+	}
+
+	protected double getLoad(RemoteActionEndpoint endpoint) {
+		return (endpoint.getInFlight() + 1) * (endpoint.getAverageResponseTime() + 1);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import services.moleculer.service.Endpoint;
+import services.moleculer.service.Name;
+
+/**
+ * Factory of "power of two choices" (P2C) invocation strategy. This strategy
+ * picks two random endpoints, and routes the request to the one with fewer
+ * outstanding requests (weighted by the moving average of the response times).
+ * 
+ * @see RoundRobinStrategyFactory
+ * @see SecureRandomStrategyFactory
+ * @see XorShiftRandomStrategyFactory
+ * @see NanoSecRandomStrategyFactory
+ * @see CpuUsageStrategyFactory
+ * @see NetworkLatencyStrategyFactory
+ */
+@Name("Power of Two Choices Strategy Factory")
+public class PowerOfTwoChoicesStrategyFactory extends ArrayBasedStrategyFactory {
+
+	// --- CONSTRUCTORS ---
+
+	public PowerOfTwoChoicesStrategyFactory() {
+		super(false);
+	}
+
+	public PowerOfTwoChoicesStrategyFactory(boolean preferLocal) {
+		super(preferLocal);
+	}
+
+	// --- FACTORY METHOD ---
+
+	@Override
+	public <T extends Endpoint> Strategy<T> create() {
+		return new PowerOfTwoChoicesStrategy<T>(broker, preferLocal);
+	}
+
+}
\ No newline at end of file
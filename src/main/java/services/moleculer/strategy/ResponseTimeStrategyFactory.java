@@ -0,0 +1,260 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import services.moleculer.ServiceBroker;
+import services.moleculer.service.DefaultServiceRegistry;
+import services.moleculer.service.Name;
+import services.moleculer.service.ResponseTimeListener;
+import services.moleculer.service.ServiceRegistry;
+
+/**
+ * Factory of lowest response time strategy. This strategy works like the
+ * {@link NetworkLatencyStrategyFactory}, but it measures the round-trip time of
+ * every remote action call, and keeps a time-decaying moving average per node.
+ * PING packets are sent only to the idle nodes (nodes without any request in
+ * the last 'idleTimeout' milliseconds). The ping loop does not block the
+ * scheduler's threads.
+ * 
+ * @see RoundRobinStrategyFactory
+ * @see SecureRandomStrategyFactory
+ * @see XorShiftRandomStrategyFactory
+ * @see NanoSecRandomStrategyFactory
+ * @see CpuUsageStrategyFactory
+ * @see NetworkLatencyStrategyFactory
+ */
+@Name("Lowest Response Time Strategy Factory")
+public class ResponseTimeStrategyFactory extends NetworkLatencyStrategyFactory implements ResponseTimeListener {
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Decay time of the moving average, in MILLISECONDS (the weight of an old
+	 * sample is "e^(-elapsed/decayTime)").
+	 */
+	protected long decayTime = 10000L;
+
+	/**
+	 * Nodes without any response in this period (in MILLISECONDS) are pinged.
+	 */
+	protected long idleTimeout = 10000L;
+
+	/**
+	 * Max number of PING packets in a ping period.
+	 */
+	protected int maxPings = 10;
+
+	// --- COMPONENTS ---
+
+	protected DefaultServiceRegistry serviceRegistry;
+
+	// --- RESPONSE TIMES ---
+
+	protected final ConcurrentHashMap<String, Latency> latencies = new ConcurrentHashMap<>();
+
+	// --- CONSTRUCTORS ---
+
+	public ResponseTimeStrategyFactory() {
+		super(false);
+	}
+
+	public ResponseTimeStrategyFactory(boolean preferLocal) {
+		super(preferLocal);
+	}
+
+	// --- START INVOCATION STRATEGY ---
+
+	/**
+	 * Initializes strategy instance.
+	 * 
+	 * @param broker
+	 *            parent ServiceBroker
+	 */
+	@Override
+	public void started(ServiceBroker broker) throws Exception {
+		super.started(broker);
+
+		// Subscribe to response times
+		ServiceRegistry registry = broker.getConfig().getServiceRegistry();
+		if (registry instanceof DefaultServiceRegistry) {
+			serviceRegistry = (DefaultServiceRegistry) registry;
+			serviceRegistry.addResponseTimeListener(this);
+		} else {
+			logger.warn("Unable to measure the response times of the remote calls (unsupported Service Registry)!");
+		}
+	}
+
+	// --- STOP INVOCATION STRATEGY ---
+
+	@Override
+	public void stopped() {
+		if (serviceRegistry != null) {
+			serviceRegistry.removeResponseTimeListener(this);
+			serviceRegistry = null;
+		}
+		super.stopped();
+		latencies.clear();
+	}
+
+	// --- RESPONSE RECEIVED ---
+
+	@Override
+	public void responseReceived(String nodeID, long durationNanos) {
+		getLatency(nodeID).addValue(durationNanos, System.nanoTime(), decayTime * 1000000L);
+	}
+
+	protected Latency getLatency(String nodeID) {
+		Latency latency = latencies.get(nodeID);
+		if (latency == null) {
+			latency = new Latency();
+			Latency prev = latencies.putIfAbsent(nodeID, latency);
+			if (prev != null) {
+				latency = prev;
+			}
+		}
+		return latency;
+	}
+
+	// --- PING LOOP ---
+
+	@Override
+	protected void sendNextPing() {
+		if (transporter == null) {
+			return;
+		}
+		Set<String> nodeIDs = transporter.getAllNodeIDs();
+
+		// Remove the disconnected nodes
+		latencies.keySet().retainAll(nodeIDs);
+
+		// Send PING packets to the idle nodes
+		long now = System.nanoTime();
+		long idleNanos = idleTimeout * 1000000L;
+		int pings = 0;
+		Iterator<String> i = nodeIDs.iterator();
+		while (i.hasNext() && pings < maxPings) {
+			String nextNodeID = i.next();
+			if (nodeID.equals(nextNodeID)) {
+				continue;
+			}
+			Latency latency = getLatency(nextNodeID);
+			if ((latency.count == 0 || now - latency.lastUpdate >= idleNanos) && !latency.pinging) {
+				latency.pinging = true;
+				pings++;
+				sendPing(nextNodeID);
+			}
+		}
+	}
+
+	@Override
+	protected void sendPing(String nextNodeID) {
+		final long start = System.nanoTime();
+		broker.ping(pingTimeout, nextNodeID).then(in -> {
+
+			// Store the response time
+			long now = System.nanoTime();
+			Latency latency = getLatency(nextNodeID);
+			latency.pinging = false;
+			latency.addValue(now - start, now, decayTime * 1000000L);
+
+		}).catchError(err -> {
+
+			// No response / node is down
+			latencies.remove(nextNodeID);
+
+		});
+	}
+
+	// --- GET RESPONSE TIME OF A NODE ---
+
+	@Override
+	protected long getAverageResponseTime(String nextNodeID) {
+		Latency latency = latencies.get(nextNodeID);
+		if (latency == null || latency.count == 0) {
+			return Long.MAX_VALUE;
+		}
+		return latency.average;
+	}
+
+	// --- TIME-DECAYING MOVING AVERAGE ---
+
+	protected static class Latency {
+
+		/**
+		 * Max. weight of the previous average (the latest sample always has at
+		 * least 5% weight, even in a burst of responses)
+		 */
+		protected static final double MAX_WEIGHT = 0.95d;
+
+		protected volatile long average;
+		protected volatile long lastUpdate;
+		protected volatile int count;
+		protected volatile boolean pinging;
+
+		protected synchronized void addValue(long value, long now, long decayNanos) {
+			if (count == 0) {
+				average = value;
+				count = 1;
+			} else {
+				double weight = Math.min(MAX_WEIGHT, Math.exp(-(double) Math.max(0, now - lastUpdate) / decayNanos));
+				average = (long) (average * weight + value * (1 - weight));
+			}
+			lastUpdate = now;
+		}
+
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public long getDecayTime() {
+		return decayTime;
+	}
+
+	public void setDecayTime(long decayTime) {
+		this.decayTime = decayTime;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public int getMaxPings() {
+		return maxPings;
+	}
+
+	public void setMaxPings(int maxPings) {
+		this.maxPings = maxPings;
+	}
+
+}
\ No newline at end of file
@@ -25,8 +25,10 @@
  */
 package services.moleculer.strategy;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import io.datatree.Tree;
 import services.moleculer.service.Endpoint;
 import services.moleculer.service.Name;
 
@@ -44,6 +46,34 @@ public abstract class Strategy<T extends Endpoint> {
 
 	public abstract boolean remove(String nodeID);
 
+	// --- REMOVE AN ENDPOINT ---
+
+	/**
+	 * Removes one endpoint (eg. an action of a node, which has been removed
+	 * by an INFO diff). The default implementation removes all endpoints of
+	 * the node, then adds back the other endpoints of the node (the
+	 * implementations should override it with a more efficient method).
+	 *
+	 * @param endpoint
+	 *            endpoint to remove
+	 *
+	 * @return true if the endpoint was removed
+	 */
+	public boolean removeEndpoint(T endpoint) {
+		List<T> endpoints = new ArrayList<>(getAllEndpoints());
+		if (!endpoints.contains(endpoint)) {
+			return false;
+		}
+		String nodeID = endpoint.getNodeID();
+		remove(nodeID);
+		for (T other : endpoints) {
+			if (nodeID.equals(other.getNodeID()) && !other.equals(endpoint)) {
+				addEndpoint(other);
+			}
+		}
+		return true;
+	}
+
 	// --- HAS ENDPOINTS ---
 
 	public abstract boolean isEmpty();
@@ -52,6 +82,24 @@ public abstract class Strategy<T extends Endpoint> {
 
 	public abstract T getEndpoint(String nodeID);
 
+	// --- GET ENDPOINT BY REQUEST PARAMETERS ---
+
+	/**
+	 * Returns a local or remote endpoint by the request parameters (eg. the
+	 * {@link ConsistentHashStrategy} uses this method). The default
+	 * implementation ignores the parameters.
+	 *
+	 * @param nodeID
+	 *            node identifier (or null)
+	 * @param params
+	 *            request parameters (can be null)
+	 *
+	 * @return the selected endpoint (or null)
+	 */
+	public T getEndpoint(String nodeID, Tree params) {
+		return getEndpoint(nodeID);
+	}
+
 	// --- GET ALL ENDPOINTS ---
 
 	public abstract List<T> getAllEndpoints();
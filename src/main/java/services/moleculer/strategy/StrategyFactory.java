@@ -48,6 +48,11 @@ import services.moleculer.service.Name;
  * @see XorShiftRandomStrategyFactory
  * @see CpuUsageStrategyFactory
  * @see NetworkLatencyStrategyFactory
+ * @see PowerOfTwoChoicesStrategyFactory
+ * @see ResponseTimeStrategyFactory
+ * @see ConsistentHashStrategyFactory
+ * @see ZoneAwareStrategyFactory
+ * @see WeightedRoundRobinStrategyFactory
  */
 @Name("Strategy Factory")
 public abstract class StrategyFactory extends MoleculerComponent {
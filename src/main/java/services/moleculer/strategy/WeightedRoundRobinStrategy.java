@@ -0,0 +1,179 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import services.moleculer.ServiceBroker;
+import services.moleculer.service.Endpoint;
+import services.moleculer.service.Name;
+import services.moleculer.transporter.Transporter;
+
+/**
+ * Smooth weighted round-robin invocation strategy (same algorithm as in
+ * NGINX). The weights of the nodes are advertised in the INFO packets (see the
+ * "weight" property of the DefaultServiceRegistry), and can be changed at
+ * runtime via the "$node.weight" action. Nodes with zero weight don't get new
+ * requests (unless all nodes have zero weight). The selection order is
+ * precalculated into an immutable array when the endpoints or the weights
+ * change, so the endpoint selection does not lock.
+ *
+ * @see RoundRobinStrategy
+ * @see NanoSecRandomStrategy
+ * @see XorShiftRandomStrategy
+ * @see SecureRandomStrategy
+ * @see CpuUsageStrategy
+ * @see NetworkLatencyStrategy
+ */
+@Name("Weighted Round-Robin Strategy")
+public class WeightedRoundRobinStrategy<T extends Endpoint> extends RoundRobinStrategy<T> {
+
+	// --- CONSTANTS ---
+
+	/**
+	 * Max length of the precalculated selection sequence
+	 */
+	protected static final int MAX_SEQUENCE_LENGTH = 1024;
+
+	// --- IMMUTABLE SELECTION SEQUENCE ---
+
+	protected volatile Schedule schedule;
+
+	// --- CONSTRUCTOR ---
+
+	public WeightedRoundRobinStrategy(ServiceBroker broker, boolean preferLocal, Transporter transporter) {
+		super(broker, preferLocal);
+		this.transporter = transporter;
+	}
+
+	// --- GET NEXT ENDPOINT ---
+
+	@Override
+	public Endpoint next(Endpoint[] array) {
+		Schedule current = schedule;
+		if (current == null || current.endpoints != array || current.version != transporter.getWeightVersion()) {
+
+			// Endpoints or weights changed (replaced without locking, the
+			// concurrent callers may create the same sequence)
+			current = new Schedule(array, transporter);
+			schedule = current;
+		}
+		Endpoint[] sequence = current.sequence;
+		if (sequence.length == 0) {
+
+			// All nodes are drained
+			return super.next(array);
+		}
+		return sequence[(counter.incrementAndGet() & 0x7fffffff) % sequence.length];
+	}
+
+	// --- PRECALCULATED SELECTION SEQUENCE ---
+
+	protected static class Schedule {
+
+		/**
+		 * Endpoints (array of the strategy's snapshot)
+		 */
+		protected final Endpoint[] endpoints;
+
+		/**
+		 * Weights of the endpoints' nodes
+		 */
+		protected final int[] weights;
+
+		/**
+		 * Version stamp of the weights (see Transporter.getWeightVersion)
+		 */
+		protected final long version;
+
+		/**
+		 * Endpoints in the order of the smooth weighted round-robin algorithm
+		 */
+		protected final Endpoint[] sequence;
+
+		protected Schedule(Endpoint[] endpoints, Transporter transporter) {
+			this.endpoints = endpoints;
+			version = transporter.getWeightVersion();
+			weights = new int[endpoints.length];
+			long total = 0;
+			int gcd = 0;
+			for (int i = 0; i < endpoints.length; i++) {
+				int weight = Math.max(0, transporter.getWeight(endpoints[i].getNodeID()));
+				weights[i] = weight;
+				total += weight;
+				gcd = gcd(gcd, weight);
+			}
+			if (total == 0) {
+				sequence = new Endpoint[0];
+				return;
+			}
+
+			// Reduce the weights (keep the ratios)
+			long[] reduced = new long[weights.length];
+			long length = 0;
+			for (int i = 0; i < weights.length; i++) {
+				reduced[i] = weights[i] / gcd;
+				length += reduced[i];
+			}
+			if (length > MAX_SEQUENCE_LENGTH) {
+				length = 0;
+				for (int i = 0; i < weights.length; i++) {
+					if (reduced[i] > 0) {
+						reduced[i] = Math.max(1, (long) weights[i] * MAX_SEQUENCE_LENGTH / total);
+						length += reduced[i];
+					}
+				}
+			}
+
+			// Smooth weighted round-robin (same algorithm as in NGINX)
+			sequence = new Endpoint[(int) length];
+			long[] current = new long[weights.length];
+			for (int n = 0; n < sequence.length; n++) {
+				int selected = -1;
+				for (int i = 0; i < reduced.length; i++) {
+					if (reduced[i] == 0) {
+						continue;
+					}
+					current[i] += reduced[i];
+					if (selected == -1 || current[i] > current[selected]) {
+						selected = i;
+					}
+				}
+				current[selected] -= length;
+				sequence[n] = endpoints[selected];
+			}
+		}
+
+		protected static int gcd(int a, int b) {
+			while (b != 0) {
+				int t = a % b;
+				a = b;
+				b = t;
+			}
+			return a;
+		}
+
+	}
+
+}
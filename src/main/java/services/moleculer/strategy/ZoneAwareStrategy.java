@@ -0,0 +1,174 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import java.util.List;
+
+import io.datatree.Tree;
+import services.moleculer.service.Endpoint;
+import services.moleculer.service.Name;
+import services.moleculer.service.RemoteActionEndpoint;
+import services.moleculer.transporter.Transporter;
+
+/**
+ * Zone-aware invocation strategy (wrapper of another strategy). This strategy
+ * prefers the endpoints in the same availability zone (see the "zone" property
+ * of the INFO packet), and spills over to other zones only when the selected
+ * endpoint is overloaded (too many in-flight requests or too high error rate).
+ *
+ * @see ZoneAwareStrategyFactory
+ */
+@Name("Zone-aware Strategy")
+public class ZoneAwareStrategy<T extends Endpoint> extends Strategy<T> {
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Node ID of this node
+	 */
+	protected final String nodeID;
+
+	/**
+	 * Availability zone of this node
+	 */
+	protected final String zone;
+
+	/**
+	 * Spill over to other zones above this number of in-flight requests
+	 */
+	protected final int maxInFlight;
+
+	/**
+	 * Spill over to other zones above this error rate (0...1)
+	 */
+	protected final double maxErrorRate;
+
+	// --- COMPONENTS ---
+
+	protected final Transporter transporter;
+
+	// --- WRAPPED STRATEGIES ---
+
+	/**
+	 * Endpoints in the same zone
+	 */
+	protected final Strategy<T> sameZone;
+
+	/**
+	 * All endpoints
+	 */
+	protected final Strategy<T> allZones;
+
+	// --- CONSTRUCTOR ---
+
+	public ZoneAwareStrategy(String nodeID, String zone, int maxInFlight, double maxErrorRate,
+			Transporter transporter, Strategy<T> sameZone, Strategy<T> allZones) {
+		this.nodeID = nodeID;
+		this.zone = zone;
+		this.maxInFlight = maxInFlight;
+		this.maxErrorRate = maxErrorRate;
+		this.transporter = transporter;
+		this.sameZone = sameZone;
+		this.allZones = allZones;
+	}
+
+	// --- ADD A LOCAL OR REMOTE ENDPOINT ---
+
+	@Override
+	public void addEndpoint(T endpoint) {
+		allZones.addEndpoint(endpoint);
+		if (zone.equals(getZone(endpoint.getNodeID()))) {
+			sameZone.addEndpoint(endpoint);
+		}
+	}
+
+	protected String getZone(String nodeID) {
+		if (this.nodeID.equals(nodeID)) {
+			return zone;
+		}
+		if (transporter == null) {
+			return null;
+		}
+		return transporter.getZone(nodeID);
+	}
+
+	// --- REMOVE ALL ENDPOINTS OF THE SPECIFIED NODE ---
+
+	@Override
+	public boolean remove(String nodeID) {
+		sameZone.remove(nodeID);
+		return allZones.remove(nodeID);
+	}
+
+	// --- REMOVE AN ENDPOINT ---
+
+	@Override
+	public boolean removeEndpoint(T endpoint) {
+		sameZone.removeEndpoint(endpoint);
+		return allZones.removeEndpoint(endpoint);
+	}
+
+	// --- HAS ENDPOINTS ---
+
+	@Override
+	public boolean isEmpty() {
+		return allZones.isEmpty();
+	}
+
+	// --- GET LOCAL OR REMOTE ENDPOINT ---
+
+	@Override
+	public T getEndpoint(String nodeID) {
+		return getEndpoint(nodeID, null);
+	}
+
+	@Override
+	public T getEndpoint(String nodeID, Tree params) {
+		if (nodeID == null && !sameZone.isEmpty()) {
+			T endpoint = sameZone.getEndpoint(null, params);
+			if (endpoint != null && !isOverloaded(endpoint)) {
+				return endpoint;
+			}
+		}
+		return allZones.getEndpoint(nodeID, params);
+	}
+
+	protected boolean isOverloaded(T endpoint) {
+		if (endpoint instanceof RemoteActionEndpoint) {
+			RemoteActionEndpoint remote = (RemoteActionEndpoint) endpoint;
+			return remote.getInFlight() >= maxInFlight || remote.getErrorRate() >= maxErrorRate;
+		}
+		return false;
+	}
+
+	// --- GET ALL ENDPOINTS ---
+
+	@Override
+	public List<T> getAllEndpoints() {
+		return allZones.getAllEndpoints();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import java.util.Objects;
+
+import services.moleculer.ServiceBroker;
+import services.moleculer.service.DefaultServiceRegistry;
+import services.moleculer.service.Endpoint;
+import services.moleculer.service.Name;
+import services.moleculer.service.ServiceRegistry;
+import services.moleculer.transporter.Transporter;
+
+/**
+ * Factory of zone-aware invocation strategy. This strategy prefers the
+ * endpoints in the same availability zone, and spills over to other zones only
+ * above a load or error threshold. The zone of the nodes can be set by the
+ * "zone" property of the {@link DefaultServiceRegistry}. Sample:
+ *
+ * <pre>
+ * DefaultServiceRegistry registry = new DefaultServiceRegistry();
+ * registry.setZone("eu-west-1a");
+ * ServiceBroker broker = ServiceBroker.builder().registry(registry)
+ *     .strategy(new ZoneAwareStrategyFactory(new RoundRobinStrategyFactory()))
+ *     .transporter(transporter).build();
+ * </pre>
+ *
+ * @see RoundRobinStrategyFactory
+ * @see XorShiftRandomStrategyFactory
+ * @see PowerOfTwoChoicesStrategyFactory
+ */
+@Name("Zone-aware Strategy Factory")
+public class ZoneAwareStrategyFactory extends StrategyFactory {
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Spill over to other zones above this number of in-flight requests
+	 */
+	protected int maxInFlight = 64;
+
+	/**
+	 * Spill over to other zones above this error rate (0...1)
+	 */
+	protected double maxErrorRate = 0.5d;
+
+	// --- COMPONENTS ---
+
+	/**
+	 * Wrapped strategy factory
+	 */
+	protected StrategyFactory strategyFactory;
+
+	protected Transporter transporter;
+
+	// --- AVAILABILITY ZONE OF THIS NODE ---
+
+	protected String zone;
+
+	// --- CONSTRUCTORS ---
+
+	public ZoneAwareStrategyFactory() {
+		this(new XorShiftRandomStrategyFactory(false));
+	}
+
+	public ZoneAwareStrategyFactory(StrategyFactory strategyFactory) {
+		setStrategyFactory(strategyFactory);
+	}
+
+	// --- START INVOCATION STRATEGY ---
+
+	/**
+	 * Initializes strategy instance.
+	 * 
+	 * @param broker
+	 *            parent ServiceBroker
+	 */
+	@Override
+	public void started(ServiceBroker broker) throws Exception {
+		super.started(broker);
+		strategyFactory.started(broker);
+
+		// Get components
+		transporter = broker.getConfig().getTransporter();
+		ServiceRegistry registry = broker.getConfig().getServiceRegistry();
+		if (registry instanceof DefaultServiceRegistry) {
+			zone = ((DefaultServiceRegistry) registry).getZone();
+		}
+		if (zone == null) {
+			logger.warn("Availability zone of this node is not defined. Zone-aware routing disabled.");
+		}
+	}
+
+	// --- STOP INVOCATION STRATEGY ---
+
+	@Override
+	public void stopped() {
+		strategyFactory.stopped();
+	}
+
+	// --- FACTORY METHOD ---
+
+	@Override
+	public <T extends Endpoint> Strategy<T> create() {
+		if (zone == null) {
+			return strategyFactory.create();
+		}
+		return new ZoneAwareStrategy<T>(broker.getNodeID(), zone, maxInFlight, maxErrorRate, transporter,
+				strategyFactory.create(), strategyFactory.create());
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public StrategyFactory getStrategyFactory() {
+		return strategyFactory;
+	}
+
+	public void setStrategyFactory(StrategyFactory strategyFactory) {
+		this.strategyFactory = Objects.requireNonNull(strategyFactory);
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	public double getMaxErrorRate() {
+		return maxErrorRate;
+	}
+
+	public void setMaxErrorRate(double maxErrorRate) {
+		this.maxErrorRate = maxErrorRate;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,321 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.stream;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.function.BooleanSupplier;
+
+import io.datatree.Tree;
+import services.moleculer.error.MoleculerError;
+
+/**
+ * Stream of binary chunks, used for transferring large action responses
+ * (exports, file blobs, etc.) without loading them into the memory. Actions
+ * return a PacketStream instead of a Tree, and fill it later (from any
+ * thread):<br>
+ * 
+ * <pre>
+ * public Action export = ctx -&gt; {
+ * 	PacketStream stream = new PacketStream();
+ * 	executor.execute(() -&gt; {
+ * 		stream.sendData(bytes1);
+ * 		stream.sendData(bytes2);
+ * 		stream.sendClose();
+ * 	});
+ * 	return stream;
+ * };
+ * </pre>
+ * 
+ * The caller can read the stream via a blocking Iterator or via a
+ * {@link PacketListener}:<br>
+ * 
+ * <pre>
+ * broker.call("service.export").then(rsp -&gt; {
+ * 	PacketStream stream = (PacketStream) rsp.asObject();
+ * 	stream.onPacket((bytes, cause, close) -&gt; {
+ * 		// ...
+ * 	});
+ * });
+ * </pre>
+ * 
+ * The producer is blocked when the buffer is full (max. "maxQueued" packets
+ * are buffered), so a slow consumer slows down the producer. The remote
+ * transfer is controlled by the Service Registry (chunk size, window of
+ * unacknowledged chunks).
+ */
+public class PacketStream implements Iterable<byte[]> {
+
+	// --- END OF STREAM MARKER ---
+
+	protected static final Object CLOSE_MARKER = new Object();
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Max number of buffered (unconsumed) packets (0 = unlimited)
+	 */
+	protected final int maxQueued;
+
+	/**
+	 * Max blocking time of the producer and the consumer, in MILLISECONDS (0 =
+	 * no timeout)
+	 */
+	protected final long timeout;
+
+	// --- VARIABLES ---
+
+	/**
+	 * Buffered packets (byte arrays, Throwables or the close marker)
+	 */
+	protected final LinkedList<Object> buffer = new LinkedList<>();
+
+	/**
+	 * Receiver of the packets (null = consumed by an iterator)
+	 */
+	protected PacketListener listener;
+
+	/**
+	 * Closed by the producer
+	 */
+	protected boolean closed;
+
+	/**
+	 * Invoked after each consumed packet (used for flow control)
+	 */
+	protected volatile Runnable consumedHandler;
+
+	// --- CONSTRUCTORS ---
+
+	public PacketStream() {
+		this(64, 60000);
+	}
+
+	public PacketStream(int maxQueued, long timeout) {
+		this.maxQueued = maxQueued;
+		this.timeout = timeout;
+	}
+
+	// --- PRODUCER METHODS ---
+
+	/**
+	 * Appends a chunk of data to the stream. Blocks the caller when the buffer
+	 * of the stream is full.
+	 * 
+	 * @param bytes
+	 *            chunk of data
+	 */
+	public void sendData(byte[] bytes) {
+		if (bytes != null && bytes.length > 0) {
+			send(bytes);
+		}
+	}
+
+	/**
+	 * Closes the stream with an error.
+	 * 
+	 * @param cause
+	 *            error
+	 */
+	public void sendError(Throwable cause) {
+		send(cause == null ? new MoleculerError("Stream is broken!", null, false) : cause);
+	}
+
+	/**
+	 * Closes the stream.
+	 */
+	public void sendClose() {
+		send(CLOSE_MARKER);
+	}
+
+	protected synchronized void send(Object packet) {
+		if (closed) {
+			if (packet == CLOSE_MARKER) {
+				return;
+			}
+			throw new IllegalStateException("Stream is closed!");
+		}
+		if (packet instanceof byte[]) {
+			if (listener == null && maxQueued > 0) {
+				waitFor(() -> buffer.size() < maxQueued, "Stream buffer is full!");
+			}
+		} else {
+			closed = true;
+		}
+		if (listener == null) {
+			buffer.addLast(packet);
+			notifyAll();
+			return;
+		}
+		deliver(listener, packet);
+	}
+
+	// --- CONSUMER METHODS ---
+
+	/**
+	 * Sets the receiver of the packets. Buffered packets are delivered
+	 * immediately. The listener is invoked in order, on the producer's
+	 * thread.
+	 * 
+	 * @param listener
+	 *            receiver of the packets
+	 * 
+	 * @return this stream
+	 */
+	public synchronized PacketStream onPacket(PacketListener listener) {
+		if (this.listener != null) {
+			throw new IllegalStateException("Stream already has a listener!");
+		}
+		this.listener = listener;
+		while (!buffer.isEmpty()) {
+			deliver(listener, buffer.removeFirst());
+		}
+		notifyAll();
+		return this;
+	}
+
+	/**
+	 * Returns a blocking Iterator of the chunks. The Iterator throws the error
+	 * of the stream (if the producer closed the stream with an error).
+	 */
+	@Override
+	public Iterator<byte[]> iterator() {
+		return new Iterator<byte[]>() {
+
+			@Override
+			public boolean hasNext() {
+				synchronized (PacketStream.this) {
+					if (listener != null) {
+						throw new IllegalStateException("Stream already has a listener!");
+					}
+					waitFor(() -> !buffer.isEmpty(), "Stream is timed out!");
+					Object packet = buffer.getFirst();
+					if (packet == CLOSE_MARKER) {
+						return false;
+					}
+					if (packet instanceof Throwable) {
+						throw toRuntimeException((Throwable) packet);
+					}
+					return true;
+				}
+			}
+
+			@Override
+			public byte[] next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				byte[] bytes;
+				synchronized (PacketStream.this) {
+					bytes = (byte[]) buffer.removeFirst();
+					PacketStream.this.notifyAll();
+				}
+				consumed();
+				return bytes;
+			}
+
+		};
+	}
+
+	/**
+	 * Sets a handler which is invoked after each consumed chunk (used for flow
+	 * control by the Service Registry).
+	 * 
+	 * @param handler
+	 *            handler (or null)
+	 */
+	public void onConsumed(Runnable handler) {
+		this.consumedHandler = handler;
+	}
+
+	// --- PRIVATE UTILITIES ---
+
+	protected void deliver(PacketListener target, Object packet) {
+		try {
+			if (packet == CLOSE_MARKER) {
+				target.onPacket(null, null, true);
+			} else if (packet instanceof Throwable) {
+				target.onPacket(null, (Throwable) packet, true);
+			} else {
+				target.onPacket((byte[]) packet, null, false);
+				consumed();
+			}
+		} catch (RuntimeException cause) {
+			throw cause;
+		} catch (Exception cause) {
+			throw new MoleculerError("Unable to process packet!", cause, null, false, 500, "STREAM_ERROR",
+					(Tree) null);
+		}
+	}
+
+	protected void consumed() {
+		Runnable handler = consumedHandler;
+		if (handler != null) {
+			handler.run();
+		}
+	}
+
+	protected void waitFor(BooleanSupplier condition, String message) {
+		long end = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+		while (!condition.getAsBoolean()) {
+			long wait = end - System.currentTimeMillis();
+			if (wait <= 0) {
+				throw new MoleculerError(message, null, true, 504, "STREAM_TIMEOUT", null);
+			}
+			try {
+				wait(timeout > 0 ? wait : 0);
+			} catch (InterruptedException interrupt) {
+				Thread.currentThread().interrupt();
+				throw new MoleculerError("Stream is interrupted!", interrupt, null, false, 500, "STREAM_ERROR",
+						(Tree) null);
+			}
+		}
+	}
+
+	protected static RuntimeException toRuntimeException(Throwable cause) {
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		return new MoleculerError(String.valueOf(cause.getMessage()), cause, null, false, 500, "STREAM_ERROR",
+				(Tree) null);
+	}
+
+	// --- GETTERS ---
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	public int getMaxQueued() {
+		return maxQueued;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+}
\ No newline at end of file
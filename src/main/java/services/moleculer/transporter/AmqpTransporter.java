@@ -331,7 +331,7 @@ public class AmqpTransporter extends Transporter {
 						logger.info("Submitting message to queue \"" + channel + "\":\r\n" + message.toString());
 					}
 					this.channel.basicPublish("", channel, mandatory, immediate, messageProperties,
-							serializer.write(message));
+							serialize(channel, message));
 
 				} else {
 
@@ -340,7 +340,7 @@ public class AmqpTransporter extends Transporter {
 						logger.info("Submitting message to exchange \"" + channel + "\":\r\n" + message.toString());
 					}
 					this.channel.basicPublish(channel, "", mandatory, immediate, messageProperties,
-							serializer.write(message));
+							serialize(channel, message));
 
 				}
 			} catch (Exception cause) {
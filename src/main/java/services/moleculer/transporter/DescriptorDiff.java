@@ -0,0 +1,313 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.datatree.Tree;
+
+/**
+ * Utilities of the incremental service descriptor updates ("INFO diffs"). A
+ * diff contains the added or changed service blocks ("services") and the
+ * names of the removed services ("removed").
+ */
+public class DescriptorDiff {
+
+	// --- CREATE DIFF ---
+
+	/**
+	 * Creates the diff of two "services" blocks.
+	 * 
+	 * @param prevServices
+	 *            previous "services" block (or null)
+	 * @param services
+	 *            current "services" block (or null)
+	 * 
+	 * @return diff (or null, if the blocks are equal)
+	 */
+	public static final Tree create(Tree prevServices, Tree services) {
+		LinkedHashMap<String, Tree> prev = servicesByName(prevServices);
+		LinkedHashMap<String, Tree> next = servicesByName(services);
+		Tree diff = new Tree();
+		Tree changed = diff.putList("services");
+		Tree removed = diff.putList("removed");
+		for (Map.Entry<String, Tree> entry : next.entrySet()) {
+			Tree prevService = prev.get(entry.getKey());
+			if (prevService == null || !equals(prevService, entry.getValue())) {
+				changed.addObject(entry.getValue());
+			}
+		}
+		for (String name : prev.keySet()) {
+			if (!next.containsKey(name)) {
+				removed.add(name);
+			}
+		}
+		if (changed.isEmpty() && removed.isEmpty()) {
+			return null;
+		}
+		return diff;
+	}
+
+	// --- APPLY DIFF ---
+
+	/**
+	 * Applies a diff to a node descriptor.
+	 * 
+	 * @param info
+	 *            previous node descriptor
+	 * @param diff
+	 *            diff (created by the "create" method)
+	 * 
+	 * @return new node descriptor
+	 */
+	public static final Tree apply(Tree info, Tree diff) {
+		LinkedHashMap<String, Tree> services = servicesByName(info.get("services"));
+		Tree removed = diff.get("removed");
+		if (removed != null) {
+			for (Tree name : removed) {
+				services.remove(name.asString());
+			}
+		}
+		Tree changed = diff.get("services");
+		if (changed != null) {
+			for (Tree service : changed) {
+				services.put(service.get("name", ""), service);
+			}
+		}
+		Tree copy = info.clone();
+		copy.remove("services");
+		Tree list = copy.putList("services");
+		for (Tree service : services.values()) {
+			list.addObject(service.clone());
+		}
+		return copy;
+	}
+
+	// --- COMPARE SERVICE BLOCKS ---
+
+	/**
+	 * Collects the removed and added (or changed) entries of an "actions" or
+	 * "events" block of a service.
+	 * 
+	 * @param prevService
+	 *            previous service block
+	 * @param service
+	 *            current service block
+	 * @param block
+	 *            "actions" or "events"
+	 * @param removed
+	 *            names of the removed (or changed) entries
+	 * @param added
+	 *            names of the added (or changed) entries
+	 */
+	public static final void compare(Tree prevService, Tree service, String block, Collection<String> removed,
+			Collection<String> added) {
+		LinkedHashMap<String, Tree> prev = entriesByName(prevService.get(block));
+		LinkedHashMap<String, Tree> next = entriesByName(service.get(block));
+		for (Map.Entry<String, Tree> entry : prev.entrySet()) {
+			Tree current = next.get(entry.getKey());
+			if (current == null || !equals(entry.getValue(), current)) {
+				removed.add(entry.getKey());
+			}
+		}
+		for (Map.Entry<String, Tree> entry : next.entrySet()) {
+			Tree previous = prev.get(entry.getKey());
+			if (previous == null || !equals(previous, entry.getValue())) {
+				added.add(entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Creates a service block with the specified entries of the "actions" or
+	 * "events" block.
+	 * 
+	 * @param service
+	 *            service block
+	 * @param block
+	 *            "actions" or "events"
+	 * @param names
+	 *            names of the entries
+	 * 
+	 * @return service block with the specified entries
+	 */
+	@SuppressWarnings("unchecked")
+	public static final Tree subset(Tree service, String block, Collection<String> names) {
+		Tree subset = new Tree();
+		subset.put("name", service.get("name", ""));
+		Map<String, Object> map = (Map<String, Object>) subset.putMap(block).asObject();
+		Tree entries = service.get(block);
+		if (entries != null) {
+			for (Tree entry : entries) {
+				if (names.contains(entry.getName())) {
+					map.put(entry.getName(), entry.clone().asObject());
+				}
+			}
+		}
+		return subset;
+	}
+
+	// --- HASH OF SERVICE BLOCKS ---
+
+	/**
+	 * Calculates the 64-bit hash of a "services" block. The order of the
+	 * services, actions and properties, and the "nodeID" properties (inserted
+	 * by the Service Registry) do not affect the result.
+	 * 
+	 * @param services
+	 *            "services" block (or null)
+	 * 
+	 * @return hash of the block
+	 */
+	public static final long hash(Tree services) {
+		long hash = 0;
+		if (services != null) {
+			for (Tree service : services) {
+				hash += mix(hash(service, 1));
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Calculates the hash of a node (level 1 = service block, 2 = "actions"
+	 * block, 3 = action).
+	 */
+	protected static final long hash(Tree node, int level) {
+		if (node.isMap()) {
+			long hash = 17;
+			for (Tree child : node) {
+				String name = child.getName();
+				if ((level == 1 || level == 3) && "nodeID".equals(name)) {
+					continue;
+				}
+				int next = 0;
+				if (level == 1 && "actions".equals(name)) {
+					next = 2;
+				} else if (level == 2) {
+					next = 3;
+				}
+				hash += mix(31L * name.hashCode() + hash(child, next));
+			}
+			return hash;
+		}
+		if (node.isEnumeration()) {
+			long hash = 19;
+			for (Tree child : node) {
+				hash = 31L * hash + hash(child, 0);
+			}
+			return hash;
+		}
+		Object value = node.asObject();
+		return value == null ? 0 : value.hashCode();
+	}
+
+	protected static final long mix(long hash) {
+		hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+		hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+		return hash ^ (hash >>> 31);
+	}
+
+	// --- UTILITIES ---
+
+	public static final LinkedHashMap<String, Tree> servicesByName(Tree services) {
+		LinkedHashMap<String, Tree> map = new LinkedHashMap<>();
+		if (services != null) {
+			for (Tree service : services) {
+				map.put(service.get("name", ""), service);
+			}
+		}
+		return map;
+	}
+
+	protected static final LinkedHashMap<String, Tree> entriesByName(Tree block) {
+		LinkedHashMap<String, Tree> map = new LinkedHashMap<>();
+		if (block != null && block.isMap()) {
+			for (Tree entry : block) {
+				map.put(entry.getName(), entry);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Compares two blocks, without the "nodeID" properties of the actions
+	 * (which are inserted by the Service Registry).
+	 * 
+	 * @param a
+	 *            first block
+	 * @param b
+	 *            second block
+	 * 
+	 * @return true if the blocks are equal
+	 */
+	public static final boolean equals(Tree a, Tree b) {
+		return normalize(a).equals(normalize(b));
+	}
+
+	protected static final Tree normalize(Tree block) {
+		if (!containsNodeID(block)) {
+			return block;
+		}
+		Tree copy = block.clone();
+		removeNodeIDs(copy);
+		return copy;
+	}
+
+	protected static final boolean containsNodeID(Tree block) {
+		if (block.isMap()) {
+			if (block.get("nodeID") != null) {
+				return true;
+			}
+			Tree actions = block.get("actions");
+			if (actions != null && actions.isMap()) {
+				for (Tree action : actions) {
+					if (action.isMap() && action.get("nodeID") != null) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	protected static final void removeNodeIDs(Tree block) {
+		if (block.isMap()) {
+			block.remove("nodeID");
+			Tree actions = block.get("actions");
+			if (actions != null && actions.isMap()) {
+				for (Tree action : actions) {
+					if (action.isMap()) {
+						action.remove("nodeID");
+					}
+				}
+			}
+		}
+	}
+
+}
\ No newline at end of file
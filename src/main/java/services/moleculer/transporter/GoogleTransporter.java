@@ -427,7 +427,7 @@ public class GoogleTransporter extends Transporter {
 				if (debug) {
 					logger.info("Submitting message to channel \"" + channel + "\":\r\n" + message.toString());
 				}
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(channel, message);
 				PubsubMessage msg = PubsubMessage.newBuilder().setData(ByteString.copyFrom(bytes)).build();
 				getOrCreatePublisher(channel).publish(msg);
 			} catch (Exception cause) {
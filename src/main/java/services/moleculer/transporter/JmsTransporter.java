@@ -308,7 +308,7 @@ public class JmsTransporter extends Transporter {
 				}
 				TopicPublisher publisher = createOrGetPublisher(channel);
 				BytesMessage msg = session.createBytesMessage();
-				msg.writeBytes(serializer.write(message));
+				msg.writeBytes(serialize(channel, message));
 				if (transacted) {
 					synchronized (this) {
 						try {
@@ -336,7 +336,7 @@ public class KafkaTransporter extends Transporter {
 				if (debug) {
 					logger.info("Submitting message to channel \"" + channel + "\":\r\n" + message.toString());
 				}
-				producer.send(new ProducerRecord<byte[], byte[]>(channel, serializer.write(message)));
+				producer.send(new ProducerRecord<byte[], byte[]>(channel, serialize(channel, message)));
 			} catch (Exception cause) {
 				logger.warn("Unable to send message to Kafka server!", cause);
 			}
@@ -281,7 +281,7 @@ public class MqttTransporter extends Transporter implements AsyncClientListener
 				if (debug) {
 					logger.info("Submitting message to channel \"" + channel + "\":\r\n" + message.toString());
 				}
-				client.publish(new PublishMessage(channel, qos, serializer.write(message), false));
+				client.publish(new PublishMessage(channel, qos, serialize(channel, message), false));
 			} catch (Exception cause) {
 				logger.warn("Unable to send message to MQTT server!", cause);
 			}
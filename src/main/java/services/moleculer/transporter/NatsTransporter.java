@@ -259,7 +259,7 @@ public class NatsTransporter extends Transporter implements MessageHandler, Disc
 				if (debug) {
 					logger.info("Submitting message to channel \"" + channel + "\":\r\n" + message.toString());
 				}
-				client.publish(channel, serializer.write(message));
+				client.publish(channel, serialize(channel, message));
 			} catch (Exception cause) {
 				logger.warn("Unable to send message to NATS server!", cause);
 				reconnect();
@@ -215,7 +215,7 @@ public class RedisTransporter extends Transporter implements EventBus, RedisPubS
 				if (debug) {
 					logger.info("Submitting message to channel \"" + channel + "\":\r\n" + message.toString());
 				}
-				clientPub.publish(channel, serializer.write(message));
+				clientPub.publish(channel, serialize(channel, message));
 			} catch (Exception cause) {
 				logger.warn("Unable to send message to Redis!", cause);
 				reconnect();
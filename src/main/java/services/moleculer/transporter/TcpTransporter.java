@@ -34,8 +34,15 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -46,12 +53,18 @@ import services.moleculer.ServiceBroker;
 import services.moleculer.error.InvalidPacketDataError;
 import services.moleculer.error.MoleculerError;
 import services.moleculer.error.MoleculerServerError;
+import services.moleculer.error.QueueIsFullError;
+import services.moleculer.serializer.AdaptiveSerializer;
 import services.moleculer.service.Name;
+import services.moleculer.transporter.tcp.CompactEnvelope;
+import services.moleculer.transporter.tcp.GossipDigest;
 import services.moleculer.transporter.tcp.NodeDescriptor;
+import services.moleculer.transporter.tcp.StringDictionary;
 import services.moleculer.transporter.tcp.TcpReader;
 import services.moleculer.transporter.tcp.TcpWriter;
 import services.moleculer.transporter.tcp.UDPLocator;
 import services.moleculer.util.FastBuildTree;
+import services.moleculer.util.PartitionedExecutor;
 
 /**
  * TCP Transporter with optional UDP discovery ("zero configuration") module.
@@ -97,6 +110,41 @@ public class TcpTransporter extends Transporter {
 	protected static final byte PACKET_GOSSIP_RSP_ID = 7;
 	protected static final byte PACKET_GOSSIP_HELLO_ID = 8;
 
+	/**
+	 * Flag of the packet type (6. byte of the packet): the packet uses the
+	 * compact envelope
+	 */
+	protected static final byte COMPACT_FLAG = 0x40;
+
+	// --- POLICIES OF FULL OUTGOING QUEUES ---
+
+	/**
+	 * Block the caller until the queue has free space (max. "maxBlockTime")
+	 */
+	public static final String QUEUE_POLICY_BLOCK = "block";
+
+	/**
+	 * Reject the packet with a QueueIsFullError
+	 */
+	public static final String QUEUE_POLICY_FAIL = "fail";
+
+	/**
+	 * Drop the events, but send the requests and responses
+	 */
+	public static final String QUEUE_POLICY_DROP = "drop";
+
+	// --- CONNECTION SELECTION MODES ---
+
+	/**
+	 * Select connection by message class (responses, requests, events)
+	 */
+	public static final String CHANNEL_SELECTION_CLASS = "class";
+
+	/**
+	 * Select connection in round-robin order
+	 */
+	public static final String CHANNEL_SELECTION_ROUND_ROBIN = "roundRobin";
+
 	// --- PROPERTIES ---
 
 	/**
@@ -111,6 +159,19 @@ public class TcpTransporter extends Transporter {
 	 */
 	protected int gossipPeriod = 2;
 
+	/**
+	 * Send only the changed entries of the gossip digest to the peers (delta
+	 * gossiping). Used only for peers which advertise the support of delta
+	 * requests (via the "gossipDelta" property of their info block).
+	 */
+	protected boolean gossipDelta;
+
+	/**
+	 * Send the full gossip digest to a peer at every Nth round (with delta
+	 * gossiping).
+	 */
+	protected int gossipFullRounds = 10;
+
 	/**
 	 * Max number of keep-alive connections (-1 = unlimited, 0 = disable
 	 * keep-alive connections).
@@ -122,6 +183,77 @@ public class TcpTransporter extends Transporter {
 	 */
 	protected int maxPacketSize = 1024 * 1024;
 
+	/**
+	 * Max size of the response packets (BYTES) which are deserialized and
+	 * completed directly on the reader thread, without a thread switch (0 =
+	 * disabled). Enable it only when the response handlers (Promise callbacks)
+	 * do not block.
+	 */
+	protected int inlineResponseSize;
+
+	/**
+	 * Send events, requests and responses in compact envelope (binary header
+	 * with routing fields, numeric node index instead of the sender's nodeID).
+	 * Used only for peers which also support it (negotiated via the "envelope"
+	 * property of the node info).
+	 */
+	protected boolean compactEnvelope;
+
+	/**
+	 * Send the action and event names as references to the receiver's string
+	 * dictionary in the compact envelope (the dictionary is published in the
+	 * node info, the "compactEnvelope" property must be enabled).
+	 */
+	protected boolean stringDictionary = true;
+
+	/**
+	 * Max number of queued outgoing bytes per node (0 = unlimited).
+	 */
+	protected long maxQueuedBytes = 64L * 1024 * 1024;
+
+	/**
+	 * Max number of queued outgoing packets per node (0 = unlimited).
+	 */
+	protected int maxQueuedPackets;
+
+	/**
+	 * Policy when an outgoing queue is full ("block", "fail" or "drop").
+	 */
+	protected String queueFullPolicy = QUEUE_POLICY_FAIL;
+
+	/**
+	 * Max blocking time in MILLISECONDS (with the "block" policy).
+	 */
+	protected long maxBlockTime = 10000;
+
+	/**
+	 * Number of outgoing connections per node. Multiple connections prevent
+	 * large messages from delaying small ones (head-of-line blocking). The
+	 * connections are reserved per message class: responses and control
+	 * packets use the first, events the second, requests the rest of the
+	 * connections (use at least 3 connections to separate all classes).
+	 */
+	protected int connectionsPerNode = 1;
+
+	/**
+	 * Connection selection mode with multiple connections ("class" or
+	 * "roundRobin").
+	 */
+	protected String channelSelection = CHANNEL_SELECTION_CLASS;
+
+	/**
+	 * Requests and responses larger than this size (BYTES) are sent via a
+	 * dedicated (the last) connection when "connectionsPerNode" is greater than
+	 * 3, or via the request connection when it is 3 (0 = disabled). Events
+	 * always use the event connection (to keep their order).
+	 */
+	protected int largePacketSize = 64 * 1024;
+
+	/**
+	 * Number of dropped events (with the "drop" policy).
+	 */
+	protected final AtomicLong droppedEvents = new AtomicLong();
+
 	/**
 	 * List of URLs ("tcp://host:port/nodeID" or "host:port/nodeID" or
 	 * "host/nodeID"), when UDP discovery is disabled.
@@ -217,6 +349,60 @@ public class TcpTransporter extends Transporter {
 	 */
 	protected AtomicLong timestamp = new AtomicLong();
 
+	// --- DIGESTS OF DELTA GOSSIPING ---
+
+	/**
+	 * Last digests sent to the peers (by nodeIDs)
+	 */
+	protected final ConcurrentHashMap<String, GossipDigest> sentDigests = new ConcurrentHashMap<>();
+
+	/**
+	 * Last digests received from the peers (by nodeIDs)
+	 */
+	protected final ConcurrentHashMap<String, GossipDigest> receivedDigests = new ConcurrentHashMap<>();
+
+	// --- COMPACT ENVELOPE ---
+
+	/**
+	 * Compact envelope writer and reader
+	 */
+	protected CompactEnvelope envelope;
+
+	/**
+	 * Node index of the local node (sent instead of the nodeID)
+	 */
+	protected volatile int nodeIndex;
+
+	/**
+	 * Sequence number of the first node info containing the current node index
+	 */
+	protected volatile long nodeIndexSeq = Long.MAX_VALUE;
+
+	/**
+	 * Node index in the node info
+	 */
+	protected int publishedNodeIndex;
+
+	/**
+	 * NodeIDs by node indexes (of the remote nodes)
+	 */
+	protected final ConcurrentHashMap<Integer, String> nodeIndexes = new ConcurrentHashMap<>();
+
+	/**
+	 * Peers which know the node index of the local node
+	 */
+	protected final Set<String> confirmedPeers = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * String dictionary of the local node
+	 */
+	protected volatile StringDictionary dictionary = StringDictionary.EMPTY;
+
+	/**
+	 * String dictionaries of the remote nodes (by nodeIDs)
+	 */
+	protected final ConcurrentHashMap<String, StringDictionary> peerDictionaries = new ConcurrentHashMap<>();
+
 	// --- CACHED GOSSIP HELLO MESSAGE ---
 
 	protected byte[] cachedHelloMessage;
@@ -274,6 +460,8 @@ public class TcpTransporter extends Transporter {
 			disconnect();
 			reader = new TcpReader(this);
 			writer = new TcpWriter(this);
+			envelope = new CompactEnvelope(serializer);
+			nodeIndex = createNodeIndex();
 
 			// Disable offline timeout when use host list
 			if (urls != null && urls.length > 0) {
@@ -323,9 +511,11 @@ public class TcpTransporter extends Transporter {
 
 			// Create descriptor of current node
 			Tree info = registry.getDescriptor();
+			localDescriptorCreated(info);
 			info.put("port", currentPort);
 			info.put("seq", "0");
 			cachedDescriptor = new NodeDescriptor(nodeID, useHostname, true, info);
+			addEnvelopeInfo(info, 0);
 
 			// Start data writer (TCP client)
 			writer.connect();
@@ -341,8 +531,11 @@ public class TcpTransporter extends Transporter {
 					TimeUnit.SECONDS);
 
 			// Start timeout checker's timer
-			if (checkTimeoutTimer == null && offlineTimeout > 0) {
+			if (checkTimeoutTimer == null && (offlineTimeout > 0 || isFailureDetectorEnabled())) {
 				int period = Math.max(offlineTimeout / 3, 10);
+				if (isFailureDetectorEnabled()) {
+					period = Math.max(1, gossipPeriod);
+				}
 				checkTimeoutTimer = scheduler.scheduleAtFixedRate(this::checkTimeouts, period, period,
 						TimeUnit.SECONDS);
 			}
@@ -416,13 +609,45 @@ public class TcpTransporter extends Transporter {
 
 	// --- MESSAGE RECEIVED ---
 
-	public void received(byte packetID, byte[] packet) {
-		executor.execute(() -> {
+	public void received(byte type, byte[] packet) {
+
+		// Compact envelope?
+		boolean compact = (type & COMPACT_FLAG) != 0;
+		byte packetID = (byte) (type & ~COMPACT_FLAG);
+
+		// Select executor by packet type
+		ExecutorService target;
+		switch (packetID) {
+		case PACKET_EVENT_ID:
+			if (eventExecutor instanceof PartitionedExecutor) {
+
+				// Parse in the reader thread (keep the order of events)
+				receivedOrderedEvent(packet, compact);
+				return;
+			}
+			target = eventExecutor;
+			break;
+		case PACKET_REQUEST_ID:
+			target = requestExecutor;
+			break;
+		case PACKET_RESPONSE_ID:
+			if (packet.length <= inlineResponseSize) {
+
+				// Complete small responses in the reader thread
+				receivedInlineResponse(packet, compact);
+				return;
+			}
+			target = responseExecutor;
+			break;
+		default:
+			target = executor;
+		}
+		Runnable task = () -> {
 
 			// Parse message
 			Tree data;
 			try {
-				data = serializer.read(packet);
+				data = parse(packet, compact);
 			} catch (Exception cause) {
 				logger.warn("Unable to parse incoming message!", cause);
 				return;
@@ -472,7 +697,7 @@ public class TcpTransporter extends Transporter {
 					}
 					data.put("sender", this.nodeID);
 					data.put("arrived", System.currentTimeMillis());
-					writer.send(sender, serialize(PACKET_PONG_ID, data));
+					writer.send(sender, serialize(PACKET_PONG_ID, data, sender));
 					return;
 
 				case PACKET_PONG_ID:
@@ -509,9 +734,73 @@ public class TcpTransporter extends Transporter {
 			} catch (Exception cause) {
 				logger.warn("Unable to process incoming message!", cause);
 			}
+		};
+		try {
+			target.execute(task);
+		} catch (RejectedExecutionException cause) {
+
+			// Queue is full, answer the request with an error
+			// (other packets are processed in the reader thread)
+			if (packetID == PACKET_REQUEST_ID) {
+				receivedRejectedRequest(packet, compact);
+			} else {
+				task.run();
+			}
+		}
+	}
+
+	protected void receivedRejectedRequest(byte[] packet, boolean compact) {
+		try {
+			requestRejected(parse(packet, compact));
+		} catch (Exception cause) {
+			logger.warn("Unable to process incoming message!", cause);
+		}
+	}
+
+	protected void receivedOrderedEvent(byte[] packet, boolean compact) {
+
+		// Parse message
+		Tree data;
+		try {
+			data = parse(packet, compact);
+		} catch (Exception cause) {
+			logger.warn("Unable to parse incoming message!", cause);
+			return;
+		}
+		if (debug) {
+			logger.info("Event message received:\r\n" + data);
+		}
+
+		// Ordered delivery per partition
+		((PartitionedExecutor) eventExecutor).execute(data, () -> {
+			eventbus.receiveEvent(data);
 		});
 	}
 
+	protected void receivedInlineResponse(byte[] packet, boolean compact) {
+		try {
+
+			// Parse message
+			Tree data = parse(packet, compact);
+			if (debug) {
+				logger.info("Response message received:\r\n" + data);
+			}
+
+			// Complete pending promise
+			registry.receiveResponse(data);
+
+		} catch (Exception cause) {
+			logger.warn("Unable to process incoming message!", cause);
+		}
+	}
+
+	protected Tree parse(byte[] packet, boolean compact) throws Exception {
+		if (compact) {
+			return envelope.read(packet, nodeIndexes::get, dictionary);
+		}
+		return serializer.read(packet);
+	}
+
 	// --- CONNECTION ERROR ---
 
 	public void unableToSend(String nodeID, LinkedList<byte[]> packets, Throwable cause) {
@@ -548,6 +837,7 @@ public class TcpTransporter extends Transporter {
 
 					// Notify listeners (unexpected disconnection)
 					logger.info("Node \"" + nodeID + "\" disconnected.");
+					remoteNodeDisconnected(nodeID);
 					broadcastNodeDisconnected(node.info, true);
 				}
 
@@ -579,8 +869,14 @@ public class TcpTransporter extends Transporter {
 								byte[] copy = new byte[packet.length - 6];
 								System.arraycopy(packet, 6, copy, 0, copy.length);
 
-								// Deserialize packet
-								Tree message = serializer.read(copy);
+								// Deserialize packet (sent by the local node)
+								Tree message;
+								if ((packet[5] & COMPACT_FLAG) != 0) {
+									message = envelope.read(copy, index -> TcpTransporter.this.nodeID,
+											peerDictionaries.get(nodeID));
+								} else {
+									message = serializer.read(copy);
+								}
 
 								// Get request's unique ID
 								String id = message.get("id", (String) null);
@@ -689,7 +985,11 @@ public class TcpTransporter extends Transporter {
 				}
 
 				// Create data packet to send
-				packet = serialize(packetID, message);
+				if (compactEnvelope && packetID <= PACKET_RESPONSE_ID && isCompactPeer(nodeID)) {
+					packet = serializeCompact(packetID, message, nodeID);
+				} else {
+					packet = serialize(packetID, message, nodeID);
+				}
 
 				// Check size
 				if (maxPacketSize > 0 && packet.length > maxPacketSize) {
@@ -699,20 +999,104 @@ public class TcpTransporter extends Transporter {
 							"maxPacketSize", maxPacketSize, "packetSize", packet.length);
 				}
 
+				// Check the outgoing queue (events, requests and responses)
+				if (packetID <= PACKET_RESPONSE_ID && writer.isFull(nodeID, packet.length)
+						&& !handleFullQueue(nodeID, packetID, packet, message)) {
+					return;
+				}
+
 				// Send packet to endpoint
 				writer.send(nodeID, packet);
 
+			} catch (QueueIsFullError full) {
+				throw full;
 			} catch (Exception cause) {
 				logger.warn("Unable to send message!", cause);
 			}
 		}
 	}
 
-	protected byte[] serialize(byte packetID, Tree message) throws Exception {
-		byte[] data = serializer.write(message);
+	/**
+	 * Applies the "queueFullPolicy" when the outgoing queue of a node is full.
+	 * 
+	 * @return true = send the packet, false = drop the packet
+	 * 
+	 * @throws QueueIsFullError
+	 *             the packet is rejected
+	 */
+	protected boolean handleFullQueue(String nodeID, byte packetID, byte[] packet, Tree message) {
+		if (QUEUE_POLICY_DROP.equals(queueFullPolicy)) {
+			if (packetID == PACKET_EVENT_ID) {
+				droppedEvents.incrementAndGet();
+				if (debug) {
+					logger.info("Outgoing queue of \"" + nodeID + "\" is full, event dropped.");
+				}
+				return false;
+			}
+			return true;
+		}
+		if (QUEUE_POLICY_BLOCK.equals(queueFullPolicy) && writer.waitForSpace(nodeID, packet.length, maxBlockTime)) {
+			return true;
+		}
+		if (packetID == PACKET_EVENT_ID) {
+			throw new QueueIsFullError(nodeID, message.get("event", "unknown"), true);
+		}
+		throw new QueueIsFullError(nodeID, message.get("action", "unknown"));
+	}
+
+	/**
+	 * Returns the depth of the outgoing queues per nodes.
+	 * 
+	 * @return queue depths (eg. [{ "nodeID": "node2", "packets": 2, "bytes":
+	 *         512 }])
+	 */
+	public Tree getQueueStatistics() {
+		TcpWriter w = writer;
+		if (w == null) {
+			return new Tree().putList("queues");
+		}
+		return w.getQueueStatistics();
+	}
+
+	public int getQueuedPackets(String nodeID) {
+		TcpWriter w = writer;
+		return w == null ? 0 : w.getQueuedPackets(nodeID);
+	}
+
+	public long getQueuedBytes(String nodeID) {
+		TcpWriter w = writer;
+		return w == null ? 0 : w.getQueuedBytes(nodeID);
+	}
+
+	protected byte[] serialize(byte packetID, Tree message, String target) throws Exception {
+		byte[] data;
+		if (serializer instanceof AdaptiveSerializer) {
+
+			// Negotiated format of the target node (or JSON, if the target
+			// is unknown)
+			data = ((AdaptiveSerializer) serializer).write(message, target);
+		} else {
+			data = serializer.write(message);
+		}
 		byte[] packet = new byte[data.length + 6];
+		writeHeader(packet, packetID);
+
+		// Add data block
+		System.arraycopy(data, 0, packet, 6, data.length);
+		return packet;
+	}
+
+	protected byte[] serializeCompact(byte packetID, Tree message, String target) throws Exception {
+		boolean withName = !confirmedPeers.contains(target);
+		byte[] packet = envelope.write(message, nodeID, nodeIndex, withName, 6,
+				stringDictionary ? peerDictionaries.get(target) : null);
+		writeHeader(packet, (byte) (packetID | COMPACT_FLAG));
+		return packet;
+	}
+
+	protected static void writeHeader(byte[] packet, byte packetID) {
 
-		// 6. byte is the packet type (from 1 to 6)
+		// 6. byte is the packet type (from 1 to 8, +64 = compact envelope)
 		packet[5] = packetID;
 
 		// 2.-5. bytes are the length of the packet
@@ -723,10 +1107,134 @@ public class TcpTransporter extends Transporter {
 
 		// First byte = Header's CRC (XOR)
 		packet[0] = (byte) (packet[1] ^ packet[2] ^ packet[3] ^ packet[4] ^ packet[5]);
+	}
 
-		// Add data block
-		System.arraycopy(data, 0, packet, 6, data.length);
-		return packet;
+	// --- NODE INDEXES OF THE COMPACT ENVELOPE ---
+
+	protected int createNodeIndex() {
+		int index;
+		do {
+			index = rnd.nextInt();
+		} while (index == 0);
+		return index;
+	}
+
+	/**
+	 * Adds the envelope properties to the info block of the local node.
+	 * 
+	 * @param info
+	 *            info block of the local node
+	 * @param seq
+	 *            sequence number of the info block
+	 */
+	protected void addEnvelopeInfo(Tree info, long seq) {
+		if (!compactEnvelope) {
+			return;
+		}
+		int index = nodeIndex;
+		info.put("envelope", CompactEnvelope.VERSION);
+		info.put("nodeIndex", index);
+		if (publishedNodeIndex != index) {
+
+			// New node index, the peers must receive the new info block
+			publishedNodeIndex = index;
+			nodeIndexSeq = seq;
+			confirmedPeers.clear();
+		}
+		if (stringDictionary) {
+			dictionary = dictionary.append(info);
+			dictionary.addTo(info);
+		}
+	}
+
+	/**
+	 * Stores the node index of a remote node.
+	 * 
+	 * @param sender
+	 *            nodeID of the remote node
+	 * @param info
+	 *            info block of the remote node
+	 */
+	protected void registerNodeIndex(String sender, Tree info) {
+		int index = info.get("nodeIndex", 0);
+		if (index == 0) {
+			return;
+		}
+		String prev = nodeIndexes.put(index, sender);
+		if (prev != null && !prev.equals(sender)) {
+			logger.warn("Node \"" + prev + "\" and \"" + sender + "\" have the same node index (" + index + ")!");
+		}
+		if (compactEnvelope && index == nodeIndex) {
+
+			// Same index as the local node's index, choose a new one
+			confirmedPeers.clear();
+			nodeIndex = createNodeIndex();
+			timestamp.set(-1);
+		}
+	}
+
+	/**
+	 * Checks that the specified peer supports the compact envelope.
+	 * 
+	 * @param nodeID
+	 *            nodeID of the peer
+	 * 
+	 * @return true, if the peer supports it
+	 */
+	protected boolean isCompactPeer(String nodeID) {
+		NodeDescriptor node = nodes.get(nodeID);
+		return node != null && node.info.get("envelope", 0) >= CompactEnvelope.VERSION;
+	}
+
+	@Override
+	protected void updateNodeInfo(String sender, Tree info) throws Exception {
+		NodeDescriptor node = nodes.get(sender);
+		boolean wasOnline = node != null && node.seq > 0 && node.offlineSince == 0;
+		super.updateNodeInfo(sender, info);
+		if (!wasOnline) {
+
+			// Node (re)connected, it may not know the local node's index
+			confirmedPeers.remove(sender);
+		}
+		registerNodeIndex(sender, info);
+		registerDictionary(sender, info);
+	}
+
+	@Override
+	protected void localDescriptorChanged() {
+
+		// Rebuild the descriptor (with a new sequence number) in the next
+		// gossip round
+		timestamp.set(-1);
+	}
+
+	@Override
+	protected void remoteNodeDisconnected(String nodeID) {
+		super.remoteNodeDisconnected(nodeID);
+		peerDictionaries.remove(nodeID);
+	}
+
+	/**
+	 * Stores the string dictionary of a remote node.
+	 * 
+	 * @param sender
+	 *            nodeID of the remote node
+	 * @param info
+	 *            info block of the remote node
+	 */
+	protected void registerDictionary(String sender, Tree info) {
+		Tree list = info.get("dictionary");
+		if (list == null) {
+			peerDictionaries.remove(sender);
+			return;
+		}
+
+		// The contents are compared, because the remote node may have been
+		// restarted with a same-sized dictionary (before it went offline)
+		StringDictionary prev = peerDictionaries.get(sender);
+		if (prev == null || !prev.matches(list)) {
+			peerDictionaries.put(sender, new StringDictionary(list));
+		}
 	}
 
 	// --- LOCAL NODE'S DESCRIPTOR ---
@@ -748,9 +1256,14 @@ public class TcpTransporter extends Transporter {
 						break;
 					}
 				}
+				localDescriptorCreated(cachedDescriptor.info);
 				cachedDescriptor.seq++;
 				cachedDescriptor.info.put("seq", cachedDescriptor.seq);
 				cachedDescriptor.info.put("port", reader.getCurrentPort());
+				addEnvelopeInfo(cachedDescriptor.info, cachedDescriptor.seq);
+
+				// This node accepts delta gossip requests
+				cachedDescriptor.info.put("gossipDelta", true);
 			}
 
 		} finally {
@@ -873,20 +1386,15 @@ public class TcpTransporter extends Transporter {
 				return null;
 			}
 
-			// Add "online" and "offline" blocks
+			// Collect "online" and "offline" entries
 			Collection<NodeDescriptor> descriptors = nodes.values();
 			int size = nodes.size() + 32;
-			FastBuildTree online = new FastBuildTree(size);
-			FastBuildTree offline = new FastBuildTree(size);
+			LinkedHashMap<String, long[]> digest = new LinkedHashMap<>(size * 2);
 
 			// Add current node
 			descriptor.readLock.lock();
 			try {
-				ArrayList<Object> array = new ArrayList<>(3);
-				array.add(descriptor.seq);
-				array.add(descriptor.cpuSeq);
-				array.add(descriptor.cpu);
-				online.putUnsafe(nodeID, array);
+				digest.put(nodeID, new long[] { descriptor.seq, descriptor.cpuSeq, descriptor.cpu });
 			} finally {
 				descriptor.readLock.unlock();
 			}
@@ -909,7 +1417,7 @@ public class TcpTransporter extends Transporter {
 							unreachableEndpoints[unreachableEndpointCount++] = node.nodeID;
 						}
 						if (node.seq > 0) {
-							offline.put(node.nodeID, node.seq);
+							digest.put(node.nodeID, new long[] { node.seq });
 						}
 					} else {
 						if (!node.local) {
@@ -919,11 +1427,7 @@ public class TcpTransporter extends Transporter {
 								liveEndpoints[liveEndpointCount++] = node.nodeID;
 							}
 							if (node.seq > 0) {
-								ArrayList<Object> array = new ArrayList<>(3);
-								array.add(node.seq);
-								array.add(node.cpuSeq);
-								array.add(node.cpu);
-								online.putUnsafe(node.nodeID, array);
+								digest.put(node.nodeID, new long[] { node.seq, node.cpuSeq, node.cpu });
 							}
 						}
 					}
@@ -932,21 +1436,18 @@ public class TcpTransporter extends Transporter {
 				}
 			}
 
-			// Create gossip request
-			FastBuildTree root = new FastBuildTree(4);
-			root.putUnsafe("ver", ServiceBroker.PROTOCOL_VERSION);
-			root.putUnsafe("sender", nodeID);
-			root.putUnsafe("online", online.asObject());
-			if (!offline.isEmpty()) {
-				root.putUnsafe("offline", offline.asObject());
-			}
+			// Create gossip request (with the full digest)
+			Tree root = createGossipRequest(digest, null, 0, false);
 
-			// Serialize gossip packet (JSON, MessagePack, etc.)
-			byte[] packet = serialize(PACKET_GOSSIP_REQ_ID, root);
+			// Forget the digests of the removed nodes
+			if (gossipDelta) {
+				sentDigests.keySet().retainAll(nodes.keySet());
+				receivedDigests.keySet().retainAll(nodes.keySet());
+			}
 
 			// Do gossiping with a live endpoint
 			if (liveEndpointCount > 0) {
-				sendGossipToRandomEndpoint(liveEndpoints, liveEndpointCount, packet, root);
+				sendGossipToRandomEndpoint(liveEndpoints, liveEndpointCount, digest, root);
 			}
 
 			// Do gossiping with a unreachable endpoint
@@ -962,7 +1463,7 @@ public class TcpTransporter extends Transporter {
 				// Random number between 0.0 and 1.0
 				double random = rnd.nextDouble();
 				if (random < ratio) {
-					sendGossipToRandomEndpoint(unreachableEndpoints, unreachableEndpointCount, packet, root);
+					sendGossipToRandomEndpoint(unreachableEndpoints, unreachableEndpointCount, digest, root);
 				}
 			}
 
@@ -975,7 +1476,7 @@ public class TcpTransporter extends Transporter {
 		return null;
 	}
 
-	protected void sendGossipToRandomEndpoint(String[] endpoints, int size, byte[] packet, Tree message)
+	protected void sendGossipToRandomEndpoint(String[] endpoints, int size, Map<String, long[]> digest, Tree root)
 			throws Exception {
 
 		// Choose a random endpoint
@@ -986,13 +1487,114 @@ public class TcpTransporter extends Transporter {
 			nodeID = endpoints[rnd.nextInt(size)];
 		}
 
+		// Create full or delta request
+		Tree message = createGossipRequest(nodeID, digest, root);
+
 		// Debug
 		if (debug) {
 			logger.info("Gossip request submitting to \"" + nodeID + "\" node:\r\n" + message);
 		}
 
-		// Send gossip request to node
-		writer.send(nodeID, packet);
+		// Serialize gossip packet (JSON, MessagePack, etc.) and send it to
+		// node
+		writer.send(nodeID, serialize(PACKET_GOSSIP_REQ_ID, message, nodeID));
+	}
+
+	/**
+	 * Creates the gossip request of a peer. With delta gossiping only the
+	 * entries changed since the previous round with this peer are sent (except
+	 * at every "gossipFullRounds"th round).
+	 * 
+	 * @param target
+	 *            nodeID of the peer
+	 * @param digest
+	 *            current digest
+	 * @param full
+	 *            request with the full digest
+	 * 
+	 * @return gossip request of the peer
+	 */
+	protected Tree createGossipRequest(String target, Map<String, long[]> digest, Tree full) {
+		if (!gossipDelta || !isDeltaPeer(target)) {
+			return full;
+		}
+		GossipDigest prev = sentDigests.get(target);
+		long round = prev == null ? 1 : prev.round + 1;
+		GossipDigest next = new GossipDigest(round, digest);
+		sentDigests.put(target, next);
+		if (prev == null || gossipFullRounds < 2 || round % gossipFullRounds == 0) {
+			return createGossipRequest(digest, null, round, false);
+		}
+		return createGossipRequest(next.changedSince(prev), next.removedSince(prev), round, true);
+	}
+
+	/**
+	 * Checks that the specified peer accepts delta gossip requests.
+	 * 
+	 * @param nodeID
+	 *            nodeID of the peer
+	 * 
+	 * @return true, if the peer supports it
+	 */
+	protected boolean isDeltaPeer(String nodeID) {
+		NodeDescriptor node = nodes.get(nodeID);
+		return node != null && node.info != null && node.info.get("gossipDelta", false);
+	}
+
+	protected Tree createGossipRequest(Map<String, long[]> entries, Collection<String> removed, long round,
+			boolean delta) {
+		int size = entries.size() + 1;
+		FastBuildTree online = new FastBuildTree(size);
+		FastBuildTree offline = new FastBuildTree(size);
+		for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+			long[] values = entry.getValue();
+			if (values.length == 1) {
+				offline.putUnsafe(entry.getKey(), values[0]);
+			} else {
+				ArrayList<Object> array = new ArrayList<>(3);
+				array.add(values[0]);
+				array.add(values[1]);
+				array.add((int) values[2]);
+				online.putUnsafe(entry.getKey(), array);
+			}
+		}
+		FastBuildTree root = new FastBuildTree(7);
+		root.putUnsafe("ver", ServiceBroker.PROTOCOL_VERSION);
+		root.putUnsafe("sender", nodeID);
+		if (!delta || !online.isEmpty()) {
+			root.putUnsafe("online", online.asObject());
+		}
+		if (!offline.isEmpty()) {
+			root.putUnsafe("offline", offline.asObject());
+		}
+		if (round > 0) {
+			root.putUnsafe("round", round);
+		}
+		if (delta) {
+			root.putUnsafe("delta", true);
+			if (removed != null && !removed.isEmpty()) {
+				root.putUnsafe("removed", new ArrayList<>(removed));
+			}
+		}
+		return root;
+	}
+
+	// --- GOSSIP PACKET ARRIVED ---
+
+	/**
+	 * Registers a heartbeat signal of a node for the failure detector. Called
+	 * when the CPU or INFO sequence of the node advances in a gossip request or
+	 * response (it is the same evidence that updates the "cpuWhen" timestamp),
+	 * so the detector receives samples regardless of which node has forwarded
+	 * the data.
+	 * 
+	 * @param node
+	 *            descriptor of the remote node
+	 */
+	protected void gossipReceived(NodeDescriptor node) {
+		if (node != null && isFailureDetectorEnabled()) {
+			heartbeatReceived(node);
+		}
 	}
 
 	// --- GOSSIP REQUEST MESSAGE RECEIVED ---
@@ -1014,40 +1616,91 @@ public class TcpTransporter extends Transporter {
 		FastBuildTree offlineRsp = new FastBuildTree(size);
 
 		// Online / offline nodes in request
-		Tree onlineReq = data.get("online");
-		Tree offlineReq = data.get("offline");
+		Map<String, long[]> entries = parseGossipDigest(data.get("online"), data.get("offline"));
+		boolean fullDigest = !data.get("delta", false);
+
+		// Delta request (omitted nodes are unchanged since the previous round)
+		long round = data.get("round", 0L);
+		if (round > 0 && sender != null) {
+			if (data.get("delta", false)) {
+				GossipDigest prev = receivedDigests.get(sender);
+				if (prev == null || prev.round != round - 1) {
+
+					// Missing round (or restarted node), request full digest
+					receivedDigests.remove(sender);
+					FastBuildTree root = new FastBuildTree(3);
+					root.putUnsafe("ver", ServiceBroker.PROTOCOL_VERSION);
+					root.putUnsafe("sender", nodeID);
+					root.putUnsafe("resync", true);
+					writer.send(sender, serialize(PACKET_GOSSIP_RSP_ID, root, sender));
+					return root;
+				}
+				Tree removed = data.get("removed");
+				LinkedList<String> removedIDs = null;
+				if (removed != null) {
+					removedIDs = new LinkedList<>();
+					for (Tree id : removed) {
+						removedIDs.add(id.asString());
+					}
+				}
+				GossipDigest next = prev.apply(round, entries, removedIDs);
+				receivedDigests.put(sender, next);
+				entries = next.entries;
+				fullDigest = true;
+			} else {
+				receivedDigests.put(sender, new GossipDigest(round, entries));
+			}
+		}
+
+		// Does the sender know the node index of the local node?
+		if (compactEnvelope && fullDigest && sender != null) {
+			long[] entry = entries.get(nodeID);
+			if (entry != null && entry.length == 3 && entry[0] >= nodeIndexSeq) {
+				confirmedPeers.add(sender);
+			}
+		}
 
 		// Loop in nodes
 		LinkedList<NodeDescriptor> disconnectedNodes = new LinkedList<>();
 		for (NodeDescriptor node : allNodes) {
-			node.writeLock.lock();
-			try {
+			long[] entry = entries.get(node.nodeID);
 
-				Tree online = onlineReq == null ? null : onlineReq.get(node.nodeID);
-				Tree offline = offlineReq == null ? null : offlineReq.get(node.nodeID);
+			// Online or offline sequence number
+			long seq = 0;
 
-				// Online or offline sequence number
-				long seq = 0;
+			// CPU data
+			long cpuSeq = 0;
+			int cpu = 0;
 
-				// CPU data
-				long cpuSeq = 0;
-				int cpu = 0;
+			boolean offline = false;
+			boolean online = false;
+			if (entry != null) {
+				seq = entry[0];
+				if (entry.length == 1) {
+					offline = true;
+				} else {
+					online = true;
+					cpuSeq = entry[1];
+					cpu = (int) entry[2];
+				}
+			}
 
-				if (offline != null) {
-					if (!offline.isPrimitive()) {
-						logger.warn("Invalid \"offline\" block: " + offline.toString(false));
-						continue;
-					}
-					seq = offline.asLong();
-				} else if (online != null) {
-					if (!online.isEnumeration() || online.size() != 3) {
-						logger.warn("Invalid \"online\" block: " + online.toString(false));
-						continue;
-					}
-					seq = online.get(0).asLong();
-					cpuSeq = online.get(1).asLong();
-					cpu = online.get(2).asInteger();
+			// Skip the unchanged nodes (without write lock)
+			if (online) {
+				boolean unchanged;
+				node.readLock.lock();
+				try {
+					unchanged = node.offlineSince == 0 && seq == node.seq && cpuSeq == node.cpuSeq;
+				} finally {
+					node.readLock.unlock();
+				}
+				if (unchanged) {
+					continue;
 				}
+			}
+
+			node.writeLock.lock();
+			try {
 
 				if ((seq == 0 || seq < node.seq) && node.seq > 0) {
 
@@ -1069,7 +1722,7 @@ public class TcpTransporter extends Transporter {
 					}
 				}
 
-				if (offline != null) {
+				if (offline) {
 
 					// Requester said it is OFFLINE
 					if (node.offlineSince > 0) {
@@ -1108,14 +1761,16 @@ public class TcpTransporter extends Transporter {
 						}
 						continue;
 					}
-				} else if (online != null) {
+				} else if (online) {
 
 					// Requester said it is ONLINE
 					if (node.offlineSince == 0) {
 						if (cpuSeq > node.cpuSeq) {
 
-							// We update our CPU info
-							node.updateCpu(cpuSeq, cpu);
+							// We update our CPU info (and the failure detector)
+							if (node.updateCpu(cpuSeq, cpu)) {
+								gossipReceived(node);
+							}
 
 						} else if (cpuSeq < node.cpuSeq && node.cpuSeq > 0) {
 
@@ -1163,7 +1818,7 @@ public class TcpTransporter extends Transporter {
 		}
 
 		// Serialize response
-		byte[] packet = serialize(PACKET_GOSSIP_RSP_ID, root);
+		byte[] packet = serialize(PACKET_GOSSIP_RSP_ID, root, sender);
 
 		// Send response
 		writer.send(sender, packet);
@@ -1171,6 +1826,7 @@ public class TcpTransporter extends Transporter {
 		// Notify listeners (unexpected disconnection)
 		for (NodeDescriptor node : disconnectedNodes) {
 			logger.info("Node \"" + node.nodeID + "\" disconnected.");
+			remoteNodeDisconnected(node.nodeID);
 			broadcastNodeDisconnected(node.info, true);
 		}
 
@@ -1178,16 +1834,57 @@ public class TcpTransporter extends Transporter {
 		return root;
 	}
 
+	/**
+	 * Converts the "online" and "offline" blocks of a gossip request to
+	 * digest entries. Online nodes are stored as "[seq, cpuSeq, cpu]", offline
+	 * nodes as "[seq]".
+	 * 
+	 * @param online
+	 *            "online" block (or null)
+	 * @param offline
+	 *            "offline" block (or null)
+	 * 
+	 * @return digest entries
+	 */
+	protected Map<String, long[]> parseGossipDigest(Tree online, Tree offline) {
+		HashMap<String, long[]> entries = new HashMap<>();
+		if (online != null) {
+			for (Tree row : online) {
+				if (!row.isEnumeration() || row.size() != 3) {
+					logger.warn("Invalid \"online\" block: " + row.toString(false));
+					continue;
+				}
+				entries.put(row.getName(),
+						new long[] { row.get(0).asLong(), row.get(1).asLong(), row.get(2).asInteger() });
+			}
+		}
+		if (offline != null) {
+			for (Tree row : offline) {
+				if (!row.isPrimitive()) {
+					logger.warn("Invalid \"offline\" block: " + row.toString(false));
+					continue;
+				}
+				entries.put(row.getName(), new long[] { row.asLong() });
+			}
+		}
+		return entries;
+	}
+
 	// --- GOSSIP RESPONSE MESSAGE RECEIVED ---
 
 	protected void processGossipResponse(Tree data) throws Exception {
 
 		// Debug
+		String sender = data.get("sender", (String) null);
 		if (debug) {
-			String sender = data.get("sender", (String) null);
 			logger.info("Gossip response received from \"" + sender + "\" node:\r\n" + data);
 		}
 
+		// Peer has no digest from this node, send full digest in the next round
+		if (data.get("resync", false) && sender != null) {
+			sentDigests.remove(sender);
+		}
+
 		// Online / offline nodes in responnse
 		Tree online = data.get("online");
 		Tree offline = data.get("offline");
@@ -1226,11 +1923,16 @@ public class TcpTransporter extends Transporter {
 					continue;
 				}
 
+				boolean advanced = false;
 				if (info != null) {
 
 					// Update "info" block,
 					// send updated, connected or reconnected event
+					NodeDescriptor node = nodes.get(nodeID);
+					long prevSeq = node == null ? 0 : node.seq;
 					updateNodeInfo(nodeID, info);
+					node = nodes.get(nodeID);
+					advanced = node != null && node.seq > prevSeq;
 				}
 				if (cpuSeq > 0) {
 
@@ -1239,12 +1941,17 @@ public class TcpTransporter extends Transporter {
 					if (node != null) {
 						node.writeLock.lock();
 						try {
-							node.updateCpu(cpuSeq, cpu);
+							advanced |= node.updateCpu(cpuSeq, cpu);
 						} finally {
 							node.writeLock.unlock();
 						}
 					}
 				}
+				if (advanced) {
+
+					// Update failure detector
+					gossipReceived(nodes.get(nodeID));
+				}
 			}
 		}
 
@@ -1301,6 +2008,7 @@ public class TcpTransporter extends Transporter {
 
 					// Notify listeners (not unexpected disconnection)
 					logger.info("Node \"" + node.nodeID + "\" disconnected.");
+					remoteNodeDisconnected(node.nodeID);
 					broadcastNodeDisconnected(node.info, false);
 				}
 			}
@@ -1311,7 +2019,8 @@ public class TcpTransporter extends Transporter {
 
 	/**
 	 * Create Gossip HELLO packet. Hello message is invariable, so we can cache
-	 * it.
+	 * it (the AdaptiveSerializer writes HELLO packets with JSON, because the
+	 * target may be an unknown node).
 	 * 
 	 * @return created "hello" request
 	 */
@@ -1329,7 +2038,7 @@ public class TcpTransporter extends Transporter {
 				root.putUnsafe("host", InetAddress.getLocalHost().getHostAddress());
 			}
 			root.putUnsafe("port", reader.getCurrentPort());
-			cachedHelloMessage = serialize(PACKET_GOSSIP_HELLO_ID, root);
+			cachedHelloMessage = serialize(PACKET_GOSSIP_HELLO_ID, root, null);
 		} catch (Exception error) {
 			throw new MoleculerError("Unable to create HELLO message!", error, "MoleculerError", "unknown", false, 500,
 					"UNABLE_TO_CREATE_HELLO");
@@ -1381,6 +2090,22 @@ public class TcpTransporter extends Transporter {
 		this.gossipPeriod = gossipPeriod;
 	}
 
+	public boolean isGossipDelta() {
+		return gossipDelta;
+	}
+
+	public void setGossipDelta(boolean gossipDelta) {
+		this.gossipDelta = gossipDelta;
+	}
+
+	public int getGossipFullRounds() {
+		return gossipFullRounds;
+	}
+
+	public void setGossipFullRounds(int gossipFullRounds) {
+		this.gossipFullRounds = gossipFullRounds;
+	}
+
 	public int getMaxConnections() {
 		return maxConnections;
 	}
@@ -1397,6 +2122,98 @@ public class TcpTransporter extends Transporter {
 		this.maxPacketSize = maxPacketSize;
 	}
 
+	public long getMaxQueuedBytes() {
+		return maxQueuedBytes;
+	}
+
+	public void setMaxQueuedBytes(long maxQueuedBytes) {
+		this.maxQueuedBytes = maxQueuedBytes;
+	}
+
+	public int getMaxQueuedPackets() {
+		return maxQueuedPackets;
+	}
+
+	public void setMaxQueuedPackets(int maxQueuedPackets) {
+		this.maxQueuedPackets = maxQueuedPackets;
+	}
+
+	public String getQueueFullPolicy() {
+		return queueFullPolicy;
+	}
+
+	public void setQueueFullPolicy(String queueFullPolicy) {
+		if (!QUEUE_POLICY_BLOCK.equals(queueFullPolicy) && !QUEUE_POLICY_FAIL.equals(queueFullPolicy)
+				&& !QUEUE_POLICY_DROP.equals(queueFullPolicy)) {
+			throw new IllegalArgumentException("Invalid queue policy (" + queueFullPolicy + ")!");
+		}
+		this.queueFullPolicy = queueFullPolicy;
+	}
+
+	public long getMaxBlockTime() {
+		return maxBlockTime;
+	}
+
+	public void setMaxBlockTime(long maxBlockTime) {
+		this.maxBlockTime = maxBlockTime;
+	}
+
+	public long getDroppedEvents() {
+		return droppedEvents.get();
+	}
+
+	public int getConnectionsPerNode() {
+		return connectionsPerNode;
+	}
+
+	public void setConnectionsPerNode(int connectionsPerNode) {
+		this.connectionsPerNode = Math.max(1, connectionsPerNode);
+	}
+
+	public String getChannelSelection() {
+		return channelSelection;
+	}
+
+	public void setChannelSelection(String channelSelection) {
+		if (!CHANNEL_SELECTION_CLASS.equals(channelSelection)
+				&& !CHANNEL_SELECTION_ROUND_ROBIN.equals(channelSelection)) {
+			throw new IllegalArgumentException("Invalid channel selection mode (" + channelSelection + ")!");
+		}
+		this.channelSelection = channelSelection;
+	}
+
+	public int getLargePacketSize() {
+		return largePacketSize;
+	}
+
+	public void setLargePacketSize(int largePacketSize) {
+		this.largePacketSize = largePacketSize;
+	}
+
+	public boolean isCompactEnvelope() {
+		return compactEnvelope;
+	}
+
+	public void setCompactEnvelope(boolean compactEnvelope) {
+		this.compactEnvelope = compactEnvelope;
+	}
+
+	public boolean isStringDictionary() {
+		return stringDictionary;
+	}
+
+	public void setStringDictionary(boolean stringDictionary) {
+		this.stringDictionary = stringDictionary;
+	}
+
+	public int getInlineResponseSize() {
+		return inlineResponseSize;
+	}
+
+	public void setInlineResponseSize(int inlineResponseSize) {
+		this.inlineResponseSize = inlineResponseSize;
+	}
+
 	public int getCurrentPort() {
 		return currentPort;
 	}
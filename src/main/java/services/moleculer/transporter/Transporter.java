@@ -28,28 +28,37 @@ package services.moleculer.transporter;
 import static services.moleculer.ServiceBroker.PROTOCOL_VERSION;
 import static services.moleculer.util.CommonUtils.nameOf;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.datatree.Promise;
 import io.datatree.Tree;
 import services.moleculer.ServiceBroker;
 import services.moleculer.config.ServiceBrokerConfig;
 import services.moleculer.context.Context;
+import services.moleculer.error.QueueIsFullError;
 import services.moleculer.eventbus.Eventbus;
 import services.moleculer.monitor.Monitor;
+import services.moleculer.serializer.AdaptiveSerializer;
 import services.moleculer.serializer.JsonSerializer;
+import services.moleculer.serializer.SchemaSerializer;
 import services.moleculer.serializer.Serializer;
+import services.moleculer.service.DefaultServiceRegistry;
 import services.moleculer.service.MoleculerComponent;
 import services.moleculer.service.Name;
 import services.moleculer.service.ServiceRegistry;
@@ -57,6 +66,7 @@ import services.moleculer.transporter.tcp.NodeDescriptor;
 import services.moleculer.transporter.tcp.RemoteAddress;
 import services.moleculer.uid.UidGenerator;
 import services.moleculer.util.FastBuildTree;
+import services.moleculer.util.PartitionedExecutor;
 
 /**
  * Base superclass of all Transporter implementations.
@@ -120,6 +130,38 @@ public abstract class Transporter extends MoleculerComponent {
 	 */
 	protected int offlineTimeout = 180;
 
+	/**
+	 * Suspicion level (phi value of the failure detector) above which a node
+	 * is marked as "suspect". The Invocation Strategies prefer the other nodes
+	 * (0 = disabled).
+	 */
+	protected double suspectThreshold;
+
+	/**
+	 * Suspicion level (phi value of the failure detector) above which a node
+	 * is marked as offline. If enabled, it replaces the fixed
+	 * "heartbeatTimeout" (0 = disabled).
+	 */
+	protected double phiThreshold;
+
+	/**
+	 * Minimum standard deviation of the heartbeat inter-arrival times in
+	 * MILLISECONDS (used by the failure detector).
+	 */
+	protected long minStdDeviation = 500;
+
+	/**
+	 * Acceptable heartbeat pause (eg. GC pause) in MILLISECONDS (used by the
+	 * failure detector).
+	 */
+	protected long acceptableHeartbeatPause = 3000;
+
+	/**
+	 * Minimum number of heartbeat signals before the failure detector marks a
+	 * node as offline (until then the "heartbeatTimeout" is used).
+	 */
+	protected int minHeartbeatSamples = 5;
+
 	/**
 	 * Timeout of channel subscriptions (SECONDS).
 	 */
@@ -132,6 +174,13 @@ public abstract class Transporter extends MoleculerComponent {
 	 */
 	protected boolean preferHostname = true;
 
+	/**
+	 * Broadcast only the changed service blocks (INFO diffs) instead of the
+	 * whole service descriptor. All nodes of the cluster must support INFO
+	 * diffs (other Moleculer implementations do not support it).
+	 */
+	protected boolean infoDiffs;
+
 	// --- DEBUG COMMUNICATION ---
 
 	protected boolean debug;
@@ -142,7 +191,26 @@ public abstract class Transporter extends MoleculerComponent {
 
 	// --- COMPONENTS ---
 
+	/**
+	 * Executor of the I/O callbacks and the control packets
+	 */
 	protected ExecutorService executor;
+
+	/**
+	 * Executor of the incoming requests
+	 */
+	protected ExecutorService requestExecutor;
+
+	/**
+	 * Executor of the incoming events
+	 */
+	protected ExecutorService eventExecutor;
+
+	/**
+	 * Executor of the incoming responses
+	 */
+	protected ExecutorService responseExecutor;
+
 	protected ScheduledExecutorService scheduler;
 	protected ServiceRegistry registry;
 	protected Eventbus eventbus;
@@ -169,6 +237,16 @@ public abstract class Transporter extends MoleculerComponent {
 
 	protected final AtomicBoolean infoScheduled = new AtomicBoolean();
 
+	/**
+	 * Version of the local service descriptor (increased at every change)
+	 */
+	protected long infoSeq;
+
+	/**
+	 * "services" block of the last sent service descriptor
+	 */
+	protected Tree infoServices;
+
 	// --- CONSTUCTORS ---
 
 	public Transporter() {
@@ -202,7 +280,10 @@ public abstract class Transporter extends MoleculerComponent {
 		logger.info(nameOf(this, true) + " will use " + nameOf(serializer, true) + '.');
 
 		// Get components
-		executor = cfg.getExecutor();
+		executor = cfg.getTransporterExecutor();
+		requestExecutor = cfg.getRequestExecutor();
+		eventExecutor = cfg.getEventExecutor();
+		responseExecutor = cfg.getResponseExecutor();
 		scheduler = cfg.getScheduler();
 		registry = cfg.getServiceRegistry();
 		monitor = cfg.getMonitor();
@@ -221,6 +302,12 @@ public abstract class Transporter extends MoleculerComponent {
 		heartbeatChannel = channel(PACKET_HEARTBEAT, null);
 		pingChannel = channel(PACKET_PING, nodeID);
 		pongChannel = channel(PACKET_PONG, nodeID);
+
+		// Measure the serializers in the background (JSON is used until the
+		// end of the measurement, then the new ranking is advertised)
+		if (serializer instanceof AdaptiveSerializer) {
+			((AdaptiveSerializer) serializer).startBenchmark(this::localDescriptorChanged);
+		}
 	}
 
 	protected String channel(String cmd, String nodeID) {
@@ -279,8 +366,13 @@ public abstract class Transporter extends MoleculerComponent {
 
 				// Start timeout checker's timer
 				if (checkTimeoutTimer == null && (heartbeatTimeout > 0 || offlineTimeout > 0)) {
-					checkTimeoutTimer = scheduler.scheduleAtFixedRate(this::checkTimeouts, heartbeatTimeout,
-							heartbeatTimeout, TimeUnit.SECONDS);
+					int period = heartbeatTimeout;
+					if (isFailureDetectorEnabled() && heartbeatInterval > 0) {
+						period = heartbeatInterval;
+					}
+					period = Math.max(1, period);
+					checkTimeoutTimer = scheduler.scheduleAtFixedRate(this::checkTimeouts, period, period,
+							TimeUnit.SECONDS);
 				}
 
 			}).catchError(error -> {
@@ -386,6 +478,30 @@ public abstract class Transporter extends MoleculerComponent {
 
 	public abstract void publish(String channel, Tree message);
 
+	/**
+	 * Serializes an outgoing message. The AdaptiveSerializer writes the
+	 * discovery packets with JSON, because their receivers may be unknown
+	 * nodes (which have not advertised their rankings yet).
+	 * 
+	 * @param channel
+	 *            target channel
+	 * @param message
+	 *            outgoing message
+	 * 
+	 * @return serialized message
+	 * 
+	 * @throws Exception
+	 *             any serialization error
+	 */
+	protected byte[] serialize(String channel, Tree message) throws Exception {
+		if (serializer instanceof AdaptiveSerializer && (channel.startsWith(discoverBroadcastChannel)
+				|| channel.startsWith(infoBroadcastChannel) || channel.equals(heartbeatChannel)
+				|| channel.equals(disconnectChannel))) {
+			return ((AdaptiveSerializer) serializer).write(message, (String) null);
+		}
+		return serializer.write(message);
+	}
+
 	// --- SUBSCRIBE ---
 
 	public Promise subscribe(String cmd, String nodeID) {
@@ -396,6 +512,83 @@ public abstract class Transporter extends MoleculerComponent {
 
 	// --- PROCESS INCOMING MESSAGE ---
 
+	/**
+	 * Executes the task directly (when the target is the current executor) or
+	 * submits it to the target executor.
+	 * 
+	 * @param current
+	 *            executor of the current thread
+	 * @param target
+	 *            executor of the subsystem
+	 * @param task
+	 *            task to execute
+	 */
+	protected void dispatch(ExecutorService current, ExecutorService target, Runnable task) {
+		dispatch(current, target, task, task);
+	}
+
+	/**
+	 * Hands over a task to the specified executor.
+	 * 
+	 * @param current
+	 *            executor of the current thread
+	 * @param target
+	 *            target executor
+	 * @param task
+	 *            task to execute
+	 * @param rejected
+	 *            executed in the current thread when the target executor
+	 *            rejects the task (eg. its queue is full)
+	 */
+	protected void dispatch(ExecutorService current, ExecutorService target, Runnable task, Runnable rejected) {
+		if (target == current || target == null) {
+			task.run();
+			return;
+		}
+		try {
+			target.execute(() -> {
+				try {
+					task.run();
+				} catch (Throwable cause) {
+					logger.warn("Unable to process incoming message!", cause);
+				}
+			});
+		} catch (RejectedExecutionException cause) {
+			rejected.run();
+		}
+	}
+
+	/**
+	 * Answers an incoming request with a QueueIsFullError, when the request
+	 * executor has rejected it. The acknowledges of the streams are processed
+	 * in the current thread (they are not retried by the sender).
+	 * 
+	 * @param data
+	 *            incoming request
+	 */
+	protected void requestRejected(Tree data) {
+		String action = data.get("action", (String) null);
+		if (data.get("stream", false) || action == null) {
+			registry.receiveRequest(data);
+			return;
+		}
+		String id = data.get("id", (String) null);
+		String sender = data.get("sender", (String) null);
+		if (id == null || sender == null) {
+			return;
+		}
+		logger.warn("Request executor is full, \"" + action + "\" request of \"" + sender + "\" node is rejected.");
+		FastBuildTree msg = new FastBuildTree(5);
+		msg.putUnsafe("id", id);
+		msg.putUnsafe("ver", ServiceBroker.PROTOCOL_VERSION);
+		msg.putUnsafe("sender", nodeID);
+		msg.putUnsafe("success", false);
+		FastBuildTree error = new FastBuildTree(8);
+		msg.putUnsafe("error", error);
+		new QueueIsFullError(nodeID, action).toTree(error);
+		publish(PACKET_RESPONSE, sender, msg);
+	}
+
 	/**
 	 * Process incoming message later (in a new Runnable or JoinForkTask).
 	 * 
@@ -405,9 +598,32 @@ public abstract class Transporter extends MoleculerComponent {
 	 *            incoming message
 	 */
 	protected void received(String channel, byte[] message) {
-		executor.execute(() -> {
-			processReceivedMessage(channel, message);
-		});
+		ExecutorService target;
+		if (channel.equals(responseChannel)) {
+			target = responseExecutor;
+		} else if (channel.equals(eventChannel)) {
+			if (eventExecutor instanceof PartitionedExecutor) {
+
+				// Parse in the receiver thread (keep the order of events)
+				processReceivedMessage(channel, message, executor);
+				return;
+			}
+			target = eventExecutor;
+		} else if (channel.equals(requestChannel)) {
+			target = requestExecutor;
+		} else {
+			target = executor;
+		}
+		try {
+			target.execute(() -> {
+				processReceivedMessage(channel, message, target);
+			});
+		} catch (RejectedExecutionException cause) {
+
+			// Queue is full, parse in the current thread (the rejected
+			// requests are answered with an error, others are processed here)
+			processReceivedMessage(channel, message, channel.equals(requestChannel) ? null : target);
+		}
 	}
 
 	/**
@@ -419,6 +635,22 @@ public abstract class Transporter extends MoleculerComponent {
 	 *            incoming message
 	 */
 	protected void processReceivedMessage(String channel, byte[] message) {
+		processReceivedMessage(channel, message, executor);
+	}
+
+	/**
+	 * Process incoming message in the specified executor. Requests, events and
+	 * responses are handed over to their own executors (when they differ from
+	 * the current one), so eg. a flood of events does not delay the responses.
+	 * 
+	 * @param channel
+	 *            incoming channel
+	 * @param message
+	 *            incoming message
+	 * @param current
+	 *            executor of the current thread
+	 */
+	protected void processReceivedMessage(String channel, byte[] message, ExecutorService current) {
 
 		// Parse message
 		Tree data;
@@ -451,19 +683,35 @@ public abstract class Transporter extends MoleculerComponent {
 			
 			// Incoming response
 			if (channel.equals(responseChannel)) {
-				registry.receiveResponse(data);
+				dispatch(current, responseExecutor, () -> {
+					registry.receiveResponse(data);
+				});
 				return;
 			}
 
 			// Incoming event
 			if (channel.equals(eventChannel)) {
-				eventbus.receiveEvent(data);
+				if (eventExecutor instanceof PartitionedExecutor) {
+
+					// Ordered delivery per partition
+					((PartitionedExecutor) eventExecutor).execute(data, () -> {
+						eventbus.receiveEvent(data);
+					});
+					return;
+				}
+				dispatch(current, eventExecutor, () -> {
+					eventbus.receiveEvent(data);
+				});
 				return;
 			}
 
 			// Incoming request
 			if (channel.equals(requestChannel)) {
-				registry.receiveRequest(data);
+				dispatch(current, requestExecutor, () -> {
+					registry.receiveRequest(data);
+				}, () -> {
+					requestRejected(data);
+				});
 				return;
 			}
 
@@ -487,16 +735,31 @@ public abstract class Transporter extends MoleculerComponent {
 				} finally {
 					node.writeLock.unlock();
 				}
+
+				// Update failure detector
+				heartbeatReceived(node);
 				return;
 			}
 
 			// Info packet
 			if (channel.equals(infoChannel) || channel.equals(infoBroadcastChannel)) {
 
+				// Apply INFO diff
+				Tree info = data;
+				if (data.get("diff", false)) {
+					info = applyInfoDiff(sender, data);
+					if (info == null) {
+
+						// Sequence gap -> request the full INFO block
+						sendDiscoverPacket(channel(PACKET_DISCOVER, sender));
+						return;
+					}
+				}
+
 				// Register services and listeners
-				data.put("seq", System.currentTimeMillis());
-				data.put("port", 1);
-				updateNodeInfo(sender, data);
+				info.put("seq", System.currentTimeMillis());
+				info.put("port", 1);
+				updateNodeInfo(sender, info);
 				return;
 			}
 
@@ -546,6 +809,7 @@ public abstract class Transporter extends MoleculerComponent {
 
 					// Notify listeners (not unexpected disconnection)
 					logger.info("Node \"" + sender + "\" disconnected.");
+					remoteNodeDisconnected(sender);
 					broadcastNodeDisconnected(node.info, false);
 				}
 				return;
@@ -556,16 +820,54 @@ public abstract class Transporter extends MoleculerComponent {
 		}
 	}
 
+	/**
+	 * Applies an INFO diff to the stored service descriptor of a node.
+	 * 
+	 * @param sender
+	 *            nodeID of the sender
+	 * @param diff
+	 *            INFO diff
+	 * 
+	 * @return new service descriptor (or null, if the base version of the
+	 *         diff is unknown)
+	 */
+	protected Tree applyInfoDiff(String sender, Tree diff) {
+		NodeDescriptor node = nodes.get(sender);
+		if (node == null) {
+			return null;
+		}
+		Tree info;
+		node.readLock.lock();
+		try {
+			if (node.offlineSince > 0 || node.info.get("infoSeq", 0L) != diff.get("base", -1L)) {
+				return null;
+			}
+			info = DescriptorDiff.apply(node.info, diff);
+		} finally {
+			node.readLock.unlock();
+		}
+		info.put("infoSeq", diff.get("infoSeq", 0L));
+		return info;
+	}
+
 	protected void updateNodeInfo(String sender, Tree info) throws Exception {
 		boolean connected = false;
 		boolean reconnected = false;
 		boolean updated = false;
+		Tree prevServices = null;
+
+		// Hash of the service descriptor (calculated without locking)
+		long hash = DescriptorDiff.hash(info.get("services"));
+		remoteDescriptorReceived(sender, info);
+
 		NodeDescriptor node = nodes.get(sender);
 		if (node == null) {
 
 			// New, unknown node
 			connected = true;
 			node = new NodeDescriptor(sender, preferHostname, false, info);
+			node.servicesHash = hash;
+			node.detector.reset(System.currentTimeMillis());
 			nodes.put(sender, node);
 
 		} else {
@@ -578,30 +880,43 @@ public abstract class Transporter extends MoleculerComponent {
 					// Node connected (it was offline)
 					connected = true;
 					node.markAsOnline(info);
+					node.servicesHash = hash;
+					node.detector.reset(System.currentTimeMillis());
+					node.suspect = false;
 
 				} else {
 
 					// Try to update current node
 					Tree prevInfo = node.info;
+					long prevHash = node.servicesHash;
 					boolean wasOnline = node.offlineSince == 0;
+					int prevWeight = node.weight;
 					if (node.markAsOnline(info)) {
+						node.servicesHash = hash;
+						if (prevWeight != node.weight) {
+							weightChanged();
+						}
 
 						// Store new node info
 						if (prevInfo != null && wasOnline) {
 							Tree s1 = prevInfo.get("services");
 							if (s1 != null) {
 								Tree s2 = node.info.get("services");
-								if (s2 != null && s1.equals(s2)) {
+								if (s2 != null && (prevHash == 0 ? DescriptorDiff.create(s1, s2) == null
+										: prevHash == hash)) {
 
 									// Service blocks are equal
 									return;
 								}
 							}
+							prevServices = s1;
 						}
 						if (wasOnline) {
 							updated = true;
 						} else {
 							reconnected = true;
+							node.detector.reset(System.currentTimeMillis());
+							node.suspect = false;
 						}
 
 					} else {
@@ -618,20 +933,37 @@ public abstract class Transporter extends MoleculerComponent {
 
 		// Register actions and listeners
 		if (connected || reconnected || updated) {
-			if (updated) {
+			Tree services = info.get("services");
+			if (updated && prevServices != null) {
 
-				// Remove actions and listeners
-				registry.removeActions(sender);
-				eventbus.removeListeners(sender);
+				// Apply the changes only
+				updateServices(sender, prevServices, services);
 
-			}
-			Tree services = info.get("services");
-			if (services != null && services.size() > 0) {
-				for (Tree service : services) {
+			} else {
+				if (updated) {
+
+					// Remove listeners
+					eventbus.removeListeners(sender);
 
-					// Register actions and listeners
-					registry.addActions(service);
-					eventbus.addListeners(service);
+				}
+				LinkedList<Tree> added = new LinkedList<>();
+				if (services != null && services.size() > 0) {
+					for (Tree service : services) {
+
+						// Register listeners
+						eventbus.addListeners(sender, service);
+						added.add(service);
+					}
+				}
+				if (updated) {
+
+					// Replace actions (in one step)
+					registry.replaceActions(sender, added);
+
+				} else if (!added.isEmpty()) {
+
+					// Register actions (in one step)
+					registry.updateActions(sender, Collections.emptyList(), added);
 				}
 			}
 		}
@@ -655,6 +987,145 @@ public abstract class Transporter extends MoleculerComponent {
 		}
 	}
 
+	/**
+	 * Registers the added, and removes the deleted actions and listeners of a
+	 * node. Unchanged services, actions and listeners are not touched.
+	 * 
+	 * @param sender
+	 *            nodeID of the node
+	 * @param prevServices
+	 *            previous "services" block
+	 * @param services
+	 *            current "services" block
+	 */
+	protected void updateServices(String sender, Tree prevServices, Tree services) {
+		LinkedHashMap<String, Tree> prev = DescriptorDiff.servicesByName(prevServices);
+		LinkedHashMap<String, Tree> next = DescriptorDiff.servicesByName(services);
+
+		// Changes are collected without locking, and the actions are applied
+		// in one step (the Service Registry replaces its routing snapshot once)
+		LinkedList<Tree> removedActions = new LinkedList<>();
+		LinkedList<Tree> addedActions = new LinkedList<>();
+
+		// Removed services
+		for (Map.Entry<String, Tree> entry : prev.entrySet()) {
+			if (!next.containsKey(entry.getKey())) {
+				removedActions.add(entry.getValue());
+				eventbus.removeListeners(sender, entry.getValue());
+			}
+		}
+
+		// Added or changed services
+		for (Map.Entry<String, Tree> entry : next.entrySet()) {
+			Tree service = entry.getValue();
+			Tree prevService = prev.get(entry.getKey());
+			if (prevService == null) {
+				addedActions.add(service);
+				eventbus.addListeners(sender, service);
+				continue;
+			}
+			if (DescriptorDiff.equals(prevService, service)) {
+				continue;
+			}
+
+			// Changed actions
+			LinkedList<String> removed = new LinkedList<>();
+			LinkedList<String> added = new LinkedList<>();
+			DescriptorDiff.compare(prevService, service, "actions", removed, added);
+			if (!removed.isEmpty()) {
+				removedActions.add(DescriptorDiff.subset(prevService, "actions", removed));
+			}
+			if (!added.isEmpty()) {
+				addedActions.add(DescriptorDiff.subset(service, "actions", added));
+			}
+
+			// Changed listeners
+			removed.clear();
+			added.clear();
+			DescriptorDiff.compare(prevService, service, "events", removed, added);
+			if (!removed.isEmpty()) {
+				eventbus.removeListeners(sender, DescriptorDiff.subset(prevService, "events", removed));
+			}
+			if (!added.isEmpty()) {
+				eventbus.addListeners(sender, DescriptorDiff.subset(service, "events", added));
+			}
+		}
+
+		// Apply action changes
+		registry.updateActions(sender, removedActions, addedActions);
+	}
+
+	// --- SERIALIZER-SPECIFIC PROPERTIES OF THE NODE DESCRIPTORS ---
+
+	/**
+	 * Processes the descriptor of the local node (registers the action schemas
+	 * and advertises the ranking of the AdaptiveSerializer).
+	 * 
+	 * @param info
+	 *            local node descriptor
+	 */
+	protected void localDescriptorCreated(Tree info) {
+		registerSchemas(info);
+		if (serializer instanceof AdaptiveSerializer) {
+			Tree list = info.putList("serializers");
+			for (String format : ((AdaptiveSerializer) serializer).getRanking()) {
+				list.add(format);
+			}
+		}
+	}
+
+	/**
+	 * Advertises the changed descriptor of the local node (eg. the new ranking
+	 * of the AdaptiveSerializer).
+	 */
+	protected void localDescriptorChanged() {
+		if (registry != null) {
+			broadcastInfoPacket();
+		}
+	}
+
+	/**
+	 * Processes the descriptor of a remote node (registers the action schemas
+	 * and negotiates the format of the AdaptiveSerializer).
+	 * 
+	 * @param sender
+	 *            node ID of the remote node
+	 * @param info
+	 *            remote node descriptor
+	 */
+	protected void remoteDescriptorReceived(String sender, Tree info) {
+		registerSchemas(info);
+		if (serializer instanceof AdaptiveSerializer) {
+			((AdaptiveSerializer) serializer).setPeerRanking(sender, info.get("serializers"));
+		}
+	}
+
+	/**
+	 * Releases the serializer-specific data of a disconnected remote node
+	 * (eg. the negotiated format of the AdaptiveSerializer).
+	 * 
+	 * @param nodeID
+	 *            node ID of the disconnected node
+	 */
+	protected void remoteNodeDisconnected(String nodeID) {
+		if (serializer instanceof AdaptiveSerializer) {
+			((AdaptiveSerializer) serializer).removePeer(nodeID);
+		}
+	}
+
+	/**
+	 * Registers the request/response schemas of the actions (declared by the
+	 * "Schema" annotation) when the SchemaSerializer is used.
+	 * 
+	 * @param info
+	 *            local or remote node descriptor
+	 */
+	protected void registerSchemas(Tree info) {
+		if (serializer instanceof SchemaSerializer && info != null) {
+			((SchemaSerializer) serializer).getRegistry().register(info.get("services"));
+		}
+	}
+
 	// --- INTERNAL MOLECULER EVENTS ---
 
 	protected void broadcastNodeConnected(Tree info, boolean reconnected) {
@@ -704,10 +1175,44 @@ public abstract class Transporter extends MoleculerComponent {
 	}
 
 	protected void sendInfoPacket(String channel) {
+		publish(channel, createInfoPacket(channel.equals(infoBroadcastChannel)));
+	}
+
+	/**
+	 * Creates a full INFO packet, or an INFO diff (if "infoDiffs" is enabled,
+	 * and the packet is broadcasted).
+	 * 
+	 * @param broadcast
+	 *            broadcasted packet
+	 * 
+	 * @return INFO packet
+	 */
+	protected synchronized Tree createInfoPacket(boolean broadcast) {
 		Tree msg = registry.getDescriptor();
+		localDescriptorCreated(msg);
+		Tree services = msg.get("services");
+		Tree diff = null;
+		if (infoSeq == 0) {
+			infoSeq++;
+		} else {
+			diff = DescriptorDiff.create(infoServices, services);
+			if (diff != null) {
+				infoSeq++;
+			}
+		}
+		infoServices = services;
+		if (broadcast && infoDiffs && diff != null) {
+			diff.put("ver", PROTOCOL_VERSION);
+			diff.put("sender", nodeID);
+			diff.put("diff", true);
+			diff.put("base", infoSeq - 1);
+			diff.put("infoSeq", infoSeq);
+			return diff;
+		}
 		msg.put("ver", PROTOCOL_VERSION);
 		msg.put("sender", nodeID);
-		publish(channel, msg);
+		msg.put("infoSeq", infoSeq);
+		return msg;
 	}
 
 	protected void sendHeartbeatPacket() {
@@ -763,20 +1268,43 @@ public abstract class Transporter extends MoleculerComponent {
 		}
 
 		// Check heartbeat timeout
-		if (heartbeatTimeout > 0) {
+		boolean detectorEnabled = isFailureDetectorEnabled();
+		if (heartbeatTimeout > 0 || detectorEnabled) {
 			long heartbeatTimeoutMillis = heartbeatTimeout * 1000L;
 			i = nodes.values().iterator();
 			LinkedList<NodeDescriptor> disconnectedNodes = new LinkedList<>();
+			HashSet<NodeDescriptor> detectedNodes = new HashSet<>();
 			while (i.hasNext()) {
 				node = i.next();
 				node.writeLock.lock();
 				try {
-					if (node.cpuWhen > 0 && now - node.cpuWhen > heartbeatTimeoutMillis && node.markAsOffline()) {
+					boolean timeout = false;
+					boolean detected = false;
+					if (detectorEnabled && node.offlineSince == 0) {
+
+						// Calculate suspicion level
+						double phi = node.detector.phi(now, minStdDeviation, acceptableHeartbeatPause);
+						node.suspect = suspectThreshold > 0 && phi >= suspectThreshold;
+						if (phiThreshold > 0 && node.detector.getSamples() >= minHeartbeatSamples) {
+							timeout = phi >= phiThreshold;
+							detected = timeout;
+						} else {
+							timeout = heartbeatTimeout > 0 && node.cpuWhen > 0
+									&& now - node.cpuWhen > heartbeatTimeoutMillis;
+						}
+					} else if (heartbeatTimeout > 0) {
+						timeout = node.cpuWhen > 0 && now - node.cpuWhen > heartbeatTimeoutMillis;
+					}
+					if (timeout && node.markAsOffline()) {
 
 						// Remove services and listeners
+						node.suspect = false;
 						registry.removeActions(node.nodeID);
 						eventbus.removeListeners(node.nodeID);
 						disconnectedNodes.add(node);
+						if (detected) {
+							detectedNodes.add(node);
+						}
 					}
 				} finally {
 					node.writeLock.unlock();
@@ -786,15 +1314,62 @@ public abstract class Transporter extends MoleculerComponent {
 			while (i.hasNext()) {
 				node = i.next();
 
-				// Notify listeners
-				logger.info("Node \"" + node.nodeID
-						+ "\" is no longer available because it hasn't submitted heartbeat signal for "
-						+ heartbeatTimeout + " seconds.");
+				// Notify listeners (with the rule that triggered)
+				if (detectedNodes.contains(node)) {
+					logger.info("Node \"" + node.nodeID
+							+ "\" is no longer available because it hasn't submitted heartbeat signal for "
+							+ (now - node.detector.getLastArrival()) + " milliseconds (failure detector).");
+				} else {
+					logger.info("Node \"" + node.nodeID
+							+ "\" is no longer available because it hasn't submitted heartbeat signal for "
+							+ heartbeatTimeout + " seconds.");
+				}
+				remoteNodeDisconnected(node.nodeID);
 				broadcastNodeDisconnected(node.info, true);
 			}
 		}
 	}
 
+	// --- FAILURE DETECTOR ---
+
+	/**
+	 * Registers the arrival time of a heartbeat (or gossip) signal of a node.
+	 * 
+	 * @param node
+	 *            descriptor of the sender node
+	 */
+	protected void heartbeatReceived(NodeDescriptor node) {
+		node.detector.heartbeat(System.currentTimeMillis());
+		node.suspect = false;
+	}
+
+	protected boolean isFailureDetectorEnabled() {
+		return suspectThreshold > 0 || phiThreshold > 0;
+	}
+
+	// --- IS NODE SUSPECTED BY THE FAILURE DETECTOR? ---
+
+	public boolean isSuspect(String nodeID) {
+		if (suspectThreshold <= 0 || this.nodeID.equals(nodeID)) {
+			return false;
+		}
+		NodeDescriptor node = nodes.get(nodeID);
+		return node != null && node.suspect;
+	}
+
+	// --- GET SUSPICION LEVEL OF A NODE ---
+
+	public double getPhi(String nodeID) {
+		if (this.nodeID.equals(nodeID)) {
+			return 0;
+		}
+		NodeDescriptor node = nodes.get(nodeID);
+		if (node == null) {
+			return 0;
+		}
+		return node.detector.phi(System.currentTimeMillis(), minStdDeviation, acceptableHeartbeatPause);
+	}
+
 	// --- GET CPU USAGE OF A REMOTE NODE ---
 
 	public int getCpuUsage(String nodeID) {
@@ -805,6 +1380,58 @@ public abstract class Transporter extends MoleculerComponent {
 		return node == null ? 0 : node.cpu;
 	}
 
+	// --- GET ROUTING WEIGHT OF A NODE ---
+
+	public int getWeight(String nodeID) {
+		if (this.nodeID.equals(nodeID)) {
+			if (registry instanceof DefaultServiceRegistry) {
+				return ((DefaultServiceRegistry) registry).getWeight();
+			}
+			return NodeDescriptor.DEFAULT_WEIGHT;
+		}
+		NodeDescriptor node = nodes.get(nodeID);
+		return node == null ? NodeDescriptor.DEFAULT_WEIGHT : node.weight;
+	}
+
+	/**
+	 * Version stamp of the routing weights. Incremented when the weight of a
+	 * node changes, so the weighted strategies rebuild their schedules only
+	 * when it is required (without querying the weights per request).
+	 */
+	protected final AtomicLong weightVersion = new AtomicLong();
+
+	public long getWeightVersion() {
+		return weightVersion.get();
+	}
+
+	public void weightChanged() {
+		weightVersion.incrementAndGet();
+	}
+
+	// --- GET AVAILABILITY ZONE AND REGION OF A NODE ---
+
+	public String getZone(String nodeID) {
+		if (this.nodeID.equals(nodeID)) {
+			if (registry instanceof DefaultServiceRegistry) {
+				return ((DefaultServiceRegistry) registry).getZone();
+			}
+			return null;
+		}
+		NodeDescriptor node = nodes.get(nodeID);
+		return node == null ? null : node.zone;
+	}
+
+	public String getRegion(String nodeID) {
+		if (this.nodeID.equals(nodeID)) {
+			if (registry instanceof DefaultServiceRegistry) {
+				return ((DefaultServiceRegistry) registry).getRegion();
+			}
+			return null;
+		}
+		NodeDescriptor node = nodes.get(nodeID);
+		return node == null ? null : node.region;
+	}
+
 	// --- GET LAST HEARTBEAT TIME OF A REMOTE NODE ---
 
 	public long getLastHeartbeatTime(String nodeID) {
@@ -920,6 +1547,54 @@ public abstract class Transporter extends MoleculerComponent {
 		this.heartbeatTimeout = heartbeatTimeout;
 	}
 
+	public double getSuspectThreshold() {
+		return suspectThreshold;
+	}
+
+	public void setSuspectThreshold(double suspectThreshold) {
+		this.suspectThreshold = suspectThreshold;
+	}
+
+	public double getPhiThreshold() {
+		return phiThreshold;
+	}
+
+	public void setPhiThreshold(double phiThreshold) {
+		this.phiThreshold = phiThreshold;
+	}
+
+	public long getMinStdDeviation() {
+		return minStdDeviation;
+	}
+
+	public void setMinStdDeviation(long minStdDeviation) {
+		this.minStdDeviation = minStdDeviation;
+	}
+
+	public long getAcceptableHeartbeatPause() {
+		return acceptableHeartbeatPause;
+	}
+
+	public void setAcceptableHeartbeatPause(long acceptableHeartbeatPause) {
+		this.acceptableHeartbeatPause = acceptableHeartbeatPause;
+	}
+
+	public int getMinHeartbeatSamples() {
+		return minHeartbeatSamples;
+	}
+
+	public void setMinHeartbeatSamples(int minHeartbeatSamples) {
+		this.minHeartbeatSamples = minHeartbeatSamples;
+	}
+
+	public boolean isInfoDiffs() {
+		return infoDiffs;
+	}
+
+	public void setInfoDiffs(boolean infoDiffs) {
+		this.infoDiffs = infoDiffs;
+	}
+
 	public boolean isDebug() {
 		return debug;
 	}
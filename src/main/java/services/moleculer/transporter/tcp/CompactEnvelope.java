@@ -0,0 +1,464 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+import static services.moleculer.ServiceBroker.PROTOCOL_VERSION;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import io.datatree.Tree;
+import services.moleculer.error.InvalidPacketDataError;
+import services.moleculer.serializer.Serializer;
+import services.moleculer.util.FastBuildTree;
+
+/**
+ * Compact packet envelope of the TcpTransporter. The routing fields ("ver",
+ * "sender", "id", "action", "event", "requestID", "parentID", "level",
+ * "timeout", "success", "broadcast") are stored in a binary header, and only
+ * the other fields (eg. "params", "data", "meta", "error") are written by the
+ * Serializer. The sender is identified by its numeric node index (or by its
+ * nodeID, if the receiver may not know the index yet). Header structure:
+ * 
+ * <pre>
+ * [version: 1 byte][flags: 2 bytes][sender index: 4 bytes]
+ * [sender name][id][action or event][requestID][parentID]
+ * [level: 4 bytes][timeout: 8 bytes][serialized body]
+ * </pre>
+ * 
+ * Strings are stored as a 2-byte length and UTF-8 bytes. The optional fields
+ * are present only if the related flag is set. The action or event name is
+ * sent as a 2-byte reference and a 2-byte check value, if the name is in the
+ * receiver's {@link StringDictionary}.
+ */
+public class CompactEnvelope {
+
+	// --- CONSTANTS ---
+
+	/**
+	 * Version of the envelope format
+	 */
+	public static final int VERSION = 1;
+
+	// --- FLAGS ---
+
+	protected static final int VER = 1;
+	protected static final int SENDER_INDEX = 1 << 1;
+	protected static final int SENDER_NAME = 1 << 2;
+	protected static final int ID = 1 << 3;
+	protected static final int ACTION = 1 << 4;
+	protected static final int EVENT = 1 << 5;
+	protected static final int REQUEST_ID = 1 << 6;
+	protected static final int SAME_REQUEST_ID = 1 << 7;
+	protected static final int PARENT_ID = 1 << 8;
+	protected static final int LEVEL = 1 << 9;
+	protected static final int TIMEOUT = 1 << 10;
+	protected static final int SUCCESS = 1 << 11;
+	protected static final int SUCCESS_TRUE = 1 << 12;
+	protected static final int BROADCAST = 1 << 13;
+	protected static final int BROADCAST_TRUE = 1 << 14;
+	protected static final int NAME_REF = 1 << 15;
+
+	// --- COMPONENTS ---
+
+	protected final Serializer serializer;
+
+	// --- CONSTRUCTOR ---
+
+	public CompactEnvelope(Serializer serializer) {
+		this.serializer = serializer;
+	}
+
+	// --- WRITE PACKET ---
+
+	/**
+	 * Writes a message in compact format.
+	 * 
+	 * @param message
+	 *            message to write
+	 * @param nodeID
+	 *            nodeID of the local node (the sender)
+	 * @param senderIndex
+	 *            node index of the local node
+	 * @param withName
+	 *            write the nodeID into the header (the receiver does not
+	 *            know the node index)
+	 * @param offset
+	 *            number of bytes to reserve before the envelope (for the
+	 *            header of the packet)
+	 * 
+	 * @return bytes of the envelope (after the reserved bytes)
+	 * 
+	 * @throws Exception
+	 *             any serialization error
+	 */
+	public byte[] write(Tree message, String nodeID, int senderIndex, boolean withName, int offset)
+			throws Exception {
+		return write(message, nodeID, senderIndex, withName, offset, null);
+	}
+
+	/**
+	 * Writes a message in compact format.
+	 * 
+	 * @param message
+	 *            message to write
+	 * @param nodeID
+	 *            nodeID of the local node (the sender)
+	 * @param senderIndex
+	 *            node index of the local node
+	 * @param withName
+	 *            write the nodeID into the header (the receiver does not
+	 *            know the node index)
+	 * @param offset
+	 *            number of bytes to reserve before the envelope (for the
+	 *            header of the packet)
+	 * @param dictionary
+	 *            string dictionary of the receiver (or null)
+	 * 
+	 * @return bytes of the envelope (after the reserved bytes)
+	 * 
+	 * @throws Exception
+	 *             any serialization error
+	 */
+	@SuppressWarnings("unchecked")
+	public byte[] write(Tree message, String nodeID, int senderIndex, boolean withName, int offset,
+			StringDictionary dictionary) throws Exception {
+		Map<String, Object> map = (Map<String, Object>) message.asObject();
+		FastBuildTree body = new FastBuildTree(Math.max(1, map.size()));
+		int flags = 0;
+		int size = offset + 7;
+		byte[] sender = null, id = null, name = null, requestID = null, parentID = null;
+		int level = 0;
+		long timeout = 0;
+		int nameRef = -1;
+		int nameCheck = 0;
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			String key = entry.getKey();
+			Object value = entry.getValue();
+			switch (key) {
+			case "ver":
+				if (PROTOCOL_VERSION.equals(value)) {
+					flags |= VER;
+					continue;
+				}
+				break;
+			case "sender":
+				if (nodeID.equals(value)) {
+					if (withName && (sender = bytes(value)) != null) {
+						flags |= SENDER_NAME;
+						size += sender.length + 2;
+					} else {
+						flags |= SENDER_INDEX;
+					}
+					continue;
+				}
+				break;
+			case "id":
+				if ((id = bytes(value)) != null) {
+					flags |= ID;
+					size += id.length + 2;
+					continue;
+				}
+				break;
+			case "action":
+			case "event":
+				if (name != null || nameRef > -1) {
+					break;
+				}
+				if (dictionary != null && value instanceof String
+						&& (nameRef = dictionary.indexOf((String) value)) > -1) {
+					nameCheck = StringDictionary.check((String) value);
+					flags |= ("action".equals(key) ? ACTION : EVENT) | NAME_REF;
+					size += 4;
+					continue;
+				}
+				if ((name = bytes(value)) != null) {
+					flags |= "action".equals(key) ? ACTION : EVENT;
+					size += name.length + 2;
+					continue;
+				}
+				break;
+			case "requestID":
+				if ((requestID = bytes(value)) != null) {
+					flags |= REQUEST_ID;
+					size += requestID.length + 2;
+					continue;
+				}
+				break;
+			case "parentID":
+				if ((parentID = bytes(value)) != null) {
+					flags |= PARENT_ID;
+					size += parentID.length + 2;
+					continue;
+				}
+				break;
+			case "level":
+				if (value instanceof Integer) {
+					level = (Integer) value;
+					flags |= LEVEL;
+					size += 4;
+					continue;
+				}
+				break;
+			case "timeout":
+				if (value instanceof Long || value instanceof Integer) {
+					timeout = ((Number) value).longValue();
+					flags |= TIMEOUT;
+					size += 8;
+					continue;
+				}
+				break;
+			case "success":
+				if (value instanceof Boolean) {
+					flags |= (Boolean) value ? SUCCESS | SUCCESS_TRUE : SUCCESS;
+					continue;
+				}
+				break;
+			case "broadcast":
+				if (value instanceof Boolean) {
+					flags |= (Boolean) value ? BROADCAST | BROADCAST_TRUE : BROADCAST;
+					continue;
+				}
+				break;
+			default:
+			}
+			body.putUnsafe(key, value);
+		}
+
+		// The "requestID" is usually the same as the "id"
+		if (id != null && requestID != null && Arrays.equals(id, requestID)) {
+			flags = (flags | SAME_REQUEST_ID) & ~REQUEST_ID;
+			size -= requestID.length + 2;
+		}
+
+		// Serialize body
+		byte[] data = body.isEmpty() ? null : serializer.write(body);
+		if (data != null) {
+			size += data.length;
+		}
+
+		// Write header
+		byte[] bytes = new byte[size];
+		int pos = offset;
+		bytes[pos++] = VERSION;
+		bytes[pos++] = (byte) (flags >>> 8);
+		bytes[pos++] = (byte) flags;
+		pos = writeInt(bytes, pos, senderIndex);
+		pos = writeString(bytes, pos, (flags & SENDER_NAME) == 0 ? null : sender);
+		pos = writeString(bytes, pos, (flags & ID) == 0 ? null : id);
+		if ((flags & NAME_REF) != 0) {
+			bytes[pos++] = (byte) (nameRef >>> 8);
+			bytes[pos++] = (byte) nameRef;
+			bytes[pos++] = (byte) (nameCheck >>> 8);
+			bytes[pos++] = (byte) nameCheck;
+		} else {
+			pos = writeString(bytes, pos, name);
+		}
+		pos = writeString(bytes, pos, (flags & REQUEST_ID) == 0 ? null : requestID);
+		pos = writeString(bytes, pos, (flags & PARENT_ID) == 0 ? null : parentID);
+		if ((flags & LEVEL) != 0) {
+			pos = writeInt(bytes, pos, level);
+		}
+		if ((flags & TIMEOUT) != 0) {
+			pos = writeInt(bytes, pos, (int) (timeout >>> 32));
+			pos = writeInt(bytes, pos, (int) timeout);
+		}
+		if (data != null) {
+			System.arraycopy(data, 0, bytes, pos, data.length);
+		}
+		return bytes;
+	}
+
+	protected static final byte[] bytes(Object value) {
+		if (!(value instanceof String)) {
+			return null;
+		}
+		byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+		return bytes.length > 0xFFFF ? null : bytes;
+	}
+
+	protected static final int writeInt(byte[] bytes, int pos, int value) {
+		bytes[pos] = (byte) (value >>> 24);
+		bytes[pos + 1] = (byte) (value >>> 16);
+		bytes[pos + 2] = (byte) (value >>> 8);
+		bytes[pos + 3] = (byte) value;
+		return pos + 4;
+	}
+
+	protected static final int writeString(byte[] bytes, int pos, byte[] string) {
+		if (string == null) {
+			return pos;
+		}
+		bytes[pos] = (byte) (string.length >>> 8);
+		bytes[pos + 1] = (byte) string.length;
+		System.arraycopy(string, 0, bytes, pos + 2, string.length);
+		return pos + 2 + string.length;
+	}
+
+	// --- READ PACKET ---
+
+	/**
+	 * Reads a message in compact format.
+	 * 
+	 * @param bytes
+	 *            bytes of the envelope
+	 * @param resolver
+	 *            returns the nodeID by node index (or null)
+	 * 
+	 * @return the message
+	 * 
+	 * @throws Exception
+	 *             unknown sender, invalid format or deserialization error
+	 */
+	public Tree read(byte[] bytes, IntFunction<String> resolver) throws Exception {
+		return read(bytes, resolver, null);
+	}
+
+	/**
+	 * Reads a message in compact format.
+	 * 
+	 * @param bytes
+	 *            bytes of the envelope
+	 * @param resolver
+	 *            returns the nodeID by node index (or null)
+	 * @param dictionary
+	 *            string dictionary of the local node (or null)
+	 * 
+	 * @return the message
+	 * 
+	 * @throws Exception
+	 *             unknown sender, invalid format or deserialization error
+	 */
+	@SuppressWarnings("unchecked")
+	public Tree read(byte[] bytes, IntFunction<String> resolver, StringDictionary dictionary) throws Exception {
+		if (bytes.length < 7 || bytes[0] != VERSION) {
+			throw new InvalidPacketDataError("Invalid envelope version!", "version", bytes.length == 0 ? 0 : bytes[0]);
+		}
+		int flags = ((bytes[1] & 0xFF) << 8) | (bytes[2] & 0xFF);
+		int senderIndex = readInt(bytes, 3);
+		int[] pos = { 7 };
+
+		// Read header
+		String sender = (flags & SENDER_NAME) == 0 ? null : readString(bytes, pos);
+		String id = (flags & ID) == 0 ? null : readString(bytes, pos);
+		String name = null;
+		if ((flags & NAME_REF) != 0) {
+			int ref = ((bytes[pos[0]] & 0xFF) << 8) | (bytes[pos[0] + 1] & 0xFF);
+			int check = ((bytes[pos[0] + 2] & 0xFF) << 8) | (bytes[pos[0] + 3] & 0xFF);
+			pos[0] += 4;
+			name = dictionary == null ? null : dictionary.get(ref);
+			if (name == null || StringDictionary.check(name) != check) {
+				throw new InvalidPacketDataError("Unknown string reference (" + ref + ")!", "ref", ref);
+			}
+		} else if ((flags & (ACTION | EVENT)) != 0) {
+			name = readString(bytes, pos);
+			if (dictionary != null) {
+				name = dictionary.canonical(name);
+			}
+		}
+		String requestID = (flags & REQUEST_ID) == 0 ? null : readString(bytes, pos);
+		String parentID = (flags & PARENT_ID) == 0 ? null : readString(bytes, pos);
+		int level = 0;
+		if ((flags & LEVEL) != 0) {
+			level = readInt(bytes, pos[0]);
+			pos[0] += 4;
+		}
+		long timeout = 0;
+		if ((flags & TIMEOUT) != 0) {
+			timeout = ((long) readInt(bytes, pos[0]) << 32) | (readInt(bytes, pos[0] + 4) & 0xFFFFFFFFL);
+			pos[0] += 8;
+		}
+		if ((flags & SENDER_INDEX) != 0) {
+			sender = resolver.apply(senderIndex);
+			if (sender == null) {
+				throw new InvalidPacketDataError("Unknown node index (" + senderIndex + ")!", "index", senderIndex);
+			}
+		}
+
+		// Read body
+		Tree message;
+		if (pos[0] < bytes.length) {
+			message = serializer.read(Arrays.copyOfRange(bytes, pos[0], bytes.length));
+			if (!message.isMap()) {
+				throw new InvalidPacketDataError("Invalid envelope body!", "body", String.valueOf(message.asObject()));
+			}
+		} else {
+			message = new Tree();
+		}
+
+		// Copy header fields into the message (into the Map of the message,
+		// without path parsing)
+		Map<String, Object> map = (Map<String, Object>) message.asObject();
+		if ((flags & VER) != 0) {
+			map.put("ver", PROTOCOL_VERSION);
+		}
+		if (sender != null) {
+			map.put("sender", sender);
+		}
+		if (id != null) {
+			map.put("id", id);
+		}
+		if (name != null) {
+			map.put((flags & ACTION) != 0 ? "action" : "event", name);
+		}
+		if ((flags & SAME_REQUEST_ID) != 0) {
+			map.put("requestID", id);
+		} else if (requestID != null) {
+			map.put("requestID", requestID);
+		}
+		if (parentID != null) {
+			map.put("parentID", parentID);
+		}
+		if ((flags & LEVEL) != 0) {
+			map.put("level", level);
+		}
+		if ((flags & TIMEOUT) != 0) {
+			map.put("timeout", timeout);
+		}
+		if ((flags & SUCCESS) != 0) {
+			map.put("success", (flags & SUCCESS_TRUE) != 0);
+		}
+		if ((flags & BROADCAST) != 0) {
+			map.put("broadcast", (flags & BROADCAST_TRUE) != 0);
+		}
+		return message;
+	}
+
+	protected static final int readInt(byte[] bytes, int pos) {
+		return ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16) | ((bytes[pos + 2] & 0xFF) << 8)
+				| (bytes[pos + 3] & 0xFF);
+	}
+
+	protected static final String readString(byte[] bytes, int[] pos) {
+		int len = ((bytes[pos[0]] & 0xFF) << 8) | (bytes[pos[0] + 1] & 0xFF);
+		String string = new String(bytes, pos[0] + 2, len, StandardCharsets.UTF_8);
+		pos[0] += len + 2;
+		return string;
+	}
+
+}
\ No newline at end of file
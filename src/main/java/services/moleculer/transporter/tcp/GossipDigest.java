@@ -0,0 +1,117 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Gossip digest (known sequence numbers of the nodes), exchanged with a peer
+ * in a gossip round. Online nodes are stored as "[seq, cpuSeq, cpu]", offline
+ * nodes as "[seq]". Used by the delta-based gossiping: only the changed
+ * entries are sent to the peer.
+ */
+public class GossipDigest {
+
+	/**
+	 * Number of the gossip round
+	 */
+	public final long round;
+
+	/**
+	 * Entries by nodeIDs
+	 */
+	public final Map<String, long[]> entries;
+
+	public GossipDigest(long round, Map<String, long[]> entries) {
+		this.round = round;
+		this.entries = entries;
+	}
+
+	/**
+	 * Returns the entries which are new or changed since the previous digest.
+	 * 
+	 * @param prev
+	 *            previous digest
+	 * 
+	 * @return new or changed entries
+	 */
+	public Map<String, long[]> changedSince(GossipDigest prev) {
+		LinkedHashMap<String, long[]> changed = new LinkedHashMap<>();
+		for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+			if (!Arrays.equals(entry.getValue(), prev.entries.get(entry.getKey()))) {
+				changed.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns the nodeIDs which are removed since the previous digest.
+	 * 
+	 * @param prev
+	 *            previous digest
+	 * 
+	 * @return removed nodeIDs
+	 */
+	public Collection<String> removedSince(GossipDigest prev) {
+		LinkedList<String> removed = new LinkedList<>();
+		for (String nodeID : prev.entries.keySet()) {
+			if (!entries.containsKey(nodeID)) {
+				removed.add(nodeID);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Applies the changes of a delta digest to this digest.
+	 * 
+	 * @param round
+	 *            number of the next round
+	 * @param changed
+	 *            new or changed entries
+	 * @param removed
+	 *            removed nodeIDs (or null)
+	 * 
+	 * @return the next digest
+	 */
+	public GossipDigest apply(long round, Map<String, long[]> changed, Collection<String> removed) {
+		HashMap<String, long[]> next = new HashMap<>(entries);
+		if (removed != null) {
+			for (String nodeID : removed) {
+				next.remove(nodeID);
+			}
+		}
+		next.putAll(changed);
+		return new GossipDigest(round, next);
+	}
+
+}
\ No newline at end of file
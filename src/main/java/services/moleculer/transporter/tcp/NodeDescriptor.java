@@ -39,6 +39,14 @@ import services.moleculer.error.BrokerOptionsError;
  */
 public class NodeDescriptor {
 
+	// --- CONSTANTS ---
+
+	/**
+	 * Default routing weight of nodes (see the "weight" property of the INFO
+	 * packet)
+	 */
+	public static final int DEFAULT_WEIGHT = 100;
+
 	// --- FINAL PROPERTIES ----
 
 	public final String nodeID;
@@ -59,6 +67,30 @@ public class NodeDescriptor {
 	public volatile long cpuSeq;
 	public volatile long cpuWhen;
 
+	public volatile int weight = DEFAULT_WEIGHT;
+
+	/**
+	 * Availability zone and region of the node (see the "zone" and "region"
+	 * properties of the INFO packet)
+	 */
+	public volatile String zone;
+	public volatile String region;
+
+	/**
+	 * Hash of the "services" block of the info (0 = not calculated)
+	 */
+	public volatile long servicesHash;
+
+	/**
+	 * The node does not send heartbeat signals in time (but it is still
+	 * online)
+	 */
+	public volatile boolean suspect;
+
+	// --- FAILURE DETECTOR ---
+
+	public final PhiAccrualDetector detector = new PhiAccrualDetector();
+
 	// --- LOCKS ---
 
 	public final Lock readLock;
@@ -106,6 +138,9 @@ public class NodeDescriptor {
 			throw new BrokerOptionsError("Invalid port number (" + port + ")!", nodeID);
 		}
 		seq = info.get("seq", 0L);
+		weight = info.get("weight", DEFAULT_WEIGHT);
+		zone = info.get("zone", (String) null);
+		region = info.get("region", (String) null);
 	}
 
 	// --- UPDATE CPU ---
@@ -121,7 +156,17 @@ public class NodeDescriptor {
 		cpuWhen = System.currentTimeMillis();
 	}
 
-	public void updateCpu(long cpuSeq, int cpu) {
+	/**
+	 * Stores the CPU usage received from another node (via gossiping).
+	 * 
+	 * @param cpuSeq
+	 *            CPU sequence number
+	 * @param cpu
+	 *            CPU usage (0...100)
+	 * 
+	 * @return true if the CPU sequence has advanced
+	 */
+	public boolean updateCpu(long cpuSeq, int cpu) {
 		if (cpu < 0 || cpu > 100) {
 			throw new BrokerOptionsError("Invalid CPU value (" + cpu + ")!", nodeID);
 		}
@@ -132,7 +177,9 @@ public class NodeDescriptor {
 			this.cpuSeq = cpuSeq;
 			this.cpu = cpu;
 			cpuWhen = System.currentTimeMillis();
+			return true;
 		}
+		return false;
 	}
 
 	// --- MARK AS OFFLINE ---
@@ -186,6 +233,9 @@ public class NodeDescriptor {
 			this.offlineSince = 0;
 			this.host = host;
 			this.port = port;
+			this.weight = info.get("weight", DEFAULT_WEIGHT);
+			this.zone = info.get("zone", (String) null);
+			this.region = info.get("region", (String) null);
 			return true;
 		}
 		return false;
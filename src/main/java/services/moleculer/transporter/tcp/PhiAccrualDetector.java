@@ -0,0 +1,151 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+/**
+ * Phi-accrual failure detector (based on the paper of Hayashibara et al.).
+ * Stores the inter-arrival times of the last heartbeat (or gossip) signals of
+ * a node, and calculates the suspicion level ("phi") from the time elapsed
+ * since the last signal. Phi = 1 means 10% probability of a wrong suspicion,
+ * phi = 2 means 1%, phi = 3 means 0.1%, etc. Unlike a fixed timeout, the
+ * detector adapts to the actual network conditions and heartbeat jitter.
+ */
+public class PhiAccrualDetector {
+
+	// --- CONSTANTS ---
+
+	/**
+	 * Default number of stored inter-arrival times
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+
+	// --- INTER-ARRIVAL TIMES ---
+
+	protected final long[] intervals;
+
+	protected int pointer;
+	protected int count;
+
+	protected long sum;
+	protected double squares;
+
+	/**
+	 * Timestamp of the last signal
+	 */
+	protected long lastArrival;
+
+	// --- CONSTRUCTORS ---
+
+	public PhiAccrualDetector() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	public PhiAccrualDetector(int windowSize) {
+		intervals = new long[Math.max(2, windowSize)];
+	}
+
+	// --- SIGNAL ARRIVED ---
+
+	public synchronized void heartbeat(long now) {
+		if (lastArrival > 0) {
+			long interval = now - lastArrival;
+			if (interval < 1) {
+
+				// Duplicated signal (eg. heartbeat and gossip packet)
+				return;
+			}
+			if (count == intervals.length) {
+				long removed = intervals[pointer];
+				sum -= removed;
+				squares -= (double) removed * removed;
+			} else {
+				count++;
+			}
+			intervals[pointer] = interval;
+			pointer = (pointer + 1) % intervals.length;
+			sum += interval;
+			squares += (double) interval * interval;
+		}
+		lastArrival = now;
+	}
+
+	/**
+	 * Restarts the measurement of the elapsed time (eg. when the node
+	 * reconnects), without storing the inter-arrival time.
+	 * 
+	 * @param now
+	 *            current timestamp in milliseconds
+	 */
+	public synchronized void reset(long now) {
+		lastArrival = now;
+	}
+
+	// --- CALCULATE SUSPICION LEVEL ---
+
+	/**
+	 * Calculates the suspicion level of the node.
+	 * 
+	 * @param now
+	 *            current timestamp in milliseconds
+	 * @param minStdDeviation
+	 *            minimum standard deviation in milliseconds (too low deviation
+	 *            makes the detector too sensitive)
+	 * @param acceptablePause
+	 *            acceptable heartbeat pause in milliseconds (eg. GC pause),
+	 *            added to the mean inter-arrival time
+	 * 
+	 * @return phi value (0 = no suspicion)
+	 */
+	public synchronized double phi(long now, long minStdDeviation, long acceptablePause) {
+		if (count == 0) {
+			return 0;
+		}
+		double mean = (double) sum / count;
+		double variance = squares / count - mean * mean;
+		double deviation = Math.max(Math.sqrt(Math.max(variance, 0)), Math.max(1, minStdDeviation));
+		mean += acceptablePause;
+
+		// Logistic approximation of the cumulative normal distribution
+		double elapsed = now - lastArrival;
+		double y = (elapsed - mean) / deviation;
+		double e = Math.exp(-y * (1.5976d + 0.070566d * y * y));
+		if (elapsed > mean) {
+			return -Math.log10(e / (1.0d + e));
+		}
+		return -Math.log10(1.0d - 1.0d / (1.0d + e));
+	}
+
+	// --- GETTERS ---
+
+	public synchronized int getSamples() {
+		return count;
+	}
+
+	public synchronized long getLastArrival() {
+		return lastArrival;
+	}
+
+}
\ No newline at end of file
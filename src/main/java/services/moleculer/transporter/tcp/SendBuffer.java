@@ -30,6 +30,8 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.LinkedList;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -50,6 +52,11 @@ public class SendBuffer {
 
 	protected final ConcurrentLinkedQueue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
 
+	// --- QUEUE DEPTH ---
+
+	protected final AtomicInteger queuedPackets = new AtomicInteger();
+	protected final AtomicLong queuedBytes = new AtomicLong();
+
 	// --- USED / NOT USED ---
 
 	protected static final ByteBuffer BUFFER_IS_CLOSED = ByteBuffer.allocate(1);
@@ -62,6 +69,12 @@ public class SendBuffer {
 	public final String host;
 	public final int port;
 
+	/**
+	 * Key of this buffer in the TcpWriter (nodeID, or nodeID and connection
+	 * index, when there are more connections per node)
+	 */
+	public final String bufferID;
+
 	/**
 	 * Debug mode
 	 */
@@ -75,6 +88,11 @@ public class SendBuffer {
 	// --- CONSTRUCTOR ---
 
 	protected SendBuffer(String nodeID, String host, int port, boolean debug) {
+		this(nodeID, nodeID, host, port, debug);
+	}
+
+	protected SendBuffer(String bufferID, String nodeID, String host, int port, boolean debug) {
+		this.bufferID = bufferID;
 		this.nodeID = nodeID;
 		this.host = host;
 		this.port = port;
@@ -107,12 +125,51 @@ public class SendBuffer {
 				return false;
 			}
 			if (blockerBuffer.compareAndSet(blocker, buffer)) {
+				queuedPackets.incrementAndGet();
+				queuedBytes.addAndGet(packet.length);
 				queue.add(buffer);
 				return true;
 			}
 		}
 	}
 
+	// --- CHECK LIMITS ---
+
+	/**
+	 * Checks the limits of the outgoing queue. A packet is always accepted by
+	 * an empty queue (even if it is larger than the byte limit).
+	 *
+	 * @param size
+	 *            size of the next packet
+	 * @param maxBytes
+	 *            max. number of queued bytes (0 = unlimited)
+	 * @param maxPackets
+	 *            max. number of queued packets (0 = unlimited)
+	 *
+	 * @return true, if the queue is full
+	 */
+	protected boolean isFull(int size, long maxBytes, int maxPackets) {
+		return isFull(queuedPackets.get(), queuedBytes.get(), size, maxBytes, maxPackets);
+	}
+
+	protected static boolean isFull(int packets, long bytes, int size, long maxBytes, int maxPackets) {
+		if (packets == 0) {
+			return false;
+		}
+		if (maxPackets > 0 && packets >= maxPackets) {
+			return true;
+		}
+		return maxBytes > 0 && bytes + size > maxBytes;
+	}
+
+	public int getQueuedPackets() {
+		return queuedPackets.get();
+	}
+
+	public long getQueuedBytes() {
+		return queuedBytes.get();
+	}
+
 	// --- CLOSE IF UNUSED ---
 
 	/**
@@ -152,6 +209,8 @@ public class SendBuffer {
 			key = null;
 		}
 		queue.clear();
+		queuedPackets.set(0);
+		queuedBytes.set(0);
 		if (channel != null) {
 
 			// Debug
@@ -202,9 +261,16 @@ public class SendBuffer {
 					throw new InvalidPacketDataError(nodeID, "host", host, "port", port);
 				}
 
+				// Socket's buffer is full (continue when writable)
+				if (count == 0 && buffer.hasRemaining()) {
+					return;
+				}
+
 				// Remove the submitted buffer from the queue
 				if (!buffer.hasRemaining()) {
 					queue.poll();
+					queuedPackets.decrementAndGet();
+					queuedBytes.addAndGet(-buffer.capacity());
 				}
 
 				// Turn off write mode (if the queue is empty)
@@ -229,6 +295,8 @@ public class SendBuffer {
 			list.addLast(buffer.array());
 			buffer = queue.poll();
 		}
+		queuedPackets.set(0);
+		queuedBytes.set(0);
 		return list;
 	}
 
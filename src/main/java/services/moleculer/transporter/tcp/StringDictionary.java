@@ -0,0 +1,239 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+import io.datatree.Tree;
+
+/**
+ * Dictionary of the frequent strings (action and event names) of a node. Each
+ * node publishes its own dictionary in its info block ("dictionary" property),
+ * and the peers send these strings as 2-byte references (plus a 2-byte check
+ * value, to detect a restarted receiver with a different dictionary) in the
+ * compact envelope. The receiver decodes the references into the canonical
+ * String instances of its dictionary. The dictionary is append-only: the
+ * indexes never change while the node is running. Instances are immutable.
+ *
+ * @see CompactEnvelope
+ */
+public class StringDictionary {
+
+	// --- CONSTANTS ---
+
+	/**
+	 * Max number of strings
+	 */
+	public static final int MAX_SIZE = 0xFFFF;
+
+	/**
+	 * Empty dictionary
+	 */
+	public static final StringDictionary EMPTY = new StringDictionary(new String[0]);
+
+	// --- PROPERTIES ---
+
+	protected final String[] strings;
+	protected final HashMap<String, Integer> indexes;
+
+	// --- CONSTRUCTORS ---
+
+	public StringDictionary(String[] strings) {
+		this.strings = strings;
+		this.indexes = new HashMap<>(Math.max(16, strings.length * 2));
+		for (int i = 0; i < strings.length; i++) {
+			indexes.putIfAbsent(strings[i], i);
+		}
+	}
+
+	/**
+	 * Creates a dictionary from the "dictionary" property of an info block.
+	 *
+	 * @param list
+	 *            list of strings
+	 */
+	public StringDictionary(Tree list) {
+		this(toArray(list));
+	}
+
+	protected static final String[] toArray(Tree list) {
+		String[] array = new String[Math.min(MAX_SIZE, list.size())];
+		int i = 0;
+		for (Tree item : list) {
+			if (i == array.length) {
+				break;
+			}
+			array[i++] = item.asString();
+		}
+		return array;
+	}
+
+	// --- APPEND STRINGS ---
+
+	/**
+	 * Appends the action and event names of an info block to the dictionary.
+	 *
+	 * @param info
+	 *            info block of the local node
+	 *
+	 * @return new dictionary (or this instance, if there is no new string)
+	 */
+	public StringDictionary append(Tree info) {
+		LinkedHashSet<String> added = new LinkedHashSet<>();
+		Tree services = info.get("services");
+		if (services != null) {
+			for (Tree service : services) {
+				collect(service.get("actions"), added);
+				collect(service.get("events"), added);
+			}
+		}
+		if (added.isEmpty() || strings.length == MAX_SIZE) {
+			return this;
+		}
+		int size = Math.min(MAX_SIZE, strings.length + added.size());
+		String[] array = new String[size];
+		System.arraycopy(strings, 0, array, 0, strings.length);
+		int i = strings.length;
+		for (String string : added) {
+			if (i == size) {
+				break;
+			}
+			array[i++] = string;
+		}
+		return new StringDictionary(array);
+	}
+
+	protected void collect(Tree map, LinkedHashSet<String> added) {
+		if (map == null) {
+			return;
+		}
+		for (Tree entry : map) {
+			String name = entry.get("name", entry.getName());
+			if (name != null && !name.isEmpty() && !indexes.containsKey(name)) {
+				added.add(name);
+			}
+		}
+	}
+
+	// --- LOOKUP ---
+
+	/**
+	 * Returns the index of a string.
+	 *
+	 * @param string
+	 *            string to find
+	 *
+	 * @return index, or -1 if the string is not in the dictionary
+	 */
+	public int indexOf(String string) {
+		Integer index = indexes.get(string);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Returns the string of the specified index.
+	 *
+	 * @param index
+	 *            index of the string
+	 *
+	 * @return the string, or null if the index is invalid
+	 */
+	public String get(int index) {
+		return index < 0 || index >= strings.length ? null : strings[index];
+	}
+
+	/**
+	 * Returns the canonical instance of a string (if it's in the dictionary).
+	 *
+	 * @param string
+	 *            any string
+	 *
+	 * @return canonical instance or the specified string
+	 */
+	public String canonical(String string) {
+		Integer index = indexes.get(string);
+		return index == null ? string : strings[index];
+	}
+
+	/**
+	 * Returns the 16-bit check value of a string (sent with the reference).
+	 *
+	 * @param string
+	 *            dictionary entry
+	 *
+	 * @return check value
+	 */
+	public static final int check(String string) {
+		int hash = string.hashCode();
+		return (hash ^ (hash >>> 16)) & 0xFFFF;
+	}
+
+	/**
+	 * Checks that the dictionary contains the same strings in the same order
+	 * as the specified "dictionary" property of an info block.
+	 *
+	 * @param list
+	 *            list of strings
+	 *
+	 * @return true, if the contents are equal
+	 */
+	public boolean matches(Tree list) {
+		if (strings.length != Math.min(MAX_SIZE, list.size())) {
+			return false;
+		}
+		int i = 0;
+		for (Tree item : list) {
+			if (i == strings.length) {
+				break;
+			}
+			if (!strings[i++].equals(item.asString())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// --- CONVERT TO TREE ---
+
+	/**
+	 * Adds the strings to the info block of the local node.
+	 *
+	 * @param info
+	 *            info block
+	 */
+	public void addTo(Tree info) {
+		Tree list = info.putList("dictionary");
+		for (String string : strings) {
+			list.add(string);
+		}
+	}
+
+	public int size() {
+		return strings.length;
+	}
+
+}
\ No newline at end of file
@@ -335,9 +335,10 @@ public class TcpReader implements Runnable {
 				throw new InvalidPacketDataError("Invalid CRC (" + crc + " != " + bytes[pos] + ")!", "crc", crc, "byte", bytes[pos]);
 			}
 
-			// Verify type
+			// Verify type (+64 = compact envelope)
 			byte type = bytes[pos + 5];
-			if (type < 1 || type > 8) {
+			int id = type & 0x3F;
+			if (id < 1 || id > 8 || (type & 0x80) != 0) {
 
 				// Unknown packet type!
 				throw new InvalidPacketDataError("Invalid packet type (" + type + ")!", "type", type);
@@ -42,6 +42,7 @@ import java.util.LinkedList;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -70,6 +71,42 @@ public class TcpWriter implements Runnable {
 	 */
 	protected final boolean debug;
 
+	/**
+	 * Max number of queued bytes per node (0 = unlimited)
+	 */
+	protected final long maxQueuedBytes;
+
+	/**
+	 * Max number of queued packets per node (0 = unlimited)
+	 */
+	protected final int maxQueuedPackets;
+
+	/**
+	 * Number of connections per node
+	 */
+	protected final int connectionsPerNode;
+
+	/**
+	 * Select connection by message class (true) or round-robin (false)
+	 */
+	protected final boolean selectByClass;
+
+	/**
+	 * Packets larger than this size (BYTES) are sent via a dedicated
+	 * connection (0 = disabled)
+	 */
+	protected final int largePacketSize;
+
+	/**
+	 * Counter of the round-robin connection selection
+	 */
+	protected final AtomicInteger counter = new AtomicInteger();
+
+	// --- SENDERS WAITING FOR FREE SPACE ---
+
+	protected final Object drained = new Object();
+	protected final AtomicInteger waitingSenders = new AtomicInteger();
+
 	// --- PARENT TRANSPORTER ---
 
 	protected final TcpTransporter transporter;
@@ -93,6 +130,11 @@ public class TcpWriter implements Runnable {
 		this.transporter = transporter;
 		this.debug = transporter.isDebug();
 		this.maxConnections = transporter.getMaxConnections();
+		this.maxQueuedBytes = transporter.getMaxQueuedBytes();
+		this.maxQueuedPackets = transporter.getMaxQueuedPackets();
+		this.connectionsPerNode = Math.max(1, transporter.getConnectionsPerNode());
+		this.selectByClass = !TcpTransporter.CHANNEL_SELECTION_ROUND_ROBIN.equals(transporter.getChannelSelection());
+		this.largePacketSize = transporter.getLargePacketSize();
 	}
 
 	// --- CONNECT ---
@@ -162,13 +204,232 @@ public class TcpWriter implements Runnable {
 	// --- CLOSE SOCKET BY NODE ID ---
 
 	public void close(String nodeID) {
+		for (int i = 0; i < connectionsPerNode; i++) {
+			SendBuffer buffer;
+			synchronized (buffers) {
+				buffer = buffers.remove(bufferID(nodeID, i));
+			}
+			if (buffer != null) {
+				buffer.close();
+			}
+		}
+		signalDrained();
+	}
+
+	// --- CONNECTION SELECTION ---
+
+	protected static String bufferID(String nodeID, int index) {
+		return index == 0 ? nodeID : nodeID + '\u0000' + index;
+	}
+
+	/**
+	 * Selects the connection of the packet. The connections are reserved per
+	 * message class:
+	 * <ul>
+	 * <li>0: responses and control packets (PING, PONG, GOSSIP)
+	 * <li>1: events (all events of the node use this connection, so the order
+	 * of the events is the same on the receiver side, whatever partitioning is
+	 * used by the receiver's event executor)
+	 * <li>2..N-1: requests and large responses (with 2 connections they use
+	 * the connection 0)
+	 * <li>N-1: large requests and responses, when there are at least 4
+	 * connections and "largePacketSize" is set
+	 * </ul>
+	 * In "roundRobin" mode the requests and responses are distributed among
+	 * all connections except the event connection.
+	 * 
+	 * @param packet
+	 *            packet to send (6. byte is the packet type)
+	 * 
+	 * @return connection index
+	 */
+	protected int selectConnection(byte[] packet) {
+		if (connectionsPerNode == 1) {
+			return 0;
+		}
+		int type = packet[5] & 0x3F;
+		if (type == 1) { // EVENT
+			return 1;
+		}
+		if (connectionsPerNode == 2) {
+			return 0;
+		}
+
+		// Dedicated connection of the large packets
+		boolean large = largePacketSize > 0 && packet.length > largePacketSize;
+		int end = connectionsPerNode;
+		if (largePacketSize > 0 && connectionsPerNode > 3) {
+			end--;
+			if (large) {
+				return end;
+			}
+		}
+
+		// Request connections (from index 2 to "end")
+		int slots = end - 2;
+		if (selectByClass) {
+			if (type == 2 || large) { // REQUEST
+				return slots == 1 ? 2 : 2 + (counter.incrementAndGet() & 0x7fffffff) % slots;
+			}
+			return 0; // RESPONSE, PING, PONG, GOSSIP
+		}
+		int index = (counter.incrementAndGet() & 0x7fffffff) % (slots + 1);
+		return index == 0 ? 0 : index + 1;
+	}
+
+	// --- LIMITS OF OUTGOING QUEUES ---
+
+	/**
+	 * Checks the outgoing queue of the specified node.
+	 * 
+	 * @param nodeID
+	 *            target node ID
+	 * @param size
+	 *            size of the next packet
+	 * 
+	 * @return true, if the queue is full
+	 */
+	public boolean isFull(String nodeID, int size) {
+		if (maxQueuedBytes < 1 && maxQueuedPackets < 1) {
+			return false;
+		}
+		if (connectionsPerNode == 1) {
+			SendBuffer buffer = getBuffer(nodeID);
+			return buffer != null && buffer.isFull(size, maxQueuedBytes, maxQueuedPackets);
+		}
+		return SendBuffer.isFull(getQueuedPackets(nodeID), getQueuedBytes(nodeID), size, maxQueuedBytes,
+				maxQueuedPackets);
+	}
+
+	/**
+	 * Waits for free space in the outgoing queue of the specified node.
+	 * 
+	 * @param nodeID
+	 *            target node ID
+	 * @param size
+	 *            size of the next packet
+	 * @param timeoutMillis
+	 *            max. waiting time in milliseconds
+	 * 
+	 * @return true, if the queue has free space
+	 */
+	public boolean waitForSpace(String nodeID, int size, long timeoutMillis) {
+		if (!isFull(nodeID, size)) {
+			return true;
+		}
+		long timeoutAt = System.currentTimeMillis() + timeoutMillis;
+		waitingSenders.incrementAndGet();
+		try {
+			synchronized (drained) {
+				while (isFull(nodeID, size)) {
+					long delay = timeoutAt - System.currentTimeMillis();
+					if (delay <= 0) {
+						return false;
+					}
+					drained.wait(delay);
+				}
+			}
+		} catch (InterruptedException interrupt) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			waitingSenders.decrementAndGet();
+		}
+		return true;
+	}
+
+	/**
+	 * Wakes up the senders waiting for free space (called by the writer thread
+	 * after writing or closing buffers).
+	 */
+	protected void signalDrained() {
+		if (waitingSenders.get() > 0) {
+			synchronized (drained) {
+				drained.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Returns the (first) outgoing buffer of the specified node.
+	 * 
+	 * @param nodeID
+	 *            target node ID
+	 * 
+	 * @return buffer (or null)
+	 */
+	public SendBuffer getBuffer(String nodeID) {
+		synchronized (buffers) {
+			return buffers.get(nodeID);
+		}
+	}
+
+	/**
+	 * Returns the number of queued packets of all connections of a node.
+	 * 
+	 * @param nodeID
+	 *            target node ID
+	 * 
+	 * @return number of packets
+	 */
+	public int getQueuedPackets(String nodeID) {
+		int packets = 0;
 		SendBuffer buffer;
 		synchronized (buffers) {
-			buffer = buffers.remove(nodeID);
+			for (int i = 0; i < connectionsPerNode; i++) {
+				buffer = buffers.get(bufferID(nodeID, i));
+				if (buffer != null) {
+					packets += buffer.getQueuedPackets();
+				}
+			}
 		}
-		if (buffer != null) {
-			buffer.close();
+		return packets;
+	}
+
+	/**
+	 * Returns the number of queued bytes of all connections of a node.
+	 * 
+	 * @param nodeID
+	 *            target node ID
+	 * 
+	 * @return number of bytes
+	 */
+	public long getQueuedBytes(String nodeID) {
+		long bytes = 0;
+		SendBuffer buffer;
+		synchronized (buffers) {
+			for (int i = 0; i < connectionsPerNode; i++) {
+				buffer = buffers.get(bufferID(nodeID, i));
+				if (buffer != null) {
+					bytes += buffer.getQueuedBytes();
+				}
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the depth of the outgoing queues (number of packets and bytes)
+	 * per nodes.
+	 * 
+	 * @return queue depths (eg. [{ "nodeID": "node2", "packets": 2, "bytes":
+	 *         512 }])
+	 */
+	public Tree getQueueStatistics() {
+		Tree stats = new Tree().putList("queues");
+		synchronized (buffers) {
+			for (SendBuffer buffer : buffers.values()) {
+				Tree node = stats.addMap();
+				node.put("nodeID", buffer.nodeID);
+				if (connectionsPerNode > 1) {
+					node.put("connection", buffer.bufferID.equals(buffer.nodeID) ? 0
+							: Integer.parseInt(buffer.bufferID.substring(buffer.nodeID.length() + 1)));
+				}
+				node.put("packets", buffer.getQueuedPackets());
+				node.put("bytes", buffer.getQueuedBytes());
+			}
 		}
+		return stats;
 	}
 
 	// --- WRITE TO SOCKET ---
@@ -183,12 +444,13 @@ public class TcpWriter implements Runnable {
 			return;
 		}
 		SendBuffer buffer = null;
+		String bufferID = bufferID(nodeID, selectConnection(packet));
 		try {
 
 			// Get or create buffer
 			boolean newBuffer = false;
 			synchronized (buffers) {
-				buffer = buffers.get(nodeID);
+				buffer = buffers.get(bufferID);
 				if (buffer == null) {
 
 					// Create new connection
@@ -197,9 +459,9 @@ public class TcpWriter implements Runnable {
 						logger.warn("Unknown node ID (" + nodeID + ")!");
 						return;
 					}
-					buffer = new SendBuffer(nodeID, address.host, address.port, debug);
+					buffer = new SendBuffer(bufferID, nodeID, address.host, address.port, debug);
 					append(nodeID, buffer, packet);
-					buffers.put(nodeID, buffer);
+					buffers.put(bufferID, buffer);
 					newBuffer = true;
 				} else {
 
@@ -208,9 +470,9 @@ public class TcpWriter implements Runnable {
 
 						// Buffer is closed
 						RemoteAddress address = transporter.getAddress(nodeID);
-						buffer = new SendBuffer(nodeID, address.host, address.port, debug);
+						buffer = new SendBuffer(bufferID, nodeID, address.host, address.port, debug);
 						append(nodeID, buffer, packet);
-						buffers.put(nodeID, buffer);
+						buffers.put(bufferID, buffer);
 						newBuffer = true;
 					}
 				}
@@ -238,7 +500,7 @@ public class TcpWriter implements Runnable {
 
 		} catch (Throwable cause) {
 			synchronized (buffers) {
-				buffers.remove(nodeID);
+				buffers.remove(bufferID);
 			}
 			LinkedList<byte[]> packets;
 			if (buffer != null) {
@@ -328,7 +590,7 @@ public class TcpWriter implements Runnable {
 					} catch (Throwable cause) {
 						if (buffer != null) {
 							synchronized (buffers) {
-								buffers.remove(buffer.nodeID);
+								buffers.remove(buffer.bufferID);
 							}
 							transporter.unableToSend(buffer.nodeID, buffer.getUnsentPackets(), cause);
 						}
@@ -361,12 +623,13 @@ public class TcpWriter implements Runnable {
 						} catch (Exception cause) {
 							if (buffer != null) {
 								synchronized (buffers) {
-									buffers.remove(buffer.nodeID);
+									buffers.remove(buffer.bufferID);
 								}
 								transporter.unableToSend(buffer.nodeID, buffer.getUnsentPackets(), cause);
 							}
 							close(key, cause);
 						}
+						signalDrained();
 					}
 					keys.remove();
 				}
@@ -0,0 +1,155 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.uid;
+
+import static services.moleculer.util.CommonUtils.getHostName;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import services.moleculer.ServiceBroker;
+import services.moleculer.service.Name;
+
+/**
+ * Fast, time-ordered 128-bit {@link UidGenerator}. The first 64 bits are a
+ * random node prefix, the last 64 bits are a sequence number (initialized from
+ * the current time). The UIDs have a compact numeric form (the sequence
+ * number, unique per node, see {@link #nextNumericUID()}) for the internal
+ * maps, and they are rendered as 32-character hex strings (without
+ * StringBuilder and number formatting) only when needed.
+ *
+ * @see IncrementalUidGenerator
+ * @see StandardUidGenerator
+ */
+@Name("Compact UID Generator")
+public class CompactUidGenerator extends UidGenerator {
+
+	// --- CONSTANTS ---
+
+	protected static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	// --- NODE PREFIX (FIRST 16 HEX CHARACTERS) ---
+
+	protected char[] prefix = createPrefix(getHostName());
+
+	// --- TIME-ORDERED SEQUENCE ---
+
+	protected final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() << 20);
+
+	// --- START GENERATOR ---
+
+	/**
+	 * Initializes UID generator instance.
+	 *
+	 * @param broker
+	 *            parent ServiceBroker
+	 */
+	@Override
+	public void started(ServiceBroker broker) throws Exception {
+		super.started(broker);
+		prefix = createPrefix(broker.getNodeID());
+	}
+
+	protected static char[] createPrefix(String nodeID) {
+		long bits = new Random(System.nanoTime() ^ nodeID.hashCode()).nextLong() ^ ((long) nodeID.hashCode() << 32);
+		char[] chars = new char[16];
+		for (int i = 15; i >= 0; i--) {
+			chars[i] = HEX[(int) (bits & 0xF)];
+			bits >>>= 4;
+		}
+		return chars;
+	}
+
+	// --- GENERATE UID ---
+
+	@Override
+	public String nextUID() {
+		return toUID(nextNumericUID());
+	}
+
+	/**
+	 * Generates a new UID in numeric form (without String allocation).
+	 *
+	 * @return positive sequence number (unique on this node)
+	 */
+	public long nextNumericUID() {
+		return sequence.incrementAndGet();
+	}
+
+	/**
+	 * Converts a numeric UID to String.
+	 *
+	 * @param uid
+	 *            numeric UID
+	 * 
+	 * @return UID in String form
+	 */
+	public String toUID(long uid) {
+		char[] chars = new char[32];
+		System.arraycopy(prefix, 0, chars, 0, 16);
+		for (int i = 31; i >= 16; i--) {
+			chars[i] = HEX[(int) (uid & 0xF)];
+			uid >>>= 4;
+		}
+		return new String(chars);
+	}
+
+	// --- NUMERIC FORM ---
+
+	@Override
+	public boolean isNumeric() {
+		return true;
+	}
+
+	@Override
+	public long toNumericUID(String uid) {
+		if (uid == null || uid.length() != 32) {
+			return -1;
+		}
+		char[] p = prefix;
+		for (int i = 0; i < 16; i++) {
+			if (uid.charAt(i) != p[i]) {
+				return -1;
+			}
+		}
+		long value = 0;
+		int digit;
+		char c;
+		for (int i = 16; i < 32; i++) {
+			c = uid.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digit = c - '0';
+			} else if (c >= 'a' && c <= 'f') {
+				digit = c - 'a' + 10;
+			} else {
+				return -1;
+			}
+			value = (value << 4) | digit;
+		}
+		return value < 0 ? -1 : value;
+	}
+
+}
\ No newline at end of file
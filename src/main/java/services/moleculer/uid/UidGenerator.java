@@ -33,6 +33,7 @@ import services.moleculer.service.Name;
  *
  * @see IncrementalUidGenerator
  * @see StandardUidGenerator
+ * @see CompactUidGenerator
  */
 @Name("UID Generator")
 public abstract class UidGenerator extends MoleculerComponent {
@@ -41,4 +42,28 @@ public abstract class UidGenerator extends MoleculerComponent {
 
 	public abstract String nextUID();
 
+	// --- NUMERIC FORM ---
+
+	/**
+	 * Does this generator support the compact numeric form of the UIDs?
+	 *
+	 * @return true = {@link #toNumericUID(String)} is supported
+	 */
+	public boolean isNumeric() {
+		return false;
+	}
+
+	/**
+	 * Converts a UID (generated by this generator) to numeric form.
+	 *
+	 * @param uid
+	 *            UID in String form
+	 * 
+	 * @return non-negative numeric UID, or -1 if the UID was not generated by
+	 *         this generator
+	 */
+	public long toNumericUID(String uid) {
+		return -1;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.util;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rejection handler of the event thread pools. When the queue of the pool is
+ * full, the task is dropped (and counted), so the submitter thread (eg. the
+ * Transporter's reader thread) is never blocked by the rejected task. The
+ * number of dropped tasks is reported by the "$node.executors" action.
+ *
+ * @see ExecutorUtils#newEventThreadPool(String, int, int)
+ */
+public class CountingDiscardPolicy implements RejectedExecutionHandler {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(CountingDiscardPolicy.class);
+
+	// --- NAME OF THE POOL ---
+
+	protected final String name;
+
+	// --- COUNTER OF DROPPED TASKS ---
+
+	protected final AtomicLong dropped = new AtomicLong();
+
+	// --- CONSTRUCTOR ---
+
+	public CountingDiscardPolicy(String name) {
+		this.name = name;
+	}
+
+	// --- DROP TASK ---
+
+	@Override
+	public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+		long count = dropped.incrementAndGet();
+		if (count == 1 || count % 10000 == 0) {
+			logger.warn("The queue of the \"" + name + "\" executor is full, " + count + " task(s) dropped.");
+		}
+	}
+
+	// --- GETTERS ---
+
+	public long getDropped() {
+		return dropped.get();
+	}
+
+}
\ No newline at end of file
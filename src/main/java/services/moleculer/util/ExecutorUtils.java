@@ -0,0 +1,239 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.datatree.Tree;
+
+/**
+ * Thread pool utilities.
+ */
+public final class ExecutorUtils {
+
+	// --- VIRTUAL THREADS ---
+
+	/**
+	 * Creates an ExecutorService that starts a new virtual thread for each
+	 * task. Virtual threads are supported from Java 21.
+	 * 
+	 * @return virtual thread executor, or null if the JVM does not support
+	 *         virtual threads
+	 */
+	public static final ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor", new Class[0]);
+			return (ExecutorService) m.invoke(null, new Object[0]);
+		} catch (Throwable notSupported) {
+			return null;
+		}
+	}
+
+	private static final Method IS_VIRTUAL = findIsVirtual();
+
+	private static final Method findIsVirtual() {
+		try {
+			return Thread.class.getMethod("isVirtual", new Class[0]);
+		} catch (Throwable notSupported) {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks that the current thread is a virtual thread.
+	 * 
+	 * @return true, if the current thread is virtual (false on JVMs older than
+	 *         Java 21)
+	 */
+	public static final boolean isVirtualThread() {
+		if (IS_VIRTUAL == null) {
+			return false;
+		}
+		try {
+			return (Boolean) IS_VIRTUAL.invoke(Thread.currentThread(), new Object[0]);
+		} catch (Throwable notSupported) {
+			return false;
+		}
+	}
+
+	// --- BOUNDED PLATFORM THREAD POOL ---
+
+	/**
+	 * Creates a thread pool with a fixed number of (daemon) threads and a
+	 * bounded queue. When the queue is full, the task is executed by the
+	 * submitter thread, so no task is lost (it can be used as request,
+	 * response or I/O executor).
+	 * 
+	 * @param name
+	 *            prefix of the thread names (eg. "moleculer-request")
+	 * @param threads
+	 *            number of threads
+	 * @param queueSize
+	 *            max. number of waiting tasks
+	 * 
+	 * @return new thread pool
+	 */
+	public static final ThreadPoolExecutor newBoundedThreadPool(String name, int threads, int queueSize) {
+		return newBoundedThreadPool(name, threads, queueSize, true);
+	}
+
+	/**
+	 * Creates a thread pool with a fixed number of (daemon) threads and a
+	 * bounded queue.
+	 * 
+	 * @param name
+	 *            prefix of the thread names (eg. "moleculer-io")
+	 * @param threads
+	 *            number of threads
+	 * @param queueSize
+	 *            max. number of waiting tasks
+	 * @param callerRuns
+	 *            true = when the queue is full, the task is executed by the
+	 *            submitter thread (which slows down the producer), false = the
+	 *            task is rejected with a RejectedExecutionException (the
+	 *            Transporter sends back a QueueIsFullError for the rejected
+	 *            requests)
+	 * 
+	 * @return new thread pool
+	 */
+	public static final ThreadPoolExecutor newBoundedThreadPool(String name, int threads, int queueSize,
+			boolean callerRuns) {
+		RejectedExecutionHandler handler;
+		if (callerRuns) {
+			handler = new ThreadPoolExecutor.CallerRunsPolicy();
+		} else {
+			handler = new ThreadPoolExecutor.AbortPolicy();
+		}
+		return newBoundedThreadPool(name, threads, queueSize, handler);
+	}
+
+	/**
+	 * Creates a thread pool for the incoming events, with a fixed number of
+	 * (daemon) threads and a bounded queue. When the queue is full, the event
+	 * is dropped (and counted by a {@link CountingDiscardPolicy}), so an event
+	 * flood never blocks the submitter (eg. the Transporter's reader) thread.
+	 * Do not use it for requests or responses (the dropped tasks are not
+	 * answered).
+	 * 
+	 * @param name
+	 *            prefix of the thread names (eg. "moleculer-event")
+	 * @param threads
+	 *            number of threads
+	 * @param queueSize
+	 *            max. number of waiting events
+	 * 
+	 * @return new thread pool
+	 */
+	public static final ThreadPoolExecutor newEventThreadPool(String name, int threads, int queueSize) {
+		return newBoundedThreadPool(name, threads, queueSize, new CountingDiscardPolicy(name));
+	}
+
+	private static final ThreadPoolExecutor newBoundedThreadPool(String name, int threads, int queueSize,
+			RejectedExecutionHandler handler) {
+		AtomicInteger counter = new AtomicInteger();
+		int size = Math.max(1, threads);
+		return new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueSize)), (runnable) -> {
+					Thread thread = new Thread(runnable, name + '-' + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, handler);
+	}
+
+	// --- QUEUE DEPTH ---
+
+	/**
+	 * Returns the number of waiting tasks of the specified executor.
+	 * 
+	 * @param executor
+	 *            ThreadPoolExecutor or ForkJoinPool
+	 * 
+	 * @return number of queued tasks, or -1 if it is unknown (eg. virtual
+	 *         thread executor)
+	 */
+	public static final long getQueueSize(ExecutorService executor) {
+		if (executor instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor) executor).getQueue().size();
+		}
+		if (executor instanceof ForkJoinPool) {
+			ForkJoinPool pool = (ForkJoinPool) executor;
+			return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+		}
+		if (executor instanceof PartitionedExecutor) {
+			return ((PartitionedExecutor) executor).getQueueSize();
+		}
+		return -1;
+	}
+
+	// --- STATISTICS ---
+
+	/**
+	 * Collects the statistics (queue depth, number of active threads, etc.) of
+	 * the specified executor.
+	 * 
+	 * @param executor
+	 *            executor
+	 * 
+	 * @return statistics
+	 */
+	public static final Tree getStatistics(ExecutorService executor) {
+		Tree stats = new Tree();
+		stats.put("type", executor.getClass().getSimpleName());
+		stats.put("queueSize", getQueueSize(executor));
+		if (executor instanceof ThreadPoolExecutor) {
+			ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+			stats.put("queueCapacity", pool.getQueue().size() + pool.getQueue().remainingCapacity());
+			stats.put("poolSize", pool.getPoolSize());
+			stats.put("maxPoolSize", pool.getMaximumPoolSize());
+			stats.put("activeCount", pool.getActiveCount());
+			stats.put("completedTasks", pool.getCompletedTaskCount());
+			RejectedExecutionHandler handler = pool.getRejectedExecutionHandler();
+			if (handler instanceof CountingDiscardPolicy) {
+				stats.put("droppedTasks", ((CountingDiscardPolicy) handler).getDropped());
+			}
+		} else if (executor instanceof ForkJoinPool) {
+			ForkJoinPool pool = (ForkJoinPool) executor;
+			stats.put("poolSize", pool.getPoolSize());
+			stats.put("maxPoolSize", pool.getParallelism());
+			stats.put("activeCount", pool.getActiveThreadCount());
+			stats.put("stealCount", pool.getStealCount());
+		} else if (executor instanceof PartitionedExecutor) {
+			PartitionedExecutor partitioned = (PartitionedExecutor) executor;
+			stats.put("lanes", partitioned.getLanes());
+			stats.put("droppedTasks", partitioned.getDropped());
+		}
+		return stats;
+	}
+
+}
\ No newline at end of file
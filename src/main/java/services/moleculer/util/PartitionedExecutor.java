@@ -0,0 +1,298 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.util;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.datatree.Tree;
+
+/**
+ * Executor with N single-threaded "lanes". Tasks with the same partition key
+ * (by default the sender's nodeID and the event name, or a value from the
+ * event's payload) are always executed by the same lane, so the events of a
+ * partition are processed in order, while different partitions are processed
+ * in parallel. Use it as event executor:<br>
+ *
+ * <pre>
+ * ServiceBroker broker = ServiceBroker.builder().eventExecutor(new PartitionedExecutor(8)).build();
+ * </pre>
+ *
+ * When the queue of a lane is full, the submitter thread (eg. the
+ * Transporter's reader thread) waits for free space (instead of executing the
+ * task itself), so the order of the events is preserved. The wait is limited
+ * by the "maxWait" property, when it expires, the event is dropped (and
+ * counted, see the "droppedTasks" of the "$node.executors" action).
+ */
+public class PartitionedExecutor extends AbstractExecutorService {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(PartitionedExecutor.class);
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Path of the partition key in the event's payload (eg. "orderId", null =
+	 * partition by sender and event name)
+	 */
+	protected String keyPath;
+
+	/**
+	 * Max time to wait for free space in a full lane, in milliseconds (the
+	 * submitter thread is blocked during this time, then the event is dropped)
+	 */
+	protected volatile long maxWait = 1000;
+
+	// --- LANES ---
+
+	protected final ThreadPoolExecutor[] lanes;
+
+	// --- COUNTER OF DROPPED TASKS ---
+
+	protected final CountingDiscardPolicy dropPolicy = new CountingDiscardPolicy("moleculer-lane");
+
+	// --- COUNTER FOR TASKS WITHOUT PARTITION KEY ---
+
+	protected final AtomicInteger counter = new AtomicInteger();
+
+	// --- CONSTRUCTORS ---
+
+	public PartitionedExecutor() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public PartitionedExecutor(int lanes) {
+		this(lanes, 10000, null);
+	}
+
+	public PartitionedExecutor(int lanes, int queueSize, String keyPath) {
+		this.keyPath = keyPath;
+		this.lanes = new ThreadPoolExecutor[Math.max(1, lanes)];
+		for (int i = 0; i < this.lanes.length; i++) {
+			String name = "moleculer-lane-" + i;
+			this.lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(Math.max(1, queueSize)), (runnable) -> {
+						Thread thread = new LaneThread(this, runnable, name);
+						thread.setDaemon(true);
+						return thread;
+					}, (runnable, executor) -> {
+
+						// Wait for free space (keep the order)
+						if (executor.isShutdown()) {
+							throw new RejectedExecutionException("Executor is shutting down!");
+						}
+						try {
+							if (!executor.getQueue().offer(runnable, maxWait, TimeUnit.MILLISECONDS)) {
+								dropPolicy.rejectedExecution(runnable, executor);
+							}
+						} catch (InterruptedException interrupt) {
+							Thread.currentThread().interrupt();
+							throw new RejectedExecutionException(interrupt);
+						}
+					});
+		}
+	}
+
+	// --- EXECUTE EVENT IN PARTITION ---
+
+	/**
+	 * Executes an incoming event packet (with "sender", "event" and "data"
+	 * properties) in its partition.
+	 * 
+	 * @param message
+	 *            event packet
+	 * @param task
+	 *            task to execute
+	 */
+	public void execute(Tree message, Runnable task) {
+		execute(message.get("sender", ""), message.get("event", ""), message.get("data"), task);
+	}
+
+	/**
+	 * Executes an event in its partition.
+	 * 
+	 * @param sender
+	 *            sender's nodeID
+	 * @param name
+	 *            event name
+	 * @param payload
+	 *            event's payload (used when the "keyPath" is set)
+	 * @param task
+	 *            task to execute
+	 */
+	public void execute(String sender, String name, Tree payload, Runnable task) {
+		int hash;
+		Tree key = keyPath == null || payload == null ? null : payload.get(keyPath);
+		if (key == null || key.isNull()) {
+			hash = 31 * String.valueOf(sender).hashCode() + String.valueOf(name).hashCode();
+		} else {
+			hash = key.asString().hashCode();
+		}
+		execute(hash, task);
+	}
+
+	/**
+	 * Executes a task in the lane of the specified partition. If the current
+	 * thread is a lane of this executor, the task is executed directly (so
+	 * the nested invocations keep the order).
+	 * 
+	 * @param hash
+	 *            hash of the partition key
+	 * @param task
+	 *            task to execute
+	 */
+	public void execute(int hash, Runnable task) {
+		Thread current = Thread.currentThread();
+		if (current instanceof LaneThread && ((LaneThread) current).owner == this) {
+			task.run();
+			return;
+		}
+		hash ^= (hash >>> 16);
+		lanes[(hash & 0x7fffffff) % lanes.length].execute(() -> {
+			try {
+				task.run();
+			} catch (Throwable cause) {
+				logger.warn("Unable to process event!", cause);
+			}
+		});
+	}
+
+	// --- EXECUTE TASK WITHOUT PARTITION KEY ---
+
+	@Override
+	public void execute(Runnable command) {
+		execute(counter.incrementAndGet(), command);
+	}
+
+	// --- QUEUE DEPTH ---
+
+	public long getQueueSize() {
+		long size = 0;
+		for (ThreadPoolExecutor lane : lanes) {
+			size += lane.getQueue().size();
+		}
+		return size;
+	}
+
+	public int getLanes() {
+		return lanes.length;
+	}
+
+	public long getDropped() {
+		return dropPolicy.getDropped();
+	}
+
+	// --- SHUTDOWN ---
+
+	@Override
+	public void shutdown() {
+		for (ThreadPoolExecutor lane : lanes) {
+			lane.shutdown();
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		LinkedList<Runnable> list = new LinkedList<>();
+		for (ThreadPoolExecutor lane : lanes) {
+			list.addAll(lane.shutdownNow());
+		}
+		return list;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		for (ThreadPoolExecutor lane : lanes) {
+			if (!lane.isShutdown()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		for (ThreadPoolExecutor lane : lanes) {
+			if (!lane.isTerminated()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (ThreadPoolExecutor lane : lanes) {
+			if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// --- LANE THREAD ---
+
+	protected static class LaneThread extends Thread {
+
+		protected final PartitionedExecutor owner;
+
+		protected LaneThread(PartitionedExecutor owner, Runnable runnable, String name) {
+			super(runnable, name);
+			this.owner = owner;
+		}
+
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public String getKeyPath() {
+		return keyPath;
+	}
+
+	public void setKeyPath(String keyPath) {
+		this.keyPath = keyPath;
+	}
+
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+}
\ No newline at end of file
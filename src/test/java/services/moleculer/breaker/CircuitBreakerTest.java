@@ -286,6 +286,40 @@ public class CircuitBreakerTest extends TestCase {
 		}
 	}
 
+	@Test
+	public void testHedgedErrors() throws Exception {
+		Promise p = br.call("test.test", (Tree) null, CallOptions.hedgeDelay(50));
+		Thread.sleep(300);
+		assertEquals(2, tr.getMessageCount());
+		Tree first = tr.getMessages().get(0).clone();
+		Tree hedged = tr.getMessages().get(1).clone();
+		tr.clearMessages();
+
+		// The hedged attempt fails -> counted by its endpoint
+		String hedgedNodeID = sendResponse(hedged, false);
+		ErrorCounter ec = cb.errorCounters.get(new EndpointKey(hedgedNodeID, "test.test"));
+		assertNotNull(ec);
+
+		// The first attempt succeeds
+		String firstNodeID = sendResponse(first, true);
+		assertFalse(firstNodeID.equals(hedgedNodeID));
+		p.waitFor();
+		assertNull(cb.errorCounters.get(new EndpointKey(firstNodeID, "test.test")));
+	}
+
+	protected String sendResponse(Tree msg, boolean success) throws Exception {
+		String channel = msg.get("channel", "");
+		String nodeID = channel.substring(channel.lastIndexOf('.') + 1);
+		Tree rsp = new Tree();
+		rsp.put("ver", "3");
+		rsp.put("sender", nodeID);
+		rsp.put("id", msg.get("id", ""));
+		rsp.put("success", success);
+		rsp.put("data", (String) null);
+		tr.received("MOL.RES.local", rsp);
+		return nodeID;
+	}
+
 	@Test
 	public void testRetryWithError() throws Exception {
 		for (int i = 0; i < 10; i++) {
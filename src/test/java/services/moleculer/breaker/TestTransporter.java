@@ -37,6 +37,9 @@ public class TestTransporter extends Transporter {
 	protected Tree list;
 
 	protected final HashMap<String, Integer> cpu = new HashMap<>();
+	protected final HashMap<String, Tree> descriptors = new HashMap<>();
+	protected final HashMap<String, Integer> weights = new HashMap<>();
+	protected final HashMap<String, String> zones = new HashMap<>();
 
 	public TestTransporter() {
 		list = messages.putList("list");
@@ -110,4 +113,44 @@ public class TestTransporter extends Transporter {
 		cpu.clear();
 	}
 
+	@Override
+	public Tree getDescriptor(String nodeID) {
+		Tree descriptor = descriptors.get(nodeID);
+		if (descriptor == null) {
+			return super.getDescriptor(nodeID);
+		}
+		return descriptor;
+	}
+
+	public void setDescriptor(String nodeID, Tree descriptor) {
+		descriptors.put(nodeID, descriptor);
+	}
+
+	@Override
+	public int getWeight(String nodeID) {
+		Integer weight = weights.get(nodeID);
+		if (weight == null) {
+			return super.getWeight(nodeID);
+		}
+		return weight.intValue();
+	}
+
+	public void setWeight(String nodeID, int weight) {
+		weights.put(nodeID, weight);
+		weightChanged();
+	}
+
+	@Override
+	public String getZone(String nodeID) {
+		String zone = zones.get(nodeID);
+		if (zone == null) {
+			return super.getZone(nodeID);
+		}
+		return zone;
+	}
+
+	public void setZone(String nodeID, String zone) {
+		zones.put(nodeID, zone);
+	}
+
 }
\ No newline at end of file
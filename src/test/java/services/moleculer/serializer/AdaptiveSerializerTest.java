@@ -0,0 +1,149 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+
+public class AdaptiveSerializerTest extends SerializerTest {
+
+	@Override
+	protected Serializer createSerializer() {
+		AdaptiveSerializer s = new AdaptiveSerializer();
+		s.setBenchmarkTime(60);
+		return s;
+	}
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testNegotiation() throws Exception {
+		AdaptiveSerializer s = (AdaptiveSerializer) serializer;
+
+		// JSON only until the end of the measurement
+		assertEquals(1, s.getRanking().length);
+		assertEquals("json", s.getRanking()[0]);
+		Tree all = new Tree().putList("serializers");
+		for (String format : AdaptiveSerializer.FORMATS) {
+			all.add(format);
+		}
+		s.setPeerRanking("node2", all);
+		assertEquals("json", s.getFormat("node2"));
+		s.removePeer("node2");
+
+		String[] ranking = s.benchmark();
+		assertTrue(ranking.length > 0);
+		assertTrue(Arrays.asList(ranking).contains("json"));
+		assertTrue(ranking == s.getRanking());
+
+		// JSON until the peers advertise their rankings
+		assertEquals("json", s.getFormat());
+		assertEquals("json", s.getFormat("node2"));
+		assertEquals(1, s.write(new Tree())[0]);
+
+		// Peer with the same ranking
+		Tree list = new Tree().putList("serializers");
+		for (String format : ranking) {
+			list.add(format);
+		}
+		s.setPeerRanking("node2", list);
+		assertEquals(ranking[0], s.getFormat("node2"));
+		assertEquals(ranking[0], s.getFormat());
+
+		// Peer with JSON support only
+		s.setPeerRanking("node3", new Tree().putList("serializers").add("json"));
+		assertEquals("json", s.getFormat("node3"));
+		assertEquals(ranking[0], s.getFormat("node2"));
+		assertEquals("json", s.getFormat());
+
+		Tree msg = new Tree().put("a", 1).put("b", "c");
+		byte[] bytes = s.write(msg, "node3");
+		assertEquals(1, bytes[0]);
+		assertEquals(1, s.read(bytes).get("a", 0));
+
+		// Disconnected peers
+		s.removePeer("node3");
+		assertEquals(ranking[0], s.getFormat());
+		s.removePeer("node2");
+		assertEquals("json", s.getFormat());
+		assertEquals("json", s.getFormat("node2"));
+
+		// Invalid format ID
+		bytes[0] = 99;
+		try {
+			s.read(bytes);
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	@Test
+	public void testRenegotiation() throws Exception {
+		AdaptiveSerializer s = new AdaptiveSerializer();
+		s.setBenchmarkTime(10);
+		Tree all = new Tree().putList("serializers");
+		for (String format : AdaptiveSerializer.FORMATS) {
+			all.add(format);
+		}
+		s.setPeerRanking("node2", all);
+		assertEquals("json", s.getFormat("node2"));
+
+		// Measured in the background, then renegotiated
+		AtomicReference<Thread> finished = new AtomicReference<>();
+		s.startBenchmark(() -> {
+			finished.set(Thread.currentThread());
+		});
+		long timeout = System.currentTimeMillis() + 5000;
+		while (finished.get() == null && System.currentTimeMillis() < timeout) {
+			Thread.sleep(20);
+		}
+		assertNotNull(finished.get());
+		assertFalse(finished.get() == Thread.currentThread());
+
+		// Same format as a newly negotiated peer
+		s.setPeerRanking("node3", all);
+		assertEquals(s.getFormat("node3"), s.getFormat("node2"));
+	}
+
+	@Test
+	public void testFormats() throws Exception {
+		AdaptiveSerializer s = new AdaptiveSerializer();
+		s.setFormats(new String[] { "JSON" });
+		s.setBenchmarkTime(10);
+		assertEquals(1, s.benchmark().length);
+		assertEquals("json", s.getFormat());
+		try {
+			s.setFormats(new String[] { "xml" });
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.datatree.Tree;
+
+/**
+ * JMH throughput benchmark of the {@link SchemaSerializer}, compared to the
+ * {@link JsonSerializer} and {@link MsgPackSerializer}. The sizes of the
+ * serialized request and response packets are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SchemaSerializerBenchmark {
+
+	// --- PARAMETERS ---
+
+	@Param({ "json", "msgpack", "schema" })
+	public String format;
+
+	// --- COMPONENTS ---
+
+	protected Serializer serializer;
+	protected MessageSchema responseSchema;
+
+	// --- PACKETS ---
+
+	protected Tree request;
+	protected Tree response;
+
+	protected byte[] requestBytes;
+	protected byte[] responseBytes;
+
+	// --- INIT ---
+
+	@Setup
+	public void setup() throws Exception {
+		switch (format) {
+		case "json":
+			serializer = new JsonSerializer();
+			break;
+		case "msgpack":
+			serializer = new MsgPackSerializer();
+			break;
+		default:
+			SchemaSerializer schemaSerializer = new SchemaSerializer();
+			schemaSerializer.getRegistry().register("user.list",
+					"offset:int, limit:int, query:string, fields:string[], active:boolean",
+					"total:long, rows:{id:long, name:string, email:string, score:double, active:boolean}[]");
+			responseSchema = schemaSerializer.getRegistry().getResponse("user.list");
+			serializer = schemaSerializer;
+		}
+
+		request = new Tree();
+		request.put("ver", "4");
+		request.put("sender", "node-1");
+		request.put("id", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		request.put("action", "user.list");
+		Tree params = request.putMap("params");
+		params.put("offset", 100);
+		params.put("limit", 10);
+		params.put("query", "John");
+		params.putList("fields").add("id").add("name").add("email").add("score");
+		params.put("active", true);
+		request.put("timeout", 5000);
+		request.put("level", 1);
+		request.put("requestID", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+
+		response = new Tree();
+		response.put("ver", "4");
+		response.put("sender", "node-2");
+		response.put("id", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		response.put("success", true);
+		Tree data = response.putMap("data");
+		data.put("total", 12345L);
+		Tree rows = data.putList("rows");
+		for (int i = 0; i < 10; i++) {
+			Tree row = rows.addMap();
+			row.put("id", 1000L + i);
+			row.put("name", "John Doe " + i);
+			row.put("email", "john.doe" + i + "@example.com");
+			row.put("score", i * 1.25d);
+			row.put("active", i % 2 == 0);
+		}
+
+		requestBytes = serializer.write(request);
+		responseBytes = writeResponse();
+		System.out.println(format + " request: " + requestBytes.length + " bytes, response: " + responseBytes.length
+				+ " bytes");
+	}
+
+	// --- BENCHMARKS ---
+
+	@Benchmark
+	public byte[] writeRequest() throws Exception {
+		return serializer.write(request);
+	}
+
+	@Benchmark
+	public Tree readRequest() throws Exception {
+		return serializer.read(requestBytes);
+	}
+
+	@Benchmark
+	public byte[] writeResponse() throws Exception {
+		if (responseSchema == null) {
+			return serializer.write(response);
+		}
+
+		// Skip the request ID -> response schema lookup
+		@SuppressWarnings("unchecked")
+		Map<String, Object> map = (Map<String, Object>) response.asObject();
+		return ((SchemaSerializer) serializer).write(responseSchema, map);
+	}
+
+	@Benchmark
+	public Tree readResponse() throws Exception {
+		return serializer.read(responseBytes);
+	}
+
+	// --- RUN BENCHMARK ---
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(SchemaSerializerBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
\ No newline at end of file
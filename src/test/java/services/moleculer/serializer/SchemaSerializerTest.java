@@ -0,0 +1,185 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+
+public class SchemaSerializerTest extends SerializerTest {
+
+	@Override
+	protected Serializer createSerializer() {
+		return new SchemaSerializer();
+	}
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testSchemaParser() throws Exception {
+		assertEquals("{a:int,b:string[]}", new MessageSchema("x", "params", " a : int , b:string [] ").definition);
+		assertEquals("int", new MessageSchema("x", "data", "int").definition);
+		assertEquals("{p:{x:double,y:double}[],f:boolean}",
+				new MessageSchema("x", "params", "p:{x:double, y:double}[], f:boolean").definition);
+		assertEquals("{a:long}[]", new MessageSchema("x", "params", "{a:long}[]").definition);
+
+		// Same definition, same ID
+		assertEquals(new MessageSchema("x", "params", "a:int,b:int").id,
+				new MessageSchema("x", "params", "{ a:int, b:int }").id);
+		assertFalse(new MessageSchema("x", "params", "a:int").id == new MessageSchema("y", "params", "a:int").id);
+
+		// Invalid definitions
+		String[] invalids = { "a:", "a:int,", "a:int,a:int", "a:foo", "{a:int", "{}", "a:int]" };
+		for (String invalid : invalids) {
+			try {
+				new MessageSchema("x", "params", invalid);
+				fail(invalid);
+			} catch (IllegalArgumentException expected) {
+			}
+		}
+	}
+
+	@Test
+	public void testRequest() throws Exception {
+		SchemaSerializer s = (SchemaSerializer) serializer;
+		s.getRegistry().register("math.add", "a:int, b:long, c:double, name:string, ok:boolean, tags:string[]", "");
+
+		Tree req = createRequest("math.add");
+		Tree params = req.get("params");
+		params.put("a", 3);
+		params.put("b", 1234567890123L);
+		params.put("c", 1.5d);
+		params.put("name", "\u00e1rv\u00edzt\u0171r\u0151");
+		params.putList("tags").add("x").add("y");
+
+		byte[] bytes = s.write(req);
+		assertEquals(SchemaSerializer.SCHEMA, bytes[0]);
+		Tree rsp = s.read(bytes);
+		assertEquals("node1", rsp.get("sender", ""));
+		assertEquals("id1", rsp.get("id", ""));
+		assertEquals("math.add", rsp.get("action", ""));
+		Tree p = rsp.get("params");
+		assertTrue(p.asObject() instanceof SchemaMap);
+		assertEquals(5, p.size());
+		assertEquals(3, p.get("a", 0));
+		assertEquals(1234567890123L, p.get("b", 0L));
+		assertEquals(1.5d, p.get("c", 0d), 0d);
+		assertEquals("\u00e1rv\u00edzt\u0171r\u0151", p.get("name", ""));
+		assertNull(p.get("ok"));
+		assertEquals("y", p.get("tags").get(1).asString());
+
+		// Decoded map is modifiable
+		p.put("ok", true);
+		p.put("extra", "value");
+		assertEquals(7, p.size());
+		assertTrue(p.get("ok", false));
+		assertEquals("value", p.get("extra", ""));
+
+		// Not matching params (unknown field) -> schemaless packet
+		bytes = s.write(rsp);
+		assertEquals(SchemaSerializer.SCHEMALESS, bytes[0]);
+		assertEquals("value", s.read(bytes).get("params.extra", ""));
+
+		// Type mismatch -> schemaless packet
+		params.put("a", "abc");
+		bytes = s.write(req);
+		assertEquals(SchemaSerializer.SCHEMALESS, bytes[0]);
+		assertEquals("abc", s.read(bytes).get("params.a", ""));
+	}
+
+	@Test
+	public void testResponse() throws Exception {
+		SchemaSerializer s = (SchemaSerializer) serializer;
+		s.getRegistry().register("user.find", "id:int", "{name:string, age:int}[]");
+
+		// Incoming request (registers the response schema of the request ID)
+		Tree req = createRequest("user.find");
+		req.get("params").put("id", 5);
+		s.read(s.write(req));
+
+		Tree rsp = new Tree();
+		rsp.put("ver", "4");
+		rsp.put("sender", "node2");
+		rsp.put("id", "id1");
+		rsp.put("success", true);
+		Tree data = rsp.putList("data");
+		data.addMap().put("name", "John").put("age", 30);
+		data.addMap().put("name", "Jane");
+
+		byte[] bytes = s.write(rsp);
+		assertEquals(SchemaSerializer.SCHEMA, bytes[0]);
+		byte[] msgpack = new MsgPackSerializer().write(rsp);
+		assertTrue(bytes.length < msgpack.length);
+
+		Tree rsp2 = s.read(bytes);
+		assertEquals("node2", rsp2.get("sender", ""));
+		assertTrue(rsp2.get("success", false));
+		assertEquals(2, rsp2.get("data").size());
+		assertEquals("John", rsp2.get("data").get(0).get("name", ""));
+		assertEquals(30, rsp2.get("data").get(0).get("age", 0));
+		assertEquals("Jane", rsp2.get("data").get(1).get("name", ""));
+		assertNull(rsp2.get("data").get(1).get("age"));
+
+		// Response schema is used only once (per request ID)
+		assertEquals(SchemaSerializer.SCHEMALESS, s.write(rsp)[0]);
+	}
+
+	@Test
+	public void testDescriptor() throws Exception {
+		SchemaSerializer s = (SchemaSerializer) serializer;
+		Tree info = new Tree("{\"services\":[{\"name\":\"math\",\"actions\":{\"math.add\":{\"name\":\"math.add\","
+				+ "\"schema\":{\"params\":\"a:int,b:int\",\"response\":\"int\"}},\"math.sub\":{\"name\":\"math.sub\"}}}]}");
+		s.getRegistry().register(info.get("services"));
+		assertEquals("{a:int,b:int}", s.getRegistry().getParams("math.add").getDefinition());
+		assertEquals("int", s.getRegistry().getResponse("math.add").getDefinition());
+		assertNull(s.getRegistry().getParams("math.sub"));
+
+		MessageSchema schema = s.getRegistry().getParams("math.add");
+		assertSame(schema, s.getRegistry().get(schema.getId()));
+
+		// Unknown schema ID
+		Tree req = createRequest("math.add");
+		req.get("params").put("a", 1).put("b", 2);
+		byte[] bytes = s.write(req);
+		try {
+			new SchemaSerializer().read(bytes);
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	protected Tree createRequest(String action) {
+		Tree req = new Tree();
+		req.put("ver", "4");
+		req.put("sender", "node1");
+		req.put("id", "id1");
+		req.put("action", action);
+		req.putMap("params");
+		req.put("level", 1);
+		return req;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.datatree.Tree;
+
+/**
+ * JMH throughput benchmark of the serializers, with typical broker packets
+ * (request, response, event, INFO packet with 200 actions, gossip request of a
+ * 50-node cluster). The sizes of the serialized packets are printed at setup.
+ * The {@link AdaptiveSerializer} performs a shorter version of this
+ * measurement at startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializerBenchmark {
+
+	// --- PARAMETERS ---
+
+	@Param({ "json", "msgpack", "cbor", "smile", "bson", "ion" })
+	public String format;
+
+	@Param({ "REQ", "RES", "EVENT", "INFO", "GOSSIP" })
+	public String packet;
+
+	// --- COMPONENTS ---
+
+	protected Serializer serializer;
+
+	// --- PACKETS ---
+
+	protected Tree message;
+	protected byte[] bytes;
+
+	// --- INIT ---
+
+	@Setup
+	public void setup() throws Exception {
+		switch (format) {
+		case "json":
+			serializer = new JsonSerializer();
+			break;
+		case "msgpack":
+			serializer = new MsgPackSerializer();
+			break;
+		case "cbor":
+			serializer = new CborSerializer();
+			break;
+		case "smile":
+			serializer = new SmileSerializer();
+			break;
+		case "bson":
+			serializer = new BsonSerializer();
+			break;
+		default:
+			serializer = new IonSerializer();
+		}
+		switch (packet) {
+		case "REQ":
+			message = createRequest();
+			break;
+		case "RES":
+			message = createResponse();
+			break;
+		case "EVENT":
+			message = createEvent();
+			break;
+		case "INFO":
+			message = createInfo(200);
+			break;
+		default:
+			message = createGossip(50);
+		}
+		bytes = serializer.write(message);
+		System.out.println(format + " " + packet + ": " + bytes.length + " bytes");
+	}
+
+	// --- BENCHMARKS ---
+
+	@Benchmark
+	public byte[] write() throws Exception {
+		return serializer.write(message);
+	}
+
+	@Benchmark
+	public Tree read() throws Exception {
+		return serializer.read(bytes);
+	}
+
+	// --- SAMPLE PACKETS ---
+
+	protected static Tree createRequest() {
+		Tree req = new Tree();
+		req.put("ver", "4");
+		req.put("sender", "node-1");
+		req.put("id", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		req.put("action", "user.find");
+		req.putMap("params").put("id", 123).put("fields", "name,email");
+		req.putMap("meta").put("user", "admin").put("tenant", 12);
+		req.put("timeout", 5000);
+		req.put("level", 1);
+		req.put("requestID", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		return req;
+	}
+
+	protected static Tree createResponse() {
+		Tree rsp = new Tree();
+		rsp.put("ver", "4");
+		rsp.put("sender", "node-2");
+		rsp.put("id", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		rsp.put("success", true);
+		Tree rows = rsp.putList("data");
+		for (int i = 0; i < 10; i++) {
+			Tree row = rows.addMap();
+			row.put("id", 1000 + i);
+			row.put("name", "John Doe " + i);
+			row.put("email", "john.doe" + i + "@example.com");
+			row.put("score", i * 1.25d);
+			row.put("active", i % 2 == 0);
+		}
+		return rsp;
+	}
+
+	protected static Tree createEvent() {
+		Tree evt = new Tree();
+		evt.put("ver", "4");
+		evt.put("sender", "node-1");
+		evt.put("event", "user.created");
+		evt.putList("groups").add("mail").add("audit");
+		evt.putMap("data").put("id", 123).put("name", "John Doe").put("email", "john.doe@example.com");
+		evt.put("broadcast", false);
+		return evt;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected static Tree createInfo(int actions) {
+		Tree info = new Tree();
+		info.put("ver", "4");
+		info.put("sender", "node-1");
+		Tree services = info.putList("services");
+		int perService = 10;
+		for (int s = 0; s < actions / perService; s++) {
+			String serviceName = "service" + s;
+			Tree service = services.addMap();
+			service.put("name", serviceName);
+			service.putMap("settings");
+			service.putMap("metadata");
+			Tree map = service.putMap("actions");
+			for (int a = 0; a < perService; a++) {
+				String actionName = serviceName + ".action" + a;
+
+				// Action names contain dots (Tree paths can't be used)
+				Tree action = new Tree();
+				action.put("name", actionName);
+				action.put("cache", false);
+				action.putMap("params").put("id", "number").put("name", "string");
+				((Map<String, Object>) map.asObject()).put(actionName, action.asObject());
+			}
+			service.putMap("events");
+		}
+		info.putList("ipList").add("192.168.1.10").add("10.0.0.10");
+		info.put("hostname", "server-1");
+		info.putMap("client").put("type", "java").put("version", "1.2.0").put("langVersion", "1.8.0");
+		info.put("seq", 1);
+		return info;
+	}
+
+	protected static Tree createGossip(int nodes) {
+		Tree req = new Tree();
+		req.put("ver", "4");
+		req.put("sender", "node-1");
+		Tree online = req.putMap("online");
+		for (int i = 0; i < nodes; i++) {
+			online.putList("node-" + i).add(12L + i).add(345L + i).add(i % 100);
+		}
+		req.putMap("offline").put("node-99", 7L);
+		return req;
+	}
+
+	// --- RUN BENCHMARK ---
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(SerializerBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
\ No newline at end of file
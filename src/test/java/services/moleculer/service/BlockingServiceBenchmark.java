@@ -0,0 +1,124 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.datatree.Promise;
+import services.moleculer.ServiceBroker;
+import services.moleculer.context.CallOptions;
+
+/**
+ * JMH benchmark of blocking actions (eg. JDBC calls, simulated with
+ * Thread.sleep) with the default common pool and with virtual threads. The
+ * "virtualThreads = true" case requires Java 21 or newer (on older JVMs it
+ * measures the common pool).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BlockingServiceBenchmark {
+
+	// --- CONSTANTS ---
+
+	protected static final int CALLS = 256;
+
+	// --- PARAMETERS ---
+
+	@Param({ "false", "true" })
+	public boolean virtualThreads;
+
+	// --- BROKER ---
+
+	protected ServiceBroker broker;
+
+	// --- INIT ---
+
+	@Setup
+	public void setup() throws Exception {
+		broker = ServiceBroker.builder().nodeID("node0").virtualThreads(virtualThreads).build();
+		broker.createService(new BlockingService());
+		broker.start();
+	}
+
+	@TearDown
+	public void tearDown() {
+		broker.stop();
+	}
+
+	// --- BENCHMARKS ---
+
+	@Benchmark
+	@OperationsPerInvocation(CALLS)
+	public Object blockingCalls() throws Exception {
+		Promise[] promises = new Promise[CALLS];
+		for (int i = 0; i < CALLS; i++) {
+
+			// The timeout forces the invocation via the executor
+			promises[i] = broker.call("blocking.query", CallOptions.timeout(10000));
+		}
+		return Promise.all(promises).waitFor();
+	}
+
+	// --- BLOCKING SERVICE ---
+
+	@Name("blocking")
+	protected static final class BlockingService extends Service {
+
+		@Name("query")
+		public Action query = ctx -> {
+			Thread.sleep(2);
+			return 1;
+		};
+
+	}
+
+	// --- RUN BENCHMARK ---
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(BlockingServiceBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.datatree.Promise;
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.ServiceBroker;
+import services.moleculer.breaker.TestTransporter;
+import services.moleculer.context.CallOptions;
+import services.moleculer.monitor.ConstantMonitor;
+
+public class HedgerTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected TestTransporter tr;
+	protected DefaultServiceRegistry sr;
+	protected DefaultServiceInvoker si;
+	protected ServiceBroker br;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testHedgedCall() throws Exception {
+		Promise p = br.call("test.test", (Tree) null, CallOptions.hedgeDelay(100));
+		assertEquals(1, tr.getMessageCount());
+
+		// Hedged request to another node
+		Thread.sleep(400);
+		assertEquals(2, tr.getMessageCount());
+		String n1 = getNodeID(0);
+		String n2 = getNodeID(1);
+		assertFalse(n1.equals(n2));
+
+		// The hedged request wins
+		Tree late = createResponse(0);
+		tr.received("MOL.RES.local", createResponse(1));
+		assertEquals(123, p.waitFor().asInteger());
+
+		// The late response is dropped
+		assertTrue(sr.promises.isEmpty());
+		tr.received("MOL.RES.local", late);
+		assertTrue(sr.promises.isEmpty());
+		assertTrue(sr.abandoned.get(late.get("id", "")) == null);
+	}
+
+	@Test
+	public void testFastResponse() throws Exception {
+		Promise p = br.call("test.test", (Tree) null, CallOptions.hedgeDelay(200));
+		tr.received("MOL.RES.local", createResponse(0));
+		assertEquals(123, p.waitFor().asInteger());
+
+		// No hedged request
+		Thread.sleep(400);
+		assertEquals(1, tr.getMessageCount());
+	}
+
+	@Test
+	public void testBudget() throws Exception {
+		si.getHedger().setMaxBurst(1);
+		si.getHedger().setMaxRatio(0);
+
+		// First call -> hedged
+		Promise p = br.call("test.test", (Tree) null, CallOptions.hedgeDelay(50));
+		Thread.sleep(300);
+		assertEquals(2, tr.getMessageCount());
+		tr.received("MOL.RES.local", createResponse(0));
+		p.waitFor();
+		tr.clearMessages();
+
+		// Budget is exhausted
+		p = br.call("test.test", (Tree) null, CallOptions.hedgeDelay(50));
+		Thread.sleep(300);
+		assertEquals(1, tr.getMessageCount());
+		tr.received("MOL.RES.local", createResponse(0));
+		p.waitFor();
+	}
+
+	@Test
+	public void testLocalAction() throws Exception {
+		Action local = new LocalActionEndpoint(sr, br.getConfig().getExecutor(), "local", new Tree(), ctx -> 1);
+		assertFalse(si.getHedger().isHedged(CallOptions.hedgeDelay(50), null, local));
+		Action remote = sr.getAction("test.test", null);
+		assertTrue(si.getHedger().isHedged(CallOptions.hedgeDelay(50), null, remote));
+	}
+
+	protected String getNodeID(int index) {
+		String channel = tr.getMessages().get(index).get("channel", "");
+		return channel.substring(channel.lastIndexOf('.') + 1);
+	}
+
+	protected Tree createResponse(int index) {
+		Tree rsp = new Tree();
+		rsp.put("ver", "3");
+		rsp.put("sender", getNodeID(index));
+		rsp.put("id", tr.getMessages().get(index).get("id", ""));
+		rsp.put("success", true);
+		rsp.put("data", 123);
+		return rsp;
+	}
+
+	// --- SET UP ---
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	protected void setUp() throws Exception {
+		tr = new TestTransporter();
+		sr = new DefaultServiceRegistry();
+		si = new DefaultServiceInvoker();
+		AbstractExecutorService ex = new AbstractExecutorService() {
+
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+
+			@Override
+			public void shutdown() {
+			}
+
+			@Override
+			public List<Runnable> shutdownNow() {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public boolean isShutdown() {
+				return false;
+			}
+
+			@Override
+			public boolean isTerminated() {
+				return false;
+			}
+
+			@Override
+			public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+				return false;
+			}
+
+		};
+		br = ServiceBroker.builder().monitor(new ConstantMonitor()).registry(sr).transporter(tr).nodeID("local")
+				.invoker(si).executor(ex).build();
+		br.start();
+		for (int i = 1; i <= 3; i++) {
+			Tree root = new Tree();
+			Tree config = root.putMap("node" + i);
+			Tree actions = config.putMap("actions");
+			LinkedHashMap<String, Object> action = new LinkedHashMap<>();
+			action.put("name", "test.test");
+			((Map) actions.asObject()).put("test.test", action);
+			sr.addActions(config);
+		}
+	}
+
+	// --- TEAR DOWN ---
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (br != null) {
+			br.stop();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import io.datatree.Promise;
+import junit.framework.TestCase;
+
+public class PendingPromiseTableTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testPutRemove() throws Exception {
+		PendingPromiseTable table = new PendingPromiseTable(16);
+		assertTrue(table.isEmpty());
+		PendingPromise p1 = new PendingPromise(new Promise(), 0);
+		PendingPromise p2 = new PendingPromise(new Promise(), 0);
+		table.put(1, p1);
+		table.put(2, p2);
+		assertEquals(2, table.size());
+		assertNull(table.remove(3));
+		assertTrue(p2 == table.remove(2));
+		assertNull(table.remove(2));
+		assertTrue(p1 == table.remove(1));
+		assertTrue(table.isEmpty());
+	}
+
+	@Test
+	public void testOverflow() throws Exception {
+		PendingPromiseTable table = new PendingPromiseTable(16);
+		PendingPromise p1 = new PendingPromise(new Promise(), 0);
+		PendingPromise p2 = new PendingPromise(new Promise(), 0);
+
+		// Same slot
+		table.put(5, p1);
+		table.put(21, p2);
+		assertEquals(2, table.size());
+		assertEquals(1, table.overflow.size());
+		assertNull(table.remove(37));
+		assertTrue(p1 == table.remove(5));
+		assertTrue(p2 == table.remove(21));
+		assertTrue(table.isEmpty());
+		assertTrue(table.overflow.isEmpty());
+	}
+
+	@Test
+	public void testTimeouts() throws Exception {
+		PendingPromiseTable table = new PendingPromiseTable(16);
+		long now = System.currentTimeMillis();
+		table.put(1, new PendingPromise(new Promise(), now - 10));
+		table.put(2, new PendingPromise(new Promise(), now + 1000));
+		table.put(17, new PendingPromise(new Promise(), now - 5));
+		table.put(3, new PendingPromise(new Promise(), 0));
+		assertEquals(now - 10, table.getMinTimeoutAt());
+
+		List<PendingPromise> timeouted = table.removeTimeouted(now);
+		assertEquals(2, timeouted.size());
+		assertEquals(2, table.size());
+		assertEquals(now + 1000, table.getMinTimeoutAt());
+		assertTrue(table.removeTimeouted(now).isEmpty());
+
+		// Completed before the timeout
+		PendingPromise p4 = new PendingPromise(new Promise(), now + 500);
+		table.put(4, p4);
+		assertEquals(now + 500, table.getMinTimeoutAt());
+		assertTrue(p4 == table.remove(4));
+		assertEquals(now + 1000, table.getMinTimeoutAt());
+
+		assertEquals(2, table.removeAll().size());
+		assertTrue(table.timeouts.isEmpty());
+		assertTrue(table.isEmpty());
+		assertEquals(Long.MAX_VALUE, table.getMinTimeoutAt());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.datatree.Promise;
+import io.datatree.Tree;
+import services.moleculer.ServiceBroker;
+import services.moleculer.transporter.Transporter;
+
+/**
+ * JMH latency benchmark of remote calls during a simulated rolling restart of
+ * 50 remote nodes. The requests are answered by a loopback Transporter (without
+ * network I/O), so the benchmark measures the invocation path (routing,
+ * pending promise, response processing). In the "rollingRestart = true" case a
+ * background thread removes and re-registers the nodes one after the other
+ * (like a rolling deploy), while the benchmark threads call the action.
+ * Compare the higher percentiles of the two cases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class RollingRestartBenchmark {
+
+	// --- CONSTANTS ---
+
+	protected static final int NODES = 50;
+	protected static final int ACTIONS = 20;
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(RollingRestartBenchmark.class);
+
+	// --- PARAMETERS ---
+
+	@Param({ "false", "true" })
+	public boolean rollingRestart;
+
+	// --- COMPONENTS ---
+
+	protected ServiceBroker broker;
+	protected ServiceRegistry registry;
+
+	// --- RESTARTER THREAD ---
+
+	protected Thread restarter;
+	protected volatile boolean running;
+
+	// --- INIT ---
+
+	@Setup
+	public void setup() throws Exception {
+		broker = ServiceBroker.builder().nodeID("node0").transporter(new LoopbackTransporter()).build();
+		broker.start();
+		registry = broker.getConfig().getServiceRegistry();
+		for (int i = 1; i <= NODES; i++) {
+			registry.addActions("node" + i, createService());
+		}
+		if (rollingRestart) {
+			running = true;
+			restarter = new Thread(() -> {
+				try {
+					while (running) {
+						for (int i = 1; i <= NODES && running; i++) {
+
+							// Node disconnected
+							String nodeID = "node" + i;
+							registry.removeActions(nodeID);
+
+							// Node connected with a new version
+							registry.updateActions(nodeID, Collections.emptyList(),
+									Collections.singletonList(createService()));
+						}
+					}
+				} catch (Exception cause) {
+					logger.error("Unable to restart nodes!", cause);
+				}
+			});
+			restarter.start();
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		running = false;
+		if (restarter != null) {
+			restarter.join();
+		}
+		broker.stop();
+	}
+
+	// --- BENCHMARKS ---
+
+	@Benchmark
+	public Tree call() throws Exception {
+		return broker.call("math.add", "a", 1, "b", 2).waitFor();
+	}
+
+	// --- UTILITIES ---
+
+	protected static Tree createService() throws Exception {
+		StringBuilder json = new StringBuilder(1024);
+		json.append("{\"name\":\"math\",\"actions\":{\"math.add\":{\"name\":\"math.add\"}");
+		for (int i = 0; i < ACTIONS; i++) {
+			json.append(",\"math.op").append(i).append("\":{\"name\":\"math.op").append(i).append("\"}");
+		}
+		json.append("},\"events\":{}}");
+		return new Tree(json.toString());
+	}
+
+	// --- LOOPBACK TRANSPORTER ---
+
+	protected static final class LoopbackTransporter extends Transporter {
+
+		@Override
+		public void connect() {
+		}
+
+		@Override
+		public void publish(String cmd, String nodeID, Tree message) {
+			if (!PACKET_REQUEST.equals(cmd)) {
+				return;
+			}
+
+			// Answer the request (as the remote node)
+			Tree rsp = new Tree();
+			rsp.put("ver", ServiceBroker.PROTOCOL_VERSION);
+			rsp.put("sender", nodeID);
+			rsp.put("id", message.get("id", ""));
+			rsp.put("success", true);
+			rsp.put("data", 3);
+			registry.receiveResponse(rsp);
+		}
+
+		@Override
+		public void publish(String channel, Tree message) {
+		}
+
+		@Override
+		public Promise subscribe(String channel) {
+			return Promise.resolve();
+		}
+
+	}
+
+	// --- RUN BENCHMARK ---
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(RollingRestartBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
\ No newline at end of file
@@ -44,6 +44,7 @@ import services.moleculer.ServiceBroker;
 import services.moleculer.breaker.TestTransporter;
 import services.moleculer.context.Context;
 import services.moleculer.monitor.ConstantMonitor;
+import services.moleculer.strategy.Strategy;
 import services.moleculer.util.FastBuildTree;
 
 public class ServiceTest extends TestCase {
@@ -90,6 +91,28 @@ public class ServiceTest extends TestCase {
 		assertEquals("MOL.RES.node5", rsp.get("channel", ""));
 	}
 
+	@Test
+	public void testRoutingSnapshot() throws Exception {
+		Tree service = new Tree("{\"name\":\"math\",\"actions\":{\"math.add\":{\"name\":\"math.add\"}}}");
+		sr.addActions("node1", service.clone());
+		sr.addActions("node2", service.clone());
+		Strategy<ActionEndpoint> published = sr.routes.get("math.add");
+		assertEquals(2, published.getAllEndpoints().size());
+
+		// Re-register the actions of node1 (in one step)
+		sr.replaceActions("node1", Collections.singletonList(service.clone()));
+		assertEquals(2, published.getAllEndpoints().size());
+		Strategy<ActionEndpoint> current = sr.routes.get("math.add");
+		assertNotSame(published, current);
+		assertEquals(2, current.getAllEndpoints().size());
+
+		// Remove node2
+		sr.removeActions("node2");
+		assertEquals(2, current.getAllEndpoints().size());
+		assertEquals(1, sr.routes.get("math.add").getAllEndpoints().size());
+		assertEquals("node1", ((ActionEndpoint) sr.getAction("math.add", null)).getNodeID());
+	}
+
 	protected void putIncomingCall(String name, Tree params) throws Exception {
 		FastBuildTree msg = new FastBuildTree(6);
 		msg.putUnsafe("ver", ServiceBroker.PROTOCOL_VERSION);
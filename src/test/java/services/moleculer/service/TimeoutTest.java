@@ -33,6 +33,7 @@ import services.moleculer.ServiceBroker;
 import services.moleculer.context.CallOptions;
 import services.moleculer.error.RequestRejectedError;
 import services.moleculer.monitor.ConstantMonitor;
+import services.moleculer.uid.CompactUidGenerator;
 
 public class TimeoutTest extends TestCase {
 
@@ -80,6 +81,33 @@ public class TimeoutTest extends TestCase {
 		assertTrue(level1Service.timeouted);
 	}
 
+	@Test
+	public void testNumericTimeout() throws Exception {
+		DefaultServiceRegistry sr2 = new DefaultServiceRegistry();
+		ServiceBroker br2 = ServiceBroker.builder().monitor(new ConstantMonitor()).registry(sr2)
+				.uid(new CompactUidGenerator()).nodeID("local2").build();
+		br2.start();
+		try {
+			br2.createService(new TimeoutService());
+			assertNotNull(sr2.numericPromises);
+
+			// Timeouted and completed calls (stored in the numeric table)
+			for (int i = 0; i < 2; i++) {
+				try {
+					br2.call("timeout.slow", CallOptions.timeout(100)).waitFor();
+					fail();
+				} catch (Exception expected) {
+				}
+			}
+			assertEquals(0L, br2.call("timeout.slow", CallOptions.timeout(10000)).waitFor().asLong());
+			assertTrue(sr2.promises.isEmpty());
+			assertTrue(sr2.numericPromises.isEmpty());
+			assertEquals(Long.MAX_VALUE, sr2.numericPromises.getMinTimeoutAt());
+		} finally {
+			br2.stop();
+		}
+	}
+
 	protected boolean invokeSlowService(long timeout) {
 		try {
 			br.call("timeout.slow", CallOptions.timeout(timeout)).waitFor();
@@ -0,0 +1,205 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import java.util.LinkedList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.datatree.dom.Cache;
+import services.moleculer.ServiceBroker;
+import services.moleculer.service.Endpoint;
+
+/**
+ * JMH benchmark of the endpoint selection. Compares the snapshot-based
+ * {@link ArrayBasedStrategy} with the previous (LinkedList + synchronized
+ * Cache based) implementation. Run with the "-prof gc" option to see the
+ * allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+public class ArrayBasedStrategyBenchmark {
+
+	// --- PARAMETERS ---
+
+	@Param({ "4", "32" })
+	public int nodes;
+
+	// --- STRATEGIES ---
+
+	protected Strategy<Endpoint> current;
+	protected Strategy<Endpoint> legacy;
+
+	protected String[] nodeIDs;
+
+	// --- INIT ---
+
+	@Setup
+	public void setup() {
+		ServiceBroker broker = ServiceBroker.builder().nodeID("node0").build();
+		current = new XorShiftRandomStrategy<>(broker, false);
+		legacy = new LegacyStrategy<>(broker);
+		nodeIDs = new String[nodes];
+		for (int i = 0; i < nodes; i++) {
+			nodeIDs[i] = "node" + i;
+			for (int j = 0; j < 3; j++) {
+				TestEndpoint endpoint = new TestEndpoint(nodeIDs[i]);
+				current.addEndpoint(endpoint);
+				legacy.addEndpoint(endpoint);
+			}
+		}
+	}
+
+	// --- BENCHMARKS ---
+
+	@Benchmark
+	public Endpoint currentRandom() {
+		return current.getEndpoint(null);
+	}
+
+	@Benchmark
+	public Endpoint legacyRandom() {
+		return legacy.getEndpoint(null);
+	}
+
+	@Benchmark
+	public Endpoint currentByNodeID() {
+		return current.getEndpoint(nodeIDs[ThreadLocalRandom.current().nextInt(nodes)]);
+	}
+
+	@Benchmark
+	public Endpoint legacyByNodeID() {
+		return legacy.getEndpoint(nodeIDs[ThreadLocalRandom.current().nextInt(nodes)]);
+	}
+
+	@Benchmark
+	public Endpoint currentUnknownNodeID() {
+		return current.getEndpoint("unknown");
+	}
+
+	@Benchmark
+	public Endpoint legacyUnknownNodeID() {
+		return legacy.getEndpoint("unknown");
+	}
+
+	// --- TEST ENDPOINT ---
+
+	protected static class TestEndpoint extends Endpoint {
+
+		protected TestEndpoint(String nodeID) {
+			super(nodeID);
+		}
+
+	}
+
+	// --- PREVIOUS IMPLEMENTATION ---
+
+	protected static class LegacyStrategy<T extends Endpoint> extends XorShiftRandomStrategy<T> {
+
+		protected Endpoint[] endpoints = new Endpoint[0];
+
+		protected final Cache<String, Endpoint[]> endpointCache = new Cache<>(1024, true);
+
+		protected LegacyStrategy(ServiceBroker broker) {
+			super(broker, false);
+		}
+
+		@Override
+		public synchronized void addEndpoint(T endpoint) {
+			super.addEndpoint(endpoint);
+			Endpoint[] copy = new Endpoint[endpoints.length + 1];
+			System.arraycopy(endpoints, 0, copy, 0, endpoints.length);
+			copy[endpoints.length] = endpoint;
+			endpoints = copy;
+			endpointCache.remove(endpoint.getNodeID());
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T getEndpoint(String nodeID) {
+			Endpoint[] array = getEndpointsByNodeID(nodeID);
+			if (array.length == 0) {
+				return null;
+			}
+			if (array.length == 1) {
+				return (T) array[0];
+			}
+			return (T) next(array);
+		}
+
+		@Override
+		protected Endpoint[] getEndpointsByNodeID(String nodeID) {
+			if (nodeID == null) {
+				return endpoints;
+			}
+			Endpoint[] array = endpointCache.get(nodeID);
+			if (array == null) {
+				LinkedList<Endpoint> list = new LinkedList<>();
+				for (Endpoint endpoint : endpoints) {
+					if (endpoint.getNodeID().equals(nodeID)) {
+						list.addLast(endpoint);
+					}
+				}
+				int size = list.size();
+				if (size == 0) {
+					return new Endpoint[0];
+				}
+				array = new Endpoint[size];
+				list.toArray(array);
+				endpointCache.put(nodeID, array);
+			}
+			return array;
+		}
+
+	}
+
+	// --- RUN BENCHMARK ---
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(ArrayBasedStrategyBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import services.moleculer.service.LocalActionEndpoint;
+
+public class ConsistentHashStrategyTest extends StrategyTest {
+
+	@Override
+	public Strategy<LocalActionEndpoint> createStrategy(boolean preferLocal) throws Exception {
+		ConsistentHashStrategyFactory f = new ConsistentHashStrategyFactory(preferLocal, "userId");
+		f.started(br);
+		return f.create();
+	}
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testSharding() throws Exception {
+		Strategy<LocalActionEndpoint> s = createStrategy(false);
+		for (int i = 1; i <= 10; i++) {
+			s.addEndpoint(createEndpoint(br, "node" + i, "e" + i));
+		}
+
+		// Same key -> same node
+		HashMap<Integer, String> map = new HashMap<>();
+		HashSet<String> nodes = new HashSet<>();
+		for (int key = 0; key < 1000; key++) {
+			String nodeID = getNodeID(s, key);
+			assertEquals(nodeID, getNodeID(s, key));
+			map.put(key, nodeID);
+			nodes.add(nodeID);
+		}
+		assertEquals(10, nodes.size());
+
+		// Remove a node (only the keys of the removed node can move)
+		s.remove("node5");
+		int moved = 0;
+		for (int key = 0; key < 1000; key++) {
+			String nodeID = getNodeID(s, key);
+			assertFalse("node5".equals(nodeID));
+			if (!nodeID.equals(map.get(key))) {
+				assertEquals("node5", map.get(key));
+				moved++;
+			}
+			map.put(key, nodeID);
+		}
+		assertTrue(moved > 0 && moved < 200);
+
+		// Add a new node (only the keys of the new node can move)
+		s.addEndpoint(createEndpoint(br, "node11", "e11"));
+		moved = 0;
+		for (int key = 0; key < 1000; key++) {
+			String nodeID = getNodeID(s, key);
+			if (!nodeID.equals(map.get(key))) {
+				assertEquals("node11", nodeID);
+				moved++;
+			}
+		}
+		assertTrue(moved > 0 && moved < 200);
+
+		// Without key
+		assertNotNull(s.getEndpoint(null, new Tree()));
+		assertNotNull(s.getEndpoint(null, null));
+	}
+
+	protected String getNodeID(Strategy<LocalActionEndpoint> s, int key) {
+		Tree params = new Tree();
+		params.put("userId", key);
+		return s.getEndpoint(null, params).getNodeID();
+	}
+
+}
\ No newline at end of file
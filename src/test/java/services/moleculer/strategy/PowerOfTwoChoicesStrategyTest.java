@@ -0,0 +1,78 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import services.moleculer.context.Context;
+import services.moleculer.service.DefaultServiceRegistry;
+import services.moleculer.service.LocalActionEndpoint;
+import services.moleculer.service.RemoteActionEndpoint;
+
+public class PowerOfTwoChoicesStrategyTest extends StrategyTest {
+
+	@Override
+	public Strategy<LocalActionEndpoint> createStrategy(boolean preferLocal) throws Exception {
+		PowerOfTwoChoicesStrategyFactory f = new PowerOfTwoChoicesStrategyFactory(preferLocal);
+		f.started(br);
+		return f.create();
+	}
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testSelection() throws Exception {
+		PowerOfTwoChoicesStrategyFactory f = new PowerOfTwoChoicesStrategyFactory(false);
+		f.started(br);
+		Strategy<RemoteActionEndpoint> s = f.create();
+
+		// Node "n" has "n * 3" in-flight requests
+		DefaultServiceRegistry registry = (DefaultServiceRegistry) br.getConfig().getServiceRegistry();
+		int id = 0;
+		for (int i = 1; i <= 6; i++) {
+			Tree cfg = new Tree();
+			cfg.put("name", "test");
+			RemoteActionEndpoint e = new RemoteActionEndpoint(registry, br.getConfig().getTransporter(), "node" + i,
+					cfg);
+			for (int j = 0; j < i * 3; j++) {
+				e.handler(new Context(null, null, "id" + id++, "test", new Tree(), null));
+			}
+			assertEquals(i * 3, e.getInFlight());
+			s.addEndpoint(e);
+		}
+
+		assertEquals(6, s.getAllEndpoints().size());
+		double sum = 0;
+		for (int i = 0; i < 200; i++) {
+			RemoteActionEndpoint e = s.getEndpoint(null);
+			sum += Integer.parseInt(e.getNodeID().substring(4));
+		}
+		double average = sum / 200d;
+		assertTrue(average < 3);
+	}
+
+}
\ No newline at end of file
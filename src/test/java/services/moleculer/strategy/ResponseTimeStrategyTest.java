@@ -0,0 +1,76 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import org.junit.Test;
+
+import services.moleculer.service.LocalActionEndpoint;
+
+public class ResponseTimeStrategyTest extends StrategyTest {
+
+	@Override
+	public Strategy<LocalActionEndpoint> createStrategy(boolean preferLocal) throws Exception {
+		ResponseTimeStrategyFactory f = new ResponseTimeStrategyFactory(preferLocal);
+		f.started(br);
+		return f.create();
+	}
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testSelection() throws Exception {
+		ResponseTimeStrategyFactory f = new ResponseTimeStrategyFactory(false);
+		f.started(br);
+		Strategy<LocalActionEndpoint> s = f.create();
+
+		// Response time of node "n" is "n" milliseconds
+		for (int i = 1; i <= 6; i++) {
+			s.addEndpoint(createEndpoint(br, "node" + i, "e" + i));
+			for (int j = 0; j < 5; j++) {
+				f.responseReceived("node" + i, i * 1000000L);
+			}
+		}
+		assertEquals(6, s.getAllEndpoints().size());
+		assertTrue(Math.abs(3000000L - f.getAverageResponseTime("node3")) < 10);
+		assertEquals(Long.MAX_VALUE, f.getAverageResponseTime("node7"));
+
+		double sum = 0;
+		for (int i = 0; i < 200; i++) {
+			LocalActionEndpoint e = s.getEndpoint(null);
+			sum += Integer.parseInt(e.getNodeID().substring(4));
+		}
+		double average = sum / 200d;
+		assertTrue(average < 3);
+
+		// Moving average
+		f.responseReceived("node3", 6000000L);
+		long rsp = f.getAverageResponseTime("node3");
+		assertTrue(rsp > 3000000L && rsp < 6000000L);
+
+		f.stopped();
+	}
+
+}
\ No newline at end of file
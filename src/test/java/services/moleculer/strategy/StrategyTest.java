@@ -26,6 +26,7 @@
 package services.moleculer.strategy;
 
 import java.util.HashSet;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -95,6 +96,75 @@ public abstract class StrategyTest extends TestCase {
 		assertEquals(0, s.getAllEndpoints().size());
 	}
 
+	@Test
+	public void testDuplicatedEndpoint() throws Exception {
+		Strategy<LocalActionEndpoint> s = createStrategy(false);
+		LocalActionEndpoint e1 = createEndpoint(br, "node1", "e1");
+		LocalActionEndpoint e2 = createEndpoint(br, "node2", "e2");
+		s.addEndpoint(e1);
+		s.addEndpoint(e2);
+		s.addEndpoint(e1);
+		assertEquals(2, s.getAllEndpoints().size());
+		assertEquals(e1, s.getEndpoint("node1"));
+		assertNull(s.getEndpoint("node3"));
+		assertTrue(s.remove("node1"));
+		assertFalse(s.remove("node1"));
+		assertNull(s.getEndpoint("node1"));
+		assertEquals(e2, s.getEndpoint(null));
+	}
+
+	@Test
+	public void testRemoveEndpoint() throws Exception {
+		removeEndpointTest(createStrategy(false));
+
+		// Default implementation (third-party strategies)
+		Strategy<LocalActionEndpoint> wrapped = createStrategy(false);
+		removeEndpointTest(new Strategy<LocalActionEndpoint>() {
+
+			@Override
+			public void addEndpoint(LocalActionEndpoint endpoint) {
+				wrapped.addEndpoint(endpoint);
+			}
+
+			@Override
+			public boolean remove(String nodeID) {
+				return wrapped.remove(nodeID);
+			}
+
+			@Override
+			public boolean isEmpty() {
+				return wrapped.isEmpty();
+			}
+
+			@Override
+			public LocalActionEndpoint getEndpoint(String nodeID) {
+				return wrapped.getEndpoint(nodeID);
+			}
+
+			@Override
+			public List<LocalActionEndpoint> getAllEndpoints() {
+				return wrapped.getAllEndpoints();
+			}
+
+		});
+	}
+
+	protected void removeEndpointTest(Strategy<LocalActionEndpoint> s) throws Exception {
+		LocalActionEndpoint e1 = createEndpoint(br, "node1", "e1");
+		LocalActionEndpoint e2 = createEndpoint(br, "node1", "e2");
+		LocalActionEndpoint e3 = createEndpoint(br, "node2", "e3");
+		s.addEndpoint(e1);
+		s.addEndpoint(e2);
+		s.addEndpoint(e3);
+		assertTrue(s.removeEndpoint(e1));
+		assertFalse(s.removeEndpoint(e1));
+		assertEquals(2, s.getAllEndpoints().size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(e2, s.getEndpoint("node1"));
+		}
+		assertEquals(e3, s.getEndpoint("node2"));
+	}
+
 	protected void simpleTest(boolean preferLocal) throws Exception {
 		Strategy<LocalActionEndpoint> s = createStrategy(preferLocal);
 		for (int i = 1; i <= 5; i++) {
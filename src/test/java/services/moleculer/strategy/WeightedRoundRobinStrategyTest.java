@@ -0,0 +1,136 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import services.moleculer.breaker.TestTransporter;
+import services.moleculer.service.DefaultServiceRegistry;
+import services.moleculer.service.LocalActionEndpoint;
+import services.moleculer.transporter.Transporter;
+
+public class WeightedRoundRobinStrategyTest extends StrategyTest {
+
+	@Override
+	public Strategy<LocalActionEndpoint> createStrategy(boolean preferLocal) throws Exception {
+		WeightedRoundRobinStrategyFactory f = new WeightedRoundRobinStrategyFactory(preferLocal);
+		f.started(br);
+		return f.create();
+	}
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testWeights() throws Exception {
+		TestTransporter tr = (TestTransporter) br.getConfig().getTransporter();
+		tr.setWeight("node2", 5);
+		tr.setWeight("node3", 95);
+		tr.setWeight("node4", 0);
+
+		Strategy<LocalActionEndpoint> s = createStrategy(false);
+		for (int i = 2; i <= 4; i++) {
+			s.addEndpoint(createEndpoint(br, "node" + i, "e" + i));
+		}
+		int[] counters = new int[5];
+		for (int i = 0; i < 100; i++) {
+			counters[Integer.parseInt(s.getEndpoint(null).getNodeID().substring(4))]++;
+		}
+		assertEquals(5, counters[2]);
+		assertEquals(95, counters[3]);
+		assertEquals(0, counters[4]);
+
+		// Change weights at runtime
+		tr.setWeight("node2", 50);
+		tr.setWeight("node3", 0);
+		tr.setWeight("node4", 50);
+		counters = new int[5];
+		for (int i = 0; i < 100; i++) {
+			counters[Integer.parseInt(s.getEndpoint(null).getNodeID().substring(4))]++;
+		}
+		assertTrue(Math.abs(counters[2] - 50) <= 2);
+		assertTrue(counters[3] <= 2);
+		assertTrue(Math.abs(counters[4] - 50) <= 2);
+	}
+
+	@Test
+	public void testLargeWeights() throws Exception {
+		TestTransporter tr = (TestTransporter) br.getConfig().getTransporter();
+		tr.setWeight("node2", 1000);
+		tr.setWeight("node3", 3001);
+
+		Strategy<LocalActionEndpoint> s = createStrategy(false);
+		for (int i = 2; i <= 3; i++) {
+			s.addEndpoint(createEndpoint(br, "node" + i, "e" + i));
+		}
+		int[] counters = new int[4];
+		for (int i = 0; i < 4000; i++) {
+			counters[Integer.parseInt(s.getEndpoint(null).getNodeID().substring(4))]++;
+		}
+		assertTrue(Math.abs(counters[2] - 1000) <= 20);
+		assertTrue(Math.abs(counters[3] - 3000) <= 20);
+	}
+
+	@Test
+	public void testHugeWeights() throws Exception {
+		TestTransporter tr = (TestTransporter) br.getConfig().getTransporter();
+		tr.setWeight("node2", 1000000000);
+		tr.setWeight("node3", 1);
+
+		Strategy<LocalActionEndpoint> s = createStrategy(false);
+		for (int i = 2; i <= 3; i++) {
+			s.addEndpoint(createEndpoint(br, "node" + i, "e" + i));
+		}
+		int[] counters = new int[4];
+		for (int i = 0; i < 1024; i++) {
+			counters[Integer.parseInt(s.getEndpoint(null).getNodeID().substring(4))]++;
+		}
+		assertTrue(counters[2] >= 1020);
+		assertTrue(counters[3] >= 1 && counters[3] <= 4);
+	}
+
+	@Test
+	public void testWeightVersion() throws Exception {
+		Transporter tr = br.getConfig().getTransporter();
+		long version = tr.getWeightVersion();
+		br.call("$node.weight", "weight", 5).waitFor(2000);
+		assertTrue(tr.getWeightVersion() > version);
+	}
+
+	@Test
+	public void testWeightAction() throws Exception {
+		DefaultServiceRegistry registry = (DefaultServiceRegistry) br.getConfig().getServiceRegistry();
+		assertEquals(100, registry.getWeight());
+		assertEquals(100, registry.getDescriptor().get("weight", 0));
+
+		Tree rsp = br.call("$node.weight", "weight", 5).waitFor(2000);
+		assertEquals(5, rsp.get("weight", 0));
+		assertEquals(5, registry.getWeight());
+		assertEquals(5, registry.getDescriptor().get("weight", 0));
+		assertEquals(5, br.getConfig().getTransporter().getWeight("node1"));
+	}
+
+}
\ No newline at end of file
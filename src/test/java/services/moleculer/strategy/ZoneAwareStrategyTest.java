@@ -0,0 +1,122 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.strategy;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import services.moleculer.breaker.TestTransporter;
+import services.moleculer.context.Context;
+import services.moleculer.service.DefaultServiceRegistry;
+import services.moleculer.service.LocalActionEndpoint;
+import services.moleculer.service.RemoteActionEndpoint;
+import services.moleculer.transporter.tcp.NodeDescriptor;
+
+public class ZoneAwareStrategyTest extends StrategyTest {
+
+	@Override
+	public Strategy<LocalActionEndpoint> createStrategy(boolean preferLocal) throws Exception {
+		return createFactory(preferLocal).create();
+	}
+
+	protected ZoneAwareStrategyFactory createFactory(boolean preferLocal) throws Exception {
+		DefaultServiceRegistry registry = (DefaultServiceRegistry) br.getConfig().getServiceRegistry();
+		registry.setZone("zone1");
+		ZoneAwareStrategyFactory f = new ZoneAwareStrategyFactory(new XorShiftRandomStrategyFactory(preferLocal));
+		f.started(br);
+		return f;
+	}
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testZones() throws Exception {
+		TestTransporter tr = (TestTransporter) br.getConfig().getTransporter();
+		tr.setZone("node2", "zone1");
+		tr.setZone("node3", "zone2");
+
+		ZoneAwareStrategyFactory f = createFactory(false);
+		f.setMaxInFlight(5);
+		Strategy<RemoteActionEndpoint> s = f.create();
+
+		DefaultServiceRegistry registry = (DefaultServiceRegistry) br.getConfig().getServiceRegistry();
+		RemoteActionEndpoint[] endpoints = new RemoteActionEndpoint[2];
+		for (int i = 0; i < 2; i++) {
+			Tree cfg = new Tree();
+			cfg.put("name", "test");
+			endpoints[i] = new RemoteActionEndpoint(registry, tr, "node" + (i + 2), cfg);
+			s.addEndpoint(endpoints[i]);
+		}
+		assertEquals(2, s.getAllEndpoints().size());
+
+		// Same zone
+		for (int i = 0; i < 50; i++) {
+			assertEquals("node2", s.getEndpoint(null).getNodeID());
+		}
+		assertEquals("node3", s.getEndpoint("node3").getNodeID());
+
+		// Overloaded -> spill over to other zones
+		for (int i = 0; i < 5; i++) {
+			endpoints[0].handler(new Context(null, null, "id" + i, "test", new Tree(), null));
+		}
+		boolean spilled = false;
+		for (int i = 0; i < 100; i++) {
+			if ("node3".equals(s.getEndpoint(null).getNodeID())) {
+				spilled = true;
+				break;
+			}
+		}
+		assertTrue(spilled);
+
+		// Other zone only
+		s.remove("node2");
+		assertEquals("node3", s.getEndpoint(null).getNodeID());
+		f.stopped();
+	}
+
+	@Test
+	public void testDescriptor() throws Exception {
+		DefaultServiceRegistry registry = (DefaultServiceRegistry) br.getConfig().getServiceRegistry();
+		registry.setZone("zone1");
+		registry.setRegion("region1");
+		Tree descriptor = registry.getDescriptor();
+		assertEquals("zone1", descriptor.get("zone", ""));
+		assertEquals("region1", descriptor.get("region", ""));
+
+		// Stored in the NodeDescriptor (without cloning the INFO block)
+		NodeDescriptor node = new NodeDescriptor("node2", false, false, descriptor.clone().put("port", 1234));
+		assertEquals("zone1", node.zone);
+		assertEquals("region1", node.region);
+		Tree info = node.info.clone();
+		info.put("seq", node.seq + 1);
+		info.put("zone", "zone2");
+		info.remove("region");
+		assertTrue(node.markAsOnline(info));
+		assertEquals("zone2", node.zone);
+		assertNull(node.region);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.stream;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import services.moleculer.error.MoleculerError;
+
+public class PacketStreamTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testIterator() throws Exception {
+		PacketStream stream = new PacketStream();
+		AtomicInteger consumed = new AtomicInteger();
+		stream.onConsumed(consumed::incrementAndGet);
+		stream.sendData(new byte[] { 1 });
+		stream.sendData(new byte[0]);
+		stream.sendData(new byte[] { 2, 3 });
+		stream.sendClose();
+		assertTrue(stream.isClosed());
+
+		Iterator<byte[]> i = stream.iterator();
+		assertTrue(i.hasNext());
+		assertEquals(1, i.next()[0]);
+		assertTrue(i.hasNext());
+		assertEquals(2, i.next().length);
+		assertFalse(i.hasNext());
+		assertEquals(2, consumed.get());
+
+		try {
+			stream.sendData(new byte[] { 4 });
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	@Test
+	public void testListener() throws Exception {
+		PacketStream stream = new PacketStream();
+		LinkedList<Object> packets = new LinkedList<>();
+		stream.sendData(new byte[] { 1 });
+		stream.onPacket((bytes, cause, close) -> {
+			if (bytes != null) {
+				packets.add(bytes[0]);
+			}
+			if (cause != null) {
+				packets.add(cause);
+			}
+			if (close) {
+				packets.add("close");
+			}
+		});
+		stream.sendData(new byte[] { 2 });
+		assertEquals(2, packets.size());
+		stream.sendError(new MoleculerError("test", null, false));
+		assertEquals(4, packets.size());
+		assertEquals((byte) 2, packets.get(1));
+		assertTrue(packets.get(2) instanceof MoleculerError);
+		assertEquals("close", packets.get(3));
+
+		try {
+			stream.onPacket((bytes, cause, close) -> {
+			});
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	@Test
+	public void testError() throws Exception {
+		PacketStream stream = new PacketStream();
+		stream.sendData(new byte[] { 1 });
+		stream.sendError(new MoleculerError("test", null, false));
+		Iterator<byte[]> i = stream.iterator();
+		assertEquals(1, i.next()[0]);
+		try {
+			i.hasNext();
+			fail();
+		} catch (MoleculerError expected) {
+			assertEquals("test", expected.getMessage());
+		}
+	}
+
+	@Test
+	public void testBackpressure() throws Exception {
+		PacketStream stream = new PacketStream(2, 10000);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 100; i++) {
+				stream.sendData(new byte[] { (byte) i });
+			}
+			stream.sendClose();
+		});
+		producer.start();
+
+		Thread.sleep(200);
+		synchronized (stream) {
+			assertEquals(2, stream.buffer.size());
+		}
+
+		int count = 0;
+		for (byte[] bytes : stream) {
+			assertEquals((byte) count, bytes[0]);
+			count++;
+		}
+		assertEquals(100, count);
+		producer.join();
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		PacketStream stream = new PacketStream(1, 100);
+		stream.sendData(new byte[] { 1 });
+		try {
+			stream.sendData(new byte[] { 2 });
+			fail();
+		} catch (MoleculerError expected) {
+			assertEquals("STREAM_TIMEOUT", expected.getType());
+		}
+	}
+
+}
\ No newline at end of file
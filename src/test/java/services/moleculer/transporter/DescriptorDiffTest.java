@@ -0,0 +1,140 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+
+public class DescriptorDiffTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testCreateAndApply() throws Exception {
+		Tree prev = services(service("math", "math.add", "math.sub"), service("user", "user.find"));
+
+		// Equal blocks
+		assertNull(DescriptorDiff.create(prev, prev.clone()));
+
+		// NodeIDs (inserted by the registry) are ignored
+		Tree withNodeIDs = prev.clone();
+		for (Tree service : withNodeIDs) {
+			for (Tree action : service.get("actions")) {
+				action.put("nodeID", "node1");
+			}
+		}
+		assertNull(DescriptorDiff.create(prev, withNodeIDs));
+
+		// Changed and removed services
+		Tree next = services(service("math", "math.add", "math.mul"), service("post", "post.list"));
+		Tree diff = DescriptorDiff.create(prev, next);
+		assertNotNull(diff);
+		assertEquals(2, diff.get("services").size());
+		assertEquals("math", diff.get("services[0].name", ""));
+		assertEquals("post", diff.get("services[1].name", ""));
+		assertEquals(1, diff.get("removed").size());
+		assertEquals("user", diff.get("removed[0]", ""));
+
+		// Apply diff
+		Tree info = new Tree();
+		info.put("hostname", "host1");
+		info.putObject("services", prev);
+		Tree applied = DescriptorDiff.apply(info, diff);
+		assertEquals("host1", applied.get("hostname", ""));
+		assertNull(DescriptorDiff.create(next, applied.get("services")));
+
+		// Original descriptor is unchanged
+		assertNull(DescriptorDiff.create(prev, info.get("services")));
+	}
+
+	@Test
+	public void testHash() throws Exception {
+		Tree services = services(service("math", "math.add", "math.sub"), service("user", "user.find"));
+		long hash = DescriptorDiff.hash(services);
+		assertEquals(hash, DescriptorDiff.hash(services.clone()));
+
+		// The order of services and actions does not matter
+		Tree reordered = services(service("user", "user.find"), service("math", "math.sub", "math.add"));
+		assertEquals(hash, DescriptorDiff.hash(reordered));
+
+		// NodeIDs are ignored
+		Tree withNodeIDs = services.clone();
+		for (Tree action : withNodeIDs.get(0).get("actions")) {
+			action.put("nodeID", "node1");
+		}
+		assertEquals(hash, DescriptorDiff.hash(withNodeIDs));
+
+		// Changed descriptor
+		assertFalse(hash == DescriptorDiff.hash(services(service("math", "math.add"), service("user", "user.find"))));
+		assertFalse(hash == DescriptorDiff.hash(services(service("math", "math.add", "math.sub"))));
+	}
+
+	@Test
+	public void testCompare() throws Exception {
+		Tree prev = service("math", "math.add", "math.sub");
+		Tree next = service("math", "math.add", "math.mul");
+		LinkedList<String> removed = new LinkedList<>();
+		LinkedList<String> added = new LinkedList<>();
+		DescriptorDiff.compare(prev, next, "actions", removed, added);
+		assertEquals(1, removed.size());
+		assertEquals("math.sub", removed.get(0));
+		assertEquals(1, added.size());
+		assertEquals("math.mul", added.get(0));
+
+		Tree subset = DescriptorDiff.subset(next, "actions", added);
+		assertEquals("math", subset.get("name", ""));
+		assertEquals(1, subset.get("actions").size());
+		assertEquals("math.mul", subset.get("actions").iterator().next().getName());
+	}
+
+	// --- UTILITIES ---
+
+	protected Tree services(Tree... services) {
+		Tree list = new Tree().putList("services");
+		for (Tree service : services) {
+			list.addObject(service);
+		}
+		return list;
+	}
+
+	protected Tree service(String name, String... actions) throws Exception {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"name\":\"").append(name).append("\",\"actions\":{");
+		for (int i = 0; i < actions.length; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append('"').append(actions[i]).append("\":{\"name\":\"").append(actions[i]).append("\"}");
+		}
+		json.append("},\"events\":{}}");
+		return new Tree(json.toString());
+	}
+
+}
\ No newline at end of file
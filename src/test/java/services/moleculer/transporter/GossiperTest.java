@@ -25,6 +25,8 @@
  */
 package services.moleculer.transporter;
 
+import java.util.LinkedHashMap;
+
 import org.junit.Test;
 
 import io.datatree.Tree;
@@ -95,14 +97,14 @@ public class GossiperTest extends TestCase {
 		assertEquals(req.get("online.node2[2]", -1), 2);
 
 		// CPU -> seq + 4
-		tr.nodes.get("node2").updateCpu(5, 4);
+		assertTrue(tr.nodes.get("node2").updateCpu(5, 4));
 
 		req = tr.sendGossipRequest();
 		assertEquals(req.get("online.node2[1]", -1), 5);
 		assertEquals(req.get("online.node2[2]", -1), 4);
 
 		// CPU -> wrong seq + 4
-		tr.nodes.get("node2").updateCpu(4, 3);
+		assertFalse(tr.nodes.get("node2").updateCpu(4, 3));
 
 		req = tr.sendGossipRequest();
 		assertEquals(req.get("online.node2[1]", -1), 5);
@@ -295,6 +297,107 @@ public class GossiperTest extends TestCase {
 		assertEquals(1, tr.getDescriptor().seq);
 	}
 
+	// --- DELTA GOSSIPING ---
+
+	@Test
+	public void testDeltaGossip() throws Exception {
+
+		// Add "node2"
+		NodeDescriptor node2 = createOnlineDescriptorWithoutInfo(false, "node2");
+		tr.nodes.put("node2", node2);
+
+		LinkedHashMap<String, long[]> digest = new LinkedHashMap<>();
+		digest.put("node1", new long[] { 1, 0, 0 });
+		digest.put("node2", new long[] { 1, 0, 0 });
+		Tree full = tr.createGossipRequest(digest, null, 0, false);
+
+		// Disabled by default
+		assertTrue(tr.getDescriptor().info.get("gossipDelta", false));
+		assertSame(full, tr.createGossipRequest("node2", digest, full));
+
+		// Peer without delta support (eg. Node.js node)
+		tr.setGossipDelta(true);
+		assertSame(full, tr.createGossipRequest("node2", digest, full));
+		assertSame(full, tr.createGossipRequest("node2", digest, full));
+		node2.info.put("gossipDelta", true);
+
+		// First round -> full digest
+		Tree req = tr.createGossipRequest("node2", digest, full);
+		assertEquals(1, req.get("round", 0));
+		assertFalse(req.get("delta", false));
+		assertEquals(2, req.get("online").size());
+
+		// Nothing changed
+		req = tr.createGossipRequest("node2", digest, full);
+		assertEquals(2, req.get("round", 0));
+		assertTrue(req.get("delta", false));
+		assertNull(req.get("online"));
+		assertNull(req.get("offline"));
+
+		// CPU of "node2" changed, "node3" is offline
+		LinkedHashMap<String, long[]> next = new LinkedHashMap<>(digest);
+		next.put("node2", new long[] { 1, 1, 5 });
+		next.put("node3", new long[] { 2 });
+		req = tr.createGossipRequest("node2", next, full);
+		assertEquals(1, req.get("online").size());
+		assertEquals(5, req.get("online.node2[2]", 0));
+		assertEquals(2, req.get("offline.node3", 0));
+
+		// "node3" removed
+		next = new LinkedHashMap<>(next);
+		next.remove("node3");
+		req = tr.createGossipRequest("node2", next, full);
+		assertNull(req.get("online"));
+		assertEquals("node3", req.get("removed[0]", ""));
+
+		// Full digest at every 5th round
+		tr.setGossipFullRounds(5);
+		req = tr.createGossipRequest("node2", next, full);
+		assertEquals(5, req.get("round", 0));
+		assertFalse(req.get("delta", false));
+		assertEquals(2, req.get("online").size());
+
+		// Delta request without previous digest -> resync
+		req = createGossipRequest("node3", 1, 0, 0);
+		req.put("round", 2);
+		req.put("delta", true);
+		Tree rsp = tr.processGossipRequest(req);
+		assertTrue(rsp.get("resync", false));
+
+		// Full request ("node3" knows "node1", but doesn't know "node2")
+		req = createGossipRequest("node3", 1, 0, 0);
+		req.get("online").putList("node1").add(1).add(0).add(0);
+		req.put("round", 1);
+		rsp = tr.processGossipRequest(req);
+		assertNull(rsp.get("online.node1"));
+		assertNotNull(rsp.get("online.node2"));
+
+		// Empty delta request (same knowledge)
+		req = createGossipRequest("node3", 1, 0, 0);
+		req.remove("online");
+		req.put("round", 2);
+		req.put("delta", true);
+		rsp = tr.processGossipRequest(req);
+		assertFalse(rsp.get("resync", false));
+		assertNull(rsp.get("online.node1"));
+		assertNotNull(rsp.get("online.node2"));
+
+		// Missing round -> resync
+		req.put("round", 4);
+		rsp = tr.processGossipRequest(req);
+		assertTrue(rsp.get("resync", false));
+
+		// Response with "resync" -> next request is full
+		rsp = new Tree();
+		rsp.put("sender", "node2");
+		rsp.put("ver", ServiceBroker.PROTOCOL_VERSION);
+		rsp.put("resync", true);
+		tr.processGossipResponse(rsp);
+		req = tr.createGossipRequest("node2", next, full);
+		assertEquals(1, req.get("round", 0));
+		assertFalse(req.get("delta", false));
+	}
+
 	// --- GOSSIP RESPONSE PROCESSING ---
 
 	@Test
@@ -0,0 +1,119 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.datatree.Promise;
+import io.datatree.Tree;
+import services.moleculer.serializer.JsonSerializer;
+import services.moleculer.serializer.Serializer;
+
+/**
+ * JMH latency benchmark of the response handling of the TcpTransporter. The
+ * "executorHop" case deserializes the response and completes the Promise in
+ * the executor (the reader thread hands over the packet), the "inline" case
+ * does it directly on the reader thread ("inlineResponseSize" property). The
+ * difference is the cost of the saved context switches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InlineResponseBenchmark {
+
+	// --- COMPONENTS ---
+
+	protected final Serializer serializer = new JsonSerializer();
+	protected final ExecutorService executor = ForkJoinPool.commonPool();
+
+	// --- SMALL RESPONSE PACKET ---
+
+	protected byte[] packet;
+
+	// --- INIT ---
+
+	@Setup
+	public void setup() throws Exception {
+		Tree rsp = new Tree();
+		rsp.put("ver", "3");
+		rsp.put("sender", "node2");
+		rsp.put("id", "node1:123456");
+		rsp.put("success", true);
+		rsp.putMap("data").put("a", 1).put("b", "abc");
+		packet = serializer.write(rsp);
+	}
+
+	// --- BENCHMARKS ---
+
+	@Benchmark
+	public Tree executorHop() throws Exception {
+		Promise promise = new Promise();
+		executor.execute(() -> {
+			complete(promise);
+		});
+		return promise.waitFor();
+	}
+
+	@Benchmark
+	public Tree inline() throws Exception {
+		Promise promise = new Promise();
+		complete(promise);
+		return promise.waitFor();
+	}
+
+	protected void complete(Promise promise) {
+		try {
+			promise.complete(serializer.read(packet).get("data"));
+		} catch (Exception cause) {
+			promise.complete(cause);
+		}
+	}
+
+	// --- RUN BENCHMARK ---
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(InlineResponseBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
\ No newline at end of file
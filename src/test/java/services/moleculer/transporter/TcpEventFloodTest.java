@@ -0,0 +1,129 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.ServiceBroker;
+import services.moleculer.eventbus.Listener;
+import services.moleculer.eventbus.Subscribe;
+import services.moleculer.monitor.ConstantMonitor;
+import services.moleculer.service.Action;
+import services.moleculer.service.Service;
+import services.moleculer.util.ExecutorUtils;
+
+public class TcpEventFloodTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected ThreadPoolExecutor eventExecutor;
+	protected CountDownLatch blocker;
+
+	protected ServiceBroker br1;
+	protected ServiceBroker br2;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testResponsesDuringEventFlood() throws Exception {
+
+		// Saturate the event executor of node1
+		for (int i = 0; i < 100; i++) {
+			br2.broadcast("flood.event", "index", i);
+		}
+		long timeout = System.currentTimeMillis() + 10000;
+		while (ExecutorUtils.getQueueSize(eventExecutor) < 4 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(50);
+		}
+		assertEquals(4, ExecutorUtils.getQueueSize(eventExecutor));
+
+		// Responses must arrive while the event queue is full
+		for (int i = 0; i < 10; i++) {
+			Tree rsp = br1.call("math.add", "a", i, "b", 1).waitFor(5000);
+			assertEquals(i + 1, (int) rsp.asInteger());
+		}
+		assertTrue(ExecutorUtils.getStatistics(eventExecutor).get("droppedTasks", 0L) > 0);
+	}
+
+	// --- SAMPLES ---
+
+	protected final class BlockedListener extends Service {
+
+		@Subscribe("flood.*")
+		public Listener evt = payload -> {
+			blocker.await();
+		};
+
+	}
+
+	protected static final class MathService extends Service {
+
+		public Action add = ctx -> {
+			return ctx.params.get("a", 0) + ctx.params.get("b", 0);
+		};
+
+	}
+
+	// --- UTILITIES ---
+
+	@Override
+	protected void setUp() throws Exception {
+		blocker = new CountDownLatch(1);
+		eventExecutor = ExecutorUtils.newEventThreadPool("event", 1, 4);
+
+		br1 = ServiceBroker.builder().transporter(new TcpTransporter()).monitor(new ConstantMonitor())
+				.eventExecutor(eventExecutor).nodeID("node1").build();
+		br2 = ServiceBroker.builder().transporter(new TcpTransporter()).monitor(new ConstantMonitor())
+				.nodeID("node2").build();
+
+		br1.createService("blocked", new BlockedListener());
+		br2.createService("math", new MathService());
+
+		br1.start();
+		br2.start();
+
+		br1.waitForServices(15000, "math").waitFor();
+		br2.waitForServices(15000, "blocked").waitFor();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		blocker.countDown();
+		if (br1 != null) {
+			br1.stop();
+		}
+		if (br2 != null) {
+			br2.stop();
+		}
+		eventExecutor.shutdownNow();
+	}
+
+}
\ No newline at end of file
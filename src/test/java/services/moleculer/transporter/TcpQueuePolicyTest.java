@@ -0,0 +1,176 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.error.QueueIsFullError;
+import services.moleculer.transporter.tcp.TcpWriter;
+
+public class TcpQueuePolicyTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected TcpTransporter transporter;
+	protected FullWriter writer;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testFailPolicy() throws Exception {
+		transporter.setQueueFullPolicy(TcpTransporter.QUEUE_POLICY_FAIL);
+		try {
+			transporter.publish(Transporter.PACKET_REQUEST, "node2", request());
+			fail();
+		} catch (QueueIsFullError expected) {
+			assertEquals("math.add", expected.getAction());
+			assertTrue(expected.getMessage().contains("Request 'math.add' action"));
+		}
+		try {
+			transporter.publish(Transporter.PACKET_EVENT, "node2", event());
+			fail();
+		} catch (QueueIsFullError expected) {
+			assertNull(expected.getAction());
+			assertTrue(expected.getMessage().contains("Event 'user.created'"));
+		}
+		assertTrue(writer.sent.isEmpty());
+
+		// Control packets are not limited
+		transporter.publish(Transporter.PACKET_PING, "node2", new Tree().put("sender", "node1"));
+		assertEquals(1, writer.sent.size());
+	}
+
+	@Test
+	public void testDropPolicy() throws Exception {
+		transporter.setQueueFullPolicy(TcpTransporter.QUEUE_POLICY_DROP);
+
+		// Events are dropped
+		transporter.publish(Transporter.PACKET_EVENT, "node2", event());
+		transporter.publish(Transporter.PACKET_EVENT, "node2", event());
+		assertEquals(2, transporter.getDroppedEvents());
+		assertTrue(writer.sent.isEmpty());
+
+		// Requests are queued
+		transporter.publish(Transporter.PACKET_REQUEST, "node2", request());
+		assertEquals(1, writer.sent.size());
+		assertEquals(2, transporter.getDroppedEvents());
+	}
+
+	@Test
+	public void testBlockPolicy() throws Exception {
+		transporter.setQueueFullPolicy(TcpTransporter.QUEUE_POLICY_BLOCK);
+		transporter.setMaxBlockTime(10000);
+
+		// Drain the queue from another thread
+		Thread drainer = new Thread(() -> {
+			try {
+				Thread.sleep(300);
+			} catch (InterruptedException interrupt) {
+				return;
+			}
+			writer.drain();
+		});
+		long start = System.currentTimeMillis();
+		drainer.start();
+		transporter.publish(Transporter.PACKET_REQUEST, "node2", request());
+		long duration = System.currentTimeMillis() - start;
+		drainer.join();
+		assertEquals(1, writer.sent.size());
+		assertTrue(duration >= 250);
+		assertTrue(duration < 5000);
+
+		// Timeout
+		writer.full = true;
+		transporter.setMaxBlockTime(200);
+		start = System.currentTimeMillis();
+		try {
+			transporter.publish(Transporter.PACKET_EVENT, "node2", event());
+			fail();
+		} catch (QueueIsFullError expected) {
+		}
+		assertTrue(System.currentTimeMillis() - start >= 150);
+		assertEquals(1, writer.sent.size());
+	}
+
+	// --- UTILITIES ---
+
+	protected static Tree request() {
+		Tree req = new Tree();
+		req.put("sender", "node1");
+		req.put("id", "abc-123");
+		req.put("action", "math.add");
+		req.putMap("params").put("a", 1).put("b", 2);
+		return req;
+	}
+
+	protected static Tree event() {
+		Tree evt = new Tree();
+		evt.put("sender", "node1");
+		evt.put("event", "user.created");
+		return evt;
+	}
+
+	protected static final class FullWriter extends TcpWriter {
+
+		protected volatile boolean full = true;
+		protected final LinkedList<byte[]> sent = new LinkedList<>();
+
+		protected FullWriter(TcpTransporter transporter) {
+			super(transporter);
+		}
+
+		@Override
+		public boolean isFull(String nodeID, int size) {
+			return full;
+		}
+
+		@Override
+		public synchronized void send(String nodeID, byte[] packet) {
+			sent.add(packet);
+		}
+
+		protected void drain() {
+			full = false;
+			signalDrained();
+		}
+
+	}
+
+	// --- SET UP ---
+
+	@Override
+	protected void setUp() throws Exception {
+		transporter = new TcpTransporter();
+		transporter.setMaxQueuedPackets(1);
+		writer = new FullWriter(transporter);
+		transporter.writer = writer;
+	}
+
+}
\ No newline at end of file
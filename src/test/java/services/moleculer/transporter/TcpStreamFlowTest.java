@@ -0,0 +1,133 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.ServiceBroker;
+import services.moleculer.monitor.ConstantMonitor;
+import services.moleculer.service.Action;
+import services.moleculer.service.DefaultServiceRegistry;
+import services.moleculer.service.Service;
+import services.moleculer.stream.PacketStream;
+import services.moleculer.util.ExecutorUtils;
+
+public class TcpStreamFlowTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected ThreadPoolExecutor requestExecutor;
+
+	protected ServiceBroker br1;
+	protected ServiceBroker br2;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testStreamWithSingleRequestThread() throws Exception {
+
+		// The stream is 25 times longer than the window
+		long start = System.currentTimeMillis();
+		Tree rsp = br1.call("stream.buffered", "chunks", 100).waitFor(10000);
+		PacketStream stream = (PacketStream) rsp.asObject();
+		int count = 0;
+		for (byte[] bytes : stream) {
+			assertEquals(100, bytes.length);
+			assertEquals((byte) count, bytes[0]);
+			count++;
+		}
+		assertEquals(100, count);
+
+		// Without stalling until the stream timeout
+		assertTrue(System.currentTimeMillis() - start < 10000);
+
+		// The request thread is still available
+		assertEquals(3, (int) br1.call("stream.add", "a", 1, "b", 2).waitFor(5000).asInteger());
+	}
+
+	// --- SAMPLES ---
+
+	protected static final class StreamService extends Service {
+
+		public Action buffered = ctx -> {
+
+			// All chunks are buffered before the response is sent
+			int chunks = ctx.params.get("chunks", 0);
+			PacketStream stream = new PacketStream();
+			for (int i = 0; i < chunks; i++) {
+				byte[] bytes = new byte[100];
+				bytes[0] = (byte) i;
+				stream.sendData(bytes);
+			}
+			stream.sendClose();
+			return stream;
+		};
+
+		public Action add = ctx -> {
+			return ctx.params.get("a", 0) + ctx.params.get("b", 0);
+		};
+
+	}
+
+	// --- UTILITIES ---
+
+	@Override
+	protected void setUp() throws Exception {
+		requestExecutor = ExecutorUtils.newBoundedThreadPool("request", 1, 100, true);
+
+		DefaultServiceRegistry registry = new DefaultServiceRegistry();
+		registry.setStreamWindow(4);
+		registry.setStreamTimeout(30000);
+
+		br1 = ServiceBroker.builder().transporter(new TcpTransporter()).monitor(new ConstantMonitor())
+				.nodeID("node1").build();
+		br2 = ServiceBroker.builder().transporter(new TcpTransporter()).monitor(new ConstantMonitor())
+				.registry(registry).requestExecutor(requestExecutor).nodeID("node2").build();
+
+		br2.createService("stream", new StreamService());
+
+		br1.start();
+		br2.start();
+
+		br1.waitForServices(15000, "stream").waitFor();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (br1 != null) {
+			br1.stop();
+		}
+		if (br2 != null) {
+			br2.stop();
+		}
+		requestExecutor.shutdownNow();
+	}
+
+}
\ No newline at end of file
@@ -41,6 +41,7 @@ import services.moleculer.service.Action;
 import services.moleculer.service.LocalActionEndpoint;
 import services.moleculer.service.RemoteActionEndpoint;
 import services.moleculer.service.Service;
+import services.moleculer.stream.PacketStream;
 
 public abstract class TransporterTest extends TestCase {
 
@@ -186,6 +187,17 @@ public abstract class TransporterTest extends TestCase {
 		assertEquals(1, g2_a.payloads.size() + g2_b.payloads.size());
 		g2_a.payloads.clear();
 		g2_b.payloads.clear();
+
+		// Streamed response
+		Tree rsp = br2.call("math.stream", "chunks", 50).waitFor();
+		PacketStream stream = (PacketStream) rsp.asObject();
+		int count = 0;
+		for (byte[] bytes : stream) {
+			assertEquals(1000, bytes.length);
+			assertEquals((byte) count, bytes[0]);
+			count++;
+		}
+		assertEquals(50, count);
 	}
 
 	private void checkPing(ServiceBroker broker, String nodeID) throws Exception {
@@ -250,6 +262,20 @@ public abstract class TransporterTest extends TestCase {
 			return ctx.params.get("a", 0) + ctx.params.get("b", 0);
 		};
 
+		public Action stream = ctx -> {
+			int chunks = ctx.params.get("chunks", 0);
+			PacketStream stream = new PacketStream();
+			new Thread(() -> {
+				for (int i = 0; i < chunks; i++) {
+					byte[] bytes = new byte[1000];
+					bytes[0] = (byte) i;
+					stream.sendData(bytes);
+				}
+				stream.sendClose();
+			}).start();
+			return stream;
+		};
+
 	}
 
 	// --- UTILITIES ---
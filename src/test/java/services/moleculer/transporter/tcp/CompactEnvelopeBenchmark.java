@@ -0,0 +1,134 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+import static services.moleculer.ServiceBroker.PROTOCOL_VERSION;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.datatree.Tree;
+import services.moleculer.serializer.JsonSerializer;
+import services.moleculer.serializer.Serializer;
+
+/**
+ * JMH benchmark of the decoding of an incoming request (deserialization and
+ * the reading of the routing fields, like the ServiceRegistry does), with the
+ * plain JSON packet and with the {@link CompactEnvelope}. The body of the
+ * packet is allocated by the Serializer in both cases, so the remaining
+ * difference is the cost of the envelope fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CompactEnvelopeBenchmark {
+
+	// --- PARAMETERS ---
+
+	@Param({ "false", "true" })
+	public boolean compact;
+
+	// --- COMPONENTS ---
+
+	protected Serializer serializer;
+	protected CompactEnvelope envelope;
+	protected StringDictionary dictionary;
+
+	// --- PACKET ---
+
+	protected byte[] bytes;
+
+	// --- INIT ---
+
+	@Setup
+	public void setup() throws Exception {
+		serializer = new JsonSerializer();
+		envelope = new CompactEnvelope(serializer);
+		dictionary = StringDictionary.EMPTY
+				.append(new Tree("{\"services\":[{\"name\":\"math\",\"actions\":{\"math.add\":{\"name\":\"math.add\"}}}]}"));
+
+		Tree req = new Tree();
+		req.put("ver", PROTOCOL_VERSION);
+		req.put("sender", "node1");
+		req.put("id", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		req.put("action", "math.add");
+		req.putMap("params").put("a", 1).put("b", 2);
+		req.putMap("meta");
+		req.put("timeout", 10000L);
+		req.put("level", 1);
+		req.put("requestID", "6c3fd20a-5d4e-4c2e-a0a7-8d5d0a1e3b11");
+		if (compact) {
+			bytes = envelope.write(req, "node1", 1, false, 0, dictionary);
+		} else {
+			bytes = serializer.write(req);
+		}
+		System.out.println((compact ? "compact" : "json") + ": " + bytes.length + " bytes");
+	}
+
+	// --- BENCHMARKS ---
+
+	@Benchmark
+	public void decodeRequest(Blackhole blackhole) throws Exception {
+		Tree message;
+		if (compact) {
+			message = envelope.read(bytes, index -> "node1", dictionary);
+		} else {
+			message = serializer.read(bytes);
+		}
+		blackhole.consume(message.get("ver", "unknown"));
+		blackhole.consume(message.get("sender", ""));
+		blackhole.consume(message.get("id", ""));
+		blackhole.consume(message.get("action", ""));
+		blackhole.consume(message.get("timeout", 0L));
+		blackhole.consume(message.get("level", 1));
+		blackhole.consume(message.get("params"));
+		blackhole.consume(message.get("meta"));
+	}
+
+	// --- RUN BENCHMARK ---
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(CompactEnvelopeBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
\ No newline at end of file
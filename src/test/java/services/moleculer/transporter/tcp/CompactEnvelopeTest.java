@@ -0,0 +1,183 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+import static services.moleculer.ServiceBroker.PROTOCOL_VERSION;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.serializer.JsonSerializer;
+import services.moleculer.serializer.Serializer;
+
+public class CompactEnvelopeTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected Serializer serializer = new JsonSerializer();
+	protected CompactEnvelope envelope = new CompactEnvelope(serializer);
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testRequest() throws Exception {
+		Tree req = new Tree();
+		req.put("ver", PROTOCOL_VERSION);
+		req.put("sender", "node1");
+		req.put("id", "abc-123");
+		req.put("action", "math.add");
+		req.putMap("params").put("a", 1).put("b", 2);
+		req.put("timeout", 10000L);
+		req.put("level", 2);
+		req.put("parentID", "xyz");
+		req.put("requestID", "abc-123");
+
+		// Sender by node index
+		byte[] bytes = envelope.write(req, "node1", 42, false, 0);
+		assertTrue(bytes.length < serializer.write(req).length);
+		Tree msg = envelope.read(bytes, index -> index == 42 ? "node1" : null);
+		assertEquals(PROTOCOL_VERSION, msg.get("ver", ""));
+		assertEquals("node1", msg.get("sender", ""));
+		assertEquals("abc-123", msg.get("id", ""));
+		assertEquals("math.add", msg.get("action", ""));
+		assertEquals(3, msg.get("params.a", 0) + msg.get("params.b", 0));
+		assertEquals(10000L, msg.get("timeout", 0L));
+		assertEquals(2, msg.get("level", 0));
+		assertEquals("xyz", msg.get("parentID", ""));
+		assertEquals("abc-123", msg.get("requestID", ""));
+		assertNull(msg.get("event"));
+
+		// Unknown node index
+		try {
+			envelope.read(bytes, index -> null);
+			fail();
+		} catch (Exception expected) {
+		}
+
+		// Sender by name
+		bytes = envelope.write(req, "node1", 42, true, 6);
+		byte[] copy = new byte[bytes.length - 6];
+		System.arraycopy(bytes, 6, copy, 0, copy.length);
+		msg = envelope.read(copy, index -> null);
+		assertEquals("node1", msg.get("sender", ""));
+		assertEquals("math.add", msg.get("action", ""));
+	}
+
+	@Test
+	public void testResponseAndEvent() throws Exception {
+		Tree rsp = new Tree();
+		rsp.put("ver", PROTOCOL_VERSION);
+		rsp.put("sender", "node2");
+		rsp.put("id", "abc-123");
+		rsp.put("success", false);
+		rsp.putMap("error").put("message", "failed");
+		Tree msg = envelope.read(envelope.write(rsp, "node2", 7, false, 0), index -> "node2");
+		assertFalse(msg.get("success", true));
+		assertEquals("failed", msg.get("error.message", ""));
+		assertNull(msg.get("action"));
+
+		Tree evt = new Tree();
+		evt.put("ver", PROTOCOL_VERSION);
+		evt.put("sender", "node2");
+		evt.put("event", "user.created");
+		evt.put("broadcast", true);
+		msg = envelope.read(envelope.write(evt, "node2", 7, false, 0), index -> "node2");
+		assertEquals("user.created", msg.get("event", ""));
+		assertTrue(msg.get("broadcast", false));
+		assertNull(msg.get("data"));
+
+		// Unknown types and foreign senders are stored in the body
+		Tree other = new Tree();
+		other.put("sender", "node3");
+		other.put("level", "high");
+		msg = envelope.read(envelope.write(other, "node2", 7, false, 0), index -> "node2");
+		assertEquals("node3", msg.get("sender", ""));
+		assertEquals("high", msg.get("level", ""));
+	}
+
+	@Test
+	public void testDictionary() throws Exception {
+		Tree info = new Tree("{\"services\":[{\"name\":\"math\",\"actions\":{\"math.add\":{\"name\":\"math.add\"},"
+				+ "\"math.sub\":{\"name\":\"math.sub\"}},\"events\":{\"user.created\":{\"name\":\"user.created\"}}}]}");
+		StringDictionary local = StringDictionary.EMPTY.append(info);
+		assertEquals(3, local.size());
+		assertSame(local, local.append(info));
+		assertEquals(0, local.indexOf("math.add"));
+		assertEquals(-1, local.indexOf("math.mul"));
+
+		// Append-only
+		Tree info2 = new Tree("{\"services\":[{\"name\":\"math\",\"actions\":{\"math.mul\":{\"name\":\"math.mul\"},"
+				+ "\"math.add\":{\"name\":\"math.add\"}}}]}");
+		StringDictionary local2 = local.append(info2);
+		assertEquals(4, local2.size());
+		assertEquals(0, local2.indexOf("math.add"));
+		assertEquals(3, local2.indexOf("math.mul"));
+
+		// Published dictionary (as received by the peer)
+		local2.addTo(info2);
+		StringDictionary remote = new StringDictionary(info2.get("dictionary"));
+		assertEquals(4, remote.size());
+		assertEquals("math.mul", remote.get(3));
+		assertTrue(remote.matches(info2.get("dictionary")));
+
+		// Restarted peer with a same-sized dictionary in a different order
+		Tree restarted = new Tree().putList("dictionary");
+		restarted.add("math.mul").add("math.add").add("math.sub").add("user.created");
+		assertFalse(remote.matches(restarted));
+
+		// Action name as reference
+		Tree req = new Tree();
+		req.put("sender", "node1");
+		req.put("id", "abc-123");
+		req.put("action", new String("math.mul"));
+		byte[] ref = envelope.write(req, "node1", 42, false, 0, remote);
+		byte[] text = envelope.write(req, "node1", 42, false, 0, null);
+		assertTrue(ref.length < text.length);
+		Tree msg = envelope.read(ref, index -> "node1", local2);
+		assertSame(local2.get(3), msg.get("action", ""));
+
+		// Canonical instance of the name (sent as text)
+		msg = envelope.read(text, index -> "node1", local2);
+		assertSame(local2.get(3), msg.get("action", ""));
+
+		// Unknown reference (eg. the receiver restarted)
+		try {
+			envelope.read(ref, index -> "node1", local);
+			fail();
+		} catch (Exception expected) {
+		}
+
+		// Event name as reference
+		Tree evt = new Tree();
+		evt.put("sender", "node1");
+		evt.put("event", "user.created");
+		msg = envelope.read(envelope.write(evt, "node1", 42, false, 0, remote), index -> "node1", local2);
+		assertEquals("user.created", msg.get("event", ""));
+		assertNull(msg.get("action"));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class PhiAccrualDetectorTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testPhi() throws Exception {
+		PhiAccrualDetector d = new PhiAccrualDetector(10);
+		assertEquals(0d, d.phi(1000, 100, 0), 0d);
+
+		// Regular signals (every second)
+		long now = 1000;
+		for (int i = 0; i < 20; i++) {
+			d.heartbeat(now);
+			now += 1000;
+		}
+		now -= 1000;
+		assertEquals(10, d.getSamples());
+		assertEquals(now, d.getLastArrival());
+
+		// Duplicated signal
+		d.heartbeat(now);
+		assertEquals(10, d.getSamples());
+
+		// Phi increases over time
+		double phi1 = d.phi(now + 500, 100, 0);
+		double phi2 = d.phi(now + 1000, 100, 0);
+		double phi3 = d.phi(now + 1500, 100, 0);
+		double phi4 = d.phi(now + 3000, 100, 0);
+		assertTrue(phi1 < 0.1d);
+		assertTrue(phi1 < phi2);
+		assertTrue(phi2 < phi3);
+		assertTrue(phi3 > 3);
+		assertTrue(phi4 > 8);
+
+		// Acceptable pause
+		assertTrue(d.phi(now + 1500, 100, 1000) < 1);
+
+		// Higher deviation -> lower suspicion
+		assertTrue(d.phi(now + 1500, 1000, 0) < phi3);
+
+		// Restart measurement
+		d.reset(now + 10000);
+		assertTrue(d.phi(now + 10500, 100, 0) < 0.1d);
+		assertEquals(10, d.getSamples());
+	}
+
+	@Test
+	public void testJitter() throws Exception {
+		PhiAccrualDetector d = new PhiAccrualDetector(100);
+		long now = 1000;
+		for (int i = 0; i < 100; i++) {
+			d.heartbeat(now);
+			now += i % 2 == 0 ? 500 : 1500;
+		}
+		long last = d.getLastArrival();
+
+		// Irregular signals -> higher deviation -> slower suspicion
+		assertTrue(d.phi(last + 1500, 100, 0) < 3);
+		assertTrue(d.phi(last + 10000, 100, 0) > 8);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class SendBufferTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testLimits() throws Exception {
+		SendBuffer buffer = new SendBuffer("node2", "localhost", 1234, false);
+
+		// Empty queue accepts any packet
+		assertFalse(buffer.isFull(1000, 100, 2));
+
+		assertTrue(buffer.append(new byte[40]));
+		assertEquals(1, buffer.getQueuedPackets());
+		assertEquals(40, buffer.getQueuedBytes());
+		assertFalse(buffer.isFull(60, 100, 2));
+		assertTrue(buffer.isFull(61, 100, 2));
+		assertFalse(buffer.isFull(61, 0, 0));
+
+		assertTrue(buffer.append(new byte[10]));
+		assertTrue(buffer.isFull(1, 100, 2));
+		assertFalse(buffer.isFull(1, 100, 3));
+
+		// Unsent packets
+		assertEquals(2, buffer.getUnsentPackets().size());
+		assertEquals(0, buffer.getQueuedPackets());
+		assertEquals(0, buffer.getQueuedBytes());
+
+		// Closed buffer
+		buffer.close();
+		assertFalse(buffer.append(new byte[10]));
+		assertEquals(0, buffer.getQueuedPackets());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter.tcp;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import services.moleculer.transporter.TcpTransporter;
+
+public class TcpWriterTest extends TestCase {
+
+	// --- PACKET TYPES ---
+
+	protected static final int EVENT = 1;
+	protected static final int REQUEST = 2;
+	protected static final int RESPONSE = 3;
+	protected static final int PING = 4;
+	protected static final int GOSSIP_REQ = 6;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testSingleConnection() throws Exception {
+		TcpWriter writer = createWriter(1, 1024, TcpTransporter.CHANNEL_SELECTION_CLASS);
+		assertEquals(0, writer.selectConnection(packet(EVENT, 100)));
+		assertEquals(0, writer.selectConnection(packet(REQUEST, 100)));
+		assertEquals(0, writer.selectConnection(packet(RESPONSE, 2000)));
+	}
+
+	@Test
+	public void testTwoConnections() throws Exception {
+		TcpWriter writer = createWriter(2, 1024, TcpTransporter.CHANNEL_SELECTION_CLASS);
+		assertEquals(1, writer.selectConnection(packet(EVENT, 100)));
+		assertEquals(1, writer.selectConnection(packet(EVENT, 2000)));
+		assertEquals(0, writer.selectConnection(packet(REQUEST, 100)));
+		assertEquals(0, writer.selectConnection(packet(RESPONSE, 100)));
+		assertEquals(0, writer.selectConnection(packet(PING, 100)));
+	}
+
+	@Test
+	public void testDefaultLayout() throws Exception {
+
+		// Documented setup (3 connections, 64 KB large packet limit)
+		TcpWriter writer = createWriter(3, 65536, TcpTransporter.CHANNEL_SELECTION_CLASS);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, writer.selectConnection(packet(RESPONSE, 100)));
+			assertEquals(0, writer.selectConnection(packet(PING, 100)));
+			assertEquals(0, writer.selectConnection(packet(GOSSIP_REQ, 100)));
+			assertEquals(1, writer.selectConnection(packet(EVENT, 100)));
+			assertEquals(2, writer.selectConnection(packet(REQUEST, 100)));
+
+			// Large events keep their order (event connection)
+			assertEquals(1, writer.selectConnection(packet(EVENT, 70000)));
+
+			// Large responses do not block the small ones
+			assertEquals(2, writer.selectConnection(packet(RESPONSE, 70000)));
+			assertEquals(2, writer.selectConnection(packet(REQUEST, 70000)));
+		}
+	}
+
+	@Test
+	public void testLargePacketConnection() throws Exception {
+		TcpWriter writer = createWriter(5, 1024, TcpTransporter.CHANNEL_SELECTION_CLASS);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, writer.selectConnection(packet(RESPONSE, 100)));
+			assertEquals(1, writer.selectConnection(packet(EVENT, 100)));
+			assertEquals(1, writer.selectConnection(packet(EVENT, 2000)));
+			int index = writer.selectConnection(packet(REQUEST, 100));
+			assertTrue(index == 2 || index == 3);
+			assertEquals(4, writer.selectConnection(packet(REQUEST, 2000)));
+			assertEquals(4, writer.selectConnection(packet(RESPONSE, 2000)));
+		}
+	}
+
+	@Test
+	public void testRoundRobin() throws Exception {
+		TcpWriter writer = createWriter(4, 0, TcpTransporter.CHANNEL_SELECTION_ROUND_ROBIN);
+		boolean[] used = new boolean[4];
+		for (int i = 0; i < 12; i++) {
+			assertEquals(1, writer.selectConnection(packet(EVENT, 100)));
+			used[writer.selectConnection(packet(REQUEST, 100))] = true;
+			used[writer.selectConnection(packet(RESPONSE, 100))] = true;
+		}
+		assertTrue(used[0]);
+		assertFalse(used[1]);
+		assertTrue(used[2]);
+		assertTrue(used[3]);
+	}
+
+	// --- UTILITIES ---
+
+	protected TcpWriter createWriter(int connectionsPerNode, int largePacketSize, String channelSelection) {
+		TcpTransporter transporter = new TcpTransporter();
+		transporter.setConnectionsPerNode(connectionsPerNode);
+		transporter.setLargePacketSize(largePacketSize);
+		transporter.setChannelSelection(channelSelection);
+		return new TcpWriter(transporter);
+	}
+
+	protected static byte[] packet(int type, int length) {
+		byte[] packet = new byte[length];
+		packet[5] = (byte) type;
+		return packet;
+	}
+
+}
\ No newline at end of file
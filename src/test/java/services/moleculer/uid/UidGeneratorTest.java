@@ -37,6 +37,25 @@ public class UidGeneratorTest extends TestCase {
 	public void testUidGenerators() throws Exception {
 		testGenerator(new IncrementalUidGenerator());
 		testGenerator(new StandardUidGenerator());
+		testGenerator(new CompactUidGenerator());
+	}
+
+	@Test
+	public void testNumericUIDs() throws Exception {
+		CompactUidGenerator gen = new CompactUidGenerator();
+		assertTrue(gen.isNumeric());
+		long prev = 0;
+		for (int i = 0; i < 500; i++) {
+			String uid = gen.nextUID();
+			assertEquals(32, uid.length());
+			long num = gen.toNumericUID(uid);
+			assertTrue(num > prev);
+			assertEquals(uid, gen.toUID(num));
+			prev = num;
+		}
+		assertEquals(-1, gen.toNumericUID("abc"));
+		assertEquals(-1, gen.toNumericUID(new CompactUidGenerator().nextUID()));
+		assertEquals(-1, new IncrementalUidGenerator().toNumericUID("a:1"));
 	}
 
 	protected void testGenerator(UidGenerator gen) throws Exception {
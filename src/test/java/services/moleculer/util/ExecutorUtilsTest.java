@@ -0,0 +1,193 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.config.ServiceBrokerConfig;
+
+public class ExecutorUtilsTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testBoundedThreadPool() throws Exception {
+		ThreadPoolExecutor pool = ExecutorUtils.newBoundedThreadPool("test", 1, 2, true);
+		try {
+			CountDownLatch blocker = new CountDownLatch(1);
+			CountDownLatch started = new CountDownLatch(1);
+			pool.execute(() -> {
+				started.countDown();
+				try {
+					blocker.await();
+				} catch (InterruptedException ignored) {
+				}
+			});
+			started.await();
+			pool.execute(() -> {
+			});
+			pool.execute(() -> {
+			});
+			assertEquals(2, ExecutorUtils.getQueueSize(pool));
+
+			// Queue is full -> executed by the caller
+			Thread caller = Thread.currentThread();
+			Thread[] executor = new Thread[1];
+			pool.execute(() -> {
+				executor[0] = Thread.currentThread();
+			});
+			assertTrue(executor[0] == caller);
+
+			Tree stats = ExecutorUtils.getStatistics(pool);
+			assertEquals(2, stats.get("queueSize", 0));
+			assertEquals(2, stats.get("queueCapacity", 0));
+			assertEquals(1, stats.get("activeCount", 0));
+
+			blocker.countDown();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testDroppedTasks() throws Exception {
+		ThreadPoolExecutor pool = ExecutorUtils.newEventThreadPool("test", 1, 2);
+		try {
+			CountDownLatch blocker = new CountDownLatch(1);
+			CountDownLatch started = new CountDownLatch(1);
+			pool.execute(() -> {
+				started.countDown();
+				try {
+					blocker.await();
+				} catch (InterruptedException ignored) {
+				}
+			});
+			started.await();
+			pool.execute(() -> {
+			});
+			pool.execute(() -> {
+			});
+
+			// Queue is full -> dropped, the caller is not blocked
+			Thread[] executor = new Thread[1];
+			for (int i = 0; i < 3; i++) {
+				pool.execute(() -> {
+					executor[0] = Thread.currentThread();
+				});
+			}
+			assertNull(executor[0]);
+
+			Tree stats = ExecutorUtils.getStatistics(pool);
+			assertEquals(2, stats.get("queueSize", 0));
+			assertEquals(3, stats.get("droppedTasks", 0));
+
+			blocker.countDown();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testRejectedTasks() throws Exception {
+		ThreadPoolExecutor pool = ExecutorUtils.newBoundedThreadPool("test", 1, 1, false);
+		try {
+			CountDownLatch blocker = new CountDownLatch(1);
+			CountDownLatch started = new CountDownLatch(1);
+			pool.execute(() -> {
+				started.countDown();
+				try {
+					blocker.await();
+				} catch (InterruptedException ignored) {
+				}
+			});
+			started.await();
+			pool.execute(() -> {
+			});
+
+			// Queue is full -> rejected (the submitter must answer it)
+			try {
+				pool.execute(() -> {
+				});
+				fail();
+			} catch (RejectedExecutionException rejected) {
+				// Ok
+			}
+			assertNull(ExecutorUtils.getStatistics(pool).get("droppedTasks"));
+
+			blocker.countDown();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSubsystemExecutors() throws Exception {
+		ServiceBrokerConfig cfg = new ServiceBrokerConfig();
+		ExecutorService common = cfg.getExecutor();
+		assertTrue(common == cfg.getTransporterExecutor());
+		assertTrue(common == cfg.getRequestExecutor());
+		assertTrue(common == cfg.getEventExecutor());
+		assertTrue(common == cfg.getResponseExecutor());
+
+		ThreadPoolExecutor io = ExecutorUtils.newBoundedThreadPool("io", 1, 10);
+		ThreadPoolExecutor events = ExecutorUtils.newEventThreadPool("event", 1, 10);
+		try {
+			cfg.setTransporterExecutor(io);
+			cfg.setEventExecutor(events);
+			assertTrue(io == cfg.getTransporterExecutor());
+			assertTrue(io == cfg.getResponseExecutor());
+			assertTrue(events == cfg.getEventExecutor());
+			assertTrue(common == cfg.getRequestExecutor());
+		} finally {
+			io.shutdownNow();
+			events.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testVirtualThreadDetection() throws Exception {
+		assertFalse(ExecutorUtils.isVirtualThread());
+		ExecutorService virtual = ExecutorUtils.newVirtualThreadPerTaskExecutor();
+		if (virtual == null) {
+
+			// Java 20 or older
+			return;
+		}
+		try {
+			assertTrue(virtual.submit(() -> ExecutorUtils.isVirtualThread()).get());
+		} finally {
+			virtual.shutdown();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.util;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+
+public class PartitionedExecutorTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testOrderPerPartition() throws Exception {
+		PartitionedExecutor executor = new PartitionedExecutor(4, 16, null);
+		try {
+			int senders = 8;
+			int events = 500;
+			List<List<Integer>> received = new LinkedList<>();
+			CountDownLatch latch = new CountDownLatch(senders * events);
+			for (int s = 0; s < senders; s++) {
+				received.add(new LinkedList<>());
+			}
+			for (int i = 0; i < events; i++) {
+				for (int s = 0; s < senders; s++) {
+					List<Integer> list = received.get(s);
+					int seq = i;
+					executor.execute("node" + s, "test.event", null, () -> {
+						list.add(seq);
+						latch.countDown();
+					});
+				}
+			}
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			for (List<Integer> list : received) {
+				assertEquals(events, list.size());
+				int prev = -1;
+				for (Integer seq : list) {
+					assertEquals(prev + 1, seq.intValue());
+					prev = seq;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFullLane() throws Exception {
+		PartitionedExecutor executor = new PartitionedExecutor(1, 1, null);
+		executor.setMaxWait(100);
+		CountDownLatch blocker = new CountDownLatch(1);
+		try {
+			CountDownLatch started = new CountDownLatch(1);
+			executor.execute(1, () -> {
+				started.countDown();
+				try {
+					blocker.await();
+				} catch (InterruptedException ignored) {
+				}
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			executor.execute(1, () -> {
+			});
+
+			// Lane is full -> the submitter waits "maxWait" milliseconds, then
+			// the task is dropped
+			long start = System.currentTimeMillis();
+			executor.execute(1, () -> {
+			});
+			long duration = System.currentTimeMillis() - start;
+			assertTrue(duration >= 90 && duration < 2000);
+			assertEquals(1, executor.getDropped());
+			assertEquals(1, ExecutorUtils.getStatistics(executor).get("droppedTasks", 0L));
+		} finally {
+			blocker.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testKeyPath() throws Exception {
+		PartitionedExecutor executor = new PartitionedExecutor(8, 16, "orderId");
+		try {
+			AtomicReference<Thread> t1 = new AtomicReference<>();
+			AtomicReference<Thread> t2 = new AtomicReference<>();
+			AtomicReference<Thread> nested = new AtomicReference<>();
+			CountDownLatch latch = new CountDownLatch(2);
+
+			// Same key, different senders and events -> same lane
+			Tree p1 = new Tree().put("orderId", 123);
+			Tree p2 = new Tree().put("orderId", 123);
+			executor.execute("node1", "order.created", p1, () -> {
+				t1.set(Thread.currentThread());
+				latch.countDown();
+			});
+			executor.execute("node2", "order.paid", p2, () -> {
+				t2.set(Thread.currentThread());
+
+				// Nested execution runs in the current lane
+				executor.execute("node3", "other", null, () -> {
+					nested.set(Thread.currentThread());
+				});
+				latch.countDown();
+			});
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertTrue(t1.get() == t2.get());
+			assertTrue(t2.get() == nested.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
\ No newline at end of file